@@ -6,7 +6,6 @@ package com.mopub.mobileads;
 
 import android.content.Context;
 import android.graphics.Rect;
-import android.os.Handler;
 import android.os.SystemClock;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -14,6 +13,7 @@ import android.view.View;
 import android.view.ViewTreeObserver;
 
 import com.mopub.common.Preconditions;
+import com.mopub.common.VisibilityEngine;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.common.util.Dips;
@@ -21,18 +21,15 @@ import com.mopub.common.util.Views;
 
 import java.lang.ref.WeakReference;
 
-import static android.view.ViewTreeObserver.OnPreDrawListener;
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 
 /**
  * Tracks inline views to determine when they become visible, where visibility is determined by
  * whether a minimum number of dips have been visible for a minimum duration, where both values are
- * configured by the AdServer via headers.
+ * configured by the AdServer via headers. The checks are run by the {@link VisibilityEngine} of the
+ * window the view is in.
  */
 class InlineVisibilityTracker {
-    // Time interval to use for throttling visibility checks.
-    private static final int VISIBILITY_THROTTLE_MILLIS = 100;
-
     /**
      * Callback when visibility conditions are satisfied.
      */
@@ -40,9 +37,14 @@ class InlineVisibilityTracker {
         void onVisibilityChanged();
     }
 
-    @NonNull @VisibleForTesting final OnPreDrawListener mOnPreDrawListener;
+    @NonNull @VisibleForTesting final VisibilityEngine.Client mVisibilityClient;
     @NonNull @VisibleForTesting WeakReference<ViewTreeObserver> mWeakViewTreeObserver;
 
+    /**
+     * Engine that runs the visibility checks for the window the banner is in.
+     */
+    @NonNull private VisibilityEngine mVisibilityEngine;
+
     /**
      * Banner view that is being tracked.
      */
@@ -68,11 +70,6 @@ class InlineVisibilityTracker {
      */
     @NonNull private final BannerVisibilityRunnable mVisibilityRunnable;
 
-    /**
-     * Handler for visibility.
-     */
-    @NonNull private final Handler mVisibilityHandler;
-
     /**
      * Whether the visibility runnable is scheduled.
      */
@@ -96,18 +93,17 @@ class InlineVisibilityTracker {
         mTrackedView = trackedView;
 
         mVisibilityChecker = new BannerVisibilityChecker(minVisibleDips, minVisibleMillis);
-        mVisibilityHandler = new Handler();
         mVisibilityRunnable = new BannerVisibilityRunnable();
 
-        mOnPreDrawListener = new OnPreDrawListener() {
+        mVisibilityClient = new VisibilityEngine.Client() {
             @Override
-            public boolean onPreDraw() {
-                scheduleVisibilityCheck();
-                return true;
+            public void onVisibilityCheck() {
+                mVisibilityRunnable.run();
             }
         };
 
         mWeakViewTreeObserver = new WeakReference<ViewTreeObserver>(null);
+        mVisibilityEngine = VisibilityEngine.attach(null, mVisibilityClient);
         setViewTreeObserver(context, mTrackedView);
     }
 
@@ -131,7 +127,8 @@ class InlineVisibilityTracker {
         }
 
         mWeakViewTreeObserver = new WeakReference<>(viewTreeObserver);
-        viewTreeObserver.addOnPreDrawListener(mOnPreDrawListener);
+        mVisibilityEngine.detach(mVisibilityClient);
+        mVisibilityEngine = VisibilityEngine.attach(viewTreeObserver, mVisibilityClient);
     }
 
     @Nullable
@@ -150,12 +147,8 @@ class InlineVisibilityTracker {
      * Destroy the visibility tracker, preventing it from future use.
      */
     void destroy() {
-        mVisibilityHandler.removeMessages(0);
         mIsVisibilityScheduled = false;
-        final ViewTreeObserver viewTreeObserver = mWeakViewTreeObserver.get();
-        if (viewTreeObserver != null && viewTreeObserver.isAlive()) {
-            viewTreeObserver.removeOnPreDrawListener(mOnPreDrawListener);
-        }
+        mVisibilityEngine.detach(mVisibilityClient);
         mWeakViewTreeObserver.clear();
         mInlineVisibilityTrackerListener = null;
     }
@@ -168,7 +161,7 @@ class InlineVisibilityTracker {
         }
 
         mIsVisibilityScheduled = true;
-        mVisibilityHandler.postDelayed(mVisibilityRunnable, VISIBILITY_THROTTLE_MILLIS);
+        mVisibilityEngine.scheduleCheck(mVisibilityClient);
     }
 
     @NonNull
@@ -178,13 +171,6 @@ class InlineVisibilityTracker {
         return mVisibilityChecker;
     }
 
-    @NonNull
-    @Deprecated
-    @VisibleForTesting
-    Handler getVisibilityHandler() {
-        return mVisibilityHandler;
-    }
-
     @Deprecated
     @VisibleForTesting
     boolean isVisibilityScheduled() {
@@ -54,7 +54,7 @@ public class AdapterConfigurationManager implements AdapterConfigurationsInitial
         Preconditions.checkNotNull(networkMediationConfigurations);
         Preconditions.checkNotNull(moPubRequestOptions);
 
-        AsyncTasks.safeExecuteOnExecutor(
+        AsyncTasks.safeExecuteOnExecutor(AsyncTasks.Lane.CPU,
                 new AdapterConfigurationsInitializationAsyncTask(context.getApplicationContext(),
                         adapterConfigurationClasses, networkMediationConfigurations,
                         moPubRequestOptions, this));
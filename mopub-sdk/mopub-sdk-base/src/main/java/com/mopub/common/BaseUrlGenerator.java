@@ -14,9 +14,14 @@ import android.view.WindowInsets;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.mopub.network.MoPubRequestUtils;
 import com.mopub.network.Networking;
 import com.mopub.network.PlayServicesUrlRewriter;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 public abstract class BaseUrlGenerator {
 
     /**
@@ -119,6 +124,9 @@ public abstract class BaseUrlGenerator {
     private static final String WRAPPER_VERSION = "w_ver";
 
     private StringBuilder mStringBuilder;
+    private Map<String, String> mParams;
+    private String mGeneratedUrl;
+    private Map<String, String> mGeneratedParams;
     private boolean mFirstParam;
     private static AppEngineInfo mAppEngineInfo = null;
     private static String sWrapperVersion;
@@ -128,11 +136,30 @@ public abstract class BaseUrlGenerator {
     protected void initUrlString(String serverHostname, String handlerType) {
         mStringBuilder = new StringBuilder(Networking.getScheme()).append("://")
                 .append(serverHostname).append(handlerType);
+        mParams = new HashMap<>();
         mFirstParam = true;
     }
 
     protected String getFinalUrlString() {
-        return mStringBuilder.toString();
+        mGeneratedUrl = mStringBuilder.toString();
+        mGeneratedParams = Collections.unmodifiableMap(mParams);
+        return mGeneratedUrl;
+    }
+
+    /**
+     * Returns the unencoded query parameters of the url this generator built last, so the POST
+     * body of a MoPub request can be built from them without parsing the url again. Repeated keys
+     * are joined the same way {@link MoPubRequestUtils#getQueryParamMap} joins them.
+     *
+     * @param url A url from {@link #generateUrlString(String)}.
+     * @return The parameters, or null if this generator did not build the url last.
+     */
+    @Nullable
+    public Map<String, String> getGeneratedParams(@Nullable final String url) {
+        if (mGeneratedUrl == null || !mGeneratedUrl.equals(url)) {
+            return null;
+        }
+        return mGeneratedParams;
     }
 
     protected void addParam(String key, String value) {
@@ -144,6 +171,7 @@ public abstract class BaseUrlGenerator {
         mStringBuilder.append(key);
         mStringBuilder.append("=");
         mStringBuilder.append(Uri.encode(value));
+        putParam(key, value);
     }
 
     protected void addParam(String key, Boolean value) {
@@ -155,6 +183,13 @@ public abstract class BaseUrlGenerator {
         mStringBuilder.append(key);
         mStringBuilder.append("=");
         mStringBuilder.append(value ? "1" : "0");
+        putParam(key, value ? "1" : "0");
+    }
+
+    // Repeated keys are joined the same way MoPubRequestUtils.getQueryParamMap joins them.
+    private void putParam(String key, String value) {
+        final String previousValue = mParams.get(key);
+        mParams.put(key, previousValue == null ? value : previousValue + "," + value);
     }
 
     private String getParamDelimiter() {
@@ -6,11 +6,16 @@ package com.mopub.common;
 
 import android.content.Context;
 import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.mopub.common.logging.MoPubLog;
+import com.mopub.common.util.AsyncTasks;
 import com.mopub.common.util.DeviceUtils;
+import com.mopub.common.util.Files;
 import com.mopub.common.util.Streams;
 import com.mopub.common.util.Utils;
 
@@ -18,9 +23,13 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
 
 import static com.mopub.common.DiskLruCache.open;
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
@@ -31,12 +40,76 @@ public class CacheService {
     }
 
     static final String UNIQUE_CACHE_NAME = "mopub-cache";
+    static final String PARTIAL_DOWNLOADS_DIRECTORY_NAME = "mopub-partial";
+    /**
+     * Partial downloads that have not been resumed within this window are deleted on the next
+     * initialization.
+     */
+    private static final long PARTIAL_DOWNLOAD_EXPIRATION_MILLIS = TimeUnit.DAYS.toMillis(1);
     private static final int APP_VERSION = 1;
     // The number of values per cache entry. Must be positive.
     private static final int VALUE_COUNT = 1;
     private static final int DISK_CACHE_INDEX = 0;
+    /**
+     * Entries up to this size are also kept in memory. Larger entries, such as videos, are read
+     * through a memory-mapped buffer instead.
+     */
+    @VisibleForTesting
+    static final int MAX_MEMORY_CACHE_ENTRY_BYTES = 256 * 1024;
+    private static final int MAX_MEMORY_CACHE_BYTES = (int) Math.min(
+            Runtime.getRuntime().maxMemory() / 32, 4 * 1024 * 1024);
+    /**
+     * Committed writes are flushed to the journal together, once this many have accumulated or
+     * after the delay, whichever comes first.
+     */
+    @VisibleForTesting
+    static final int JOURNAL_FLUSH_BATCH_SIZE = 8;
+    private static final long JOURNAL_FLUSH_DELAY_MILLIS = 2000;
 
     private static DiskLruCache sDiskLruCache;
+    @Nullable private static LruCache<String, byte[]> sMemoryCache;
+    /**
+     * Guards changes to the memory tier that follow a change to the disk tier. The generation
+     * moves on with every such change, so that a read racing with it does not put the old bytes
+     * back in memory. The disk cache is never called with this lock held, since its removal
+     * listener takes this lock with the disk cache locked.
+     */
+    private static final Object sMemoryCacheLock = new Object();
+    // Guarded by sMemoryCacheLock
+    private static long sMemoryCacheGeneration;
+    // Guarded by CacheService.class
+    private static int sUnflushedWriteCount;
+    private static boolean sJournalFlushScheduled;
+    @Nullable private static Handler sHandler;
+    /**
+     * Async reads and writes run in the order they were made, so a read that follows a write of
+     * the same key sees the written value.
+     */
+    private static final AsyncTasks.SerialExecutor sSerialExecutor =
+            new AsyncTasks.SerialExecutor(AsyncTasks.Lane.IO);
+
+    private static final DiskLruCache.RemovalListener sRemovalListener =
+            new DiskLruCache.RemovalListener() {
+                @Override
+                public void onEntryRemoved(final String diskCacheKey) {
+                    updateMemoryCache(diskCacheKey, null);
+                }
+            };
+
+    private static final Runnable sFlushJournalRunnable = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (CacheService.class) {
+                sJournalFlushScheduled = false;
+            }
+            sSerialExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    flushJournal();
+                }
+            });
+        }
+    };
 
     public static boolean initializeDiskCache(final Context context) {
         if (context == null) {
@@ -57,10 +130,21 @@ public class CacheService {
                         VALUE_COUNT,
                         diskCacheSizeBytes
                 );
+                sDiskLruCache.setJournalAutoFlush(false);
+                sDiskLruCache.setRemovalListener(sRemovalListener);
             } catch (IOException e) {
                 MoPubLog.log(CUSTOM, "Unable to create DiskLruCache", e);
                 return false;
             }
+            deleteExpiredPartialDownloads();
+        }
+        if (sMemoryCache == null) {
+            sMemoryCache = new LruCache<String, byte[]>(MAX_MEMORY_CACHE_BYTES) {
+                @Override
+                protected int sizeOf(final String key, final byte[] value) {
+                    return value.length;
+                }
+            };
         }
         return true;
     }
@@ -112,15 +196,69 @@ public class CacheService {
                 + DISK_CACHE_INDEX;
     }
 
+    /**
+     * Directory for downloads that are still in progress or were interrupted. Files here are not
+     * part of the DiskLruCache and do not count against its size, and are moved into it with
+     * {@link #putToDiskCache(String, File)} once complete.
+     *
+     * @return The directory, or null if the disk cache is not initialized or the directory could
+     * not be created.
+     */
+    @Nullable
+    public static File getPartialDownloadsDirectory() {
+        if (sDiskLruCache == null) {
+            return null;
+        }
+
+        final File cacheParent = sDiskLruCache.getDirectory().getParentFile();
+        if (cacheParent == null) {
+            return null;
+        }
+
+        return Files.createDirectory(
+                cacheParent.getPath() + File.separator + PARTIAL_DOWNLOADS_DIRECTORY_NAME);
+    }
+
+    private static void deleteExpiredPartialDownloads() {
+        final File partialDownloadsDirectory = getPartialDownloadsDirectory();
+        if (partialDownloadsDirectory == null) {
+            return;
+        }
+
+        final File[] partialDownloads = partialDownloadsDirectory.listFiles();
+        if (partialDownloads == null) {
+            return;
+        }
+
+        final long expirationTimeMillis =
+                System.currentTimeMillis() - PARTIAL_DOWNLOAD_EXPIRATION_MILLIS;
+        for (final File partialDownload : partialDownloads) {
+            if (partialDownload.lastModified() < expirationTimeMillis) {
+                partialDownload.delete();
+            }
+        }
+    }
+
+    /**
+     * Returns the cached bytes for the key. Small entries are served from memory after the first
+     * read. The caller gets its own copy and may modify it.
+     */
     public static byte[] getFromDiskCache(final String key) {
         if (sDiskLruCache == null) {
             return null;
         }
 
+        final String diskCacheKey = createValidDiskCacheKey(key);
+        final byte[] memoryCachedBytes = getFromMemoryCache(diskCacheKey);
+        if (memoryCachedBytes != null) {
+            return memoryCachedBytes.clone();
+        }
+
+        final long memoryCacheGeneration = getMemoryCacheGeneration();
         byte[] bytes = null;
         DiskLruCache.Snapshot snapshot = null;
         try {
-            snapshot = sDiskLruCache.get(createValidDiskCacheKey(key));
+            snapshot = sDiskLruCache.get(diskCacheKey);
             if (snapshot == null) {
                 return null;
             }
@@ -134,6 +272,7 @@ public class CacheService {
                 } finally {
                     Streams.closeStream(buffIn);
                 }
+                putToMemoryCache(diskCacheKey, bytes, memoryCacheGeneration);
             }
         } catch (Exception e) {
             MoPubLog.log(CUSTOM, "Unable to get from DiskLruCache", e);
@@ -146,22 +285,82 @@ public class CacheService {
         return bytes;
     }
 
+    /**
+     * Returns a read-only view of the cached entry. Entries too large for the memory tier are
+     * memory-mapped rather than copied onto the heap, so a cached video can be read without
+     * allocating a buffer the size of the video.
+     */
+    @Nullable
+    public static ByteBuffer getByteBufferFromDiskCache(final String key) {
+        if (sDiskLruCache == null) {
+            return null;
+        }
+
+        final String diskCacheKey = createValidDiskCacheKey(key);
+        final byte[] memoryCachedBytes = getFromMemoryCache(diskCacheKey);
+        if (memoryCachedBytes != null) {
+            return ByteBuffer.wrap(memoryCachedBytes).asReadOnlyBuffer();
+        }
+
+        DiskLruCache.Snapshot snapshot = null;
+        try {
+            snapshot = sDiskLruCache.get(diskCacheKey);
+            if (snapshot == null) {
+                return null;
+            }
+
+            final long length = snapshot.getLength(DISK_CACHE_INDEX);
+            if (length <= MAX_MEMORY_CACHE_ENTRY_BYTES) {
+                snapshot.close();
+                snapshot = null;
+                final byte[] bytes = getFromDiskCache(key);
+                return bytes != null ? ByteBuffer.wrap(bytes).asReadOnlyBuffer() : null;
+            }
+
+            final InputStream in = snapshot.getInputStream(DISK_CACHE_INDEX);
+            if (!(in instanceof FileInputStream)) {
+                return null;
+            }
+            // The mapping stays valid after the snapshot closes the underlying file
+            final FileChannel channel = ((FileInputStream) in).getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        } catch (Exception e) {
+            MoPubLog.log(CUSTOM, "Unable to map from DiskLruCache", e);
+            return null;
+        } finally {
+            if (snapshot != null) {
+                snapshot.close();
+            }
+        }
+    }
+
     public static void getFromDiskCacheAsync(final String key, final DiskLruCacheGetListener diskLruCacheGetListener) {
-        new DiskLruCacheGetTask(key, diskLruCacheGetListener).execute();
+        AsyncTasks.safeExecuteOnExecutor(sSerialExecutor,
+                new DiskLruCacheGetTask(key, diskLruCacheGetListener));
     }
 
     public static boolean putToDiskCache(final String key, final byte[] content) {
-        return putToDiskCache(key, new ByteArrayInputStream(content));
+        return putToDiskCache(key, new ByteArrayInputStream(content), content);
     }
 
     public static boolean putToDiskCache(final String key, final InputStream content) {
+        return putToDiskCache(key, content, null);
+    }
+
+    /**
+     * @param memoryContent The bytes of the content, to keep in memory once they are on disk, or
+     *                      null to drop the key from memory instead.
+     */
+    private static boolean putToDiskCache(final String key, final InputStream content,
+            @Nullable final byte[] memoryContent) {
         if (sDiskLruCache == null) {
             return false;
         }
 
+        final String diskCacheKey = createValidDiskCacheKey(key);
         DiskLruCache.Editor editor = null;
         try {
-            editor = sDiskLruCache.edit(createValidDiskCacheKey(key));
+            editor = sDiskLruCache.edit(diskCacheKey);
 
             if (editor == null) {
                 // another edit is in progress
@@ -174,7 +373,6 @@ public class CacheService {
             outputStream.flush();
             outputStream.close();
 
-            sDiskLruCache.flush();
             editor.commit();
         } catch (Exception e) {
             MoPubLog.log(CUSTOM, "Unable to put to DiskLruCache", e);
@@ -185,13 +383,162 @@ public class CacheService {
             } catch (IOException ignore) {
                 // ignore
             }
+            updateMemoryCache(diskCacheKey, null);
             return false;
         }
+        updateMemoryCache(diskCacheKey, memoryContent);
+        onDiskCacheWrite();
+        return true;
+    }
+
+    /**
+     * Moves the file into the disk cache. The file is renamed into place when it is on the same
+     * filesystem as the cache, as files in {@link #getPartialDownloadsDirectory()} are, so large
+     * videos are not copied. Otherwise it is copied and left in place.
+     */
+    public static boolean putToDiskCache(final String key, final File content) {
+        if (moveToDiskCache(key, content)) {
+            return true;
+        }
+
+        InputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(content);
+            return putToDiskCache(key, inputStream);
+        } catch (IOException e) {
+            MoPubLog.log(CUSTOM, "Unable to put to DiskLruCache", e);
+            return false;
+        } finally {
+            Streams.closeStream(inputStream);
+        }
+    }
+
+    private static boolean moveToDiskCache(final String key, @NonNull final File content) {
+        if (sDiskLruCache == null) {
+            return false;
+        }
+
+        final String diskCacheKey = createValidDiskCacheKey(key);
+        DiskLruCache.Editor editor = null;
+        try {
+            editor = sDiskLruCache.edit(diskCacheKey);
+            if (editor == null) {
+                // another edit is in progress
+                return false;
+            }
+
+            if (!editor.moveFrom(DISK_CACHE_INDEX, content)) {
+                editor.abort();
+                return false;
+            }
+            editor.commit();
+        } catch (Exception e) {
+            MoPubLog.log(CUSTOM, "Unable to move to DiskLruCache", e);
+            if (editor != null) {
+                editor.abortUnlessCommitted();
+            }
+            updateMemoryCache(diskCacheKey, null);
+            return false;
+        }
+        updateMemoryCache(diskCacheKey, null);
+        onDiskCacheWrite();
         return true;
     }
 
     public static void putToDiskCacheAsync(final String key, final byte[] content) {
-        new DiskLruCachePutTask(key, content).execute();
+        AsyncTasks.safeExecuteOnExecutor(sSerialExecutor, new DiskLruCachePutTask(key, content));
+    }
+
+    @Nullable
+    private static byte[] getFromMemoryCache(@NonNull final String diskCacheKey) {
+        final LruCache<String, byte[]> memoryCache = sMemoryCache;
+        return memoryCache != null ? memoryCache.get(diskCacheKey) : null;
+    }
+
+    private static long getMemoryCacheGeneration() {
+        synchronized (sMemoryCacheLock) {
+            return sMemoryCacheGeneration;
+        }
+    }
+
+    /**
+     * Keeps a copy of bytes read from disk, unless the disk entry changed since the read started.
+     */
+    private static void putToMemoryCache(@NonNull final String diskCacheKey,
+            @NonNull final byte[] content, final long memoryCacheGeneration) {
+        synchronized (sMemoryCacheLock) {
+            final LruCache<String, byte[]> memoryCache = sMemoryCache;
+            if (memoryCache != null && memoryCacheGeneration == sMemoryCacheGeneration
+                    && content.length <= MAX_MEMORY_CACHE_ENTRY_BYTES) {
+                memoryCache.put(diskCacheKey, content.clone());
+            }
+        }
+    }
+
+    /**
+     * Brings the memory tier in line with a change to the disk entry.
+     *
+     * @param content The new bytes of the entry, or null if it was removed or is not known.
+     */
+    private static void updateMemoryCache(@NonNull final String diskCacheKey,
+            @Nullable final byte[] content) {
+        synchronized (sMemoryCacheLock) {
+            sMemoryCacheGeneration++;
+            final LruCache<String, byte[]> memoryCache = sMemoryCache;
+            if (memoryCache == null) {
+                return;
+            }
+            if (content != null && content.length <= MAX_MEMORY_CACHE_ENTRY_BYTES) {
+                memoryCache.put(diskCacheKey, content.clone());
+            } else {
+                memoryCache.remove(diskCacheKey);
+            }
+        }
+    }
+
+    /**
+     * Flushes the journal once enough writes have been committed, and otherwise makes sure a
+     * delayed flush is pending so that a quiet period still persists the last writes.
+     */
+    private static void onDiskCacheWrite() {
+        final boolean flushNow;
+        synchronized (CacheService.class) {
+            sUnflushedWriteCount++;
+            flushNow = sUnflushedWriteCount >= JOURNAL_FLUSH_BATCH_SIZE;
+            if (!flushNow && !sJournalFlushScheduled) {
+                sJournalFlushScheduled = true;
+                if (sHandler == null) {
+                    sHandler = new Handler(Looper.getMainLooper());
+                }
+                sHandler.postDelayed(sFlushJournalRunnable, JOURNAL_FLUSH_DELAY_MILLIS);
+            }
+        }
+
+        if (flushNow) {
+            flushJournal();
+        }
+    }
+
+    @VisibleForTesting
+    static void flushJournal() {
+        synchronized (CacheService.class) {
+            sUnflushedWriteCount = 0;
+        }
+
+        final DiskLruCache diskLruCache = sDiskLruCache;
+        if (diskLruCache == null) {
+            return;
+        }
+        try {
+            diskLruCache.flush();
+        } catch (Exception e) {
+            MoPubLog.log(CUSTOM, "Unable to flush DiskLruCache journal", e);
+        }
+    }
+
+    @VisibleForTesting
+    static synchronized int getUnflushedWriteCount() {
+        return sUnflushedWriteCount;
     }
 
     private static class DiskLruCacheGetTask extends AsyncTask<Void, Void, byte[]> {
@@ -248,6 +595,24 @@ public class CacheService {
     @Deprecated
     @VisibleForTesting
     public static void clearAndNullCaches() {
+        if (sMemoryCache != null) {
+            sMemoryCache.evictAll();
+        }
+        synchronized (CacheService.class) {
+            sUnflushedWriteCount = 0;
+            sJournalFlushScheduled = false;
+            if (sHandler != null) {
+                sHandler.removeCallbacks(sFlushJournalRunnable);
+            }
+        }
+        final File partialDownloadsDirectory = getPartialDownloadsDirectory();
+        if (partialDownloadsDirectory != null) {
+            try {
+                DiskLruCacheUtil.deleteContents(partialDownloadsDirectory);
+            } catch (IOException ignore) {
+                // ignore
+            }
+        }
         if (sDiskLruCache != null) {
             try {
                 sDiskLruCache.delete();
@@ -0,0 +1,243 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.logging.MoPubLog;
+import com.mopub.common.util.AsyncTasks;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static com.mopub.common.UrlResolutionTask.UrlResolutionListener;
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+
+/**
+ * Follows the redirects of an ad's click-through url while the ad is on screen, so that a tap can
+ * open the final destination right away instead of waiting for {@link UrlResolutionTask}.
+ * {@link UrlHandler} checks the results here before resolving a url itself. Results are kept for
+ * a few minutes in a small cache keyed by the click-through url.
+ *
+ * This is off by default. Following the redirects requests the click-through url before the user
+ * has tapped, and a request to a click-counting url would be counted as a click. So a url is
+ * never requested here if it is one of the ad's click trackers, is on the host of one of them, is
+ * on a MoPub host, or carries another url in its path or query the way click-counting redirects
+ * do. A click-through url like that is left to be resolved on tap, and so is a redirect chain that
+ * reaches one. All methods must be called on the main thread.
+ */
+public class ClickThroughResolver {
+    @VisibleForTesting
+    static final int MAX_ENTRIES = 16;
+    @VisibleForTesting
+    static final long ENTRY_TTL_MILLIS = 5 * 60 * 1000;
+    private static final String MOPUB_DOMAIN = "mopub.com";
+
+    private static class Entry {
+        @NonNull final String mResolvedUrl;
+        final long mExpirationTimeMillis;
+
+        Entry(@NonNull final String resolvedUrl, final long expirationTimeMillis) {
+            mResolvedUrl = resolvedUrl;
+            mExpirationTimeMillis = expirationTimeMillis;
+        }
+    }
+
+    private static volatile boolean sEnabled;
+    @NonNull private static final Map<String, Entry> sEntries =
+            new LinkedHashMap<String, Entry>(MAX_ENTRIES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+    @NonNull private static final Set<String> sPendingUrls = new HashSet<>();
+
+    private ClickThroughResolver() {
+    }
+
+    /**
+     * Turns resolving click-through urls before the tap on or off. Turning it off also drops the
+     * urls already resolved.
+     */
+    public static void setEnabled(final boolean enabled) {
+        sEnabled = enabled;
+        if (!enabled) {
+            sEntries.clear();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Starts resolving the click-through url of an ad that is being shown. Does nothing if this
+     * is disabled, or if the url is already resolved or being resolved.
+     *
+     * @param clickThroughUrl the url a tap on the ad opens
+     * @param clickTrackers   the ad's click trackers, which must not be requested before the tap
+     */
+    public static void preResolve(@Nullable final String clickThroughUrl,
+            @Nullable final Collection<String> clickTrackers) {
+        if (!sEnabled || TextUtils.isEmpty(clickThroughUrl)
+                || sPendingUrls.contains(clickThroughUrl)
+                || getResolvedUrl(clickThroughUrl) != null) {
+            return;
+        }
+        // Deep links and native browser urls are handled without any requests on tap
+        final Uri uri = Uri.parse(clickThroughUrl);
+        if (!UrlAction.OPEN_IN_APP_BROWSER.shouldTryHandlingUrl(uri)
+                || UrlAction.OPEN_NATIVE_BROWSER.shouldTryHandlingUrl(uri)) {
+            return;
+        }
+        final ClickTrackingFilter clickTrackingFilter = new ClickTrackingFilter(clickTrackers);
+        if (!clickTrackingFilter.isAllowed(clickThroughUrl)) {
+            MoPubLog.log(CUSTOM, "Not resolving click-through url that may count a click.");
+            return;
+        }
+
+        sPendingUrls.add(clickThroughUrl);
+        final UrlResolutionTask urlResolutionTask = new UrlResolutionTask(
+                new UrlResolutionListener() {
+                    @Override
+                    public void onSuccess(@NonNull final String resolvedUrl) {
+                        sPendingUrls.remove(clickThroughUrl);
+                        if (sEnabled) {
+                            sEntries.put(clickThroughUrl, new Entry(resolvedUrl,
+                                    SystemClock.elapsedRealtime() + ENTRY_TTL_MILLIS));
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(@NonNull final String message,
+                            @Nullable final Throwable throwable) {
+                        sPendingUrls.remove(clickThroughUrl);
+                    }
+                }, clickTrackingFilter);
+
+        try {
+            AsyncTasks.safeExecuteOnExecutor(AsyncTasks.Lane.PREFETCH, urlResolutionTask,
+                    clickThroughUrl);
+        } catch (Exception e) {
+            sPendingUrls.remove(clickThroughUrl);
+            MoPubLog.log(CUSTOM, "Failed to start resolving click-through url.");
+        }
+    }
+
+    /**
+     * Allows only the urls that can be requested without counting a click: not the click
+     * trackers, nothing on their hosts or on MoPub hosts, and no url that carries another url.
+     */
+    @VisibleForTesting
+    static class ClickTrackingFilter implements UrlResolutionTask.UrlFilter {
+        @NonNull private final Set<String> mClickTrackers = new HashSet<>();
+        @NonNull private final Set<String> mClickTrackerHosts = new HashSet<>();
+
+        ClickTrackingFilter(@Nullable final Collection<String> clickTrackers) {
+            if (clickTrackers == null) {
+                return;
+            }
+            for (final String clickTracker : clickTrackers) {
+                if (TextUtils.isEmpty(clickTracker)) {
+                    continue;
+                }
+                mClickTrackers.add(clickTracker);
+                final String host = Uri.parse(clickTracker).getHost();
+                if (!TextUtils.isEmpty(host)) {
+                    mClickTrackerHosts.add(host.toLowerCase(Locale.US));
+                }
+            }
+        }
+
+        @Override
+        public boolean isAllowed(@NonNull final String url) {
+            if (mClickTrackers.contains(url)) {
+                return false;
+            }
+            final Uri uri = Uri.parse(url);
+            final String host = uri.getHost();
+            if (TextUtils.isEmpty(host)) {
+                return false;
+            }
+            final String lowerCaseHost = host.toLowerCase(Locale.US);
+            if (mClickTrackerHosts.contains(lowerCaseHost)
+                    || lowerCaseHost.equals(MOPUB_DOMAIN)
+                    || lowerCaseHost.endsWith("." + MOPUB_DOMAIN)) {
+                return false;
+            }
+            return !carriesUrl(uri);
+        }
+
+        /**
+         * Redirectors take their destination as a parameter or path segment, e.g.
+         * https://track.example.com/click?url=https%3A%2F%2Fwww.example.com
+         */
+        private static boolean carriesUrl(@NonNull final Uri uri) {
+            final String path = uri.getPath();
+            if (path != null && path.contains("://")) {
+                return true;
+            }
+            try {
+                for (final String name : uri.getQueryParameterNames()) {
+                    for (final String value : uri.getQueryParameters(name)) {
+                        if (value != null && value.contains("://")) {
+                            return true;
+                        }
+                    }
+                }
+            } catch (UnsupportedOperationException | IllegalArgumentException e) {
+                // A query that cannot be read cannot be shown to be harmless
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @return the destination the click-through url redirects to, or null if it has not been
+     * resolved in the last few minutes
+     */
+    @Nullable
+    static String getResolvedUrl(@NonNull final String clickThroughUrl) {
+        final Entry entry = sEntries.get(clickThroughUrl);
+        if (entry == null) {
+            return null;
+        }
+        if (SystemClock.elapsedRealtime() >= entry.mExpirationTimeMillis) {
+            sEntries.remove(clickThroughUrl);
+            return null;
+        }
+        return entry.mResolvedUrl;
+    }
+
+    @VisibleForTesting
+    static void putResolvedUrlForTesting(@NonNull final String clickThroughUrl,
+            @NonNull final String resolvedUrl) {
+        sEntries.put(clickThroughUrl,
+                new Entry(resolvedUrl, SystemClock.elapsedRealtime() + ENTRY_TTL_MILLIS));
+    }
+
+    @VisibleForTesting
+    static boolean isPendingForTesting(@NonNull final String clickThroughUrl) {
+        return sPendingUrls.contains(clickThroughUrl);
+    }
+
+    @VisibleForTesting
+    public static void clearForTesting() {
+        sEnabled = false;
+        sEntries.clear();
+        sPendingUrls.clear();
+    }
+}
@@ -18,8 +18,12 @@ package com.mopub.common;
 
 import androidx.annotation.NonNull;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
@@ -33,8 +37,10 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -42,6 +48,9 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
 
 /**
  * A cache that uses a bounded amount of space on a filesystem. Each cache
@@ -91,8 +100,14 @@ public final class DiskLruCache implements Closeable {
   static final String JOURNAL_FILE = "journal";
   static final String JOURNAL_FILE_TEMP = "journal.tmp";
   static final String JOURNAL_FILE_BACKUP = "journal.bkp";
+  static final String SNAPSHOT_FILE = "journal.snapshot";
+  static final String SNAPSHOT_FILE_TEMP = "journal.snapshot.tmp";
   static final String MAGIC = "libcore.io.DiskLruCache";
   static final String VERSION_1 = "1";
+  static final String VERSION_2 = "2";
+  static final int SNAPSHOT_MAGIC = 0x444c5243; // "DLRC"
+  static final int SNAPSHOT_VERSION = 1;
+  static final int REDUNDANT_OP_COMPACT_THRESHOLD = 2000;
   static final long ANY_SEQUENCE_NUMBER = -1;
   static final Pattern LEGAL_KEY_PATTERN = Pattern.compile("[a-z0-9_-]{1,64}");
   private static final String CLEAN = "CLEAN";
@@ -138,12 +153,29 @@ public final class DiskLruCache implements Closeable {
      * occasionally be compacted by dropping redundant lines. A temporary file named
      * "journal.tmp" will be used during compaction; that file should be deleted if
      * it exists when the cache is opened.
+     *
+     * Version 2 journals only hold the operations since the last compaction. The
+     * readable entries as of that compaction are kept in "journal.snapshot", a
+     * binary file holding a header (magic, snapshot version, app version, value
+     * count, entry count), then each entry's key and value lengths in LRU order,
+     * then a CRC32 of everything before it. Opening a cache reads the snapshot and
+     * replays the journal on top of it, so the time it takes is bound by the
+     * number of entries rather than by how many operations the cache has seen.
+     *
+     * Compaction writes the snapshot on the background thread without holding
+     * the cache lock; operations made in the meantime are recorded and become the
+     * new journal. The snapshot is renamed into place before the journal, so a
+     * crash between the two leaves the old journal, which is a superset of the
+     * new one, to be replayed over the new snapshot. Version 1 journals, which
+     * have no snapshot, are still read and are replaced on the next compaction.
      */
 
   private final File directory;
   private final File journalFile;
   private final File journalFileTmp;
   private final File journalFileBackup;
+  private final File snapshotFile;
+  private final File snapshotFileTmp;
   private final int appVersion;
   private long maxSize;
   private final int valueCount;
@@ -152,6 +184,11 @@ public final class DiskLruCache implements Closeable {
   private final LinkedHashMap<String, Entry> lruEntries =
       new LinkedHashMap<String, Entry>(0, 0.75f, true);
   private int redundantOpCount;
+  private boolean journalAutoFlush = true;
+  private RemovalListener removalListener;
+
+  /** Journal lines written while a background compaction is in progress, or null. */
+  private List<String> compactionTail;
 
   /**
    * To differentiate between old and current snapshots, each entry is given
@@ -165,14 +202,34 @@ public final class DiskLruCache implements Closeable {
       new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
   private final Callable<Void> cleanupCallable = new Callable<Void>() {
     public Void call() throws Exception {
+      final List<Entry> snapshotEntries;
+      final List<String> dirtyKeys;
       synchronized (DiskLruCache.this) {
         if (journalWriter == null) {
           return null; // Closed.
         }
         trimToSize();
-        if (journalRebuildRequired()) {
-          rebuildJournal();
-          redundantOpCount = 0;
+        if (!journalRebuildRequired() || compactionTail != null) {
+          return null;
+        }
+        snapshotEntries = copyReadableEntries();
+        dirtyKeys = getDirtyKeys();
+        compactionTail = new ArrayList<String>();
+      }
+
+      try {
+        // The snapshot can be large, so write it without blocking readers and writers.
+        writeSnapshot(snapshotEntries);
+        synchronized (DiskLruCache.this) {
+          if (journalWriter == null) {
+            deleteIfExists(snapshotFileTmp);
+            return null; // Closed while compacting.
+          }
+          installJournal(dirtyKeys, compactionTail);
+        }
+      } finally {
+        synchronized (DiskLruCache.this) {
+          compactionTail = null;
         }
       }
       return null;
@@ -185,6 +242,8 @@ public final class DiskLruCache implements Closeable {
     this.journalFile = new File(directory, JOURNAL_FILE);
     this.journalFileTmp = new File(directory, JOURNAL_FILE_TEMP);
     this.journalFileBackup = new File(directory, JOURNAL_FILE_BACKUP);
+    this.snapshotFile = new File(directory, SNAPSHOT_FILE);
+    this.snapshotFileTmp = new File(directory, SNAPSHOT_FILE_TEMP);
     this.valueCount = valueCount;
     this.maxSize = maxSize;
   }
@@ -254,8 +313,9 @@ public final class DiskLruCache implements Closeable {
       String appVersionString = reader.readLine();
       String valueCountString = reader.readLine();
       String blank = reader.readLine();
+      boolean hasSnapshot = VERSION_2.equals(version);
       if (!MAGIC.equals(magic)
-          || !VERSION_1.equals(version)
+          || !(VERSION_1.equals(version) || hasSnapshot)
           || !Integer.toString(appVersion).equals(appVersionString)
           || !Integer.toString(valueCount).equals(valueCountString)
           || !"".equals(blank)) {
@@ -263,6 +323,10 @@ public final class DiskLruCache implements Closeable {
             + valueCountString + ", " + blank + "]");
       }
 
+      if (hasSnapshot) {
+        readSnapshot();
+      }
+
       int lineCount = 0;
       while (true) {
         try {
@@ -272,12 +336,52 @@ public final class DiskLruCache implements Closeable {
           break;
         }
       }
-      redundantOpCount = lineCount - lruEntries.size();
+      // A version 2 journal holds no entries of its own, only operations since the snapshot.
+      redundantOpCount = hasSnapshot ? lineCount : lineCount - lruEntries.size();
     } finally {
       DiskLruCacheUtil.closeQuietly(reader);
     }
   }
 
+  private void readSnapshot() throws IOException {
+    BufferedInputStream buffered = new BufferedInputStream(new FileInputStream(snapshotFile));
+    CheckedInputStream checked = new CheckedInputStream(buffered, new CRC32());
+    DataInputStream in = new DataInputStream(checked);
+    try {
+      int magic = in.readInt();
+      int version = in.readInt();
+      int snapshotAppVersion = in.readInt();
+      int snapshotValueCount = in.readInt();
+      int entryCount = in.readInt();
+      if (magic != SNAPSHOT_MAGIC
+          || version != SNAPSHOT_VERSION
+          || snapshotAppVersion != appVersion
+          || snapshotValueCount != valueCount
+          || entryCount < 0) {
+        throw new IOException("unexpected snapshot header: [" + magic + ", " + version + ", "
+            + snapshotValueCount + ", " + entryCount + "]");
+      }
+
+      for (int i = 0; i < entryCount; i++) {
+        Entry entry = new Entry(in.readUTF());
+        for (int t = 0; t < valueCount; t++) {
+          entry.lengths[t] = in.readLong();
+        }
+        entry.readable = true;
+        lruEntries.put(entry.key, entry);
+      }
+
+      // The checksum trailer is not part of what it covers, so read it around the checked stream.
+      long expectedChecksum = checked.getChecksum().getValue();
+      long checksum = new DataInputStream(buffered).readLong();
+      if (checksum != expectedChecksum) {
+        throw new IOException("snapshot checksum mismatch");
+      }
+    } finally {
+      DiskLruCacheUtil.closeQuietly(in);
+    }
+  }
+
   private void readJournalLine(String line) throws IOException {
     int firstSpace = line.indexOf(' ');
     if (firstSpace == -1) {
@@ -323,6 +427,7 @@ public final class DiskLruCache implements Closeable {
    */
   private void processJournal() throws IOException {
     deleteIfExists(journalFileTmp);
+    deleteIfExists(snapshotFileTmp);
     for (Iterator<Entry> i = lruEntries.values().iterator(); i.hasNext(); ) {
       Entry entry = i.next();
       if (entry.currentEditor == null) {
@@ -345,6 +450,68 @@ public final class DiskLruCache implements Closeable {
    * current journal if it exists.
    */
   private synchronized void rebuildJournal() throws IOException {
+    writeSnapshot(copyReadableEntries());
+    installJournal(getDirtyKeys(), Collections.<String>emptyList());
+  }
+
+  /** Returns copies of the readable entries, least recently used first. */
+  private List<Entry> copyReadableEntries() {
+    List<Entry> entries = new ArrayList<Entry>(lruEntries.size());
+    for (Entry entry : lruEntries.values()) {
+      if (entry.readable) {
+        Entry copy = new Entry(entry.key);
+        System.arraycopy(entry.lengths, 0, copy.lengths, 0, valueCount);
+        entries.add(copy);
+      }
+    }
+    return entries;
+  }
+
+  private List<String> getDirtyKeys() {
+    List<String> keys = new ArrayList<String>();
+    for (Entry entry : lruEntries.values()) {
+      if (entry.currentEditor != null) {
+        keys.add(entry.key);
+      }
+    }
+    return keys;
+  }
+
+  /** Writes {@code entries} to the temporary snapshot file and syncs it to disk. */
+  private void writeSnapshot(List<Entry> entries) throws IOException {
+    FileOutputStream fileOut = new FileOutputStream(snapshotFileTmp);
+    BufferedOutputStream buffered = new BufferedOutputStream(fileOut);
+    CheckedOutputStream checked = new CheckedOutputStream(buffered, new CRC32());
+    DataOutputStream out = new DataOutputStream(checked);
+    try {
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeInt(SNAPSHOT_VERSION);
+      out.writeInt(appVersion);
+      out.writeInt(valueCount);
+      out.writeInt(entries.size());
+      for (Entry entry : entries) {
+        out.writeUTF(entry.key);
+        for (int t = 0; t < valueCount; t++) {
+          out.writeLong(entry.lengths[t]);
+        }
+      }
+      out.flush();
+
+      DataOutputStream trailer = new DataOutputStream(buffered);
+      trailer.writeLong(checked.getChecksum().getValue());
+      trailer.flush();
+      fileOut.getFD().sync();
+    } finally {
+      DiskLruCacheUtil.closeQuietly(out);
+    }
+  }
+
+  /**
+   * Moves the temporary snapshot into place along with a new journal holding
+   * {@code dirtyKeys} and the operations in {@code tail}.
+   */
+  private synchronized void installJournal(List<String> dirtyKeys, List<String> tail)
+      throws IOException {
     if (journalWriter != null) {
       journalWriter.close();
     }
@@ -354,7 +521,7 @@ public final class DiskLruCache implements Closeable {
     try {
       writer.write(MAGIC);
       writer.write("\n");
-      writer.write(VERSION_1);
+      writer.write(VERSION_2);
       writer.write("\n");
       writer.write(Integer.toString(appVersion));
       writer.write("\n");
@@ -362,17 +529,18 @@ public final class DiskLruCache implements Closeable {
       writer.write("\n");
       writer.write("\n");
 
-      for (Entry entry : lruEntries.values()) {
-        if (entry.currentEditor != null) {
-          writer.write(DIRTY + ' ' + entry.key + '\n');
-        } else {
-          writer.write(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
-        }
+      for (String key : dirtyKeys) {
+        writer.write(DIRTY + ' ' + key + '\n');
+      }
+      for (String line : tail) {
+        writer.write(line);
       }
     } finally {
       writer.close();
     }
 
+    // Rename the snapshot first; the old journal is still valid on top of it.
+    renameTo(snapshotFileTmp, snapshotFile, true);
     if (journalFile.exists()) {
       renameTo(journalFile, journalFileBackup, true);
     }
@@ -381,6 +549,15 @@ public final class DiskLruCache implements Closeable {
 
     journalWriter = new BufferedWriter(
         new OutputStreamWriter(new FileOutputStream(journalFile, true), DiskLruCacheUtil.US_ASCII));
+    redundantOpCount = dirtyKeys.size() + tail.size();
+  }
+
+  /** Appends {@code line} to the journal and to the tail of an ongoing compaction. */
+  private void writeJournalLine(String line) throws IOException {
+    journalWriter.write(line);
+    if (compactionTail != null) {
+      compactionTail.add(line);
+    }
   }
 
   private static void deleteIfExists(File file) throws IOException {
@@ -436,7 +613,7 @@ public final class DiskLruCache implements Closeable {
     }
 
     redundantOpCount++;
-    journalWriter.append(READ + ' ' + key + '\n');
+    writeJournalLine(READ + ' ' + key + '\n');
     if (journalRebuildRequired()) {
       executorService.submit(cleanupCallable);
     }
@@ -471,7 +648,7 @@ public final class DiskLruCache implements Closeable {
     entry.currentEditor = editor;
 
     // Flush the journal before creating files to prevent file leaks.
-    journalWriter.write(DIRTY + ' ' + key + '\n');
+    writeJournalLine(DIRTY + ' ' + key + '\n');
     journalWriter.flush();
     return editor;
   }
@@ -547,15 +724,17 @@ public final class DiskLruCache implements Closeable {
     entry.currentEditor = null;
     if (entry.readable | success) {
       entry.readable = true;
-      journalWriter.write(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
+      writeJournalLine(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
       if (success) {
         entry.sequenceNumber = nextSequenceNumber++;
       }
     } else {
       lruEntries.remove(entry.key);
-      journalWriter.write(REMOVE + ' ' + entry.key + '\n');
+      writeJournalLine(REMOVE + ' ' + entry.key + '\n');
+    }
+    if (journalAutoFlush) {
+      journalWriter.flush();
     }
-    journalWriter.flush();
 
     if (size > maxSize || journalRebuildRequired()) {
       executorService.submit(cleanupCallable);
@@ -563,13 +742,17 @@ public final class DiskLruCache implements Closeable {
   }
 
   /**
-   * We only rebuild the journal when it will halve the size of the journal
-   * and eliminate at least 2000 ops.
+   * We compact the journal once it holds 2000 redundant ops. Entries live in
+   * the snapshot, so this bounds the journal regardless of the entry count.
    */
   private boolean journalRebuildRequired() {
-    final int redundantOpCompactThreshold = 2000;
-    return redundantOpCount >= redundantOpCompactThreshold //
-        && redundantOpCount >= lruEntries.size();
+    return redundantOpCount >= REDUNDANT_OP_COMPACT_THRESHOLD;
+  }
+
+  /** Returns the number of redundant operations in the journal. */
+  @VisibleForTesting
+  synchronized int getRedundantOpCount() {
+    return redundantOpCount;
   }
 
   /**
@@ -596,8 +779,11 @@ public final class DiskLruCache implements Closeable {
     }
 
     redundantOpCount++;
-    journalWriter.append(REMOVE + ' ' + key + '\n');
+    writeJournalLine(REMOVE + ' ' + key + '\n');
     lruEntries.remove(key);
+    if (removalListener != null) {
+      removalListener.onEntryRemoved(key);
+    }
 
     if (journalRebuildRequired()) {
       executorService.submit(cleanupCallable);
@@ -617,6 +803,24 @@ public final class DiskLruCache implements Closeable {
     }
   }
 
+  /**
+   * Controls whether the journal is flushed after every committed edit. Callers
+   * that turn this off must call {@link #flush()} themselves to group-commit
+   * journal writes. Edits whose commit was not flushed before the process died
+   * are discarded when the cache is reopened.
+   */
+  public synchronized void setJournalAutoFlush(boolean journalAutoFlush) {
+    this.journalAutoFlush = journalAutoFlush;
+  }
+
+  /**
+   * Sets the listener told about removed entries, including entries evicted to
+   * keep the cache within its size limit.
+   */
+  public synchronized void setRemovalListener(RemovalListener removalListener) {
+    this.removalListener = removalListener;
+  }
+
   /** Force buffered operations to the filesystem. */
   public synchronized void flush() throws IOException {
     checkNotClosed();
@@ -667,6 +871,15 @@ public final class DiskLruCache implements Closeable {
     return DiskLruCacheUtil.readFully(new InputStreamReader(in, DiskLruCacheUtil.UTF_8));
   }
 
+  /** Notified when an entry is removed from the cache. */
+  public interface RemovalListener {
+    /**
+     * Called with the cache locked, so the listener must not call back into
+     * the cache.
+     */
+    void onEntryRemoved(String key);
+  }
+
   /** A snapshot of the values for an entry. */
   public final class Snapshot implements Closeable {
     private final String key;
@@ -793,6 +1006,28 @@ public final class DiskLruCache implements Closeable {
       }
     }
 
+    /**
+     * Makes {@code source} the value at {@code index} by renaming it, so the
+     * value is not copied. Returns false, leaving {@code source} in place, if
+     * it cannot be renamed, such as when it is on another filesystem.
+     */
+    public boolean moveFrom(int index, File source) throws IOException {
+      synchronized (DiskLruCache.this) {
+        if (entry.currentEditor != this) {
+          throw new IllegalStateException();
+        }
+        File dirtyFile = entry.getDirtyFile(index);
+        deleteIfExists(dirtyFile);
+        if (!source.renameTo(dirtyFile)) {
+          return false;
+        }
+        if (!entry.readable) {
+          written[index] = true;
+        }
+        return true;
+      }
+    }
+
     /** Sets the value at {@code index} to {@code value}. */
     public void set(int index, String value) throws IOException {
       Writer writer = null;
@@ -18,6 +18,7 @@ import androidx.annotation.UiThread;
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.common.privacy.PersonalInfoManager;
 import com.mopub.common.util.Reflection;
+import com.mopub.mobileads.WebViewPool;
 import com.mopub.network.Networking;
 
 import java.lang.reflect.InvocationTargetException;
@@ -227,6 +228,10 @@ public class MoPub {
 
         ClientMetadata.getInstance(context);
 
+        if (sdkConfiguration.getWebViewPoolEnabled()) {
+            WebViewPool.warmUp(context);
+        }
+
         sAdapterConfigurationManager = new AdapterConfigurationManager(compositeSdkInitializationListener);
         sAdapterConfigurationManager.initialize(context,
                 sdkConfiguration.getAdapterConfigurationClasses(),
@@ -61,6 +61,11 @@ public class SdkConfiguration {
      */
     private final boolean mLegitimateInterestAllowed;
 
+    /**
+     * Whether or not to keep a few WebViews constructed ahead of time for banners and MRAID ads.
+     */
+    private final boolean mWebViewPoolEnabled;
+
     /**
      * Holds data for SDK initialization. Do not call this constructor directly; use the Builder.
      */
@@ -70,7 +75,8 @@ public class SdkConfiguration {
             @NonNull final LogLevel logLevel,
             @NonNull final Map<String, Map<String, String>> mediatedNetworkConfigurations,
             @NonNull final Map<String, Map<String, String>> moPubRequestOptions,
-            final boolean legitimateInterestAllowed) {
+            final boolean legitimateInterestAllowed,
+            final boolean webViewPoolEnabled) {
         Preconditions.checkNotNull(adUnitId);
         Preconditions.checkNotNull(adapterConfigurationClasses);
         Preconditions.checkNotNull(mediatedNetworkConfigurations);
@@ -83,6 +89,7 @@ public class SdkConfiguration {
         mMediatedNetworkConfigurations = mediatedNetworkConfigurations;
         mMoPubRequestOptions = moPubRequestOptions;
         mLegitimateInterestAllowed = legitimateInterestAllowed;
+        mWebViewPoolEnabled = webViewPoolEnabled;
     }
 
     @NonNull
@@ -118,6 +125,10 @@ public class SdkConfiguration {
         return mLegitimateInterestAllowed;
     }
 
+    public boolean getWebViewPoolEnabled() {
+        return mWebViewPoolEnabled;
+    }
+
     public static class Builder {
         @NonNull private String adUnitId;
         @NonNull private final Set<String> adapterConfigurations;
@@ -126,6 +137,7 @@ public class SdkConfiguration {
         @NonNull private final Map<String, Map<String, String>> mediatedNetworkConfigurations;
         @NonNull private final Map<String, Map<String, String>> moPubRequestOptions;
         private boolean legitimateInterestAllowed;
+        private boolean webViewPoolEnabled;
 
         /**
          * Use this builder instead of creating a new SdkConfiguration. This Builder needs any ad
@@ -242,9 +254,23 @@ public class SdkConfiguration {
             return this;
         }
 
+        /**
+         * Sets whether or not to construct a few WebViews for banners and MRAID ads while the app
+         * is idle after initialization, so that showing those ads does not have to. The pooled
+         * WebViews use memory until they are leased. This is disabled by default.
+         *
+         * @param webViewPoolEnabled should be true to keep WebViews ready.
+         * @return The builder.
+         */
+        public Builder withWebViewPool(final boolean webViewPoolEnabled) {
+            this.webViewPoolEnabled = webViewPoolEnabled;
+            return this;
+        }
+
         public SdkConfiguration build() {
             return new SdkConfiguration(adUnitId, adapterConfigurations, mediationSettings,
-                    logLevel, mediatedNetworkConfigurations, moPubRequestOptions, legitimateInterestAllowed);
+                    logLevel, mediatedNetworkConfigurations, moPubRequestOptions, legitimateInterestAllowed,
+                    webViewPoolEnabled);
         }
     }
 }
@@ -256,6 +256,7 @@ public class UrlHandler {
 
     /**
      * Follows any redirects from {@code destinationUrl} and then handles the URL accordingly.
+     * If {@link ClickThroughResolver} has already followed them, the URL is handled right away.
      *
      * @param context The activity context.
      * @param destinationUrl The URL to handle.
@@ -271,6 +272,12 @@ public class UrlHandler {
             return;
         }
 
+        final String preResolvedUrl = ClickThroughResolver.getResolvedUrl(destinationUrl);
+        if (preResolvedUrl != null) {
+            handleResolvedUrl(context, preResolvedUrl, fromUserInteraction, trackingUrls);
+            return;
+        }
+
         final UrlResolutionListener urlResolutionListener = new UrlResolutionListener() {
             @Override
             public void onSuccess(@NonNull final String resolvedUrl) {
@@ -31,7 +31,17 @@ public class UrlResolutionTask extends AsyncTask<String, Void, String> {
         void onFailure(@NonNull final String message, @Nullable final Throwable throwable);
     }
 
+    /**
+     * Decides which urls may be requested while following redirects. It is asked about every
+     * url, including the first one, before that url is requested.
+     */
+    interface UrlFilter {
+        boolean isAllowed(@NonNull final String url);
+    }
+
     @NonNull private final UrlResolutionListener mListener;
+    // Resolution fails instead of requesting a url this does not allow.
+    @Nullable private final UrlFilter mUrlFilter;
 
     public static void getResolvedUrl(@NonNull final String urlString,
             @NonNull final UrlResolutionListener listener) {
@@ -45,7 +55,13 @@ public class UrlResolutionTask extends AsyncTask<String, Void, String> {
     }
 
     UrlResolutionTask(@NonNull UrlResolutionListener listener) {
+        this(listener, null);
+    }
+
+    UrlResolutionTask(@NonNull UrlResolutionListener listener,
+            @Nullable UrlFilter urlFilter) {
         mListener = listener;
+        mUrlFilter = urlFilter;
     }
 
     @Nullable
@@ -72,6 +88,11 @@ public class UrlResolutionTask extends AsyncTask<String, Void, String> {
                     return locationUrl;
                 }
 
+                if (mUrlFilter != null && !mUrlFilter.isAllowed(locationUrl)) {
+                    MoPubLog.log(CUSTOM, "Stopped resolving url at a url that must not be requested.");
+                    return null;
+                }
+
                 previousUrl = locationUrl;
                 locationUrl = getRedirectLocation(locationUrl);
                 redirectCount++;
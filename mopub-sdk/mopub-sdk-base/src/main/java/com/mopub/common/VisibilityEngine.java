@@ -0,0 +1,216 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.ViewTreeObserver;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import static android.view.ViewTreeObserver.OnPreDrawListener;
+
+/**
+ * Runs the visibility checks of all the trackers in a window together. There is one engine per
+ * {@link ViewTreeObserver}, with a single pre-draw listener. A frame marks every tracker in the
+ * window as needing a check, and one throttled pass then runs all of those checks back to back,
+ * instead of every tracker listening to frames and posting its own message on its own timer.
+ * Trackers whose view has no live {@link ViewTreeObserver} share an engine that only runs the
+ * checks they ask for. All methods must be called on the main thread.
+ */
+public class VisibilityEngine {
+    // Time interval to use for throttling visibility checks.
+    @VisibleForTesting
+    static final int VISIBILITY_THROTTLE_MILLIS = 100;
+
+    /**
+     * A tracker whose visibility check is run by the engine.
+     */
+    public interface Client {
+        void onVisibilityCheck();
+    }
+
+    @NonNull private static final Handler sHandler = new Handler(Looper.getMainLooper());
+    @NonNull private static final Map<ViewTreeObserver, VisibilityEngine> sEngines =
+            new WeakHashMap<>();
+    @Nullable private static VisibilityEngine sDetachedEngine;
+
+    // Weak so that the map entry goes away with the observer.
+    @NonNull private final WeakReference<ViewTreeObserver> mWeakViewTreeObserver;
+    @NonNull private final ArrayList<Client> mClients = new ArrayList<>();
+    @NonNull private final ArrayList<Client> mScheduledClients = new ArrayList<>();
+    // Clients being checked by the current pass. Kept so that passes do not allocate.
+    @NonNull private final ArrayList<Client> mCheckingClients = new ArrayList<>();
+    @Nullable private final OnPreDrawListener mOnPreDrawListener;
+    @NonNull private final Runnable mPassRunnable;
+    private boolean mIsPassScheduled;
+
+    private VisibilityEngine(@Nullable final ViewTreeObserver viewTreeObserver) {
+        mWeakViewTreeObserver = new WeakReference<>(viewTreeObserver);
+        mPassRunnable = new Runnable() {
+            @Override
+            public void run() {
+                runPass();
+            }
+        };
+
+        if (viewTreeObserver == null) {
+            mOnPreDrawListener = null;
+            return;
+        }
+
+        mOnPreDrawListener = new OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                for (int i = 0; i < mClients.size(); i++) {
+                    addScheduledClient(mClients.get(i));
+                }
+                schedulePass();
+                return true;
+            }
+        };
+        viewTreeObserver.addOnPreDrawListener(mOnPreDrawListener);
+    }
+
+    /**
+     * Adds a client to the engine of the given observer, creating the engine if needed.
+     *
+     * @param viewTreeObserver the live observer of the window the client's views are in, or null
+     *                         if there is none
+     * @param client           the tracker to add
+     * @return the engine that now runs the client's checks
+     */
+    @NonNull
+    public static VisibilityEngine attach(@Nullable final ViewTreeObserver viewTreeObserver,
+            @NonNull final Client client) {
+        Preconditions.checkNotNull(client);
+
+        VisibilityEngine engine;
+        if (viewTreeObserver == null || !viewTreeObserver.isAlive()) {
+            if (sDetachedEngine == null) {
+                sDetachedEngine = new VisibilityEngine(null);
+            }
+            engine = sDetachedEngine;
+        } else {
+            engine = sEngines.get(viewTreeObserver);
+            if (engine == null) {
+                engine = new VisibilityEngine(viewTreeObserver);
+                sEngines.put(viewTreeObserver, engine);
+            }
+        }
+
+        if (!engine.mClients.contains(client)) {
+            engine.mClients.add(client);
+        }
+        return engine;
+    }
+
+    /**
+     * Removes a client and drops any check it has pending. The engine stops listening to frames
+     * once its last client is gone.
+     */
+    public void detach(@NonNull final Client client) {
+        Preconditions.checkNotNull(client);
+
+        mClients.remove(client);
+        mScheduledClients.remove(client);
+        if (!mClients.isEmpty()) {
+            return;
+        }
+
+        sHandler.removeCallbacks(mPassRunnable);
+        mIsPassScheduled = false;
+
+        final ViewTreeObserver viewTreeObserver = mWeakViewTreeObserver.get();
+        if (viewTreeObserver == null) {
+            return;
+        }
+        sEngines.remove(viewTreeObserver);
+        if (viewTreeObserver.isAlive()) {
+            viewTreeObserver.removeOnPreDrawListener(mOnPreDrawListener);
+        }
+    }
+
+    /**
+     * @return whether the observer this engine listens to can still deliver frames
+     */
+    public boolean isAlive() {
+        final ViewTreeObserver viewTreeObserver = mWeakViewTreeObserver.get();
+        return viewTreeObserver != null && viewTreeObserver.isAlive();
+    }
+
+    /**
+     * Runs the client's check in the next pass, even if no frame is drawn before then.
+     */
+    public void scheduleCheck(@NonNull final Client client) {
+        Preconditions.checkNotNull(client);
+
+        addScheduledClient(client);
+        schedulePass();
+    }
+
+    /**
+     * Drops the client's pending check, if any.
+     */
+    public void cancelCheck(@NonNull final Client client) {
+        Preconditions.checkNotNull(client);
+
+        mScheduledClients.remove(client);
+    }
+
+    private void addScheduledClient(@NonNull final Client client) {
+        if (!mScheduledClients.contains(client)) {
+            mScheduledClients.add(client);
+        }
+    }
+
+    private void schedulePass() {
+        // Tracking this directly instead of calling hasMessages directly because we measured that
+        // this led to slightly better performance.
+        if (mIsPassScheduled || mScheduledClients.isEmpty()) {
+            return;
+        }
+
+        mIsPassScheduled = true;
+        sHandler.postDelayed(mPassRunnable, VISIBILITY_THROTTLE_MILLIS);
+    }
+
+    @VisibleForTesting
+    void runPass() {
+        mIsPassScheduled = false;
+
+        // Clients scheduled while the pass runs, such as ones that check again later, are left
+        // for the next pass.
+        mCheckingClients.addAll(mScheduledClients);
+        mScheduledClients.clear();
+        for (int i = 0; i < mCheckingClients.size(); i++) {
+            final Client client = mCheckingClients.get(i);
+            // An earlier client's listener may have destroyed this one
+            if (mClients.contains(client)) {
+                client.onVisibilityCheck();
+            }
+        }
+        mCheckingClients.clear();
+
+        schedulePass();
+    }
+
+    @VisibleForTesting
+    boolean isCheckScheduled(@NonNull final Client client) {
+        return mScheduledClients.contains(client);
+    }
+
+    @VisibleForTesting
+    public static void clearForTesting() {
+        sHandler.removeCallbacksAndMessages(null);
+        sEngines.clear();
+        sDetachedEngine = null;
+    }
+}
@@ -6,7 +6,6 @@ package com.mopub.common;
 
 import android.content.Context;
 import android.graphics.Rect;
-import android.os.Handler;
 import android.os.SystemClock;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -19,28 +18,20 @@ import com.mopub.common.util.Views;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.WeakHashMap;
 
-import static android.view.ViewTreeObserver.OnPreDrawListener;
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 
 /**
  * Tracks views to determine when they become visible or invisible, where visibility is defined as
- * having been at least X% on the screen.
+ * having been at least X% on the screen. The checks are run by the {@link VisibilityEngine} of
+ * the window the views are in.
  */
 public class VisibilityTracker {
-    // Time interval to use for throttling visibility checks.
-    private static final int VISIBILITY_THROTTLE_MILLIS = 100;
-
     // Trim the tracked views after this many accesses. This protects us against tracking
     // too many views if the developer uses the adapter for multiple ListViews. It also
     // limits the memory leak if a developer forgets to call destroy().
     @VisibleForTesting static final int NUM_ACCESSES_BEFORE_TRIMMING = 50;
 
-    // Temporary array of trimmed views so that we don't allocate this on every trim.
-    @NonNull private final ArrayList<View> mTrimmedViews;
-
     // Incrementing access counter. Use a long to support very long-lived apps.
     private long mAccessCounter = 0;
 
@@ -49,15 +40,19 @@ public class VisibilityTracker {
         void onVisibilityChanged(List<View> visibleViews, List<View> invisibleViews);
     }
 
-    @NonNull @VisibleForTesting final OnPreDrawListener mOnPreDrawListener;
+    @NonNull @VisibleForTesting final VisibilityEngine.Client mVisibilityClient;
     @NonNull @VisibleForTesting WeakReference<ViewTreeObserver> mWeakViewTreeObserver;
+    // Engine that runs the visibility checks for the window the tracked views are in
+    @NonNull @VisibleForTesting VisibilityEngine mVisibilityEngine;
 
     static class TrackingInfo {
+        // Weak so that views the app no longer uses can be collected
+        @Nullable WeakReference<View> mWeakView;
+        @Nullable WeakReference<View> mWeakRootView;
         int mMinViewablePercent;
         // Must be less than mMinVisiblePercent
         int mMaxInvisiblePercent;
         long mAccessOrder;
-        View mRootView;
 
         /**
          * If this number is set, then use this as the minimum amount of the view seen before it is
@@ -66,8 +61,12 @@ public class VisibilityTracker {
         @Nullable Integer mMinVisiblePx;
     }
 
-    // Views that are being tracked, mapped to the min viewable percentage
-    @NonNull private final Map<View, TrackingInfo> mTrackedViews;
+    // Views that are being tracked. Scanned by index and looked up linearly, since there are
+    // only a few dozen at most after trimming, so that a pass allocates nothing.
+    @NonNull private final ArrayList<TrackingInfo> mTrackedViews;
+
+    // Tracking infos of removed views, reused for the next views that are added
+    @NonNull private final ArrayList<TrackingInfo> mTrackingInfoPool;
 
     // Object to check actual visibility
     @NonNull private final VisibilityChecker mVisibilityChecker;
@@ -78,39 +77,27 @@ public class VisibilityTracker {
     // Runnable to run on each visibility loop
     @NonNull private final VisibilityRunnable mVisibilityRunnable;
 
-    // Handler for visibility
-    @NonNull private final Handler mVisibilityHandler;
-
-    // Whether the visibility runnable is scheduled
-    private boolean mIsVisibilityScheduled;
-
     public VisibilityTracker(@NonNull final Context context) {
-        this(context,
-                new WeakHashMap<View, TrackingInfo>(10),
-                new VisibilityChecker(),
-                new Handler());
+        this(context, new VisibilityChecker());
     }
 
     @VisibleForTesting
     VisibilityTracker(@NonNull final Context context,
-            @NonNull final Map<View, TrackingInfo> trackedViews,
-            @NonNull final VisibilityChecker visibilityChecker,
-            @NonNull final Handler visibilityHandler) {
-        mTrackedViews = trackedViews;
+            @NonNull final VisibilityChecker visibilityChecker) {
+        mTrackedViews = new ArrayList<TrackingInfo>(NUM_ACCESSES_BEFORE_TRIMMING);
+        mTrackingInfoPool = new ArrayList<TrackingInfo>(NUM_ACCESSES_BEFORE_TRIMMING);
         mVisibilityChecker = visibilityChecker;
-        mVisibilityHandler = visibilityHandler;
         mVisibilityRunnable = new VisibilityRunnable();
-        mTrimmedViews = new ArrayList<View>(NUM_ACCESSES_BEFORE_TRIMMING);
 
-        mOnPreDrawListener = new OnPreDrawListener() {
+        mVisibilityClient = new VisibilityEngine.Client() {
             @Override
-            public boolean onPreDraw() {
-                scheduleVisibilityCheck();
-                return true;
+            public void onVisibilityCheck() {
+                mVisibilityRunnable.run();
             }
         };
 
         mWeakViewTreeObserver = new WeakReference<ViewTreeObserver>(null);
+        mVisibilityEngine = VisibilityEngine.attach(null, mVisibilityClient);
         setViewTreeObserver(context, null);
     }
 
@@ -134,7 +121,8 @@ public class VisibilityTracker {
         }
 
         mWeakViewTreeObserver = new WeakReference<ViewTreeObserver>(viewTreeObserver);
-        viewTreeObserver.addOnPreDrawListener(mOnPreDrawListener);
+        mVisibilityEngine.detach(mVisibilityClient);
+        mVisibilityEngine = VisibilityEngine.attach(viewTreeObserver, mVisibilityClient);
     }
 
     public void setVisibilityTrackerListener(
@@ -161,16 +149,24 @@ public class VisibilityTracker {
         setViewTreeObserver(view.getContext(), view);
 
         // Find the view if already tracked
-        TrackingInfo trackingInfo = mTrackedViews.get(view);
-        if (trackingInfo == null) {
-            trackingInfo = new TrackingInfo();
-            mTrackedViews.put(view, trackingInfo);
+        final int index = indexOf(view);
+        final TrackingInfo trackingInfo;
+        if (index >= 0) {
+            trackingInfo = mTrackedViews.get(index);
+        } else {
+            trackingInfo = mTrackingInfoPool.isEmpty()
+                    ? new TrackingInfo()
+                    : mTrackingInfoPool.remove(mTrackingInfoPool.size() - 1);
+            trackingInfo.mWeakView = new WeakReference<View>(view);
+            mTrackedViews.add(trackingInfo);
             scheduleVisibilityCheck();
         }
 
         int maxInvisiblePercent = Math.min(maxInvisiblePercentageViewed, minVisiblePercentageViewed);
 
-        trackingInfo.mRootView = rootView;
+        if (trackingInfo.mWeakRootView == null || trackingInfo.mWeakRootView.get() != rootView) {
+            trackingInfo.mWeakRootView = new WeakReference<View>(rootView);
+        }
         trackingInfo.mMinViewablePercent = minVisiblePercentageViewed;
         trackingInfo.mMaxInvisiblePercent = maxInvisiblePercent;
         trackingInfo.mAccessOrder = mAccessCounter;
@@ -184,33 +180,69 @@ public class VisibilityTracker {
     }
 
     private void trimTrackedViews(long minAccessOrder) {
-        // Clear anything that is below minAccessOrder.
-        for (final Map.Entry<View, TrackingInfo> entry : mTrackedViews.entrySet()) {
-            if (entry.getValue().mAccessOrder <  minAccessOrder) {
-                mTrimmedViews.add(entry.getKey());
+        // Clear anything that is below minAccessOrder. Walk backwards since removal moves the
+        // last view into the removed slot.
+        for (int i = mTrackedViews.size() - 1; i >= 0; i--) {
+            if (mTrackedViews.get(i).mAccessOrder < minAccessOrder) {
+                removeTrackingInfo(i);
             }
         }
-
-        for (View view : mTrimmedViews) {
-            removeView(view);
-        }
-        mTrimmedViews.clear();
     }
 
     /**
      * Stops tracking a view, cleaning any pending tracking
      */
     public void removeView(@NonNull final View view) {
-        mTrackedViews.remove(view);
+        final int index = indexOf(view);
+        if (index >= 0) {
+            removeTrackingInfo(index);
+        }
     }
 
     /**
      * Immediately clear all views. Useful for when we re-request ads for an ad placer
      */
     public void clear() {
-        mTrackedViews.clear();
-        mVisibilityHandler.removeMessages(0);
-        mIsVisibilityScheduled = false;
+        for (int i = mTrackedViews.size() - 1; i >= 0; i--) {
+            removeTrackingInfo(i);
+        }
+        mVisibilityEngine.cancelCheck(mVisibilityClient);
+    }
+
+    private int indexOf(@Nullable final View view) {
+        for (int i = 0; i < mTrackedViews.size(); i++) {
+            final WeakReference<View> weakView = mTrackedViews.get(i).mWeakView;
+            if (weakView != null && weakView.get() == view) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the tracking info at the given index by moving the last one into its place, and
+     * returns it to the pool.
+     */
+    private void removeTrackingInfo(final int index) {
+        final int lastIndex = mTrackedViews.size() - 1;
+        final TrackingInfo trackingInfo = mTrackedViews.get(index);
+        mTrackedViews.set(index, mTrackedViews.get(lastIndex));
+        mTrackedViews.remove(lastIndex);
+
+        trackingInfo.mWeakView = null;
+        trackingInfo.mWeakRootView = null;
+        trackingInfo.mMinVisiblePx = null;
+        mTrackingInfoPool.add(trackingInfo);
+    }
+
+    @VisibleForTesting
+    int getTrackedViewCount() {
+        return mTrackedViews.size();
+    }
+
+    @VisibleForTesting
+    boolean isTracked(@Nullable final View view) {
+        return indexOf(view) >= 0;
     }
 
     /**
@@ -218,23 +250,13 @@ public class VisibilityTracker {
      */
     public void destroy() {
         clear();
-        final ViewTreeObserver viewTreeObserver = mWeakViewTreeObserver.get();
-        if (viewTreeObserver != null && viewTreeObserver.isAlive()) {
-            viewTreeObserver.removeOnPreDrawListener(mOnPreDrawListener);
-        }
+        mVisibilityEngine.detach(mVisibilityClient);
         mWeakViewTreeObserver.clear();
         mVisibilityTrackerListener = null;
     }
 
     public void scheduleVisibilityCheck() {
-        // Tracking this directly instead of calling hasMessages directly because we measured that
-        // this led to slightly better performance.
-        if (mIsVisibilityScheduled) {
-            return;
-        }
-
-        mIsVisibilityScheduled = true;
-        mVisibilityHandler.postDelayed(mVisibilityRunnable, VISIBILITY_THROTTLE_MILLIS);
+        mVisibilityEngine.scheduleCheck(mVisibilityClient);
     }
 
     class VisibilityRunnable implements Runnable {
@@ -250,13 +272,25 @@ public class VisibilityTracker {
 
         @Override
         public void run() {
-            mIsVisibilityScheduled = false;
-            for (final Map.Entry<View, TrackingInfo> entry : mTrackedViews.entrySet()) {
-                final View view = entry.getKey();
-                final int minPercentageViewed = entry.getValue().mMinViewablePercent;
-                final int maxInvisiblePercent = entry.getValue().mMaxInvisiblePercent;
-                final Integer minVisiblePx = entry.getValue().mMinVisiblePx;
-                final View rootView = entry.getValue().mRootView;
+            int i = 0;
+            while (i < mTrackedViews.size()) {
+                final TrackingInfo trackingInfo = mTrackedViews.get(i);
+                final View view = trackingInfo.mWeakView == null
+                        ? null
+                        : trackingInfo.mWeakView.get();
+                if (view == null) {
+                    // The view was collected. Another view is moved into this slot.
+                    removeTrackingInfo(i);
+                    continue;
+                }
+                i++;
+
+                final int minPercentageViewed = trackingInfo.mMinViewablePercent;
+                final int maxInvisiblePercent = trackingInfo.mMaxInvisiblePercent;
+                final Integer minVisiblePx = trackingInfo.mMinVisiblePx;
+                final View rootView = trackingInfo.mWeakRootView == null
+                        ? null
+                        : trackingInfo.mWeakRootView.get();
 
                 if (mVisibilityChecker.isVisible(rootView, view, minPercentageViewed,
                         minVisiblePx)) {
@@ -300,7 +334,8 @@ public class VisibilityTracker {
             // view.getGlobalVisibleRect() doesn't check that case, so if the view has visibility
             // of View.VISIBLE but it's group has no parent it is likely in the recycle bin of a
             // ListView / GridView and not on screen.
-            if (view == null || view.getVisibility() != View.VISIBLE || rootView.getParent() == null) {
+            if (view == null || rootView == null || view.getVisibility() != View.VISIBLE
+                    || rootView.getParent() == null) {
                 return false;
             }
 
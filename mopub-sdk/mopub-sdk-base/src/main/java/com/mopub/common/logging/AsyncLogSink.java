@@ -0,0 +1,224 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common.logging;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+
+/**
+ * Bounded, preallocated ring buffer of log records that is drained by a single background thread.
+ * The caller only copies references into a reusable slot; message formatting and delivery to the
+ * registered {@link MoPubLogger}s happen on the drain thread. When the buffer is full, new records
+ * are dropped and counted. The count is reported where the records were dropped, after the records
+ * queued before them and before the records queued after them.
+ *
+ * The drain thread is started with the first record and runs until {@link #stop()}. A stopped sink
+ * never starts another thread. Records logged after the stop are delivered on the calling thread,
+ * but only once the drain thread has delivered everything queued and exited, so they never
+ * overtake queued records or run alongside the drain thread.
+ */
+final class AsyncLogSink {
+
+    static final int DEFAULT_CAPACITY = 512;
+    private static final String THREAD_NAME = "MoPubLog";
+
+    interface Delivery {
+        void deliver(@Nullable Throwable callSite, @Nullable String identifier,
+                     @NonNull MoPubLog.MPLogEventType logEventType, @Nullable Object[] args);
+    }
+
+    private static final class LogRecord {
+        @Nullable Throwable callSite;
+        @Nullable String identifier;
+        @Nullable MoPubLog.MPLogEventType logEventType;
+        @Nullable Object[] args;
+        // Records dropped right before this one was queued
+        long droppedBefore;
+
+        void clear() {
+            callSite = null;
+            identifier = null;
+            logEventType = null;
+            args = null;
+            droppedBefore = 0;
+        }
+    }
+
+    @NonNull private final Object mLock = new Object();
+    @NonNull private final LogRecord[] mRecords;
+    @NonNull private final Delivery mDelivery;
+    // Guarded by mLock
+    private int mHead;
+    private int mCount;
+    private long mDroppedCount;
+    // Records dropped since the last record was queued, not yet attached to a record
+    private long mPendingDroppedCount;
+    @Nullable private Thread mDrainThread;
+    private boolean mStopped;
+
+    AsyncLogSink(final int capacity, @NonNull final Delivery delivery) {
+        Preconditions.checkArgument(capacity > 0);
+        Preconditions.checkNotNull(delivery);
+
+        mRecords = new LogRecord[capacity];
+        for (int i = 0; i < capacity; i++) {
+            mRecords[i] = new LogRecord();
+        }
+        mDelivery = delivery;
+    }
+
+    /**
+     * Queues a log event for delivery on the drain thread. Once the sink is stopped, the event is
+     * delivered on the calling thread instead, after waiting for the drain thread to finish.
+     *
+     * @return false if the buffer was full and the event was dropped.
+     */
+    boolean enqueue(@Nullable final Throwable callSite, @Nullable final String identifier,
+                    @NonNull final MoPubLog.MPLogEventType logEventType,
+                    @Nullable final Object[] args) {
+        synchronized (mLock) {
+            if (!mStopped) {
+                if (mCount == mRecords.length) {
+                    mDroppedCount++;
+                    mPendingDroppedCount++;
+                    return false;
+                }
+
+                final LogRecord record = mRecords[(mHead + mCount) % mRecords.length];
+                record.callSite = callSite;
+                record.identifier = identifier;
+                record.logEventType = logEventType;
+                record.args = args;
+                record.droppedBefore = mPendingDroppedCount;
+                mPendingDroppedCount = 0;
+                mCount++;
+
+                if (mDrainThread == null) {
+                    startLocked();
+                }
+                mLock.notify();
+                return true;
+            }
+        }
+
+        awaitDrainThread();
+        mDelivery.deliver(callSite, identifier, logEventType, args);
+        return true;
+    }
+
+    /**
+     * Lets the drain thread finish delivering queued records and then exit. The sink cannot be
+     * started again.
+     */
+    void stop() {
+        synchronized (mLock) {
+            mStopped = true;
+            mLock.notify();
+        }
+    }
+
+    long getDroppedCount() {
+        synchronized (mLock) {
+            return mDroppedCount;
+        }
+    }
+
+    @VisibleForTesting
+    int getQueuedCount() {
+        synchronized (mLock) {
+            return mCount;
+        }
+    }
+
+    private void startLocked() {
+        mDrainThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, THREAD_NAME);
+        mDrainThread.setDaemon(true);
+        mDrainThread.start();
+    }
+
+    /**
+     * Waits for a stopped sink's drain thread to deliver the queued records and exit. Returns
+     * right away on the drain thread itself, since a logger there may log again.
+     */
+    private void awaitDrainThread() {
+        final Thread drainThread;
+        synchronized (mLock) {
+            drainThread = mDrainThread;
+        }
+        if (drainThread == null || drainThread == Thread.currentThread()) {
+            return;
+        }
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                drainThread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @VisibleForTesting
+    void drain() {
+        while (true) {
+            Throwable callSite = null;
+            String identifier = null;
+            MoPubLog.MPLogEventType logEventType = null;
+            Object[] args = null;
+            final long droppedCount;
+
+            synchronized (mLock) {
+                while (mCount == 0 && mPendingDroppedCount == 0) {
+                    if (mStopped) {
+                        return;
+                    }
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException e) {
+                        mStopped = true;
+                    }
+                }
+
+                if (mCount == 0) {
+                    // Everything queued before the drops has been delivered
+                    droppedCount = mPendingDroppedCount;
+                    mPendingDroppedCount = 0;
+                } else {
+                    final LogRecord record = mRecords[mHead];
+                    callSite = record.callSite;
+                    identifier = record.identifier;
+                    logEventType = record.logEventType;
+                    args = record.args;
+                    droppedCount = record.droppedBefore;
+                    record.clear();
+                    mHead = (mHead + 1) % mRecords.length;
+                    mCount--;
+                }
+            }
+
+            if (droppedCount > 0) {
+                // Reported from here, since the records were dropped on many call sites
+                mDelivery.deliver(new Throwable(), null, MoPubLog.SdkLogEvent.CUSTOM, new Object[]{
+                        "Dropped " + droppedCount + " log events because the async log buffer was full."});
+            }
+            if (logEventType != null) {
+                mDelivery.deliver(callSite, identifier, logEventType, args);
+            }
+        }
+    }
+}
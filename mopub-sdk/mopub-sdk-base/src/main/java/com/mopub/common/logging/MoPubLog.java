@@ -8,12 +8,12 @@ import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.core.util.Pair;
 
 import com.mopub.common.Preconditions;
 
 import java.text.MessageFormat;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,12 +24,6 @@ public class MoPubLog {
 
     public static final String LOGTAG = "MoPub";
 
-    /**
-     * STACK_TRACE_LEVEL is a magic number used to determine the offset on the call stack of the
-     * calling class and method so the names can be used in log messages.
-     */
-    private static final int STACK_TRACE_LEVEL = 4;
-
     /**
      * LogLevelInt values set for parity with iOS
      */
@@ -84,9 +78,20 @@ public class MoPubLog {
     }
 
     @NonNull private static final MoPubLog sInstance = new MoPubLog();
-    @NonNull private LogLevel sLogLevel = LogLevel.INFO;
-    @NonNull private Map<MoPubLogger, LogLevel> mLoggers = new HashMap<>();
+    @NonNull private volatile LogLevel sLogLevel = LogLevel.INFO;
+    /**
+     * Copy-on-write registry of loggers. Writers replace the whole map under the instance lock so
+     * that {@link #log} can iterate a stable snapshot without synchronization.
+     */
+    @NonNull private volatile Map<MoPubLogger, LogLevel> mLoggers = Collections.emptyMap();
+    /**
+     * The lowest level int accepted by any registered logger. Events below this level are dropped
+     * before the call site is captured or the message is formatted.
+     */
+    private volatile int mMinimumLogLevelInt = LogLevel.NONE.intValue();
     @NonNull private MoPubLogger mDefaultLogger = new MoPubDefaultLogger();
+    @Nullable private volatile AsyncLogSink mAsyncLogSink;
+    private volatile boolean mAsyncCallSitesEnabled = true;
 
     private MoPubLog() {
     }
@@ -97,7 +102,11 @@ public class MoPubLog {
     }
 
     private static void removeLogger(@Nullable MoPubLogger logger) {
-        sInstance.mLoggers.remove(logger);
+        synchronized (sInstance) {
+            final Map<MoPubLogger, LogLevel> loggers = new HashMap<>(sInstance.mLoggers);
+            loggers.remove(logger);
+            sInstance.updateLoggers(loggers);
+        }
     }
 
     public static void addLogger(@Nullable MoPubLogger logger) {
@@ -105,14 +114,20 @@ public class MoPubLog {
     }
 
     public static void addLogger(@Nullable MoPubLogger logger, @Nullable LogLevel logLevel) {
-        sInstance.mLoggers.put(logger, logLevel);
+        synchronized (sInstance) {
+            final Map<MoPubLogger, LogLevel> loggers = new HashMap<>(sInstance.mLoggers);
+            loggers.put(logger, logLevel);
+            sInstance.updateLoggers(loggers);
+        }
     }
 
     public static void setLogLevel(@NonNull LogLevel logLevel) {
         Preconditions.checkNotNull(logLevel);
 
-        sInstance.sLogLevel = logLevel;
-        addLogger(sInstance.mDefaultLogger, sInstance.sLogLevel);
+        synchronized (sInstance) {
+            sInstance.sLogLevel = logLevel;
+            addLogger(sInstance.mDefaultLogger, sInstance.sLogLevel);
+        }
     }
 
     @NonNull
@@ -120,38 +135,170 @@ public class MoPubLog {
         return sInstance.sLogLevel;
     }
 
+    /**
+     * Whether any registered logger would accept an event of the given level. Callers that build
+     * expensive arguments can use this to skip the work entirely.
+     *
+     * @param logLevel The level of the event about to be logged.
+     * @return true if at least one logger accepts this level, false otherwise.
+     */
+    public static boolean isLoggable(@Nullable final LogLevel logLevel) {
+        return logLevel != null && logLevel.intValue() >= sInstance.mMinimumLogLevelInt;
+    }
+
     public static void log(@Nullable final MPLogEventType logEventType, @Nullable final Object... args) {
-        Pair<String, String> classAndMethodNames = getClassAndMethod();
-        log(classAndMethodNames, null, logEventType, args);  // null identifiers are omitted
+        log((String) null, logEventType, args);  // null identifiers are omitted
     }
 
     public static void log(@Nullable final String identifier, @Nullable final MPLogEventType logEventType,
                            @Nullable final Object... args) {
-        Pair<String, String> classAndMethodNames = getClassAndMethod();
-        log(classAndMethodNames, identifier, logEventType, args);  // null identifiers are omitted
-    }
+        if (logEventType == null) {
+            return;
+        }
 
-    private static void log(@NonNull Pair<String, String> classAndMethodNames, @Nullable String identifier,
-                            @Nullable  MPLogEventType logEventType, @Nullable Object... args) {
-        Preconditions.checkNotNull(classAndMethodNames);
+        if (logEventType.getLogLevel().intValue() < sInstance.mMinimumLogLevelInt) {
+            return;
+        }
 
-        if (logEventType == null) {
+        final AsyncLogSink asyncLogSink = sInstance.mAsyncLogSink;
+        if (asyncLogSink != null) {
+            // Only the raw stack is recorded here; it is resolved on the drain thread
+            asyncLogSink.enqueue(sInstance.mAsyncCallSitesEnabled ? new Throwable() : null,
+                    identifier, logEventType, args);
             return;
         }
 
-        for (MoPubLogger logger : sInstance.mLoggers.keySet()) {
-            if (sInstance.mLoggers.get(logger) != null
-                    && sInstance.mLoggers.get(logger).intValue() <= logEventType.getLogLevel().intValue()) {
-                logger.log(classAndMethodNames.first, classAndMethodNames.second, identifier,
-                        logEventType.getMessage(args));
+        deliver(null, identifier, logEventType, args);
+    }
+
+    /**
+     * Enables or disables asynchronous delivery of log events. When enabled, log calls only record
+     * the event in a bounded buffer and return; formatting and delivery to every registered
+     * {@link MoPubLogger} happen on a single background thread, so loggers must not assume they
+     * are called on the logging thread. Events are dropped and counted when the buffer is full.
+     *
+     * @param enabled true to deliver log events on a background thread, false to deliver them on
+     *                the calling thread.
+     */
+    public static void setAsyncLoggingEnabled(final boolean enabled) {
+        setAsyncLoggingEnabled(enabled, true);
+    }
+
+    /**
+     * Same as {@link #setAsyncLoggingEnabled(boolean)}, and also sets whether loggers are told the
+     * class and method that logged each asynchronous event. Finding them means capturing a stack
+     * trace on the logging thread for every event, so turning this off makes log calls cheaper.
+     * Loggers then get null for the class and method names.
+     *
+     * @param enabled          true to deliver log events on a background thread, false to deliver
+     *                         them on the calling thread.
+     * @param includeCallSites true to capture the class and method of each asynchronous event.
+     */
+    public static void setAsyncLoggingEnabled(final boolean enabled,
+            final boolean includeCallSites) {
+        synchronized (sInstance) {
+            sInstance.mAsyncCallSitesEnabled = includeCallSites;
+            final AsyncLogSink asyncLogSink = sInstance.mAsyncLogSink;
+            if (enabled && asyncLogSink == null) {
+                sInstance.mAsyncLogSink = new AsyncLogSink(AsyncLogSink.DEFAULT_CAPACITY,
+                        new AsyncLogSink.Delivery() {
+                            @Override
+                            public void deliver(@Nullable final Throwable callSite,
+                                                @Nullable final String identifier,
+                                                @NonNull final MPLogEventType logEventType,
+                                                @Nullable final Object[] args) {
+                                // Without a captured stack, the drain thread is not the call site
+                                MoPubLog.deliver(callSite, callSite != null, identifier,
+                                        logEventType, args);
+                            }
+                        });
+            } else if (!enabled && asyncLogSink != null) {
+                asyncLogSink.stop();
+                sInstance.mAsyncLogSink = null;
             }
         }
     }
 
-    private static Pair<String, String> getClassAndMethod() {
-        final StackTraceElement[] stackTraceElements = Thread.currentThread().getStackTrace();
-        return new Pair<>(stackTraceElements[STACK_TRACE_LEVEL].getClassName(),
-                stackTraceElements[STACK_TRACE_LEVEL].getMethodName());
+    /**
+     * @return The number of log events dropped because the asynchronous log buffer was full, or 0
+     * if asynchronous logging is disabled.
+     */
+    public static long getAsyncDroppedLogCount() {
+        final AsyncLogSink asyncLogSink = sInstance.mAsyncLogSink;
+        return asyncLogSink != null ? asyncLogSink.getDroppedCount() : 0;
+    }
+
+    /**
+     * Formats the event and hands it to every logger that accepts its level.
+     *
+     * @param callSite Stack captured where the event was logged, or null to capture it here.
+     */
+    static void deliver(@Nullable final Throwable callSite, @Nullable final String identifier,
+                        @NonNull final MPLogEventType logEventType, @Nullable final Object[] args) {
+        deliver(callSite, true, identifier, logEventType, args);
+    }
+
+    /**
+     * @param includeCallSite Whether loggers are told the class and method that logged the event.
+     *                        When false, they get null for both and no stack is captured.
+     */
+    private static void deliver(@Nullable final Throwable callSite, final boolean includeCallSite,
+                                @Nullable final String identifier,
+                                @NonNull final MPLogEventType logEventType,
+                                @Nullable final Object[] args) {
+        final int eventLevelInt = logEventType.getLogLevel().intValue();
+
+        // Snapshot the registry once; concurrent writers publish a new map instead of mutating this one
+        final Map<MoPubLogger, LogLevel> loggers = sInstance.mLoggers;
+
+        // The call site and message are only built once a logger has accepted the event, and then
+        // shared by every other logger that accepts it.
+        StackTraceElement callSiteElement = null;
+        String message = null;
+        for (final Map.Entry<MoPubLogger, LogLevel> entry : loggers.entrySet()) {
+            final LogLevel loggerLevel = entry.getValue();
+            if (loggerLevel == null || loggerLevel.intValue() > eventLevelInt) {
+                continue;
+            }
+
+            if (message == null) {
+                if (includeCallSite) {
+                    callSiteElement = getCallSite(callSite != null ? callSite : new Throwable());
+                }
+                message = logEventType.getMessage(args);
+            }
+            entry.getKey().log(callSiteElement != null ? callSiteElement.getClassName() : null,
+                    callSiteElement != null ? callSiteElement.getMethodName() : null, identifier,
+                    message);
+        }
+    }
+
+    private void updateLoggers(@NonNull final Map<MoPubLogger, LogLevel> loggers) {
+        int minimumLogLevelInt = LogLevel.NONE.intValue();
+        for (final LogLevel logLevel : loggers.values()) {
+            if (logLevel != null && logLevel.intValue() < minimumLogLevelInt) {
+                minimumLogLevelInt = logLevel.intValue();
+            }
+        }
+
+        mLoggers = Collections.unmodifiableMap(loggers);
+        mMinimumLogLevelInt = minimumLogLevelInt;
+    }
+
+    /**
+     * Finds the first frame on the captured stack outside of this class and its nested classes,
+     * which is the SDK class and method that produced the log event.
+     */
+    @Nullable
+    private static StackTraceElement getCallSite(@NonNull final Throwable stack) {
+        final StackTraceElement[] stackTraceElements = stack.getStackTrace();
+        final String logClassName = MoPubLog.class.getName();
+        for (final StackTraceElement element : stackTraceElements) {
+            if (!element.getClassName().startsWith(logClassName)) {
+                return element;
+            }
+        }
+        return null;
     }
 
     @Deprecated
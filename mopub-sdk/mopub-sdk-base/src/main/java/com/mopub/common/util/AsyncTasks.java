@@ -7,6 +7,7 @@ package com.mopub.common.util;
 import android.os.AsyncTask;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.Process;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
@@ -14,12 +15,59 @@ import com.mopub.common.Preconditions;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
 
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 
 public class AsyncTasks {
-    private static Executor sExecutor;
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * The SDK runs its background work on its own thread pools instead of sharing
+     * {@link AsyncTask#THREAD_POOL_EXECUTOR} with the app. Each lane has its own threads and queue,
+     * so a slow video precache can never hold up the requests an ad load is waiting on.
+     *
+     * The queues are unbounded. Tasks are submitted from the main thread, where a rejected task
+     * would crash the app, so a backed up lane queues the task instead.
+     */
+    public enum Lane {
+        /**
+         * Network and disk work that an ad load or click is waiting on.
+         */
+        IO("MoPubIO", 4, Process.THREAD_PRIORITY_BACKGROUND),
+        /**
+         * Parsing and image processing.
+         */
+        CPU("MoPubCPU", Math.max(2, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4)),
+                Process.THREAD_PRIORITY_BACKGROUND),
+        /**
+         * Work that can wait, such as precaching videos.
+         */
+        PREFETCH("MoPubPrefetch", 2,
+                Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_LESS_FAVORABLE);
+
+        @NonNull private final String mThreadName;
+        private final int mPoolSize;
+        private final int mThreadPriority;
+
+        Lane(@NonNull final String threadName, final int poolSize, final int threadPriority) {
+            mThreadName = threadName;
+            mPoolSize = poolSize;
+            mThreadPriority = threadPriority;
+        }
+    }
+
+    private static final Map<Lane, ThreadPoolExecutor> sLaneExecutors =
+            new EnumMap<Lane, ThreadPoolExecutor>(Lane.class);
+    @Nullable private static Executor sExecutorOverride;
     private static Handler sUiThreadHandler;
 
     static {
@@ -28,33 +76,175 @@ public class AsyncTasks {
 
     // This is in a separate method rather than a static block to pass lint.
     private static void init() {
-        // Reuse the async task executor
-        sExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
         sUiThreadHandler = new Handler(Looper.getMainLooper());
     }
 
+    /**
+     * Replaces the executors of all lanes.
+     */
     @VisibleForTesting
     public static void setExecutor(Executor executor) {
-        sExecutor = executor;
+        sExecutorOverride = executor;
     }
 
     /**
      * Starting with Honeycomb, default AsyncTask#execute behavior runs the tasks serially. This
-     * method attempts to force these AsyncTasks to run in parallel with a ThreadPoolExecutor.
+     * method attempts to force these AsyncTasks to run in parallel on the {@link Lane#IO} lane.
      */
     public static <P> void safeExecuteOnExecutor(final @NonNull AsyncTask<P, ?, ?> asyncTask, final @Nullable P... params) {
+        safeExecuteOnExecutor(Lane.IO, asyncTask, params);
+    }
+
+    /**
+     * Executes the AsyncTask on the given lane. The task is started from the main thread, as
+     * AsyncTask requires.
+     */
+    public static <P> void safeExecuteOnExecutor(final @NonNull Lane lane,
+            final @NonNull AsyncTask<P, ?, ?> asyncTask, final @Nullable P... params) {
+        Preconditions.checkNotNull(lane, "Unable to execute AsyncTask on null lane.");
+        Preconditions.checkNotNull(asyncTask, "Unable to execute null AsyncTask.");
+
+        if (Looper.getMainLooper() == Looper.myLooper()) {
+            asyncTask.executeOnExecutor(getExecutor(lane), params);
+        } else {
+            MoPubLog.log(CUSTOM, "Posting AsyncTask to main thread for execution.");
+            sUiThreadHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    asyncTask.executeOnExecutor(getExecutor(lane), params);
+                }
+            });
+        }
+    }
+
+    /**
+     * Executes the AsyncTask on the given executor, such as a {@link SerialExecutor}. The task is
+     * started from the main thread, as AsyncTask requires.
+     */
+    public static <P> void safeExecuteOnExecutor(final @NonNull Executor executor,
+            final @NonNull AsyncTask<P, ?, ?> asyncTask, final @Nullable P... params) {
+        Preconditions.checkNotNull(executor, "Unable to execute AsyncTask on null executor.");
         Preconditions.checkNotNull(asyncTask, "Unable to execute null AsyncTask.");
 
         if (Looper.getMainLooper() == Looper.myLooper()) {
-            asyncTask.executeOnExecutor(sExecutor, params);
+            asyncTask.executeOnExecutor(executor, params);
         } else {
             MoPubLog.log(CUSTOM, "Posting AsyncTask to main thread for execution.");
             sUiThreadHandler.post(new Runnable() {
                 @Override
                 public void run() {
-                    asyncTask.executeOnExecutor(sExecutor, params);
+                    asyncTask.executeOnExecutor(executor, params);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return The executor backing the given lane, for work that is not an AsyncTask.
+     */
+    @NonNull
+    public static Executor getExecutor(@NonNull final Lane lane) {
+        Preconditions.checkNotNull(lane);
+
+        final Executor executorOverride = sExecutorOverride;
+        if (executorOverride != null) {
+            return executorOverride;
+        }
+        return getLaneExecutor(lane);
+    }
+
+    /**
+     * @return The number of tasks waiting for a thread on the given lane.
+     */
+    public static int getQueuedTaskCount(@NonNull final Lane lane) {
+        return getLaneExecutor(lane).getQueue().size();
+    }
+
+    /**
+     * @return The number of tasks currently running on the given lane.
+     */
+    public static int getActiveTaskCount(@NonNull final Lane lane) {
+        return getLaneExecutor(lane).getActiveCount();
+    }
+
+    @NonNull
+    private static ThreadPoolExecutor getLaneExecutor(@NonNull final Lane lane) {
+        Preconditions.checkNotNull(lane);
+
+        synchronized (sLaneExecutors) {
+            ThreadPoolExecutor executor = sLaneExecutors.get(lane);
+            if (executor == null) {
+                executor = new ThreadPoolExecutor(lane.mPoolSize, lane.mPoolSize,
+                        THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(),
+                        new LaneThreadFactory(lane));
+                executor.allowCoreThreadTimeOut(true);
+                sLaneExecutors.put(lane, executor);
+            }
+            return executor;
+        }
+    }
+
+    /**
+     * Runs tasks one at a time and in the order they were submitted, on the threads of a lane.
+     * Work that must not be reordered, such as a cache write followed by a read of the same key,
+     * shares one of these instead of going to the lane directly.
+     */
+    public static class SerialExecutor implements Executor {
+        @NonNull private final Lane mLane;
+        @NonNull private final ArrayDeque<Runnable> mTasks = new ArrayDeque<Runnable>();
+        @Nullable private Runnable mActive;
+
+        public SerialExecutor(@NonNull final Lane lane) {
+            Preconditions.checkNotNull(lane);
+
+            mLane = lane;
+        }
+
+        @Override
+        public synchronized void execute(@NonNull final Runnable runnable) {
+            Preconditions.checkNotNull(runnable);
+
+            mTasks.offer(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runnable.run();
+                    } finally {
+                        scheduleNext();
+                    }
                 }
             });
+            if (mActive == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            mActive = mTasks.poll();
+            if (mActive != null) {
+                getExecutor(mLane).execute(mActive);
+            }
+        }
+    }
+
+    private static class LaneThreadFactory implements ThreadFactory {
+        @NonNull private final Lane mLane;
+        @NonNull private final AtomicInteger mCount = new AtomicInteger(1);
+
+        LaneThreadFactory(@NonNull final Lane lane) {
+            mLane = lane;
+        }
+
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(mLane.mThreadPriority);
+                    runnable.run();
+                }
+            }, mLane.mThreadName + " #" + mCount.getAndIncrement());
         }
     }
 }
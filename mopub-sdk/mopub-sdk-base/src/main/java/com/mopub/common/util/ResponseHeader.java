@@ -36,6 +36,14 @@ public enum ResponseHeader {
     LOCATION("location"),
     USER_AGENT("user-agent"),
     ACCEPT_LANGUAGE("accept-language"),
+    ACCEPT_ENCODING("accept-encoding"),
+    CONTENT_ENCODING("content-encoding"),
+    CONTENT_LENGTH("content-length"),
+    RANGE("range"),
+    IF_RANGE("if-range"),
+    CONTENT_RANGE("content-range"),
+    ETAG("etag"),
+    LAST_MODIFIED("last-modified"),
 
     BROWSER_AGENT("x-browser-agent"),
 
@@ -84,6 +92,7 @@ public enum ResponseHeader {
 
     // Experiment keys
     VAST_CLICK_ENABLED("vast-click-enabled"),
+    VAST_PROGRESSIVE_PLAYBACK_SECONDS("vast-progressive-playback-seconds"),
 
     // Mraid Custom Close
     ALLOW_CUSTOM_CLOSE("allow-custom-close");
@@ -0,0 +1,154 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import com.mopub.common.IntentActions;
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers the lifecycle events of fullscreen ads, such as show, click and dismiss, to the
+ * listeners of the ad that sent them. Listeners are kept by broadcast identifier, so sending an
+ * event only looks at the listeners of that one ad, and no {@link android.content.Intent} is built.
+ *
+ * Listeners are held weakly, so an ad that goes away without unregistering does not leak. Events
+ * are delivered on the main thread after the current message, as LocalBroadcastManager delivered
+ * them.
+ */
+public class AdLifecycleEventBus {
+
+    public interface Listener {
+        /**
+         * @param broadcastIdentifier The ad that sent the event.
+         * @param action One of the {@link IntentActions}.
+         */
+        void onAdLifecycleEvent(long broadcastIdentifier, @NonNull String action);
+    }
+
+    @NonNull private static final Map<Long, List<WeakReference<Listener>>> sListeners =
+            new HashMap<>();
+    @NonNull private static final Handler sHandler = new Handler(Looper.getMainLooper());
+    private static boolean sIsDispatching;
+
+    private AdLifecycleEventBus() {
+    }
+
+    /**
+     * Registers a listener for the events of one ad. Must be called on the main thread.
+     */
+    public static void register(final long broadcastIdentifier, @NonNull final Listener listener) {
+        Preconditions.checkNotNull(listener);
+
+        List<WeakReference<Listener>> listeners = sListeners.get(broadcastIdentifier);
+        if (listeners == null) {
+            listeners = new ArrayList<>(1);
+            sListeners.put(broadcastIdentifier, listeners);
+        }
+        for (final WeakReference<Listener> listenerReference : listeners) {
+            if (listenerReference.get() == listener) {
+                return;
+            }
+        }
+        listeners.add(new WeakReference<>(listener));
+    }
+
+    /**
+     * Unregisters a listener. Events already sent but not yet delivered are not delivered to it.
+     * Must be called on the main thread.
+     */
+    public static void unregister(final long broadcastIdentifier, @NonNull final Listener listener) {
+        Preconditions.checkNotNull(listener);
+
+        final List<WeakReference<Listener>> listeners = sListeners.get(broadcastIdentifier);
+        if (listeners == null) {
+            return;
+        }
+        for (final WeakReference<Listener> listenerReference : listeners) {
+            if (listenerReference.get() == listener) {
+                // Cleared rather than removed, in case the list is being dispatched to
+                listenerReference.clear();
+            }
+        }
+        if (!sIsDispatching) {
+            removeClearedListeners(broadcastIdentifier, listeners);
+        }
+    }
+
+    /**
+     * Sends an event to the listeners of an ad. Can be called from any thread.
+     */
+    public static void post(final long broadcastIdentifier, @NonNull final String action) {
+        Preconditions.checkNotNull(action);
+
+        sHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                dispatch(broadcastIdentifier, action);
+            }
+        });
+    }
+
+    private static void dispatch(final long broadcastIdentifier, @NonNull final String action) {
+        final List<WeakReference<Listener>> listeners = sListeners.get(broadcastIdentifier);
+        if (listeners == null) {
+            return;
+        }
+
+        // Listeners registered while dispatching only get later events
+        final int listenerCount = listeners.size();
+        final boolean wasDispatching = sIsDispatching;
+        sIsDispatching = true;
+        try {
+            for (int i = 0; i < listenerCount; i++) {
+                final Listener listener = listeners.get(i).get();
+                if (listener != null) {
+                    listener.onAdLifecycleEvent(broadcastIdentifier, action);
+                }
+            }
+        } finally {
+            sIsDispatching = wasDispatching;
+        }
+        if (!sIsDispatching) {
+            removeClearedListeners(broadcastIdentifier, listeners);
+        }
+    }
+
+    private static void removeClearedListeners(final long broadcastIdentifier,
+            @NonNull final List<WeakReference<Listener>> listeners) {
+        final Iterator<WeakReference<Listener>> iterator = listeners.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().get() == null) {
+                iterator.remove();
+            }
+        }
+        if (listeners.isEmpty()) {
+            sListeners.remove(broadcastIdentifier);
+        }
+    }
+
+    @VisibleForTesting
+    static int getListenerCount(final long broadcastIdentifier) {
+        final List<WeakReference<Listener>> listeners = sListeners.get(broadcastIdentifier);
+        return listeners == null ? 0 : listeners.size();
+    }
+
+    @VisibleForTesting
+    public static void clearForTesting() {
+        sListeners.clear();
+        sIsDispatching = false;
+    }
+}
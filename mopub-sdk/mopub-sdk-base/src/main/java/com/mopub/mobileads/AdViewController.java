@@ -352,6 +352,9 @@ public class AdViewController implements AdLifecycleListener.LoadListener, AdLif
             }
             mActiveRequest = null;
         }
+        if (mAdLoader != null) {
+            mAdLoader.cancelPrefetch();
+        }
         mAdLoader = null;
     }
 
@@ -576,7 +579,11 @@ public class AdViewController implements AdLifecycleListener.LoadListener, AdLif
 
         synchronized (this) {
             if (mAdLoader == null || !mAdLoader.hasMoreAds()) {
-                mAdLoader = new AdLoader(url, moPubAd.getAdFormat(), mAdUnitId, mContext, mAdListener);
+                final Map<String, String> generatedParams = mUrlGenerator == null
+                        ? null
+                        : mUrlGenerator.getGeneratedParams(url);
+                mAdLoader = new AdLoader(url, generatedParams, moPubAd.getAdFormat(), mAdUnitId,
+                        mContext, mAdListener);
             }
         }
         mActiveRequest = mAdLoader.loadNextAd(moPubError);
@@ -10,12 +10,22 @@ import android.content.Intent;
 import android.content.IntentFilter;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
 import com.mopub.common.DataKeys;
 import com.mopub.common.Preconditions;
+import com.mopub.common.logging.MoPubLog;
 
-public abstract class BaseBroadcastReceiver extends BroadcastReceiver {
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+
+/**
+ * Receives the lifecycle events of one fullscreen ad from the {@link AdLifecycleEventBus}. By
+ * default each event is turned back into an {@link Intent} and passed to
+ * {@link #onReceive(Context, Intent)} if {@link #getIntentFilter()} matches it, so receivers
+ * written for broadcasts keep working. Receivers can override
+ * {@link #onAdLifecycleEvent(long, String)} to skip building the Intent.
+ */
+public abstract class BaseBroadcastReceiver extends BroadcastReceiver
+        implements AdLifecycleEventBus.Listener {
     private final long mBroadcastIdentifier;
     @Nullable private Context mContext;
 
@@ -27,28 +37,51 @@ public abstract class BaseBroadcastReceiver extends BroadcastReceiver {
             @NonNull final String action) {
         Preconditions.checkNotNull(context, "context cannot be null");
         Preconditions.checkNotNull(action, "action cannot be null");
-        Intent intent = new Intent(action);
-        intent.putExtra(DataKeys.BROADCAST_IDENTIFIER_KEY, broadcastIdentifier);
-        LocalBroadcastManager.getInstance(context.getApplicationContext()).sendBroadcast(intent);
+        AdLifecycleEventBus.post(broadcastIdentifier, action);
     }
 
     @NonNull
     public abstract IntentFilter getIntentFilter();
 
+    /**
+     * Starts receiving the events of this receiver's ad.
+     *
+     * The event bus holds receivers weakly. A receiver that nothing else keeps a strong reference
+     * to is garbage collected and silently stops getting events, so keep it in a field for as
+     * long as it should receive them.
+     *
+     * @param broadcastReceiver Kept for compatibility. Only this receiver can be registered; any
+     *                          other receiver is logged and ignored.
+     */
     public void register(@NonNull final BroadcastReceiver broadcastReceiver,
                          @NonNull final Context context) {
+        if (broadcastReceiver != this) {
+            MoPubLog.log(CUSTOM, "Ignoring registration of a receiver other than this "
+                    + "BaseBroadcastReceiver.");
+            return;
+        }
         mContext = context.getApplicationContext();
-        LocalBroadcastManager.getInstance(mContext).registerReceiver(broadcastReceiver,
-                getIntentFilter());
+        AdLifecycleEventBus.register(mBroadcastIdentifier, this);
     }
 
     public void unregister(final @Nullable BroadcastReceiver broadcastReceiver) {
-        if (mContext != null && broadcastReceiver != null) {
-            LocalBroadcastManager.getInstance(mContext).unregisterReceiver(broadcastReceiver);
+        if (mContext != null && broadcastReceiver == this) {
+            AdLifecycleEventBus.unregister(mBroadcastIdentifier, this);
             mContext = null;
         }
     }
 
+    @Override
+    public void onAdLifecycleEvent(final long broadcastIdentifier, @NonNull final String action) {
+        if (mContext == null || !getIntentFilter().hasAction(action)) {
+            return;
+        }
+
+        final Intent intent = new Intent(action);
+        intent.putExtra(DataKeys.BROADCAST_IDENTIFIER_KEY, broadcastIdentifier);
+        onReceive(mContext, intent);
+    }
+
     /**
      * Only consume this broadcast if the identifier on the received Intent and this broadcast
      * match up. This allows us to target broadcasts to the ad that spawned them. We include
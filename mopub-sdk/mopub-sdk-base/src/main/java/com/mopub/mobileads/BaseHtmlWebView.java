@@ -82,6 +82,16 @@ public class BaseHtmlWebView extends BaseWebViewViewability {
         webSettings.setJavaScriptEnabled(true);
     }
 
+    @Override
+    protected boolean resetForReuse() {
+        if (!super.resetForReuse()) {
+            return false;
+        }
+
+        onResetUserClick();
+        return true;
+    }
+
     private void disableScrollingAndZoom() {
         setHorizontalScrollBarEnabled(false);
         setHorizontalScrollbarOverlay(false);
@@ -6,6 +6,7 @@ package com.mopub.mobileads;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
+import android.content.MutableContextWrapper;
 import android.graphics.Color;
 import android.graphics.PixelFormat;
 import android.os.Build.VERSION;
@@ -16,6 +17,7 @@ import android.util.Log;
 import android.view.Gravity;
 import android.view.WindowManager;
 import android.webkit.WebView;
+import android.webkit.WebViewClient;
 
 import androidx.annotation.NonNull;
 
@@ -33,8 +35,12 @@ public class BaseWebView extends WebView {
         /*
          * Important: don't allow any WebView subclass to be instantiated using
          * an Activity context, as it will leak on Froyo devices and earlier.
+         * WebViewPool passes a MutableContextWrapper, which it points at the
+         * Activity only while the WebView is leased.
          */
-        super(context.getApplicationContext());
+        super(context instanceof MutableContextWrapper
+                ? context
+                : context.getApplicationContext());
 
         restrictDeviceContentAccess();
         WebViews.setDisableJSChromeClient(this);
@@ -78,6 +84,33 @@ public class BaseWebView extends WebView {
         super.destroy();
     }
 
+    /**
+     * Returns this WebView to a blank page with no clients or listeners, so that another creative
+     * can use it. Subclasses reset their own state as well.
+     *
+     * @return false if this WebView cannot be reused and should be destroyed instead
+     */
+    protected boolean resetForReuse() {
+        if (mIsDestroyed) {
+            return false;
+        }
+
+        Views.removeFromParent(this);
+        removeAllViews();
+        stopLoading();
+        setWebViewClient(new WebViewClient());
+        WebViews.setDisableJSChromeClient(this);
+        setOnTouchListener(null);
+        setVisibility(VISIBLE);
+        getSettings().setMediaPlaybackRequiresUserGesture(true);
+        // Leaving the creative's page stops all of its scripts and timers
+        loadDataWithBaseURL(null, "", "text/html", "UTF-8", null);
+        clearHistory();
+        // Undoes the pause from the controller's destroy
+        onResume();
+        return true;
+    }
+
     /*
      * Intended to be used with dummy WebViews to precache WebView javascript and assets.
      */
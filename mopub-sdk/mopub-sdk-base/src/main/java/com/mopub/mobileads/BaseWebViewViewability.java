@@ -122,6 +122,22 @@ public class BaseWebViewViewability extends BaseWebView {
         changeState(State.IMPRESSED);
     }
 
+    @Override
+    protected boolean resetForReuse() {
+        // A viewability session may still be talking to this WebView after it has ended
+        if (state != State.INIT) {
+            return false;
+        }
+
+        viewabilityEnabled = ViewabilityManager.isViewabilityEnabled();
+        delayDestroy = viewabilityEnabled;
+        externalViewabilityTracker = ExternalViewabilitySessionManager.create();
+        automaticImpression = true;
+        pageLoaded = false;
+        pageVisible = false;
+        return super.resetForReuse();
+    }
+
     void registerFriendlyObstruction(@NonNull final View view, @NonNull final ViewabilityObstruction purpose) {
         if (viewabilityEnabled) {
             externalViewabilityTracker.registerFriendlyObstruction(view, purpose);
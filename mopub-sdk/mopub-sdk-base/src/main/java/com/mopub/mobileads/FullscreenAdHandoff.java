@@ -0,0 +1,100 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static com.mopub.common.Constants.AD_EXPIRATION_DELAY;
+
+/**
+ * Hands the {@link AdData} and the prepared {@link VastVideoConfig} of a fullscreen ad to the
+ * activity that shows it, keyed by the ad's broadcast identifier. The activity gets the objects
+ * that were built at load time instead of copying the ad payload through the intent and parsing
+ * the video config again.
+ *
+ * Nothing here survives process death. Activities that are recreated in a new process fall back to
+ * the {@link AdData} they parceled in their saved state. All methods must be called on the main
+ * thread.
+ */
+public class FullscreenAdHandoff {
+    private static class Entry {
+        @NonNull private final AdData mAdData;
+        @Nullable private final VastVideoConfig mVastVideoConfig;
+        private final long mRegisteredTimeMillis;
+
+        Entry(@NonNull final AdData adData, @Nullable final VastVideoConfig vastVideoConfig) {
+            mAdData = adData;
+            mVastVideoConfig = vastVideoConfig;
+            mRegisteredTimeMillis = SystemClock.elapsedRealtime();
+        }
+    }
+
+    @NonNull private static final Map<Long, Entry> sEntries = new HashMap<>();
+
+    private FullscreenAdHandoff() {
+    }
+
+    /**
+     * Makes the ad data and video config available to the activity showing the ad. Replaces any
+     * earlier registration for the same broadcast identifier, and drops registrations older than
+     * an ad's expiration, which belong to activities that never started.
+     */
+    public static void register(@NonNull final AdData adData,
+            @Nullable final VastVideoConfig vastVideoConfig) {
+        Preconditions.checkNotNull(adData);
+
+        trimExpiredEntries();
+        sEntries.put(adData.getBroadcastIdentifier(), new Entry(adData, vastVideoConfig));
+    }
+
+    @Nullable
+    public static AdData getAdData(final long broadcastIdentifier) {
+        final Entry entry = sEntries.get(broadcastIdentifier);
+        return entry == null ? null : entry.mAdData;
+    }
+
+    @Nullable
+    public static VastVideoConfig getVastVideoConfig(final long broadcastIdentifier) {
+        final Entry entry = sEntries.get(broadcastIdentifier);
+        return entry == null ? null : entry.mVastVideoConfig;
+    }
+
+    /**
+     * Drops the registration once the ad is done showing or can no longer be shown.
+     */
+    public static void remove(final long broadcastIdentifier) {
+        sEntries.remove(broadcastIdentifier);
+    }
+
+    private static void trimExpiredEntries() {
+        final long now = SystemClock.elapsedRealtime();
+        final Iterator<Entry> iterator = sEntries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().mRegisteredTimeMillis >= AD_EXPIRATION_DELAY) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static int getEntryCount() {
+        return sEntries.size();
+    }
+
+    @VisibleForTesting
+    public static void clearForTesting() {
+        sEntries.clear();
+    }
+}
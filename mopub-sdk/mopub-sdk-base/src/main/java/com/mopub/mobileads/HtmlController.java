@@ -28,7 +28,7 @@ public class HtmlController extends MoPubWebViewController {
 
     @Override
     protected BaseWebView createWebView() {
-        final HtmlWebView htmlWebView = new HtmlWebView(mContext);
+        final HtmlWebView htmlWebView = WebViewPool.leaseHtmlWebView(mContext);
         AdViewController.setShouldHonorServerDimensions(htmlWebView);
         htmlWebView.init(mHtmlWebViewListener, mDspCreativeId);
         return htmlWebView;
@@ -44,7 +44,7 @@ public class HtmlController extends MoPubWebViewController {
         super.destroy();
 
         if (mWebView != null) {
-            mWebView.destroy();
+            WebViewPool.release(mWebView);
             mWebView = null;
         }
     }
@@ -67,6 +67,7 @@ public class HtmlController extends MoPubWebViewController {
 
         @Override
         public void onLoaded(View view) {
+            recordCreativeLoaded();
             if (mBaseWebViewListener != null) {
                 mBaseWebViewListener.onLoaded(view);
             }
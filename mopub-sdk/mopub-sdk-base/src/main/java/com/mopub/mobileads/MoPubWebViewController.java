@@ -7,6 +7,7 @@ package com.mopub.mobileads;
 import android.app.Activity;
 import android.content.Context;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.util.Patterns;
 import android.view.View;
 import android.view.ViewGroup;
@@ -49,6 +50,10 @@ public abstract class MoPubWebViewController {
 
     protected boolean mIsPaused = true;
 
+    // When the content was filled, until the creative loads. Used to measure the WebView pool.
+    private long mFillContentUptimeMillis = -1;
+    private boolean mIsPooledWebView;
+
 
     public interface WebViewCacheListener {
         void onReady(final BaseWebView webView);
@@ -85,7 +90,9 @@ public abstract class MoPubWebViewController {
                                   @Nullable final WebViewCacheListener listener ) {
         Preconditions.checkNotNull(htmlData, "htmlData cannot be null");
 
+        mFillContentUptimeMillis = SystemClock.uptimeMillis();
         mWebView = createWebView();
+        mIsPooledWebView = WebViewPool.isPooledLease(mWebView);
 
         if (listener != null) {
             listener.onReady(mWebView);
@@ -102,6 +109,19 @@ public abstract class MoPubWebViewController {
 
     protected abstract ViewGroup.LayoutParams getLayoutParams();
 
+    /**
+     * Records how long the creative took to load since its content was filled. Only the first
+     * load after filling is recorded.
+     */
+    protected void recordCreativeLoaded() {
+        if (mFillContentUptimeMillis < 0) {
+            return;
+        }
+        WebViewPool.recordLoadTime(mIsPooledWebView,
+                SystemClock.uptimeMillis() - mFillContentUptimeMillis);
+        mFillContentUptimeMillis = -1;
+    }
+
     public void loadJavascript(@NonNull String javascript) {
         /* default no-op */
     }
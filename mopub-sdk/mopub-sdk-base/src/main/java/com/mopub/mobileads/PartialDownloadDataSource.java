@@ -0,0 +1,94 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.media2.common.DataSourceCallback;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.common.logging.MoPubLog;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+
+/**
+ * Feeds the media player from a video that is still being downloaded. Reads past the end of what
+ * has been written so far block on the player's loading thread until the download catches up. The
+ * file is opened up front, so playback keeps working after the download moves the video into the
+ * disk cache and deletes the partial file.
+ */
+class PartialDownloadDataSource extends DataSourceCallback {
+
+    @VisibleForTesting
+    static final long STALL_TIMEOUT_MILLIS = 10 * 1000;
+
+    @NonNull private final VideoDownloader.PartialDownload mPartialDownload;
+    @NonNull private final RandomAccessFile mFile;
+
+    private PartialDownloadDataSource(@NonNull final VideoDownloader.PartialDownload partialDownload,
+                                      @NonNull final RandomAccessFile file) {
+        mPartialDownload = partialDownload;
+        mFile = file;
+    }
+
+    /**
+     * @return A data source for the download, or null if the partial file no longer exists because
+     * the download already finished.
+     */
+    @Nullable
+    static PartialDownloadDataSource open(
+            @NonNull final VideoDownloader.PartialDownload partialDownload) {
+        Preconditions.checkNotNull(partialDownload);
+
+        try {
+            return new PartialDownloadDataSource(partialDownload,
+                    new RandomAccessFile(partialDownload.getFile(), "r"));
+        } catch (FileNotFoundException e) {
+            MoPubLog.log(CUSTOM, "Partial video download is no longer available.");
+            return null;
+        }
+    }
+
+    @Override
+    public int readAt(final long position, @NonNull final byte[] buffer, final int offset,
+                      final int size) throws IOException {
+        if (size == 0) {
+            return 0;
+        }
+
+        final long bytesWritten;
+        try {
+            bytesWritten = mPartialDownload.awaitBytesAfter(position, STALL_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for video download");
+        }
+        if (bytesWritten < 0) {
+            return -1;
+        }
+
+        final int readSize = (int) Math.min(size, bytesWritten - position);
+        synchronized (mFile) {
+            mFile.seek(position);
+            return mFile.read(buffer, offset, readSize);
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return mPartialDownload.getTotalBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mFile.close();
+    }
+}
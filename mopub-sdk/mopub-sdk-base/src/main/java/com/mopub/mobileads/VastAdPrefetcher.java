@@ -0,0 +1,78 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.FullAdType;
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.common.logging.MoPubLog;
+import com.mopub.mobileads.factories.VastManagerFactory;
+import com.mopub.network.AdLoader;
+import com.mopub.network.AdResponse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+
+/**
+ * {@link AdLoader.Prefetcher} for VAST line items. It resolves the VAST wrappers and caches the
+ * video, so that when the line item's turn comes its {@link VastManager} finds the video already
+ * on disk. Prefetches are speculative and never fire VAST error trackers; the line item's own load
+ * fires them if it fails the same way. Cancelling stops the VAST aggregation and the video
+ * download, so a cancelled prefetch does not hold a download thread the shown ad may need. The
+ * downloaded part of the video is kept for the next download of it to resume.
+ */
+public class VastAdPrefetcher implements AdLoader.Prefetcher {
+    @NonNull private final Map<AdResponse, VastManager> mVastManagers = new HashMap<>();
+
+    @Override
+    public void prefetch(@NonNull final Context context, @NonNull final AdResponse adResponse) {
+        Preconditions.checkNotNull(context);
+        Preconditions.checkNotNull(adResponse);
+
+        if (!FullAdType.VAST.equals(adResponse.getFullAdType())
+                || mVastManagers.containsKey(adResponse)) {
+            return;
+        }
+
+        MoPubLog.log(CUSTOM, "Prefetching VAST line item for ad unit " + adResponse.getAdUnitId());
+        final VastManager vastManager = VastManagerFactory.create(context);
+        // The prefetched config is thrown away, so failures are reported by the real load only
+        vastManager.setSpeculative(true);
+        mVastManagers.put(adResponse, vastManager);
+        vastManager.prepareVastVideoConfiguration(adResponse.getStringBody(),
+                new VastManager.VastManagerListener() {
+                    @Override
+                    public void onVastVideoConfigurationPrepared(
+                            @Nullable final VastVideoConfig vastVideoConfig) {
+                        // A cancelled prefetch still reports its download, maybe after a new one
+                        if (mVastManagers.get(adResponse) == vastManager) {
+                            mVastManagers.remove(adResponse);
+                        }
+                    }
+                }, adResponse.getDspCreativeId(), context);
+    }
+
+    @Override
+    public void cancel(@NonNull final AdResponse adResponse) {
+        Preconditions.checkNotNull(adResponse);
+
+        final VastManager vastManager = mVastManagers.remove(adResponse);
+        if (vastManager != null) {
+            vastManager.cancel();
+        }
+    }
+
+    @VisibleForTesting
+    int getPrefetchCount() {
+        return mVastManagers.size();
+    }
+}
@@ -80,15 +80,11 @@ class VastAdVerificationsParser {
                         EVENT, Collections.singletonList(VERIFICATION_NOT_EXECUTED));
                 final Node parametersNode = XmlUtils.getFirstMatchingChildNode(verification, VERIFICATION_PARAMETERS);
 
-                final String javascriptResource = XmlUtils.getNodeValue(javascriptNode);
-
-                final ViewabilityVendor.Builder builder = new ViewabilityVendor.Builder(javascriptResource);
-                builder.withApiFramework(OMID)
-                        .withVendorKey(XmlUtils.getAttributeValue(verification, VENDOR))
-                        .withVerificationParameters(XmlUtils.getNodeValue(parametersNode))
-                        .withVerificationNotExecuted(XmlUtils.getNodeValue(notExecutedNode));
-
-                final ViewabilityVendor viewabilityVendor = builder.build();
+                final ViewabilityVendor viewabilityVendor = createViewabilityVendor(
+                        XmlUtils.getNodeValue(javascriptNode),
+                        XmlUtils.getAttributeValue(verification, VENDOR),
+                        XmlUtils.getNodeValue(parametersNode),
+                        XmlUtils.getNodeValue(notExecutedNode));
                 if (viewabilityVendor != null) {
                     viewabilityVendors.add(viewabilityVendor);
                 }
@@ -96,6 +92,24 @@ class VastAdVerificationsParser {
         }
     }
 
+    /**
+     * Builds the OMID vendor of a Verification element that has a JavaScriptResource with
+     * apiFramework="omid".
+     *
+     * @return The vendor or {@code null} if the values are not valid.
+     */
+    @Nullable
+    static ViewabilityVendor createViewabilityVendor(@Nullable final String javascriptResource,
+            @Nullable final String vendorKey, @Nullable final String verificationParameters,
+            @Nullable final String verificationNotExecuted) {
+        final ViewabilityVendor.Builder builder = new ViewabilityVendor.Builder(javascriptResource);
+        builder.withApiFramework(OMID)
+                .withVendorKey(vendorKey)
+                .withVerificationParameters(verificationParameters)
+                .withVerificationNotExecuted(verificationNotExecuted);
+        return builder.build();
+    }
+
     @NonNull
     Set<ViewabilityVendor> getViewabilityVendors() {
         return viewabilityVendors;
@@ -19,7 +19,7 @@ import org.w3c.dom.Node;
  * Wrapper as children. However, our implementation handles the case of having both an InLine
  * and a Wrapper.
  */
-class VastAdXmlManager {
+class VastAdXmlManager implements VastXmlDocument.Ad {
 
     // Element names
     private static final String INLINE = "InLine";
@@ -41,7 +41,8 @@ class VastAdXmlManager {
      * @return The {@link VastInLineXmlManager} or {@code null} if there is no InLine child node.
      */
     @Nullable
-    VastInLineXmlManager getInLineXmlManager() {
+    @Override
+    public VastInLineXmlManager getInLineXmlManager() {
         Node inLineNode = XmlUtils.getFirstMatchingChildNode(mAdNode, INLINE);
         VastInLineXmlManager vastInLineXmlManager = null;
         if (inLineNode != null) {
@@ -56,7 +57,8 @@ class VastAdXmlManager {
      * @return The {@link VastWrapperXmlManager} or {@code null} if there is no Wrapper child node.
      */
     @Nullable
-    VastWrapperXmlManager getWrapperXmlManager() {
+    @Override
+    public VastWrapperXmlManager getWrapperXmlManager() {
         Node wrapperNode = XmlUtils.getFirstMatchingChildNode(mAdNode, WRAPPER);
         VastWrapperXmlManager vastWrapperXmlManager = null;
         if (wrapperNode != null) {
@@ -71,7 +73,8 @@ class VastAdXmlManager {
      * @return The sequence number
      */
     @Nullable
-    String getSequence() {
+    @Override
+    public String getSequence() {
         return XmlUtils.getAttributeValue(mAdNode, SEQUENCE);
     }
 }
@@ -9,14 +9,16 @@ import androidx.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.mopub.common.Preconditions;
+import com.mopub.common.ViewabilityVendor;
 import com.mopub.mobileads.util.XmlUtils;
 
 import org.w3c.dom.Node;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
-abstract class VastBaseInLineWrapperXmlManager {
+abstract class VastBaseInLineWrapperXmlManager implements VastXmlDocument.InLineWrapper {
 
     // Element Names
     private static final String IMPRESSION_TRACKER = "Impression";
@@ -42,7 +44,8 @@ abstract class VastBaseInLineWrapperXmlManager {
      * @return List of URLs of impression trackers
      */
     @NonNull
-    List<VastTracker> getImpressionTrackers() {
+    @Override
+    public List<VastTracker> getImpressionTrackers() {
         final List<Node> impressionNodes = XmlUtils.getMatchingChildNodes(mNode, IMPRESSION_TRACKER);
 
         List<VastTracker> impressionTrackers = new ArrayList<VastTracker>();
@@ -62,7 +65,8 @@ abstract class VastBaseInLineWrapperXmlManager {
      * @return The URL of the error tracker.
      */
     @NonNull
-    List<VastTracker> getErrorTrackers() {
+    @Override
+    public List<VastTracker> getErrorTrackers() {
         final List<VastTracker> errorTrackers = new ArrayList<VastTracker>();
         final List<Node> errorNodes = XmlUtils.getMatchingChildNodes(mNode, ERROR);
         if (errorNodes == null) {
@@ -84,7 +88,8 @@ abstract class VastBaseInLineWrapperXmlManager {
      * @return The {@link VastLinearXmlManager}s or an empty list if there is no Linear child node.
      */
     @NonNull
-    List<VastLinearXmlManager> getLinearXmlManagers() {
+    @Override
+    public List<VastLinearXmlManager> getLinearXmlManagers() {
         final List<VastLinearXmlManager> linearXmlManagers = new ArrayList<VastLinearXmlManager>();
         final Node creativesNode = XmlUtils.getFirstMatchingChildNode(mNode, CREATIVES);
         if (creativesNode == null) {
@@ -115,7 +120,8 @@ abstract class VastBaseInLineWrapperXmlManager {
      * CompanionAds or Companion child node.
      */
     @NonNull
-    List<VastCompanionAdXmlManager> getCompanionAdXmlManagers() {
+    @Override
+    public List<VastCompanionAdXmlManager> getCompanionAdXmlManagers() {
         final List<VastCompanionAdXmlManager> companionAdXmlManagers = new
                 ArrayList<VastCompanionAdXmlManager>();
         final Node creativesNode = XmlUtils.getFirstMatchingChildNode(mNode, CREATIVES);
@@ -162,4 +168,21 @@ abstract class VastBaseInLineWrapperXmlManager {
 
         return new VastExtensionParentXmlManager(vastExtensionsNode);
     }
+
+    @NonNull
+    @Override
+    public List<VastExtensionXmlManager> getVastExtensionXmlManagers() {
+        final VastExtensionParentXmlManager vastExtensionParentXmlManager =
+                getVastExtensionParentXmlManager();
+        if (vastExtensionParentXmlManager == null) {
+            return new ArrayList<VastExtensionXmlManager>();
+        }
+        return vastExtensionParentXmlManager.getVastExtensionXmlManagers();
+    }
+
+    @NonNull
+    @Override
+    public Set<ViewabilityVendor> getViewabilityVendors() {
+        return new VastAdVerificationsParser(mNode).getViewabilityVendors();
+    }
 }
@@ -20,7 +20,7 @@ import java.util.List;
 /**
  * This XML manager handles companion ads.
  */
-class VastCompanionAdXmlManager {
+class VastCompanionAdXmlManager implements VastXmlDocument.CompanionAd {
 
     // Element names
     private static final String VIDEO_TRACKER = "Tracking";
@@ -53,7 +53,8 @@ class VastCompanionAdXmlManager {
      * @return Integer width attribute or {@code null}.
      */
     @Nullable
-    Integer getWidth() {
+    @Override
+    public Integer getWidth() {
         return XmlUtils.getAttributeValueAsInt(mCompanionNode, WIDTH);
     }
 
@@ -64,7 +65,8 @@ class VastCompanionAdXmlManager {
      * @return Integer height attribute or {@code null}.
      */
     @Nullable
-    Integer getHeight() {
+    @Override
+    public Integer getHeight() {
         return XmlUtils.getAttributeValueAsInt(mCompanionNode, HEIGHT);
     }
 
@@ -79,7 +81,8 @@ class VastCompanionAdXmlManager {
     }
 
     @NonNull
-    VastResourceXmlManager getResourceXmlManager() {
+    @Override
+    public VastResourceXmlManager getResourceXmlManager() {
         return mResourceXmlManager;
     }
 
@@ -89,7 +92,8 @@ class VastCompanionAdXmlManager {
      * @return The String clickthrough URL or {@code null}
      */
     @Nullable
-    String getClickThroughUrl() {
+    @Override
+    public String getClickThroughUrl() {
         final Node node = XmlUtils.getFirstMatchingChildNode(
                 mCompanionNode,
                 COMPANION_CLICK_THROUGH
@@ -104,7 +108,8 @@ class VastCompanionAdXmlManager {
      * @return List of click tracker URLs or an empty list.
      */
     @NonNull
-    List<VastTracker> getClickTrackers() {
+    @Override
+    public List<VastTracker> getClickTrackers() {
         final List<VastTracker> companionAdClickTrackers = new ArrayList<VastTracker>();
         final List<Node> trackerNodes = XmlUtils.getMatchingChildNodes(mCompanionNode, COMPANION_CLICK_TRACKING);
         if (trackerNodes == null) {
@@ -127,7 +132,8 @@ class VastCompanionAdXmlManager {
      * @return List of creative view URLs or an empty list.
      */
     @NonNull
-    List<VastTracker> getCompanionCreativeViewTrackers() {
+    @Override
+    public List<VastTracker> getCompanionCreativeViewTrackers() {
         final List<VastTracker> companionCreativeViewTrackers = new ArrayList<VastTracker>();
         final Node node = XmlUtils.getFirstMatchingChildNode(
                 mCompanionNode,
@@ -155,9 +161,14 @@ class VastCompanionAdXmlManager {
         return companionCreativeViewTrackers;
     }
 
-    boolean hasResources() {
-        return !TextUtils.isEmpty(mResourceXmlManager.getStaticResource()) ||
-                !TextUtils.isEmpty(mResourceXmlManager.getHTMLResource()) ||
-                !TextUtils.isEmpty(mResourceXmlManager.getIFrameResource());
+    @Override
+    public boolean hasResources() {
+        return hasResources(mResourceXmlManager);
+    }
+
+    static boolean hasResources(@NonNull final VastXmlDocument.Resource resource) {
+        return !TextUtils.isEmpty(resource.getStaticResource()) ||
+                !TextUtils.isEmpty(resource.getHTMLResource()) ||
+                !TextUtils.isEmpty(resource.getIFrameResource());
     }
 }
@@ -9,6 +9,7 @@ import androidx.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.mopub.common.Preconditions;
+import com.mopub.common.ViewabilityVendor;
 import com.mopub.mobileads.util.XmlUtils;
 
 import org.w3c.dom.Node;
@@ -21,7 +22,7 @@ import java.util.Set;
 /**
  * This XML manager handles Extension nodes.
  */
-public class VastExtensionXmlManager {
+public class VastExtensionXmlManager implements VastXmlDocument.Extension {
     // Elements
     public static final String VIDEO_VIEWABILITY_TRACKER = "MoPubViewabilityTracker";
 
@@ -44,7 +45,8 @@ public class VastExtensionXmlManager {
      * invalid.
      */
     @Nullable
-    VideoViewabilityTracker getVideoViewabilityTracker() {
+    @Override
+    public VideoViewabilityTracker getVideoViewabilityTracker() {
         Node videoViewabilityTrackerNode =
                 XmlUtils.getFirstMatchingChildNode(mExtensionNode, VIDEO_VIEWABILITY_TRACKER);
         if (videoViewabilityTrackerNode == null) {
@@ -53,11 +55,16 @@ public class VastExtensionXmlManager {
 
         VideoViewabilityTrackerXmlManager videoViewabilityTrackerXmlManager =
                 new VideoViewabilityTrackerXmlManager(videoViewabilityTrackerNode);
-        Integer viewablePlaytime = videoViewabilityTrackerXmlManager.getViewablePlaytimeMS();
-        Integer percentViewable = videoViewabilityTrackerXmlManager.getPercentViewable();
-        String videoViewabilityTrackerUrl =
-                videoViewabilityTrackerXmlManager.getVideoViewabilityTrackerUrl();
+        return getVideoViewabilityTracker(
+                videoViewabilityTrackerXmlManager.getViewablePlaytimeMS(),
+                videoViewabilityTrackerXmlManager.getPercentViewable(),
+                videoViewabilityTrackerXmlManager.getVideoViewabilityTrackerUrl());
+    }
 
+    @Nullable
+    static VideoViewabilityTracker getVideoViewabilityTracker(
+            @Nullable final Integer viewablePlaytime, @Nullable final Integer percentViewable,
+            @Nullable final String videoViewabilityTrackerUrl) {
         if (viewablePlaytime == null || percentViewable == null
                 || TextUtils.isEmpty(videoViewabilityTrackerUrl)) {
             return null;
@@ -65,8 +72,6 @@ public class VastExtensionXmlManager {
 
         return new VideoViewabilityTracker.Builder(videoViewabilityTrackerUrl,
                 viewablePlaytime, percentViewable).build();
-
- 
     }
 
     /**
@@ -75,7 +80,14 @@ public class VastExtensionXmlManager {
      * @return A String with the value of the "type" attribute or null if missing.
      */
     @Nullable
-    String getType() {
+    @Override
+    public String getType() {
         return XmlUtils.getAttributeValue(mExtensionNode, TYPE);
     }
+
+    @NonNull
+    @Override
+    public Set<ViewabilityVendor> getViewabilityVendors() {
+        return new VastAdVerificationsParser(mExtensionNode).getViewabilityVendors();
+    }
 }
@@ -21,7 +21,7 @@ import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 /**
  * This XML manager handles Vast 3.0 icons.
  */
-public class VastIconXmlManager {
+public class VastIconXmlManager implements VastXmlDocument.Icon {
 
     // Element names
     public static final String ICON_CLICKS = "IconClicks";
@@ -51,7 +51,8 @@ public class VastIconXmlManager {
      * @return Integer width attribute or {@code null}.
      */
     @Nullable
-    Integer getWidth() {
+    @Override
+    public Integer getWidth() {
         return XmlUtils.getAttributeValueAsInt(mIconNode, WIDTH);
     }
 
@@ -62,7 +63,8 @@ public class VastIconXmlManager {
      * @return Integer height attribute or {@code null}.
      */
     @Nullable
-    Integer getHeight() {
+    @Override
+    public Integer getHeight() {
         return XmlUtils.getAttributeValueAsInt(mIconNode, HEIGHT);
     }
 
@@ -75,8 +77,13 @@ public class VastIconXmlManager {
      * @return Integer offset in milliseconds attribute or {@code null}.
      */
     @Nullable
-    Integer getOffsetMS() {
-        String iconOffsetStr = XmlUtils.getAttributeValue(mIconNode, OFFSET);
+    @Override
+    public Integer getOffsetMS() {
+        return getOffsetMS(XmlUtils.getAttributeValue(mIconNode, OFFSET));
+    }
+
+    @Nullable
+    static Integer getOffsetMS(@Nullable final String iconOffsetStr) {
         Integer iconOffset = null;
         try {
             iconOffset = VastAbsoluteProgressTracker.Companion.parseAbsoluteOffset(iconOffsetStr);
@@ -95,8 +102,13 @@ public class VastIconXmlManager {
      * @return Integer duration in milliseconds attribute or {@code null}.
      */
     @Nullable
-    Integer getDurationMS() {
-        String iconDurationStr = XmlUtils.getAttributeValue(mIconNode, DURATION);
+    @Override
+    public Integer getDurationMS() {
+        return getDurationMS(XmlUtils.getAttributeValue(mIconNode, DURATION));
+    }
+
+    @Nullable
+    static Integer getDurationMS(@Nullable final String iconDurationStr) {
         Integer iconDuration = null;
         try {
             iconDuration = VastAbsoluteProgressTracker.Companion.parseAbsoluteOffset(iconDurationStr);
@@ -107,12 +119,14 @@ public class VastIconXmlManager {
     }
 
     @NonNull
-    VastResourceXmlManager getResourceXmlManager() {
+    @Override
+    public VastResourceXmlManager getResourceXmlManager() {
         return mResourceXmlManager;
     }
 
     @NonNull
-    List<VastTracker> getClickTrackingUris() {
+    @Override
+    public List<VastTracker> getClickTrackingUris() {
         Node iconClicksNode = XmlUtils.getFirstMatchingChildNode(mIconNode, ICON_CLICKS);
         List<VastTracker> iconClickTrackingUris = new ArrayList<VastTracker>();
         if (iconClicksNode == null) {
@@ -131,7 +145,8 @@ public class VastIconXmlManager {
     }
 
     @Nullable
-    String getClickThroughUri() {
+    @Override
+    public String getClickThroughUri() {
         Node iconClicksNode = XmlUtils.getFirstMatchingChildNode(mIconNode, ICON_CLICKS);
         if (iconClicksNode == null) {
             return null;
@@ -143,7 +158,8 @@ public class VastIconXmlManager {
     }
 
     @NonNull
-    List<VastTracker> getViewTrackingUris() {
+    @Override
+    public List<VastTracker> getViewTrackingUris() {
         List<Node> iconViewTrackingNodes =
                 XmlUtils.getMatchingChildNodes(mIconNode, ICON_VIEW_TRACKING);
         List<VastTracker> iconViewTrackingUris = new ArrayList<VastTracker>();
@@ -12,10 +12,13 @@ import com.mopub.common.logging.MoPubLog;
 import com.mopub.mobileads.util.XmlUtils;
 
 import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 
@@ -23,7 +26,7 @@ import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
  * This XML manager handles the meta data around the video file. This includes video progress
  * trackers and click trackers. This also houses the manager for the actual media file.
  */
-class VastLinearXmlManager {
+class VastLinearXmlManager implements VastXmlDocument.Linear {
 
     // Element names
     private static final String TRACKING_EVENTS = "TrackingEvents";
@@ -64,6 +67,28 @@ class VastLinearXmlManager {
     @NonNull
     private final Node mLinearNode;
 
+    /**
+     * Tracking elements keyed by their event attribute, built in one pass over TrackingEvents the
+     * first time any tracker is requested. Null until then.
+     */
+    @Nullable
+    private Map<String, List<Tracking>> mTrackingsByEvent;
+
+    /**
+     * The parts of a Tracking element that the tracker getters read. The static getters below
+     * take these keyed by event so that {@link VastXmlPullParser} builds the same trackers
+     * without a DOM.
+     */
+    static final class Tracking {
+        @Nullable final String mOffset;
+        @Nullable final String mUrl;
+
+        Tracking(@Nullable final String offset, @Nullable final String url) {
+            mOffset = offset;
+            mUrl = url;
+        }
+    }
+
     VastLinearXmlManager(@NonNull final Node linearNode) {
         Preconditions.checkNotNull(linearNode);
         mLinearNode = linearNode;
@@ -88,39 +113,41 @@ class VastLinearXmlManager {
      * }
      */
     @NonNull
-    List<VastFractionalProgressTracker> getFractionalProgressTrackers() {
+    @Override
+    public List<VastFractionalProgressTracker> getFractionalProgressTrackers() {
+        return getFractionalProgressTrackers(getTrackingsByEvent());
+    }
+
+    @NonNull
+    static List<VastFractionalProgressTracker> getFractionalProgressTrackers(
+            @NonNull final Map<String, List<Tracking>> trackingsByEvent) {
         // Add all the quartile trackers from VAST 2.0:
         List<VastFractionalProgressTracker> percentTrackers = new ArrayList<VastFractionalProgressTracker>();
 
-        addQuartileTrackerWithFraction(percentTrackers, getVideoTrackersByAttribute(FIRST_QUARTILE), FIRST_QUARTER_MARKER);
-        addQuartileTrackerWithFraction(percentTrackers, getVideoTrackersByAttribute(MIDPOINT), MID_POINT_MARKER);
-        addQuartileTrackerWithFraction(percentTrackers, getVideoTrackersByAttribute(THIRD_QUARTILE), THIRD_QUARTER_MARKER);
-
-        final Node trackingEvents = XmlUtils.getFirstMatchingChildNode(mLinearNode, TRACKING_EVENTS);
-        if (trackingEvents != null) {
-            // Get any other trackers with event="progress" offset="n%"
-            final List<Node> progressNodes = XmlUtils.getMatchingChildNodes(trackingEvents,
-                    VIDEO_TRACKER, EVENT, Collections.singletonList(PROGRESS));
+        addQuartileTrackerWithFraction(percentTrackers, getVideoTrackersByAttribute(trackingsByEvent, FIRST_QUARTILE), FIRST_QUARTER_MARKER);
+        addQuartileTrackerWithFraction(percentTrackers, getVideoTrackersByAttribute(trackingsByEvent, MIDPOINT), MID_POINT_MARKER);
+        addQuartileTrackerWithFraction(percentTrackers, getVideoTrackersByAttribute(trackingsByEvent, THIRD_QUARTILE), THIRD_QUARTER_MARKER);
 
-            for (Node progressNode : progressNodes) {
-                String offsetString = XmlUtils.getAttributeValue(progressNode, OFFSET);
-                if (offsetString == null) {
-                    continue;
-                }
-                offsetString = offsetString.trim();
-                if (VastFractionalProgressTracker.Companion.isPercentageTracker(offsetString)) {
-                    String trackingUrl = XmlUtils.getNodeValue(progressNode);
-                    try {
-                        final float trackingFraction =
-                                Float.parseFloat(offsetString.replace("%", "")) / 100f;
-                        if (trackingFraction >= 0) {
-                            percentTrackers.add(new VastFractionalProgressTracker.Builder(trackingUrl,
-                                    trackingFraction).build());
-                        }
-                    } catch (NumberFormatException e) {
-                        MoPubLog.log(CUSTOM, String.format("Failed to parse VAST progress tracker %s",
-                                offsetString));
+        // Get any other trackers with event="progress" offset="n%"
+        final List<Tracking> progressTrackings = getTrackings(trackingsByEvent, PROGRESS);
+        for (Tracking progressTracking : progressTrackings) {
+            String offsetString = progressTracking.mOffset;
+            if (offsetString == null) {
+                continue;
+            }
+            offsetString = offsetString.trim();
+            if (VastFractionalProgressTracker.Companion.isPercentageTracker(offsetString)) {
+                String trackingUrl = progressTracking.mUrl;
+                try {
+                    final float trackingFraction =
+                            Float.parseFloat(offsetString.replace("%", "")) / 100f;
+                    if (trackingFraction >= 0) {
+                        percentTrackers.add(new VastFractionalProgressTracker.Builder(trackingUrl,
+                                trackingFraction).build());
                     }
+                } catch (NumberFormatException e) {
+                    MoPubLog.log(CUSTOM, String.format("Failed to parse VAST progress tracker %s",
+                            offsetString));
                 }
             }
         }
@@ -148,54 +175,55 @@ class VastLinearXmlManager {
      * }
      */
     @NonNull
-    List<VastAbsoluteProgressTracker> getAbsoluteProgressTrackers() {
+    @Override
+    public List<VastAbsoluteProgressTracker> getAbsoluteProgressTrackers() {
+        return getAbsoluteProgressTrackers(getTrackingsByEvent());
+    }
+
+    @NonNull
+    static List<VastAbsoluteProgressTracker> getAbsoluteProgressTrackers(
+            @NonNull final Map<String, List<Tracking>> trackingsByEvent) {
         List<VastAbsoluteProgressTracker> trackers = new ArrayList<>();
 
         // Start trackers are treated as absolute trackers set at 0 seconds
-        final List<String> startTrackers = getVideoTrackersByAttribute(START);
+        final List<String> startTrackers = getVideoTrackersByAttribute(trackingsByEvent, START);
         for (String url : startTrackers) {
             trackers.add(
                     new VastAbsoluteProgressTracker.Builder(url, START_TRACKER_THRESHOLD).build()
             );
         }
 
-        final Node trackingEvents = XmlUtils.getFirstMatchingChildNode(mLinearNode, TRACKING_EVENTS);
-        if (trackingEvents != null) {
-            // Parse progress trackers and extract the absolute offsets of the form "HH:MM:SS[.mmm]"
-
-            final List<Node> progressNodes = XmlUtils.getMatchingChildNodes(trackingEvents,
-                    VIDEO_TRACKER, EVENT, Collections.singletonList(PROGRESS));
-            for (Node progressNode : progressNodes) {
-                String offsetString = XmlUtils.getAttributeValue(progressNode, OFFSET);
-                if (offsetString == null) {
-                    continue;
-                }
-                offsetString = offsetString.trim();
-                if (VastAbsoluteProgressTracker.Companion.isAbsoluteTracker(offsetString)) {
-                    String trackingUrl = XmlUtils.getNodeValue(progressNode);
-                    try {
-                        Integer trackingMilliseconds = VastAbsoluteProgressTracker.Companion.parseAbsoluteOffset(offsetString);
-                        if (trackingMilliseconds != null && trackingMilliseconds >= 0) {
-                            trackers.add(new VastAbsoluteProgressTracker.Builder(trackingUrl, trackingMilliseconds).build());
-                        }
-                    } catch (NumberFormatException e) {
-                        MoPubLog.log(CUSTOM, String.format("Failed to parse VAST progress tracker %s",
-                                offsetString));
+        // Parse progress trackers and extract the absolute offsets of the form "HH:MM:SS[.mmm]"
+        final List<Tracking> progressTrackings = getTrackings(trackingsByEvent, PROGRESS);
+        for (Tracking progressTracking : progressTrackings) {
+            String offsetString = progressTracking.mOffset;
+            if (offsetString == null) {
+                continue;
+            }
+            offsetString = offsetString.trim();
+            if (VastAbsoluteProgressTracker.Companion.isAbsoluteTracker(offsetString)) {
+                String trackingUrl = progressTracking.mUrl;
+                try {
+                    Integer trackingMilliseconds = VastAbsoluteProgressTracker.Companion.parseAbsoluteOffset(offsetString);
+                    if (trackingMilliseconds != null && trackingMilliseconds >= 0) {
+                        trackers.add(new VastAbsoluteProgressTracker.Builder(trackingUrl, trackingMilliseconds).build());
                     }
+                } catch (NumberFormatException e) {
+                    MoPubLog.log(CUSTOM, String.format("Failed to parse VAST progress tracker %s",
+                            offsetString));
                 }
             }
+        }
 
-            // Parse creativeView trackers
-            final List<Node> creativeViewNodes = XmlUtils.getMatchingChildNodes(trackingEvents,
-                    VIDEO_TRACKER, EVENT, Collections.singletonList(CREATIVE_VIEW));
-            for (Node creativeViewNode : creativeViewNodes) {
-                final String creativeNodeValue = XmlUtils.getNodeValue(creativeViewNode);
-                if (creativeNodeValue != null) {
-                    trackers.add(
-                            new VastAbsoluteProgressTracker.Builder(creativeNodeValue,
-                                    CREATIVE_VIEW_TRACKER_THRESHOLD).build()
-                    );
-                }
+        // Parse creativeView trackers
+        final List<Tracking> creativeViewTrackings = getTrackings(trackingsByEvent, CREATIVE_VIEW);
+        for (Tracking creativeViewTracking : creativeViewTrackings) {
+            final String creativeNodeValue = creativeViewTracking.mUrl;
+            if (creativeNodeValue != null) {
+                trackers.add(
+                        new VastAbsoluteProgressTracker.Builder(creativeNodeValue,
+                                CREATIVE_VIEW_TRACKER_THRESHOLD).build()
+                );
             }
         }
 
@@ -210,8 +238,15 @@ class VastLinearXmlManager {
      * @return List of String URLs of video complete trackers.
      */
     @NonNull
-    List<VastTracker> getVideoCompleteTrackers() {
-        return getVideoTrackersByAttributeAsVastTrackers(COMPLETE);
+    @Override
+    public List<VastTracker> getVideoCompleteTrackers() {
+        return getVideoCompleteTrackers(getTrackingsByEvent());
+    }
+
+    @NonNull
+    static List<VastTracker> getVideoCompleteTrackers(
+            @NonNull final Map<String, List<Tracking>> trackingsByEvent) {
+        return getVideoTrackersByAttributeAsVastTrackers(trackingsByEvent, COMPLETE);
     }
 
     /**
@@ -220,8 +255,14 @@ class VastLinearXmlManager {
      * @return List of String URLs of pause trackers.
      */
     @NonNull
-    List<VastTracker> getPauseTrackers() {
-        List<String> trackers = getVideoTrackersByAttribute(PAUSE);
+    @Override
+    public List<VastTracker> getPauseTrackers() {
+        return getPauseTrackers(getTrackingsByEvent());
+    }
+
+    @NonNull
+    static List<VastTracker> getPauseTrackers(@NonNull final Map<String, List<Tracking>> trackingsByEvent) {
+        List<String> trackers = getVideoTrackersByAttribute(trackingsByEvent, PAUSE);
         List<VastTracker> vastRepeatableTrackers = new ArrayList<VastTracker>();
         for (String tracker : trackers) {
             vastRepeatableTrackers.add(new VastTracker.Builder(tracker).isRepeatable(true).build());
@@ -235,8 +276,14 @@ class VastLinearXmlManager {
      * @return List of String URLs of resume trackers.
      */
     @NonNull
-    List<VastTracker> getResumeTrackers() {
-        List<String> trackers = getVideoTrackersByAttribute(RESUME);
+    @Override
+    public List<VastTracker> getResumeTrackers() {
+        return getResumeTrackers(getTrackingsByEvent());
+    }
+
+    @NonNull
+    static List<VastTracker> getResumeTrackers(@NonNull final Map<String, List<Tracking>> trackingsByEvent) {
+        List<String> trackers = getVideoTrackersByAttribute(trackingsByEvent, RESUME);
         List<VastTracker> vastRepeatableTrackers = new ArrayList<VastTracker>();
         for (String tracker : trackers) {
             vastRepeatableTrackers.add(new VastTracker.Builder(tracker).isRepeatable(true).build());
@@ -250,9 +297,17 @@ class VastLinearXmlManager {
      * @return List of String URLs of video closes.
      */
     @NonNull
-    List<VastTracker> getVideoCloseTrackers() {
-        List<VastTracker> closeTrackers = getVideoTrackersByAttributeAsVastTrackers(CLOSE);
-        closeTrackers.addAll(getVideoTrackersByAttributeAsVastTrackers(CLOSE_LINEAR));
+    @Override
+    public List<VastTracker> getVideoCloseTrackers() {
+        return getVideoCloseTrackers(getTrackingsByEvent());
+    }
+
+    @NonNull
+    static List<VastTracker> getVideoCloseTrackers(
+            @NonNull final Map<String, List<Tracking>> trackingsByEvent) {
+        List<VastTracker> closeTrackers =
+                getVideoTrackersByAttributeAsVastTrackers(trackingsByEvent, CLOSE);
+        closeTrackers.addAll(getVideoTrackersByAttributeAsVastTrackers(trackingsByEvent, CLOSE_LINEAR));
         return closeTrackers;
     }
 
@@ -262,8 +317,15 @@ class VastLinearXmlManager {
      * @return List of String URLs of video skip trackers.
      */
     @NonNull
-    List<VastTracker> getVideoSkipTrackers() {
-        return getVideoTrackersByAttributeAsVastTrackers(SKIP);
+    @Override
+    public List<VastTracker> getVideoSkipTrackers() {
+        return getVideoSkipTrackers(getTrackingsByEvent());
+    }
+
+    @NonNull
+    static List<VastTracker> getVideoSkipTrackers(
+            @NonNull final Map<String, List<Tracking>> trackingsByEvent) {
+        return getVideoTrackersByAttributeAsVastTrackers(trackingsByEvent, SKIP);
     }
 
     /**
@@ -272,7 +334,8 @@ class VastLinearXmlManager {
      * @return The clickthrough URL or {@code null} if there isn't one.
      */
     @Nullable
-    String getClickThroughUrl() {
+    @Override
+    public String getClickThroughUrl() {
         final Node videoClicks = XmlUtils.getFirstMatchingChildNode(mLinearNode, VIDEO_CLICKS);
         if (videoClicks == null) {
             return null;
@@ -286,7 +349,8 @@ class VastLinearXmlManager {
      * @return List of String URLs of click trackers.
      */
     @NonNull
-    List<VastTracker> getClickTrackers() {
+    @Override
+    public List<VastTracker> getClickTrackers() {
         List<VastTracker> clickTrackers = new ArrayList<VastTracker>();
 
         final Node videoClicks = XmlUtils.getFirstMatchingChildNode(mLinearNode, VIDEO_CLICKS);
@@ -316,8 +380,13 @@ class VastLinearXmlManager {
      * @return The skip offset, or {@code null} if there isn't one.
      */
     @Nullable
-    String getSkipOffset() {
-        final String skipOffsetString = XmlUtils.getAttributeValue(mLinearNode, SKIP_OFFSET);
+    @Override
+    public String getSkipOffset() {
+        return getSkipOffset(XmlUtils.getAttributeValue(mLinearNode, SKIP_OFFSET));
+    }
+
+    @Nullable
+    static String getSkipOffset(@Nullable final String skipOffsetString) {
         if (skipOffsetString == null) {
             return null;
         }
@@ -336,7 +405,8 @@ class VastLinearXmlManager {
      * or an empty list if there is no Media child node.
      */
     @NonNull
-    List<VastMediaXmlManager> getMediaXmlManagers() {
+    @Override
+    public List<VastMediaXmlManager> getMediaXmlManagers() {
         final List<VastMediaXmlManager> mediaXmlManagers = new ArrayList<VastMediaXmlManager>();
 
         final Node mediaFiles = XmlUtils.getFirstMatchingChildNode(mLinearNode, MEDIA_FILES);
@@ -353,7 +423,8 @@ class VastLinearXmlManager {
     }
 
     @NonNull
-    List<VastIconXmlManager> getIconXmlManagers() {
+    @Override
+    public List<VastIconXmlManager> getIconXmlManagers() {
         final List<VastIconXmlManager> iconXmlManagers = new ArrayList<VastIconXmlManager>();
 
         final Node icons = XmlUtils.getFirstMatchingChildNode(mLinearNode, ICONS);
@@ -370,9 +441,10 @@ class VastLinearXmlManager {
     }
 
     @NonNull
-    private List<VastTracker> getVideoTrackersByAttributeAsVastTrackers(
+    private static List<VastTracker> getVideoTrackersByAttributeAsVastTrackers(
+            @NonNull final Map<String, List<Tracking>> trackingsByEvent,
             @NonNull final String attributeValue) {
-        List<String> trackers = getVideoTrackersByAttribute(attributeValue);
+        List<String> trackers = getVideoTrackersByAttribute(trackingsByEvent, attributeValue);
         List<VastTracker> vastTrackers = new ArrayList<VastTracker>(trackers.size());
         for (String tracker : trackers) {
             vastTrackers.add(new VastTracker.Builder(tracker).build());
@@ -388,24 +460,15 @@ class VastLinearXmlManager {
      * @return List of URLs with that tracker name or an empty list if none found.
      */
     @NonNull
-    private List<String> getVideoTrackersByAttribute(@NonNull final String attributeValue) {
+    private static List<String> getVideoTrackersByAttribute(
+            @NonNull final Map<String, List<Tracking>> trackingsByEvent,
+            @NonNull final String attributeValue) {
         Preconditions.checkNotNull(attributeValue);
-        List<String> videoTrackers = new ArrayList<String>();
-
-        final Node trackingEvents = XmlUtils.getFirstMatchingChildNode(mLinearNode, TRACKING_EVENTS);
-        if (trackingEvents == null) {
-            return videoTrackers;
-        }
-
-        final List<Node> videoTrackerNodes = XmlUtils.getMatchingChildNodes(
-                trackingEvents,
-                VIDEO_TRACKER,
-                EVENT,
-                Collections.singletonList(attributeValue)
-        );
 
-        for (Node videoTrackerNode : videoTrackerNodes) {
-            String tracker = XmlUtils.getNodeValue(videoTrackerNode);
+        final List<Tracking> videoTrackings = getTrackings(trackingsByEvent, attributeValue);
+        final List<String> videoTrackers = new ArrayList<String>(videoTrackings.size());
+        for (Tracking videoTracking : videoTrackings) {
+            String tracker = videoTracking.mUrl;
             if (tracker != null) {
                 videoTrackers.add(tracker);
             }
@@ -414,7 +477,58 @@ class VastLinearXmlManager {
         return videoTrackers;
     }
 
-    private void addQuartileTrackerWithFraction(
+    /**
+     * Returns the Tracking elements under TrackingEvents keyed by their event attribute, in
+     * document order. They are indexed in one pass the first time any tracker is requested so
+     * that each lookup is a single map access instead of another walk over the children.
+     *
+     * @return Map of event name to Tracking elements, which may be empty.
+     */
+    @NonNull
+    private Map<String, List<Tracking>> getTrackingsByEvent() {
+        if (mTrackingsByEvent == null) {
+            mTrackingsByEvent = new HashMap<String, List<Tracking>>();
+
+            final Node trackingEvents = XmlUtils.getFirstMatchingChildNode(mLinearNode, TRACKING_EVENTS);
+            if (trackingEvents != null) {
+                final NodeList children = trackingEvents.getChildNodes();
+                for (int i = 0; i < children.getLength(); i++) {
+                    final Node child = children.item(i);
+                    if (!VIDEO_TRACKER.equals(child.getNodeName())) {
+                        continue;
+                    }
+                    final String childEvent = XmlUtils.getAttributeValue(child, EVENT);
+                    if (childEvent == null) {
+                        continue;
+                    }
+                    addTracking(mTrackingsByEvent, childEvent, new Tracking(
+                            XmlUtils.getAttributeValue(child, OFFSET),
+                            XmlUtils.getNodeValue(child)));
+                }
+            }
+        }
+        return mTrackingsByEvent;
+    }
+
+    static void addTracking(@NonNull final Map<String, List<Tracking>> trackingsByEvent,
+            @NonNull final String event, @NonNull final Tracking tracking) {
+        List<Tracking> trackings = trackingsByEvent.get(event);
+        if (trackings == null) {
+            trackings = new ArrayList<Tracking>();
+            trackingsByEvent.put(event, trackings);
+        }
+        trackings.add(tracking);
+    }
+
+    @NonNull
+    private static List<Tracking> getTrackings(
+            @NonNull final Map<String, List<Tracking>> trackingsByEvent,
+            @NonNull final String event) {
+        final List<Tracking> trackings = trackingsByEvent.get(event);
+        return trackings != null ? trackings : Collections.<Tracking>emptyList();
+    }
+
+    private static void addQuartileTrackerWithFraction(
             @NonNull final List<VastFractionalProgressTracker> trackers,
             @NonNull final List<String> urls, float fraction) {
         Preconditions.checkNotNull(trackers, "trackers cannot be null");
@@ -18,6 +18,7 @@ import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.common.util.AsyncTasks;
 import com.mopub.mobileads.VideoDownloader.VideoDownloaderListener;
+import com.mopub.mobileads.VideoDownloader.VideoDownloaderProgressListener;
 
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.ERROR_WITH_THROWABLE;
@@ -50,17 +51,44 @@ public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggre
     @Nullable
     private VastXmlManagerAggregator mVastXmlManagerAggregator;
     @Nullable
+    private VideoDownloader.VideoDownloaderTask mVideoDownloaderTask;
+    @Nullable
     private String mDspCreativeId;
     private double mScreenAspectRatio;
     private int mScreenWidthDp;
 
     private final boolean mShouldPreCacheVideo;
+    private int mProgressivePlaybackSeconds;
+    private boolean mIsSpeculative;
 
     public VastManager(@NonNull final Context context, boolean shouldPreCacheVideo) {
         initializeScreenDimensions(context);
         mShouldPreCacheVideo = shouldPreCacheVideo;
     }
 
+    /**
+     * Lets the video configuration be reported as prepared once roughly the given number of
+     * seconds of video have been cached, instead of waiting for the whole file. The rest of the
+     * video keeps downloading into the same cache entry while it plays. This only applies when
+     * the video is precached and the VAST document declares the media file's bitrate, since that
+     * is needed to turn seconds into bytes.
+     *
+     * @param progressivePlaybackSeconds Seconds of video to cache before playback may start, or 0
+     *                                   to wait for the complete video.
+     */
+    public void setProgressivePlaybackSeconds(final int progressivePlaybackSeconds) {
+        mProgressivePlaybackSeconds = Math.max(0, progressivePlaybackSeconds);
+    }
+
+    /**
+     * Marks the preparation as a speculative prefetch. The VAST wrappers are resolved and the video
+     * is cached as usual, but no error trackers are fired, since the result may never be shown.
+     * Must be called before {@link #prepareVastVideoConfiguration}.
+     */
+    public void setSpeculative(final boolean isSpeculative) {
+        mIsSpeculative = isSpeculative;
+    }
+
     /**
      * Creates and starts an async task that parses the VAST xml document.
      *
@@ -81,6 +109,7 @@ public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggre
                     mScreenAspectRatio,
                     mScreenWidthDp,
                     context.getApplicationContext());
+            mVastXmlManagerAggregator.setSpeculative(mIsSpeculative);
             mDspCreativeId = dspCreativeId;
 
             try {
@@ -93,13 +122,19 @@ public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggre
     }
 
     /**
-     * Stops the VAST aggregator from continuing to follow wrapper redirects.
+     * Stops the VAST aggregator from continuing to follow wrapper redirects. A speculative
+     * preparation also stops its video download, so that it does not hold a download thread the
+     * ad being shown may need. The partial file is kept, so a later download resumes from it.
      */
     public void cancel() {
         if (mVastXmlManagerAggregator != null) {
             mVastXmlManagerAggregator.cancel(true);
             mVastXmlManagerAggregator = null;
         }
+        if (mIsSpeculative && mVideoDownloaderTask != null) {
+            mVideoDownloaderTask.cancel(true);
+        }
+        mVideoDownloaderTask = null;
     }
 
     @Override
@@ -125,9 +160,36 @@ public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggre
             return;
         }
 
-        final VideoDownloaderListener videoDownloaderListener = new VideoDownloaderListener() {
+        final long progressivePlaybackBytes = getProgressivePlaybackBytes(vastVideoConfig);
+        final VideoDownloaderListener videoDownloaderListener = new VideoDownloaderProgressListener() {
+            private boolean mPrepared;
+
+            @Override
+            public void onProgress(final long bytesDownloaded, final long totalBytes) {
+                if (mPrepared || progressivePlaybackBytes <= 0
+                        || bytesDownloaded < progressivePlaybackBytes) {
+                    return;
+                }
+
+                if (updateDiskMediaFileUrl(vastVideoConfig)
+                        || updatePartialMediaFileUrl(vastVideoConfig)) {
+                    MoPubLog.log(CUSTOM, "Starting VAST video with " + bytesDownloaded +
+                            " bytes cached.");
+                    mPrepared = true;
+                    mVastManagerListener.onVastVideoConfigurationPrepared(vastVideoConfig);
+                }
+            }
+
             @Override
             public void onComplete(boolean success) {
+                if (mPrepared) {
+                    // Playback already reads from the download, which surfaces any failure
+                    if (success) {
+                        updateDiskMediaFileUrl(vastVideoConfig);
+                    }
+                    return;
+                }
+
                 if (success && updateDiskMediaFileUrl(vastVideoConfig)) {
                     mVastManagerListener.onVastVideoConfigurationPrepared(vastVideoConfig);
                 } else {
@@ -137,7 +199,8 @@ public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggre
             }
         };
 
-        VideoDownloader.cache(vastVideoConfig.getNetworkMediaFileUrl(), videoDownloaderListener);
+        mVideoDownloaderTask = VideoDownloader.startCaching(
+                vastVideoConfig.getNetworkMediaFileUrl(), videoDownloaderListener);
     }
 
     /**
@@ -161,6 +224,38 @@ public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggre
         return false;
     }
 
+    /**
+     * Points the {@link VastVideoConfig} at the partial file of the media file's in-progress
+     * download.
+     *
+     * @param vastVideoConfig used to store the media file's disk url and web url
+     * @return true if the media file is still being downloaded, otherwise false
+     */
+    private boolean updatePartialMediaFileUrl(@NonNull final VastVideoConfig vastVideoConfig) {
+        Preconditions.checkNotNull(vastVideoConfig, "vastVideoConfig cannot be null");
+
+        final VideoDownloader.PartialDownload partialDownload =
+                VideoDownloader.getPartialDownload(vastVideoConfig.getNetworkMediaFileUrl());
+        if (partialDownload == null) {
+            return false;
+        }
+        vastVideoConfig.setDiskMediaFileUrl(partialDownload.getFile().getPath());
+        return true;
+    }
+
+    /**
+     * @return The number of bytes to cache before the video can start playing, or 0 if the whole
+     * video needs to be cached first.
+     */
+    @VisibleForTesting
+    long getProgressivePlaybackBytes(@NonNull final VastVideoConfig vastVideoConfig) {
+        final Integer bitrateKbps = vastVideoConfig.getNetworkMediaFileBitrate();
+        if (mProgressivePlaybackSeconds <= 0 || bitrateKbps == null || bitrateKbps <= 0) {
+            return 0;
+        }
+        return (long) mProgressivePlaybackSeconds * bitrateKbps * 1000 / 8;
+    }
+
     private void initializeScreenDimensions(@NonNull final Context context) {
         Preconditions.checkNotNull(context, "context cannot be null");
         final Display display = ((WindowManager) context.getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay();
@@ -15,7 +15,7 @@ import org.w3c.dom.Node;
 /**
  * This XML manager handles the actual video.
  */
-class VastMediaXmlManager {
+class VastMediaXmlManager implements VastXmlDocument.MediaFile {
 
     // Attribute names
     private static final String WIDTH = "width";
@@ -52,7 +52,8 @@ class VastMediaXmlManager {
      * @return Integer width of video or {@code null}
      */
     @Nullable
-    Integer getWidth() {
+    @Override
+    public Integer getWidth() {
         return XmlUtils.getAttributeValueAsInt(mMediaNode, WIDTH);
     }
 
@@ -63,7 +64,8 @@ class VastMediaXmlManager {
      * @return Integer height of video or {@code null}
      */
     @Nullable
-    Integer getHeight() {
+    @Override
+    public Integer getHeight() {
         return XmlUtils.getAttributeValueAsInt(mMediaNode, HEIGHT);
     }
 
@@ -74,7 +76,8 @@ class VastMediaXmlManager {
      * @return The String type or {@code null}
      */
     @Nullable
-    String getType() {
+    @Override
+    public String getType() {
         return XmlUtils.getAttributeValue(mMediaNode, VIDEO_TYPE);
     }
 
@@ -84,7 +87,8 @@ class VastMediaXmlManager {
      * @return String url of video or {@code null}
      */
     @Nullable
-    String getMediaUrl() {
+    @Override
+    public String getMediaUrl() {
         return XmlUtils.getNodeValue(mMediaNode);
     }
 
@@ -94,17 +98,22 @@ class VastMediaXmlManager {
      * @return Integer representation of the video in kbps or {@code null}
      */
     @Nullable
-    Integer getBitrate() {
-        // the "bitrate" attribute is the average across the entire video:
-        final Integer bitrate = XmlUtils.getAttributeValueAsInt(mMediaNode, BITRATE);
+    @Override
+    public Integer getBitrate() {
+        return getBitrate(XmlUtils.getAttributeValueAsInt(mMediaNode, BITRATE),
+                XmlUtils.getAttributeValueAsInt(mMediaNode, BITRATE_MIN),
+                XmlUtils.getAttributeValueAsInt(mMediaNode, BITRATE_MAX));
+    }
 
+    @Nullable
+    static Integer getBitrate(@Nullable final Integer bitrate, @Nullable final Integer minBitrate,
+            @Nullable final Integer maxBitrate) {
+        // the "bitrate" attribute is the average across the entire video:
         if (bitrate != null) {
             return bitrate;
         }
 
         // If an average bitrate isn't provided:
-        final Integer minBitrate = XmlUtils.getAttributeValueAsInt(mMediaNode, BITRATE_MIN);
-        final Integer maxBitrate = XmlUtils.getAttributeValueAsInt(mMediaNode, BITRATE_MAX);
 
         // Use the min and max to calculate the average, if both are non-null:
         if (minBitrate != null && maxBitrate != null) {
@@ -0,0 +1,106 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads
+
+/**
+ * Finds the progress trackers of a [VastVideoConfig] that are due as the video plays. Both tracker
+ * lists are kept sorted, so this walks each of them with a cursor and only looks at trackers again
+ * once the position reaches the next fire time. Checking a position before that time does not
+ * allocate anything.
+ *
+ * Trackers added to the config after playback starts are picked up on the next check. Not thread
+ * safe; call it from the thread playing the video.
+ */
+class VastProgressTrackerScheduler(private val vastVideoConfig: VastVideoConfig) {
+
+    private var absoluteCursor = 0
+    private var fractionalCursor = 0
+    private var absoluteTrackerCount = 0
+    private var fractionalTrackerCount = 0
+    private var scheduledVideoLengthMillis = 0
+    private var nextFireTimeMillis = 0
+
+    private val dueTrackers = ArrayList<VastTracker>()
+
+    /**
+     * Returns the untriggered trackers with a progress at or before the current position, in the
+     * same order as [VastVideoConfig.getUntriggeredTrackersBefore]. The list is reused by the next
+     * call, so callers must not hold on to it.
+     *
+     * @param currentPositionMillis the current video position in milliseconds.
+     * @param videoLengthMillis the total video length.
+     */
+    fun getDueTrackers(currentPositionMillis: Int, videoLengthMillis: Int): List<VastTracker> {
+        dueTrackers.clear()
+        if (videoLengthMillis <= 0 || currentPositionMillis < 0) {
+            return dueTrackers
+        }
+
+        val absoluteTrackers = vastVideoConfig.sortedAbsoluteTrackers
+        val fractionalTrackers = vastVideoConfig.sortedFractionalTrackers
+        if (absoluteTrackers.size != absoluteTrackerCount ||
+            fractionalTrackers.size != fractionalTrackerCount
+        ) {
+            // Trackers are inserted in sorted order, so a new one may sit behind the cursors
+            absoluteCursor = 0
+            fractionalCursor = 0
+            absoluteTrackerCount = absoluteTrackers.size
+            fractionalTrackerCount = fractionalTrackers.size
+        } else if (videoLengthMillis == scheduledVideoLengthMillis &&
+            currentPositionMillis < nextFireTimeMillis
+        ) {
+            return dueTrackers
+        }
+
+        while (absoluteCursor < absoluteTrackers.size) {
+            val tracker = absoluteTrackers[absoluteCursor]
+            if (tracker.trackingMilliseconds > currentPositionMillis) {
+                break
+            }
+            if (!tracker.isTracked) {
+                dueTrackers.add(tracker)
+            }
+            absoluteCursor++
+        }
+
+        val progressFraction = currentPositionMillis / videoLengthMillis.toFloat()
+        while (fractionalCursor < fractionalTrackers.size) {
+            val tracker = fractionalTrackers[fractionalCursor]
+            if (tracker.trackingFraction > progressFraction) {
+                break
+            }
+            if (!tracker.isTracked) {
+                dueTrackers.add(tracker)
+            }
+            fractionalCursor++
+        }
+
+        scheduledVideoLengthMillis = videoLengthMillis
+        nextFireTimeMillis = computeNextFireTimeMillis(videoLengthMillis)
+        return dueTrackers
+    }
+
+    /**
+     * The earliest position at which another tracker may be due. Fractional trackers are moved a
+     * millisecond early to absorb float rounding, and the check at that position compares the
+     * exact fraction.
+     */
+    private fun computeNextFireTimeMillis(videoLengthMillis: Int): Int {
+        val absoluteTrackers = vastVideoConfig.sortedAbsoluteTrackers
+        val fractionalTrackers = vastVideoConfig.sortedFractionalTrackers
+        val nextAbsoluteMillis = if (absoluteCursor < absoluteTrackers.size) {
+            absoluteTrackers[absoluteCursor].trackingMilliseconds
+        } else {
+            Int.MAX_VALUE
+        }
+        val nextFractionalMillis = if (fractionalCursor < fractionalTrackers.size) {
+            maxOf(0,
+                (fractionalTrackers[fractionalCursor].trackingFraction * videoLengthMillis).toInt() - 1)
+        } else {
+            Int.MAX_VALUE
+        }
+        return minOf(nextAbsoluteMillis, nextFractionalMillis)
+    }
+}
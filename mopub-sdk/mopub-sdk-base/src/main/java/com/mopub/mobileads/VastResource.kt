@@ -137,7 +137,7 @@ class VastResource(
 
         /**
          * Helper method that tries to create a {@link VastResource} by accessing all resource types on
-         * the {@link VastResourceXmlManager} in order of priority defined by the {@link Type} enum.
+         * the {@link VastXmlDocument.Resource} in order of priority defined by the {@link Type} enum.
          *
          * @param resourceXmlManager the manager used to populate the {@link VastResource}
          * @param width              the expected width of the resource. This only affects IFrames.
@@ -146,7 +146,7 @@ class VastResource(
          */
         @JvmStatic
         fun fromVastResourceXmlManager(
-            resourceXmlManager: VastResourceXmlManager,
+            resourceXmlManager: VastXmlDocument.Resource,
             width: Int,
             height: Int
         ): VastResource? {
@@ -162,7 +162,7 @@ class VastResource(
 
         /**
          * Tries to create a {@link VastResource} by accessing a specific resource {@link Type} on the
-         * {@link VastResourceXmlManager}.
+         * {@link VastXmlDocument.Resource}.
          *
          * @param resourceXmlManager the manager used to populate the {@link VastResource}
          * @param type the resource {@link Type} to try to access
@@ -172,7 +172,7 @@ class VastResource(
          */
         @JvmStatic
         fun fromVastResourceXmlManager(
-            resourceXmlManager: VastResourceXmlManager,
+            resourceXmlManager: VastXmlDocument.Resource,
             type: Type,
             width: Int,
             height: Int
@@ -12,7 +12,7 @@ import com.mopub.mobileads.util.XmlUtils;
 
 import org.w3c.dom.Node;
 
-public class VastResourceXmlManager {
+public class VastResourceXmlManager implements VastXmlDocument.Resource {
 
     // Element names
     public static final String STATIC_RESOURCE = "StaticResource";
@@ -36,7 +36,8 @@ public class VastResourceXmlManager {
      * @return The static resource data or {@code null}
      */
     @Nullable
-    String getStaticResource() {
+    @Override
+    public String getStaticResource() {
         return XmlUtils.getNodeValue(XmlUtils.getFirstMatchingChildNode(mResourceNode, STATIC_RESOURCE));
     }
 
@@ -47,9 +48,14 @@ public class VastResourceXmlManager {
      * @return The static resource type or {@code null}
      */
     @Nullable
-    String getStaticResourceType() {
+    @Override
+    public String getStaticResourceType() {
         Node staticResource = XmlUtils.getFirstMatchingChildNode(mResourceNode, STATIC_RESOURCE);
-        String attribute = XmlUtils.getAttributeValue(staticResource, CREATIVE_TYPE);
+        return getStaticResourceType(XmlUtils.getAttributeValue(staticResource, CREATIVE_TYPE));
+    }
+
+    @Nullable
+    static String getStaticResourceType(@Nullable final String attribute) {
         if (attribute != null) {
             return attribute.toLowerCase();
         }
@@ -63,7 +69,8 @@ public class VastResourceXmlManager {
      * @return The iframe resource data or {@code null}
      */
     @Nullable
-    String getIFrameResource() {
+    @Override
+    public String getIFrameResource() {
         return XmlUtils.getNodeValue(XmlUtils.getFirstMatchingChildNode(mResourceNode, IFRAME_RESOURCE));
     }
 
@@ -74,7 +81,8 @@ public class VastResourceXmlManager {
      * @return The HTML resource data or {@code null}
      */
     @Nullable
-    String getHTMLResource() {
+    @Override
+    public String getHTMLResource() {
         return XmlUtils.getNodeValue(XmlUtils.getFirstMatchingChildNode(mResourceNode, HTML_RESOURCE));
     }
 }
@@ -142,6 +142,12 @@ class VastVideoConfig : Serializable {
     @Expose
     @SerializedName(Constants.VAST_URL_NETWORK_MEDIA_FILE)
     var networkMediaFileUrl: String? = null
+    /**
+     * Average bitrate of the network media file in kbps, if the VAST document declared one. Only
+     * used while caching the video, so it is not serialized.
+     */
+    @Transient
+    var networkMediaFileBitrate: Int? = null
     @Expose
     @SerializedName(Constants.VAST_URL_DISK_MEDIA_FILE)
     var diskMediaFileUrl: String? = null
@@ -226,6 +232,14 @@ class VastVideoConfig : Serializable {
         _resumeTrackers.addAll(resumeTrackers)
     }
 
+    /**
+     * The sorted progress trackers, without copying, for [VastProgressTrackerScheduler].
+     */
+    internal val sortedAbsoluteTrackers: List<VastAbsoluteProgressTracker>
+        get() = _absoluteTrackers
+    internal val sortedFractionalTrackers: List<VastFractionalProgressTracker>
+        get() = _fractionalTrackers
+
     fun addFractionalTrackers(fractionalTrackers: List<VastFractionalProgressTracker>) {
         _fractionalTrackers.addAll(fractionalTrackers)
         _fractionalTrackers.sort()
@@ -335,6 +349,7 @@ class VastVideoConfig : Serializable {
             networkMediaFileUrl,
             context
         )
+        ClickThroughResolver.preResolve(clickThroughUrl, _clickTrackers.map { it.content })
     }
 
     /**
@@ -554,24 +569,16 @@ class VastVideoConfig : Serializable {
             return emptyList()
         }
 
+        val progressFraction = currentPositionMillis / videoLengthMillis.toFloat()
         return ArrayList<VastTracker>().also {
-            val absoluteTest = VastAbsoluteProgressTracker.Builder(
-                "", currentPositionMillis
-            ).build()
-
             _absoluteTrackers.forEach { tracker ->
-                if (tracker <= absoluteTest && !tracker.isTracked) {
+                if (tracker.trackingMilliseconds <= currentPositionMillis && !tracker.isTracked) {
                     it.add(tracker)
                 }
             }
 
-            val fractionalTest = VastFractionalProgressTracker.Builder(
-                "",
-                currentPositionMillis / videoLengthMillis.toFloat()
-            ).build()
-
             _fractionalTrackers.forEach { tracker ->
-                if (tracker <= fractionalTest && !tracker.isTracked) {
+                if (tracker.trackingFraction <= progressFraction && !tracker.isTracked) {
                     it.add(tracker)
                 }
             }
@@ -584,7 +591,8 @@ class VastVideoConfig : Serializable {
      * @return Integer count >= 0 of the remaining progress trackers.
      */
     val remainingProgressTrackerCount: Int
-        get() = getUntriggeredTrackersBefore(Int.MAX_VALUE, Int.MAX_VALUE).size
+        get() = _absoluteTrackers.count { !it.isTracked } +
+                _fractionalTrackers.count { !it.isTracked }
 
     /**
      * Gets the skip offset in milliseconds. If the skip offset would be past the video duration,
@@ -30,6 +30,8 @@ import android.widget.RelativeLayout
 import androidx.annotation.RequiresApi
 import androidx.core.content.ContextCompat
 import androidx.media.AudioAttributesCompat
+import androidx.media2.common.CallbackMediaItem
+import androidx.media2.common.MediaItem
 import androidx.media2.common.SessionPlayer
 import androidx.media2.common.SessionPlayer.PLAYER_STATE_ERROR
 import androidx.media2.common.SessionPlayer.PLAYER_STATE_IDLE
@@ -51,6 +53,7 @@ import com.mopub.mobileads.factories.VideoViewFactory
 import com.mopub.mobileads.resource.DrawableConstants.PrivacyInfoIcon.LEFT_MARGIN_DIPS
 import com.mopub.mobileads.resource.DrawableConstants.PrivacyInfoIcon.TOP_MARGIN_DIPS
 import com.mopub.network.TrackingRequest.makeVastTrackingHttpRequest
+import java.io.File
 import java.util.Collections
 
 @Mockable
@@ -82,6 +85,11 @@ class VastVideoViewController(
 
     private var seekerPositionOnPause = SEEKER_POSITION_NOT_INITIALIZED
     private var vastCompanionAdConfigs: MutableSet<VastCompanionAdConfig> = HashSet()
+    /**
+     * Set when the video was prepared before it was fully cached, in which case the player reads
+     * from the download that is still in progress.
+     */
+    private val partialDownloadDataSource: PartialDownloadDataSource?
     @VisibleForTesting
     val vastVideoConfig: VastVideoConfig
     @VisibleForTesting
@@ -128,8 +136,13 @@ class VastVideoViewController(
         val resumed =
             (savedInstanceState?.getSerializable(RESUMED_VAST_CONFIG) as? VastVideoConfig)
 
-        val adData = extras.getParcelable<AdData>(DataKeys.AD_DATA_KEY)
+        // Prefer the objects handed off in process. The parceled ad data, and parsing its video
+        // config, are only needed when the activity was recreated after process death.
+        val adData = FullscreenAdHandoff.getAdData(broadcastIdentifier)
+            ?: extras.getParcelable<AdData>(DataKeys.AD_DATA_KEY)
+            ?: savedInstanceState?.getParcelable<AdData>(DataKeys.AD_DATA_KEY)
         vastVideoConfig = resumed
+            ?: FullscreenAdHandoff.getVastVideoConfig(broadcastIdentifier)
             ?: requireNotNull(
                 VastVideoConfig.fromVastVideoConfigString(
                     requireNotNull(
@@ -152,6 +165,7 @@ class VastVideoViewController(
         requireNotNull(vastVideoConfig.diskMediaFileUrl) {
             "VastVideoConfig does not have a video disk path"
         }
+        partialDownloadDataSource = openPartialDownload()
 
         vastCompanionAdConfigs = vastVideoConfig.vastCompanionAdConfigs
         if (vastCompanionAdConfigs.isEmpty()) {
@@ -356,9 +370,7 @@ class VastVideoViewController(
         tempVideoView.setOnTouchListener(clickThroughListener)
 
         mediaPlayer.run {
-            setMediaItem(
-                UriMediaItem.Builder(Uri.parse(vastVideoConfig.diskMediaFileUrl)).build()
-            )
+            setMediaItem(createMediaItem())
             prepare().addListener(
                 Runnable {
                     // Called when media source is ready for playback
@@ -433,6 +445,38 @@ class VastVideoViewController(
         }
     }
 
+    /**
+     * Opens the in-progress download of the video if the video is not on disk yet. Afterwards the
+     * disk url points at where the complete video will be cached, which is also where the last
+     * video frame is taken from.
+     */
+    private fun openPartialDownload(): PartialDownloadDataSource? {
+        val networkUrl = vastVideoConfig.networkMediaFileUrl
+        val diskUrl = vastVideoConfig.diskMediaFileUrl ?: return null
+        val isPartialFile = diskUrl.endsWith(VideoDownloader.PARTIAL_FILE_SUFFIX)
+        if (!isPartialFile && File(diskUrl).exists()) {
+            return null
+        }
+
+        val dataSource = VideoDownloader.getPartialDownload(networkUrl)?.let {
+            PartialDownloadDataSource.open(it)
+        }
+        if (isPartialFile) {
+            CacheService.getFilePathDiskCache(networkUrl)?.let {
+                vastVideoConfig.diskMediaFileUrl = it
+            }
+        }
+        return dataSource
+    }
+
+    private fun createMediaItem(): MediaItem {
+        partialDownloadDataSource?.let {
+            MoPubLog.log(CUSTOM, "Playing VAST video while it is still downloading.")
+            return CallbackMediaItem.Builder(it).build()
+        }
+        return UriMediaItem.Builder(Uri.parse(vastVideoConfig.diskMediaFileUrl)).build()
+    }
+
     override fun onDestroy() {
         stopRunnables()
         externalViewabilitySessionManager.endSession()
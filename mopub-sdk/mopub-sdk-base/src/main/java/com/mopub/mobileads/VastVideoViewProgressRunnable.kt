@@ -20,6 +20,8 @@ class VastVideoViewProgressRunnable(
     handler: Handler
 ) : RepeatingHandlerRunnable(handler) {
 
+    private val trackerScheduler = VastProgressTrackerScheduler(vastVideoConfig)
+
     override fun doWork() {
         val videoLength = videoViewController.getDuration()
         val currentPosition = videoViewController.getCurrentPosition()
@@ -29,7 +31,10 @@ class VastVideoViewProgressRunnable(
             return
         }
 
-        vastVideoConfig.getUntriggeredTrackersBefore(currentPosition, videoLength).mapNotNull {
+        // Most ticks have nothing due, so skip building the tracking urls entirely
+        trackerScheduler.getDueTrackers(currentPosition, videoLength).takeIf {
+            it.isNotEmpty()
+        }?.mapNotNull {
             it.setTracked()
             when (it.messageType) {
                 VastTracker.MessageType.TRACKING_URL -> {
@@ -40,7 +45,7 @@ class VastVideoViewProgressRunnable(
                     null
                 }
             }
-        }.takeIf { it.isNotEmpty() }?.also {
+        }?.takeIf { it.isNotEmpty() }?.also {
             TrackingRequest.makeTrackingHttpRequest(
                 VastMacroHelper(it)
                     .withAssetUri(videoViewController.networkMediaFileUrl)
@@ -0,0 +1,241 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.MoPubHttpUrlConnection;
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.common.util.Streams;
+import com.mopub.common.util.Strings;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches VAST wrapper redirects for a single {@link VastXmlManagerAggregator} run. Sibling
+ * wrappers in the same document can be prefetched concurrently so that the aggregator only waits
+ * for the slowest hop it actually needs. Successfully fetched redirects are kept in a small
+ * process-wide cache for a short time so that the same wrapper across ad refreshes is not
+ * re-fetched. A URL is never served from the cache twice within the same run, since a wrapper
+ * chain revisiting a URL expects a fresh response from the server.
+ *
+ * All methods except the fetches themselves are called on the aggregator's background thread.
+ */
+class VastWrapperRedirectResolver {
+
+    @VisibleForTesting
+    static final int MAX_CONCURRENT_REDIRECTS = 4;
+    @VisibleForTesting
+    static final long REDIRECT_CACHE_TTL_MILLIS = 60 * 1000;
+    @VisibleForTesting
+    static final int REDIRECT_CACHE_MAX_ENTRIES = 20;
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    private static class CachedRedirect {
+        @NonNull final String mVastXml;
+        final long mExpirationTimeMillis;
+
+        CachedRedirect(@NonNull final String vastXml, final long expirationTimeMillis) {
+            mVastXml = vastXml;
+            mExpirationTimeMillis = expirationTimeMillis;
+        }
+    }
+
+    /**
+     * Access-ordered so that the least recently used redirect is evicted first. Guarded by its own
+     * monitor.
+     */
+    @NonNull private static final Map<String, CachedRedirect> sRedirectCache =
+            new LinkedHashMap<String, CachedRedirect>(REDIRECT_CACHE_MAX_ENTRIES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, CachedRedirect> eldest) {
+                    return size() > REDIRECT_CACHE_MAX_ENTRIES;
+                }
+            };
+
+    @Nullable private static ThreadPoolExecutor sExecutor;
+
+    @NonNull private final Map<String, Future<String>> mPendingRedirects = new HashMap<>();
+    @NonNull private final Set<String> mRequestedUrls = new HashSet<>();
+
+    /**
+     * Starts fetching the first of the given redirect URLs in the background. URLs that are cached
+     * or already being fetched are skipped. No more than {@link #MAX_CONCURRENT_REDIRECTS}
+     * prefetches are pending at once, counting those of enclosing documents, so a document with
+     * many wrappers does not send a request for each of them.
+     *
+     * @param redirectUrls The VASTAdTagURIs of sibling wrappers, in document order.
+     * @param maxRedirects How many more redirects the run may follow. Wrappers past this budget
+     *                     are never resolved, so they are not prefetched.
+     */
+    void prefetch(@NonNull final List<String> redirectUrls, final int maxRedirects) {
+        Preconditions.checkNotNull(redirectUrls);
+
+        int remainingPrefetches =
+                Math.min(maxRedirects, MAX_CONCURRENT_REDIRECTS) - mPendingRedirects.size();
+        for (final String redirectUrl : redirectUrls) {
+            if (remainingPrefetches <= 0) {
+                return;
+            }
+            if (mPendingRedirects.containsKey(redirectUrl) || isCached(redirectUrl)) {
+                continue;
+            }
+
+            mPendingRedirects.put(redirectUrl, getExecutor().submit(new Callable<String>() {
+                @Override
+                public String call() throws IOException {
+                    return fetch(redirectUrl);
+                }
+            }));
+            remainingPrefetches--;
+        }
+    }
+
+    /**
+     * Returns the VAST xml for the redirect URL, using a cached or prefetched response when
+     * available and fetching it on the calling thread otherwise.
+     *
+     * @param redirectUrl The VASTAdTagURI of a wrapper.
+     * @return The VAST xml, or null if the fetch was interrupted.
+     * @throws IOException if the redirect could not be fetched.
+     */
+    @Nullable
+    String resolve(@NonNull final String redirectUrl) throws IOException {
+        Preconditions.checkNotNull(redirectUrl);
+
+        final Future<String> pendingRedirect = mPendingRedirects.remove(redirectUrl);
+        if (pendingRedirect == null) {
+            final String cachedXml = mRequestedUrls.contains(redirectUrl)
+                    ? null
+                    : getCached(redirectUrl);
+            mRequestedUrls.add(redirectUrl);
+            return cachedXml != null ? cachedXml : fetch(redirectUrl);
+        }
+
+        mRequestedUrls.add(redirectUrl);
+        try {
+            return pendingRedirect.get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Cancels prefetches that were not consumed. Completed responses remain in the cache.
+     */
+    void cancelPending() {
+        for (final Future<String> pendingRedirect : mPendingRedirects.values()) {
+            pendingRedirect.cancel(true);
+        }
+        mPendingRedirects.clear();
+    }
+
+    @NonNull
+    private static String fetch(@NonNull final String redirectUrl) throws IOException {
+        HttpURLConnection urlConnection = null;
+        InputStream inputStream = null;
+        try {
+            urlConnection = MoPubHttpUrlConnection.getHttpUrlConnection(redirectUrl);
+            inputStream = new BufferedInputStream(urlConnection.getInputStream());
+
+            final String vastXml = Strings.fromStream(inputStream);
+            putCached(redirectUrl, vastXml);
+            return vastXml;
+        } finally {
+            Streams.closeStream(inputStream);
+            if (urlConnection != null) {
+                urlConnection.disconnect();
+            }
+        }
+    }
+
+    private boolean isCached(@NonNull final String redirectUrl) {
+        return !mRequestedUrls.contains(redirectUrl) && getCached(redirectUrl) != null;
+    }
+
+    @Nullable
+    private static String getCached(@NonNull final String redirectUrl) {
+        synchronized (sRedirectCache) {
+            final CachedRedirect cachedRedirect = sRedirectCache.get(redirectUrl);
+            if (cachedRedirect == null) {
+                return null;
+            }
+            if (cachedRedirect.mExpirationTimeMillis <= SystemClock.elapsedRealtime()) {
+                sRedirectCache.remove(redirectUrl);
+                return null;
+            }
+            return cachedRedirect.mVastXml;
+        }
+    }
+
+    private static void putCached(@NonNull final String redirectUrl, @NonNull final String vastXml) {
+        synchronized (sRedirectCache) {
+            sRedirectCache.put(redirectUrl, new CachedRedirect(vastXml,
+                    SystemClock.elapsedRealtime() + REDIRECT_CACHE_TTL_MILLIS));
+        }
+    }
+
+    @NonNull
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (sExecutor == null) {
+            sExecutor = new ThreadPoolExecutor(MAX_CONCURRENT_REDIRECTS, MAX_CONCURRENT_REDIRECTS,
+                    THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        private final AtomicInteger mCount = new AtomicInteger(1);
+
+                        @Override
+                        public Thread newThread(@NonNull final Runnable runnable) {
+                            return new Thread(runnable,
+                                    "MoPubVastRedirect #" + mCount.getAndIncrement());
+                        }
+                    });
+            sExecutor.allowCoreThreadTimeOut(true);
+        }
+        return sExecutor;
+    }
+
+    @VisibleForTesting
+    int getPendingRedirectCount() {
+        return mPendingRedirects.size();
+    }
+
+    @VisibleForTesting
+    static void clearCache() {
+        synchronized (sRedirectCache) {
+            sRedirectCache.clear();
+        }
+    }
+}
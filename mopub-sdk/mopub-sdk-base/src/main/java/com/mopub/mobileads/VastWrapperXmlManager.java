@@ -17,7 +17,8 @@ import org.w3c.dom.Node;
  * in turn redirect to more wrappers). Wrappers can also contain impression trackers,
  * trackers for a video ad, and companion ads.
  */
-class VastWrapperXmlManager extends VastBaseInLineWrapperXmlManager {
+class VastWrapperXmlManager extends VastBaseInLineWrapperXmlManager
+        implements VastXmlDocument.Wrapper {
 
     // Element names
     private static final String VAST_AD_TAG = "VASTAdTagURI";
@@ -33,7 +34,8 @@ class VastWrapperXmlManager extends VastBaseInLineWrapperXmlManager {
      * @return The redirect URI or {@code null} if there isn't one.
      */
     @Nullable
-    String getVastAdTagURI() {
+    @Override
+    public String getVastAdTagURI() {
         Node vastAdTagURINode = XmlUtils.getFirstMatchingChildNode(mNode, VAST_AD_TAG);
         return XmlUtils.getNodeValue(vastAdTagURINode);
     }
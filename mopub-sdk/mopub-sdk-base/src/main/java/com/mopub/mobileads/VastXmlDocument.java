@@ -0,0 +1,248 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.ViewabilityVendor;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A parsed VAST document as read by {@link VastXmlManagerAggregator}. There are two
+ * implementations: {@link VastXmlPullParser}, which reads the document in a single streaming pass,
+ * and the DOM backed {@link VastXmlManager} family, which it replaces and which is kept as the
+ * reference for parity tests. Both must return the same values for the same XML.
+ */
+public interface VastXmlDocument {
+
+    /**
+     * @return The Ad elements anywhere in the document, in document order.
+     */
+    @NonNull
+    List<? extends Ad> getAdXmlManagers();
+
+    /**
+     * @return The first Error element anywhere in the document, or {@code null} if there is none.
+     */
+    @Nullable
+    VastTracker getErrorTracker();
+
+    @NonNull
+    List<VastTracker> getMoPubImpressionTrackers();
+
+    @Nullable
+    String getCustomCtaText();
+
+    @Nullable
+    String getCustomSkipText();
+
+    @Nullable
+    String getCustomCloseIconUrl();
+
+    /**
+     * An Ad element. See {@link VastAdXmlManager}.
+     */
+    interface Ad {
+        @Nullable
+        String getSequence();
+
+        @Nullable
+        InLineWrapper getInLineXmlManager();
+
+        @Nullable
+        Wrapper getWrapperXmlManager();
+    }
+
+    /**
+     * An InLine or Wrapper element. See {@link VastBaseInLineWrapperXmlManager}.
+     */
+    interface InLineWrapper {
+        @NonNull
+        List<VastTracker> getImpressionTrackers();
+
+        @NonNull
+        List<VastTracker> getErrorTrackers();
+
+        @NonNull
+        List<? extends Linear> getLinearXmlManagers();
+
+        @NonNull
+        List<? extends CompanionAd> getCompanionAdXmlManagers();
+
+        /**
+         * @return The Extension elements of the first Extensions element, or an empty list if
+         * there are none.
+         */
+        @NonNull
+        List<? extends Extension> getVastExtensionXmlManagers();
+
+        /**
+         * @return The OMID vendors of the AdVerifications element directly under this node.
+         */
+        @NonNull
+        Set<ViewabilityVendor> getViewabilityVendors();
+    }
+
+    /**
+     * A Wrapper element. See {@link VastWrapperXmlManager}.
+     */
+    interface Wrapper extends InLineWrapper {
+        @Nullable
+        String getVastAdTagURI();
+    }
+
+    /**
+     * A Linear element. See {@link VastLinearXmlManager}.
+     */
+    interface Linear {
+        @NonNull
+        List<VastFractionalProgressTracker> getFractionalProgressTrackers();
+
+        @NonNull
+        List<VastAbsoluteProgressTracker> getAbsoluteProgressTrackers();
+
+        @NonNull
+        List<VastTracker> getVideoCompleteTrackers();
+
+        @NonNull
+        List<VastTracker> getPauseTrackers();
+
+        @NonNull
+        List<VastTracker> getResumeTrackers();
+
+        @NonNull
+        List<VastTracker> getVideoCloseTrackers();
+
+        @NonNull
+        List<VastTracker> getVideoSkipTrackers();
+
+        @Nullable
+        String getClickThroughUrl();
+
+        @NonNull
+        List<VastTracker> getClickTrackers();
+
+        @Nullable
+        String getSkipOffset();
+
+        @NonNull
+        List<? extends MediaFile> getMediaXmlManagers();
+
+        @NonNull
+        List<? extends Icon> getIconXmlManagers();
+    }
+
+    /**
+     * A MediaFile element. See {@link VastMediaXmlManager}.
+     */
+    interface MediaFile {
+        @Nullable
+        Integer getWidth();
+
+        @Nullable
+        Integer getHeight();
+
+        @Nullable
+        String getType();
+
+        @Nullable
+        String getMediaUrl();
+
+        @Nullable
+        Integer getBitrate();
+    }
+
+    /**
+     * The StaticResource, IFrameResource and HTMLResource children of a Companion or Icon
+     * element. See {@link VastResourceXmlManager}.
+     */
+    interface Resource {
+        @Nullable
+        String getStaticResource();
+
+        @Nullable
+        String getStaticResourceType();
+
+        @Nullable
+        String getIFrameResource();
+
+        @Nullable
+        String getHTMLResource();
+    }
+
+    /**
+     * A Companion element. See {@link VastCompanionAdXmlManager}.
+     */
+    interface CompanionAd {
+        @Nullable
+        Integer getWidth();
+
+        @Nullable
+        Integer getHeight();
+
+        @NonNull
+        Resource getResourceXmlManager();
+
+        @Nullable
+        String getClickThroughUrl();
+
+        @NonNull
+        List<VastTracker> getClickTrackers();
+
+        @NonNull
+        List<VastTracker> getCompanionCreativeViewTrackers();
+
+        boolean hasResources();
+    }
+
+    /**
+     * An Icon element. See {@link VastIconXmlManager}.
+     */
+    interface Icon {
+        @Nullable
+        Integer getWidth();
+
+        @Nullable
+        Integer getHeight();
+
+        @Nullable
+        Integer getOffsetMS();
+
+        @Nullable
+        Integer getDurationMS();
+
+        @NonNull
+        Resource getResourceXmlManager();
+
+        @NonNull
+        List<VastTracker> getClickTrackingUris();
+
+        @Nullable
+        String getClickThroughUri();
+
+        @NonNull
+        List<VastTracker> getViewTrackingUris();
+    }
+
+    /**
+     * An Extension element. See {@link VastExtensionXmlManager}.
+     */
+    interface Extension {
+        @Nullable
+        String getType();
+
+        @Nullable
+        VideoViewabilityTracker getVideoViewabilityTracker();
+
+        /**
+         * @return The OMID vendors of the AdVerifications element directly under this node.
+         */
+        @NonNull
+        Set<ViewabilityVendor> getViewabilityVendors();
+    }
+}
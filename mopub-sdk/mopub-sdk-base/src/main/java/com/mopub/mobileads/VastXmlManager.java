@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -29,7 +30,7 @@ import javax.xml.parsers.ParserConfigurationException;
  * Parses the VAST XML to spec. See www.iab.net for details.
  * Currently using the VAST 3.0 spec found here: https://www.iab.net/media/file/VASTv3.0.pdf.
  */
-class VastXmlManager {
+class VastXmlManager implements VastXmlDocument {
     private static final String ROOT_TAG = "MPMoVideoXMLDocRoot";
     private static final String ROOT_TAG_OPEN = "<" + ROOT_TAG + ">";
     private static final String ROOT_TAG_CLOSE = "</" + ROOT_TAG + ">";
@@ -49,6 +50,15 @@ class VastXmlManager {
     private static final int MAX_CTA_TEXT_LENGTH = 15;
     private static final int MAX_SKIP_TEXT_LENGTH = 8;
 
+    // Matches a leading <?xml ... ?> declaration
+    private static final Pattern XML_DECLARATION_PATTERN = Pattern.compile("<\\?.*\\?>");
+
+    /**
+     * Looking up the factory implementation is expensive, so it is shared. Factories are not
+     * guaranteed to be thread safe, so builders are created while holding its lock.
+     */
+    @Nullable private static DocumentBuilderFactory sDocumentBuilderFactory;
+
     @Nullable private Document mVastDoc;
 
     /**
@@ -63,19 +73,40 @@ class VastXmlManager {
             IOException, SAXException {
         Preconditions.checkNotNull(xmlString, "xmlString cannot be null");
 
+        DocumentBuilder documentBuilder = newDocumentBuilder();
+        mVastDoc = documentBuilder.parse(new InputSource(new StringReader(wrapVastXml(xmlString))));
+    }
+
+    /**
+     * Prepares VAST XML for parsing. This is shared with {@link VastXmlPullParser} so that both
+     * parsers see the same document.
+     *
+     * @param xmlString The XML to parse
+     * @return The XML without its declaration, wrapped in a single root element
+     */
+    @NonNull
+    static String wrapVastXml(@NonNull String xmlString) {
         // if the xml string starts with <?xml?>, this tag can break parsing if it isn't formatted exactly right
         // or if it's not the first line of the document...we're just going to strip it
-        xmlString = xmlString.replaceFirst("<\\?.*\\?>", "");
+        xmlString = XML_DECLARATION_PATTERN.matcher(xmlString).replaceFirst("");
 
         // adserver may embed additional impression trackers as a sibling node of <VAST>
         // wrap entire document in root node for this case.
-        String documentString = ROOT_TAG_OPEN + xmlString + ROOT_TAG_CLOSE;
+        return ROOT_TAG_OPEN + xmlString + ROOT_TAG_CLOSE;
+    }
 
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        documentBuilderFactory.setCoalescing(true);
-        documentBuilderFactory.setExpandEntityReferences(false);
-        DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-        mVastDoc = documentBuilder.parse(new InputSource(new StringReader(documentString)));
+    @NonNull
+    private static DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+        synchronized (VastXmlManager.class) {
+            if (sDocumentBuilderFactory == null) {
+                final DocumentBuilderFactory documentBuilderFactory =
+                        DocumentBuilderFactory.newInstance();
+                documentBuilderFactory.setCoalescing(true);
+                documentBuilderFactory.setExpandEntityReferences(false);
+                sDocumentBuilderFactory = documentBuilderFactory;
+            }
+            return sDocumentBuilderFactory.newDocumentBuilder();
+        }
     }
 
     /**
@@ -89,7 +120,8 @@ class VastXmlManager {
      */
 
     @NonNull
-    List<VastAdXmlManager> getAdXmlManagers() {
+    @Override
+    public List<VastAdXmlManager> getAdXmlManagers() {
         List<VastAdXmlManager> vastAdXmlManagers = new ArrayList<VastAdXmlManager>();
         if (mVastDoc == null) {
             return vastAdXmlManagers;
@@ -108,7 +140,8 @@ class VastXmlManager {
      * @return The URL of the error tracker or null if it does not exist.
      */
     @Nullable
-    VastTracker getErrorTracker() {
+    @Override
+    public VastTracker getErrorTracker() {
         if (mVastDoc == null) {
             return null;
         }
@@ -125,7 +158,8 @@ class VastXmlManager {
      * @return List of URL impression trackers or an empty list if none present.
      */
     @NonNull
-    List<VastTracker> getMoPubImpressionTrackers() {
+    @Override
+    public List<VastTracker> getMoPubImpressionTrackers() {
         List<String> trackers = XmlUtils.getStringDataAsList(mVastDoc, MP_IMPRESSION_TRACKER);
         List<VastTracker> vastTrackers = new ArrayList<VastTracker>(trackers.size());
         for (String tracker : trackers) {
@@ -140,8 +174,13 @@ class VastXmlManager {
      * @return String cta or {@code null}
      */
     @Nullable
-    String getCustomCtaText() {
-        String customCtaText = XmlUtils.getFirstMatchingStringData(mVastDoc, CUSTOM_CTA_TEXT);
+    @Override
+    public String getCustomCtaText() {
+        return getCustomCtaText(XmlUtils.getFirstMatchingStringData(mVastDoc, CUSTOM_CTA_TEXT));
+    }
+
+    @Nullable
+    static String getCustomCtaText(@Nullable final String customCtaText) {
         if (customCtaText != null && customCtaText.length() <= MAX_CTA_TEXT_LENGTH) {
             return customCtaText;
         }
@@ -155,8 +194,13 @@ class VastXmlManager {
      * @return String skip text or {@code null}
      */
     @Nullable
-    String getCustomSkipText() {
-        String customSkipText = XmlUtils.getFirstMatchingStringData(mVastDoc, CUSTOM_SKIP_TEXT);
+    @Override
+    public String getCustomSkipText() {
+        return getCustomSkipText(XmlUtils.getFirstMatchingStringData(mVastDoc, CUSTOM_SKIP_TEXT));
+    }
+
+    @Nullable
+    static String getCustomSkipText(@Nullable final String customSkipText) {
         if (customSkipText != null && customSkipText.length() <= MAX_SKIP_TEXT_LENGTH) {
             return customSkipText;
         }
@@ -170,7 +214,8 @@ class VastXmlManager {
      * @return String URL of the custom icon or {@code null}
      */
     @Nullable
-    String getCustomCloseIconUrl() {
+    @Override
+    public String getCustomCloseIconUrl() {
         return XmlUtils.getFirstMatchingStringData(mVastDoc, CUSTOM_CLOSE_ICON);
     }
 }
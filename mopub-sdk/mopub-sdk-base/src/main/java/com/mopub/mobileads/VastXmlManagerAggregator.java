@@ -14,23 +14,14 @@ import android.view.WindowManager;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.mopub.common.MoPubHttpUrlConnection;
 import com.mopub.common.Preconditions;
-import com.mopub.common.ViewabilityVendor;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.common.util.Dips;
-import com.mopub.common.util.Streams;
-import com.mopub.common.util.Strings;
 import com.mopub.network.Networking;
 
-import org.w3c.dom.Node;
-
-import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.lang.ref.WeakReference;
-import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -97,6 +88,15 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
      */
     private int mTimesFollowedVastRedirect;
 
+    /**
+     * Whether this aggregation is a speculative prefetch whose result may be thrown away. Error
+     * trackers are only fired for aggregations that are used to show an ad.
+     */
+    private boolean mIsSpeculative;
+
+    @NonNull private final VastWrapperRedirectResolver mRedirectResolver =
+            new VastWrapperRedirectResolver();
+
     VastXmlManagerAggregator(@NonNull final VastXmlManagerAggregatorListener vastXmlManagerAggregatorListener,
                              final double screenAspectRatio,
                              final int screenWidthDp,
@@ -112,6 +112,14 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
         mContext = context.getApplicationContext();
     }
 
+    /**
+     * Marks this aggregation as speculative, so that failures along the wrapper chain do not fire
+     * any error trackers. Must be called before the task is executed.
+     */
+    void setSpeculative(final boolean isSpeculative) {
+        mIsSpeculative = isSpeculative;
+    }
+
     @Override
     protected void onPreExecute() {
         // This is to set the WebView user agent in case it was not already set by some other
@@ -131,6 +139,8 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
         } catch (Exception e) {
             MoPubLog.log(ERROR_WITH_THROWABLE, "Unable to generate VastVideoConfig.", e);
             return null;
+        } finally {
+            mRedirectResolver.cancelPending();
         }
     }
 
@@ -175,30 +185,39 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
         Preconditions.checkNotNull(vastXml, "vastXml cannot be null");
         Preconditions.checkNotNull(errorTrackers, "errorTrackers cannot be null");
 
-        final VastXmlManager xmlManager = new VastXmlManager();
+        final VastXmlDocument xmlManager;
         try {
-            xmlManager.parseVastXml(vastXml);
+            xmlManager = parseVastXml(vastXml);
         } catch (Exception e) {
             MoPubLog.log(ERROR_WITH_THROWABLE, "Failed to parse VAST XML", e);
-            makeVastTrackingHttpRequest(errorTrackers, VastErrorCode.XML_PARSING_ERROR, null,
-                    null, mContext);
+            fireErrorTrackers(errorTrackers, VastErrorCode.XML_PARSING_ERROR);
             return null;
         }
 
-        final List<VastAdXmlManager> vastAdXmlManagers = xmlManager.getAdXmlManagers();
+        final List<? extends VastXmlDocument.Ad> vastAdXmlManagers =
+                xmlManager.getAdXmlManagers();
 
         // If there are no ads, fire the error trackers
         if (fireErrorTrackerIfNoAds(vastAdXmlManagers, xmlManager, mContext)) {
             return null;
         }
 
-        for (VastAdXmlManager vastAdXmlManager : vastAdXmlManagers) {
+        // Fetch sibling wrapper redirects concurrently. They are still evaluated in document
+        // order below, so the first valid InLine wins exactly as before.
+        final List<String> wrapperRedirectUrls = getWrapperRedirectUrls(vastAdXmlManagers);
+        if (wrapperRedirectUrls.size() > 1
+                && mTimesFollowedVastRedirect < MAX_TIMES_TO_FOLLOW_VAST_REDIRECT) {
+            mRedirectResolver.prefetch(wrapperRedirectUrls,
+                    MAX_TIMES_TO_FOLLOW_VAST_REDIRECT - mTimesFollowedVastRedirect);
+        }
+
+        for (VastXmlDocument.Ad vastAdXmlManager : vastAdXmlManagers) {
             if (!isValidSequenceNumber(vastAdXmlManager.getSequence())) {
                 continue;
             }
 
             // InLine evaluation
-            final VastInLineXmlManager vastInLineXmlManager =
+            final VastXmlDocument.InLineWrapper vastInLineXmlManager =
                     vastAdXmlManager.getInLineXmlManager();
             if (vastInLineXmlManager != null) {
                 final VastVideoConfig vastVideoConfig = evaluateInLineXmlManager(
@@ -211,7 +230,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
             }
 
             // Wrapper evaluation
-            final VastWrapperXmlManager vastWrapperXmlManager
+            final VastXmlDocument.Wrapper vastWrapperXmlManager
                     = vastAdXmlManager.getWrapperXmlManager();
             if (vastWrapperXmlManager != null) {
                 final List<VastTracker> wrapperErrorTrackers = new ArrayList<VastTracker>(errorTrackers);
@@ -237,16 +256,17 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
                 // in one of Wrapper redirects. Therefore, aggregate all trackers in the wrapper
                 vastVideoConfig.addImpressionTrackers(
                         vastWrapperXmlManager.getImpressionTrackers());
-                final List<VastLinearXmlManager> linearXmlManagers =
+                final List<? extends VastXmlDocument.Linear> linearXmlManagers =
                         vastWrapperXmlManager.getLinearXmlManagers();
-                for (VastLinearXmlManager linearXmlManager : linearXmlManagers) {
+                for (VastXmlDocument.Linear linearXmlManager : linearXmlManagers) {
                     populateLinearTrackersAndIcon(linearXmlManager, vastVideoConfig);
                 }
                 populateVideoViewabilityTracker(vastWrapperXmlManager, vastVideoConfig);
                 populateViewabilityMetadata(vastWrapperXmlManager, vastVideoConfig);
-                populateAdVerificationsOmid(vastWrapperXmlManager.mNode, vastVideoConfig);
+                vastVideoConfig.addViewabilityVendors(
+                        vastWrapperXmlManager.getViewabilityVendors());
 
-                final List<VastCompanionAdXmlManager> companionAdXmlManagers =
+                final List<? extends VastXmlDocument.CompanionAd> companionAdXmlManagers =
                         vastWrapperXmlManager.getCompanionAdXmlManagers();
                 // Only populate a companion ad if we don't already have one from one of the
                 // redirects
@@ -257,7 +277,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
                     // Otherwise append the companion trackers if it doesn't have resources
                     final Set<VastCompanionAdConfig> companionAds = vastVideoConfig.getVastCompanionAdConfigs();
                     for (VastCompanionAdConfig vastCompanionAdConfig : companionAds) {
-                        for (final VastCompanionAdXmlManager companionAdXmlManager : companionAdXmlManagers) {
+                        for (final VastXmlDocument.CompanionAd companionAdXmlManager : companionAdXmlManagers) {
                             if (!companionAdXmlManager.hasResources()) {
                                 vastCompanionAdConfig.addClickTrackers(
                                         companionAdXmlManager.getClickTrackers());
@@ -277,6 +297,22 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
         return null;
     }
 
+    /**
+     * Parses the VAST XML in a single streaming pass. {@link VastXmlManager} reads the same
+     * document through a DOM and is only used as the reference in tests.
+     *
+     * @param vastXml The xml to parse
+     * @return The parsed document
+     * @throws Exception If the XML could not be parsed
+     */
+    @VisibleForTesting
+    @NonNull
+    VastXmlDocument parseVastXml(@NonNull final String vastXml) throws Exception {
+        final VastXmlPullParser vastXmlPullParser = new VastXmlPullParser();
+        vastXmlPullParser.parseVastXml(vastXml);
+        return vastXmlPullParser;
+    }
+
     /**
      * Parses and evaluates an InLine element looking for a valid media file. InLine elements are
      * evaluated in order and the first valid media file found is used. If a media file is
@@ -290,17 +326,18 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
      */
     @Nullable
     private VastVideoConfig evaluateInLineXmlManager(
-            @NonNull final VastInLineXmlManager vastInLineXmlManager,
+            @NonNull final VastXmlDocument.InLineWrapper vastInLineXmlManager,
             @NonNull final List<VastTracker> errorTrackers) {
         Preconditions.checkNotNull(vastInLineXmlManager);
         Preconditions.checkNotNull(errorTrackers);
 
-        final List<VastLinearXmlManager> linearXmlManagers
+        final List<? extends VastXmlDocument.Linear> linearXmlManagers
                 = vastInLineXmlManager.getLinearXmlManagers();
 
-        for (VastLinearXmlManager linearXmlManager : linearXmlManagers) {
-            String bestMediaFileUrl = getBestMediaFileUrl(linearXmlManager.getMediaXmlManagers());
-            if (bestMediaFileUrl != null) {
+        for (VastXmlDocument.Linear linearXmlManager : linearXmlManagers) {
+            final VastXmlDocument.MediaFile bestMediaFile =
+                    getBestMediaFile(linearXmlManager.getMediaXmlManagers());
+            if (bestMediaFile != null) {
                 // Create vast video configuration and populate initial trackers
                 final VastVideoConfig vastVideoConfig = new VastVideoConfig();
                 vastVideoConfig.addImpressionTrackers(vastInLineXmlManager.getImpressionTrackers());
@@ -310,9 +347,10 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
                 // are under an InLine element. They will not have these assets when they are under
                 // a Wrapper element.
                 vastVideoConfig.setClickThroughUrl(linearXmlManager.getClickThroughUrl());
-                vastVideoConfig.setNetworkMediaFileUrl(bestMediaFileUrl);
+                vastVideoConfig.setNetworkMediaFileUrl(bestMediaFile.getMediaUrl());
+                vastVideoConfig.setNetworkMediaFileBitrate(bestMediaFile.getBitrate());
 
-                final List<VastCompanionAdXmlManager> companionAdXmlManagers =
+                final List<? extends VastXmlDocument.CompanionAd> companionAdXmlManagers =
                         vastInLineXmlManager.getCompanionAdXmlManagers();
 
                 vastVideoConfig.addVastCompanionAdConfigs(getAllCompanionAds(companionAdXmlManagers));
@@ -320,7 +358,8 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
                 vastVideoConfig.addErrorTrackers(errorTrackers);
                 populateVideoViewabilityTracker(vastInLineXmlManager, vastVideoConfig);
                 populateViewabilityMetadata(vastInLineXmlManager, vastVideoConfig);
-                populateAdVerificationsOmid(vastInLineXmlManager.mNode, vastVideoConfig);
+                vastVideoConfig.addViewabilityVendors(
+                        vastInLineXmlManager.getViewabilityVendors());
 
                 return vastVideoConfig;
             }
@@ -330,7 +369,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
     }
 
     private void populateVideoViewabilityTracker(
-            @NonNull final VastBaseInLineWrapperXmlManager vastInLineXmlManager,
+            @NonNull final VastXmlDocument.InLineWrapper vastInLineXmlManager,
             @NonNull VastVideoConfig vastVideoConfig) {
         Preconditions.checkNotNull(vastInLineXmlManager);
         Preconditions.checkNotNull(vastVideoConfig);
@@ -339,42 +378,47 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
             return;
         }
 
-        final VastExtensionParentXmlManager vastExtensionParentXmlManager =
-                vastInLineXmlManager.getVastExtensionParentXmlManager();
-        if (vastExtensionParentXmlManager != null) {
-            final List<VastExtensionXmlManager> vastExtensionXmlManagers =
-                    vastExtensionParentXmlManager.getVastExtensionXmlManagers();
-            for (VastExtensionXmlManager vastExtensionXmlManager : vastExtensionXmlManagers) {
-                if (MOPUB.equals(vastExtensionXmlManager.getType())) {
-                    vastVideoConfig.setVideoViewabilityTracker(vastExtensionXmlManager
-                            .getVideoViewabilityTracker());
-                    break;
-                }
+        for (VastXmlDocument.Extension vastExtensionXmlManager :
+                vastInLineXmlManager.getVastExtensionXmlManagers()) {
+            if (MOPUB.equals(vastExtensionXmlManager.getType())) {
+                vastVideoConfig.setVideoViewabilityTracker(vastExtensionXmlManager
+                        .getVideoViewabilityTracker());
+                break;
             }
         }
     }
 
     private void populateViewabilityMetadata(
-            @NonNull final VastBaseInLineWrapperXmlManager vastInLineXmlManager,
+            @NonNull final VastXmlDocument.InLineWrapper vastInLineXmlManager,
             @NonNull VastVideoConfig vastVideoConfig) {
-        final VastExtensionParentXmlManager vastExtensionParentXmlManager =
-                vastInLineXmlManager.getVastExtensionParentXmlManager();
-        if (vastExtensionParentXmlManager != null) {
-            final List<VastExtensionXmlManager> vastExtensionXmlManagers =
-                    vastExtensionParentXmlManager.getVastExtensionXmlManagers();
-            for (VastExtensionXmlManager vastExtensionXmlManager : vastExtensionXmlManagers) {
-                if (vastExtensionXmlManager != null) {
-                    populateAdVerificationsOmid(vastExtensionXmlManager.mExtensionNode, vastVideoConfig);
-                }
+        for (VastXmlDocument.Extension vastExtensionXmlManager :
+                vastInLineXmlManager.getVastExtensionXmlManagers()) {
+            if (vastExtensionXmlManager != null) {
+                vastVideoConfig.addViewabilityVendors(
+                        vastExtensionXmlManager.getViewabilityVendors());
             }
         }
     }
 
-    private void populateAdVerificationsOmid(@NonNull final Node adVerificationsParent,
-                                             @NonNull VastVideoConfig vastVideoConfig) {
-        final VastAdVerificationsParser adVerificationNodes = new VastAdVerificationsParser(adVerificationsParent);
-        final Set<ViewabilityVendor> vendors = adVerificationNodes.getViewabilityVendors();
-        vastVideoConfig.addViewabilityVendors(vendors);
+    @NonNull
+    private static List<String> getWrapperRedirectUrls(
+            @NonNull final List<? extends VastXmlDocument.Ad> vastAdXmlManagers) {
+        final List<String> wrapperRedirectUrls = new ArrayList<String>();
+        for (final VastXmlDocument.Ad vastAdXmlManager : vastAdXmlManagers) {
+            if (!isValidSequenceNumber(vastAdXmlManager.getSequence())) {
+                continue;
+            }
+            final VastXmlDocument.Wrapper vastWrapperXmlManager =
+                    vastAdXmlManager.getWrapperXmlManager();
+            if (vastWrapperXmlManager == null) {
+                continue;
+            }
+            final String vastAdTagUri = vastWrapperXmlManager.getVastAdTagURI();
+            if (vastAdTagUri != null) {
+                wrapperRedirectUrls.add(vastAdTagUri);
+            }
+        }
+        return wrapperRedirectUrls;
     }
 
     /**
@@ -385,7 +429,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
      * @return the next VAST xml String or {@code null} if it could not be resolved
      */
     @Nullable
-    private String evaluateWrapperRedirect(@NonNull VastWrapperXmlManager vastWrapperXmlManager,
+    private String evaluateWrapperRedirect(@NonNull VastXmlDocument.Wrapper vastWrapperXmlManager,
             @NonNull List<VastTracker> wrapperErrorTrackers) {
         final String vastAdTagUri = vastWrapperXmlManager.getVastAdTagURI();
         if (vastAdTagUri == null) {
@@ -398,8 +442,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
         } catch (Exception e) {
             MoPubLog.log(ERROR_WITH_THROWABLE, "Failed to follow VAST redirect", e);
             if (!wrapperErrorTrackers.isEmpty()) {
-                makeVastTrackingHttpRequest(wrapperErrorTrackers, VastErrorCode.WRAPPER_TIMEOUT,
-                                null, null, mContext);
+                fireErrorTrackers(wrapperErrorTrackers, VastErrorCode.WRAPPER_TIMEOUT);
             }
         }
 
@@ -414,7 +457,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
      * @param linearXmlManager used to retrieve trackers, and assets
      * @param vastVideoConfig modified in this method to store trackers and assets
      */
-    private void populateLinearTrackersAndIcon(@NonNull final VastLinearXmlManager linearXmlManager,
+    private void populateLinearTrackersAndIcon(@NonNull final VastXmlDocument.Linear linearXmlManager,
             @NonNull final VastVideoConfig vastVideoConfig) {
         Preconditions.checkNotNull(linearXmlManager, "linearXmlManager cannot be null");
         Preconditions.checkNotNull(vastVideoConfig, "vastVideoConfig cannot be null");
@@ -449,7 +492,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
      * @param vastVideoConfig modified in this method to store custom extensions and
      *                               impression trackers
      */
-    private void populateMoPubCustomElements(@NonNull final VastXmlManager xmlManager,
+    private void populateMoPubCustomElements(@NonNull final VastXmlDocument xmlManager,
             @NonNull final VastVideoConfig vastVideoConfig) {
         Preconditions.checkNotNull(xmlManager, "xmlManager cannot be null");
         Preconditions.checkNotNull(vastVideoConfig, "vastVideoConfig cannot be null");
@@ -477,14 +520,17 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
      *                          available
      * @param xmlManager        The current VastXmlManager that's used to get the new error tracker
      * @param context           Used to send an http request
-     * @return {@code true} if the error tracker was fired, {@code false} if the error tracker was
-     * not fired.
+     * @return {@code true} if there are no ads, in which case the error tracker was fired unless
+     * this aggregation is speculative, {@code false} otherwise.
      */
     private boolean fireErrorTrackerIfNoAds(
-            @NonNull final List<VastAdXmlManager> vastAdXmlManagers,
-            @NonNull final VastXmlManager xmlManager, @NonNull Context context) {
+            @NonNull final List<? extends VastXmlDocument.Ad> vastAdXmlManagers,
+            @NonNull final VastXmlDocument xmlManager, @NonNull Context context) {
         // When there is no <Ad> tag and when there is an error tracker
         if (vastAdXmlManagers.isEmpty() && xmlManager.getErrorTracker() != null ) {
+            if (mIsSpeculative) {
+                return true;
+            }
             // Only use NO_ADS_VAST_RESPONSE if we've followed one or more wrappers
             makeVastTrackingHttpRequest(
                     Collections.singletonList(xmlManager.getErrorTracker()),
@@ -497,17 +543,34 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
         return false;
     }
 
+    private void fireErrorTrackers(@NonNull final List<VastTracker> errorTrackers,
+            @NonNull final VastErrorCode errorCode) {
+        if (mIsSpeculative) {
+            return;
+        }
+        makeVastTrackingHttpRequest(errorTrackers, errorCode, null, null, mContext);
+    }
+
     @VisibleForTesting
     @Nullable
-    String getBestMediaFileUrl(@NonNull final List<VastMediaXmlManager> managers) {
+    String getBestMediaFileUrl(
+            @NonNull final List<? extends VastXmlDocument.MediaFile> managers) {
+        final VastXmlDocument.MediaFile bestMediaFile = getBestMediaFile(managers);
+        return bestMediaFile != null ? bestMediaFile.getMediaUrl() : null;
+    }
+
+    @Nullable
+    private VastXmlDocument.MediaFile getBestMediaFile(
+            @NonNull final List<? extends VastXmlDocument.MediaFile> managers) {
         Preconditions.checkNotNull(managers, "managers cannot be null");
-        final List<VastMediaXmlManager> mediaXmlManagers = new ArrayList<VastMediaXmlManager>(managers);
+        final List<VastXmlDocument.MediaFile> mediaXmlManagers =
+                new ArrayList<VastXmlDocument.MediaFile>(managers);
         double bestMediaFitness = Double.NEGATIVE_INFINITY;
-        String bestMediaFileUrl = null;
+        VastXmlDocument.MediaFile bestMediaFile = null;
 
-        final Iterator<VastMediaXmlManager> xmlManagerIterator = mediaXmlManagers.iterator();
+        final Iterator<VastXmlDocument.MediaFile> xmlManagerIterator = mediaXmlManagers.iterator();
         while (xmlManagerIterator.hasNext()) {
-            final VastMediaXmlManager mediaXmlManager = xmlManagerIterator.next();
+            final VastXmlDocument.MediaFile mediaXmlManager = xmlManagerIterator.next();
 
             final String mediaType = mediaXmlManager.getType();
             final String mediaUrl = mediaXmlManager.getMediaUrl();
@@ -529,24 +592,24 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
                     mediaType);
             if (mediaFitness > bestMediaFitness) {
                 bestMediaFitness = mediaFitness;
-                bestMediaFileUrl = mediaUrl;
+                bestMediaFile = mediaXmlManager;
             }
         }
 
-        return bestMediaFileUrl;
+        return bestMediaFile;
     }
 
     @VisibleForTesting
     @NonNull
     Set<VastCompanionAdConfig> getAllCompanionAds(
-            @NonNull final List<VastCompanionAdXmlManager> managers) {
+            @NonNull final List<? extends VastXmlDocument.CompanionAd> managers) {
         Preconditions.checkNotNull(managers, "managers cannot be null");
 
         final Set<VastCompanionAdConfig> vastCompanionAdConfigs = new HashSet<>();
-        final List<VastCompanionAdXmlManager> companionXmlManagers = new ArrayList<>(managers);
+        final List<VastXmlDocument.CompanionAd> companionXmlManagers = new ArrayList<>(managers);
 
         for (VastResource.Type type : VastResource.Type.values()) {
-            for (VastCompanionAdXmlManager companionXmlManager : companionXmlManagers) {
+            for (VastXmlDocument.CompanionAd companionXmlManager : companionXmlManagers) {
                 final Integer width = companionXmlManager.getWidth();
                 final Integer height = companionXmlManager.getHeight();
                 if (width == null || width < MINIMUM_COMPANION_AD_WIDTH ||
@@ -640,15 +703,16 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
 
     @VisibleForTesting
     @Nullable
-    VastIconConfig getBestIcon(@NonNull final List<VastIconXmlManager> managers) {
+    VastIconConfig getBestIcon(@NonNull final List<? extends VastXmlDocument.Icon> managers) {
         Preconditions.checkNotNull(managers, "managers cannot be null");
-        final List<VastIconXmlManager> iconXmlManagers = new ArrayList<VastIconXmlManager>(managers);
+        final List<VastXmlDocument.Icon> iconXmlManagers =
+                new ArrayList<VastXmlDocument.Icon>(managers);
 
         // Look for the best icon in order of prioritized resource types
         for (VastResource.Type type : VastResource.Type.values()) {
-            final Iterator<VastIconXmlManager> xmlManagerIterator = iconXmlManagers.iterator();
+            final Iterator<VastXmlDocument.Icon> xmlManagerIterator = iconXmlManagers.iterator();
             while (xmlManagerIterator.hasNext()) {
-                final VastIconXmlManager iconXmlManager = xmlManagerIterator.next();
+                final VastXmlDocument.Icon iconXmlManager = xmlManagerIterator.next();
 
                 final Integer width = iconXmlManager.getWidth();
                 final Integer height = iconXmlManager.getHeight();
@@ -795,19 +859,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
         if (mTimesFollowedVastRedirect < MAX_TIMES_TO_FOLLOW_VAST_REDIRECT) {
             mTimesFollowedVastRedirect++;
 
-            HttpURLConnection urlConnection = null;
-            InputStream inputStream = null;
-            try {
-                urlConnection = MoPubHttpUrlConnection.getHttpUrlConnection(redirectUrl);
-                inputStream = new BufferedInputStream(urlConnection.getInputStream());
-
-                return Strings.fromStream(inputStream);
-            } finally {
-                Streams.closeStream(inputStream);
-                if (urlConnection != null) {
-                    urlConnection.disconnect();
-                }
-            }
+            return mRedirectResolver.resolve(redirectUrl);
         }
 
         return null;
@@ -0,0 +1,1328 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.text.TextUtils;
+import android.util.Xml;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.ViewabilityVendor;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses VAST XML in a single streaming pass without building a DOM. Only the elements and values
+ * read by {@link VastXmlManagerAggregator} are kept, and trackers are built from them on demand.
+ * This returns the same values as the DOM based {@link VastXmlManager}, including its quirks:
+ * the value of an element is its first child, trimmed, and most elements only use the first
+ * matching child of a given name.
+ */
+class VastXmlPullParser implements VastXmlDocument {
+
+    // Element names
+    private static final String AD = "Ad";
+    private static final String ERROR = "Error";
+    private static final String INLINE = "InLine";
+    private static final String WRAPPER = "Wrapper";
+    private static final String IMPRESSION_TRACKER = "Impression";
+    private static final String VAST_AD_TAG = "VASTAdTagURI";
+    private static final String CREATIVES = "Creatives";
+    private static final String CREATIVE = "Creative";
+    private static final String LINEAR = "Linear";
+    private static final String COMPANION_ADS = "CompanionAds";
+    private static final String COMPANION = "Companion";
+    private static final String EXTENSIONS = "Extensions";
+    private static final String EXTENSION = "Extension";
+    private static final String TRACKING_EVENTS = "TrackingEvents";
+    private static final String TRACKING = "Tracking";
+    private static final String VIDEO_CLICKS = "VideoClicks";
+    private static final String CLICK_THROUGH = "ClickThrough";
+    private static final String CLICK_TRACKER = "ClickTracking";
+    private static final String MEDIA_FILES = "MediaFiles";
+    private static final String MEDIA_FILE = "MediaFile";
+    private static final String ICONS = "Icons";
+    private static final String ICON = "Icon";
+    private static final String ICON_CLICKS = "IconClicks";
+    private static final String ICON_CLICK_TRACKING = "IconClickTracking";
+    private static final String ICON_CLICK_THROUGH = "IconClickThrough";
+    private static final String ICON_VIEW_TRACKING = "IconViewTracking";
+    private static final String STATIC_RESOURCE = "StaticResource";
+    private static final String IFRAME_RESOURCE = "IFrameResource";
+    private static final String HTML_RESOURCE = "HTMLResource";
+    private static final String COMPANION_CLICK_THROUGH = "CompanionClickThrough";
+    private static final String COMPANION_CLICK_TRACKING = "CompanionClickTracking";
+    private static final String VIDEO_VIEWABILITY_TRACKER = "MoPubViewabilityTracker";
+    private static final String AD_VERIFICATIONS = "AdVerifications";
+    private static final String VERIFICATION = "Verification";
+    private static final String JAVASCRIPT_RESOURCE = "JavaScriptResource";
+    private static final String VERIFICATION_PARAMETERS = "VerificationParameters";
+
+    // Custom element names for VAST 3.0 extensions
+    private static final String MP_IMPRESSION_TRACKER = "MP_TRACKING_URL";
+    private static final String CUSTOM_CTA_TEXT = "MoPubCtaText";
+    private static final String CUSTOM_SKIP_TEXT = "MoPubSkipText";
+    private static final String CUSTOM_CLOSE_ICON = "MoPubCloseIcon";
+
+    // Attribute names
+    private static final String SEQUENCE = "sequence";
+    private static final String EVENT = "event";
+    private static final String OFFSET = "offset";
+    private static final String SKIP_OFFSET = "skipoffset";
+    private static final String WIDTH = "width";
+    private static final String HEIGHT = "height";
+    private static final String DURATION = "duration";
+    private static final String VIDEO_TYPE = "type";
+    private static final String BITRATE = "bitrate";
+    private static final String BITRATE_MIN = "minBitrate";
+    private static final String BITRATE_MAX = "maxBitrate";
+    private static final String CREATIVE_TYPE = "creativeType";
+    private static final String TYPE = "type";
+    private static final String VIEWABLE_PLAYTIME = "viewablePlaytime";
+    private static final String PERCENT_VIEWABLE = "percentViewable";
+    private static final String VENDOR = "vendor";
+    private static final String API_FRAMEWORK = "apiFramework";
+
+    // Attribute values
+    private static final String CREATIVE_VIEW = "creativeView";
+    private static final String OMID = "omid";
+    private static final String VERIFICATION_NOT_EXECUTED = "verificationNotExecuted";
+
+    // How far the value of an open element has been read. Like the DOM, the value of an element
+    // is its first child: coalesced text and CDATA, or a comment.
+    private static final int VALUE_PENDING = 0;
+    private static final int VALUE_READING_TEXT = 1;
+    private static final int VALUE_DONE = 2;
+
+    @NonNull private final List<AdElement> mAds = new ArrayList<AdElement>();
+
+    // Values of the elements that are looked up anywhere in the document, in document order.
+    // An entry is null when that element has no value.
+    @NonNull private final List<String> mErrors = new ArrayList<String>();
+    @NonNull private final List<String> mMoPubImpressionTrackers = new ArrayList<String>();
+    @NonNull private final List<String> mCustomCtaTexts = new ArrayList<String>();
+    @NonNull private final List<String> mCustomSkipTexts = new ArrayList<String>();
+    @NonNull private final List<String> mCustomCloseIconUrls = new ArrayList<String>();
+
+    /**
+     * Parses the XML. Any previously parsed document is discarded.
+     *
+     * @param xmlString The XML to parse
+     * @throws XmlPullParserException If the XML is poorly formatted
+     * @throws IOException            If we can't read the document for any reason
+     */
+    void parseVastXml(@NonNull final String xmlString) throws XmlPullParserException, IOException {
+        Preconditions.checkNotNull(xmlString, "xmlString cannot be null");
+
+        mAds.clear();
+        mErrors.clear();
+        mMoPubImpressionTrackers.clear();
+        mCustomCtaTexts.clear();
+        mCustomSkipTexts.clear();
+        mCustomCloseIconUrls.clear();
+
+        final XmlPullParser parser = Xml.newPullParser();
+        // Match the DOM parser, which is not namespace aware and so keeps prefixes in names
+        parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
+        parser.setInput(new StringReader(VastXmlManager.wrapVastXml(xmlString)));
+
+        final List<OpenElement> openElements = new ArrayList<OpenElement>();
+        int token = parser.nextToken();
+        while (token != XmlPullParser.END_DOCUMENT) {
+            final OpenElement current = openElements.isEmpty()
+                    ? null
+                    : openElements.get(openElements.size() - 1);
+            switch (token) {
+                case XmlPullParser.START_TAG:
+                    if (current != null) {
+                        current.onChild();
+                    }
+                    openElements.add(startElement(current, parser));
+                    break;
+                case XmlPullParser.END_TAG:
+                    if (current != null) {
+                        openElements.remove(openElements.size() - 1);
+                        endElement(current);
+                    }
+                    break;
+                case XmlPullParser.TEXT:
+                case XmlPullParser.CDSECT:
+                case XmlPullParser.IGNORABLE_WHITESPACE:
+                case XmlPullParser.ENTITY_REF:
+                    final String text = parser.getText();
+                    if (text == null) {
+                        throw new XmlPullParserException(
+                                "Unresolved entity " + parser.getName(), parser, null);
+                    }
+                    if (current != null) {
+                        current.onText(text);
+                    }
+                    break;
+                case XmlPullParser.COMMENT:
+                    if (current != null) {
+                        current.onChildValue(parser.getText());
+                    }
+                    break;
+                case XmlPullParser.PROCESSING_INSTRUCTION:
+                    if (current != null) {
+                        current.onChildValue(getProcessingInstructionData(parser.getText()));
+                    }
+                    break;
+                default:
+                    break;
+            }
+            token = parser.nextToken();
+        }
+    }
+
+    @NonNull
+    private OpenElement startElement(@Nullable final OpenElement parent,
+            @NonNull final XmlPullParser parser) {
+        final String name = parser.getName();
+
+        // Ad elements are found anywhere in the document, like Document.getElementsByTagName
+        final ElementHandler handler;
+        if (AD.equals(name)) {
+            final AdElement adElement = new AdElement(parser);
+            mAds.add(adElement);
+            handler = adElement;
+        } else if (parent != null && parent.mHandler != null) {
+            handler = parent.mHandler.startChild(name, parser);
+        } else {
+            handler = null;
+        }
+
+        final List<String> documentValues = getDocumentValues(name);
+        int documentValueIndex = -1;
+        if (documentValues != null) {
+            documentValueIndex = documentValues.size();
+            documentValues.add(null);
+        }
+
+        return new OpenElement(handler, documentValues, documentValueIndex);
+    }
+
+    private static void endElement(@NonNull final OpenElement element) {
+        final String value = element.getValue();
+        if (element.mDocumentValues != null) {
+            element.mDocumentValues.set(element.mDocumentValueIndex, value);
+        }
+        if (element.mHandler != null) {
+            element.mHandler.end(value);
+        }
+    }
+
+    @Nullable
+    private List<String> getDocumentValues(@NonNull final String name) {
+        switch (name) {
+            case ERROR:
+                return mErrors;
+            case MP_IMPRESSION_TRACKER:
+                return mMoPubImpressionTrackers;
+            case CUSTOM_CTA_TEXT:
+                return mCustomCtaTexts;
+            case CUSTOM_SKIP_TEXT:
+                return mCustomSkipTexts;
+            case CUSTOM_CLOSE_ICON:
+                return mCustomCloseIconUrls;
+            default:
+                return null;
+        }
+    }
+
+    @NonNull
+    @Override
+    public List<AdElement> getAdXmlManagers() {
+        return new ArrayList<AdElement>(mAds);
+    }
+
+    @Nullable
+    @Override
+    public VastTracker getErrorTracker() {
+        final String errorTracker = getFirstValue(mErrors);
+        if (TextUtils.isEmpty(errorTracker)) {
+            return null;
+        }
+        return new VastTracker.Builder(errorTracker).build();
+    }
+
+    @NonNull
+    @Override
+    public List<VastTracker> getMoPubImpressionTrackers() {
+        final List<VastTracker> vastTrackers = new ArrayList<VastTracker>();
+        for (final String tracker : mMoPubImpressionTrackers) {
+            if (tracker != null) {
+                vastTrackers.add(new VastTracker.Builder(tracker).build());
+            }
+        }
+        return vastTrackers;
+    }
+
+    @Nullable
+    @Override
+    public String getCustomCtaText() {
+        return VastXmlManager.getCustomCtaText(getFirstValue(mCustomCtaTexts));
+    }
+
+    @Nullable
+    @Override
+    public String getCustomSkipText() {
+        return VastXmlManager.getCustomSkipText(getFirstValue(mCustomSkipTexts));
+    }
+
+    @Nullable
+    @Override
+    public String getCustomCloseIconUrl() {
+        return getFirstValue(mCustomCloseIconUrls);
+    }
+
+    @Nullable
+    private static String getFirstValue(@NonNull final List<String> values) {
+        for (final String value : values) {
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The DOM value of a processing instruction is its data, without the target.
+     */
+    @NonNull
+    private static String getProcessingInstructionData(@NonNull final String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return text.substring(i + 1);
+            }
+        }
+        return "";
+    }
+
+    @Nullable
+    private static Integer getAttributeValueAsInt(@NonNull final XmlPullParser parser,
+            @NonNull final String attributeName) {
+        final String value = parser.getAttributeValue(null, attributeName);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @NonNull
+    private static List<VastTracker> toVastTrackers(@NonNull final List<String> urls,
+            final boolean skipEmpty, final boolean isRepeatable) {
+        final List<VastTracker> vastTrackers = new ArrayList<VastTracker>(urls.size());
+        for (final String url : urls) {
+            if (skipEmpty ? TextUtils.isEmpty(url) : url == null) {
+                continue;
+            }
+            vastTrackers.add(new VastTracker.Builder(url).isRepeatable(isRepeatable).build());
+        }
+        return vastTrackers;
+    }
+
+    /**
+     * An element that has been started but not ended, and what is known about its value so far.
+     */
+    private static final class OpenElement {
+        @Nullable final ElementHandler mHandler;
+        @Nullable final List<String> mDocumentValues;
+        final int mDocumentValueIndex;
+
+        private int mValueState = VALUE_PENDING;
+        @Nullable private StringBuilder mText;
+        @Nullable private String mValue;
+
+        OpenElement(@Nullable final ElementHandler handler,
+                @Nullable final List<String> documentValues, final int documentValueIndex) {
+            mHandler = handler;
+            mDocumentValues = documentValues;
+            mDocumentValueIndex = documentValueIndex;
+        }
+
+        private boolean needsValue() {
+            return mHandler != null || mDocumentValues != null;
+        }
+
+        void onText(@NonNull final String text) {
+            if (mValueState == VALUE_DONE) {
+                return;
+            }
+            mValueState = VALUE_READING_TEXT;
+            if (!needsValue()) {
+                return;
+            }
+            if (mText == null) {
+                mText = new StringBuilder(text);
+            } else {
+                mText.append(text);
+            }
+        }
+
+        /**
+         * Called for a comment or processing instruction, which is the value of this element
+         * when it is the first child.
+         */
+        void onChildValue(@Nullable final String value) {
+            if (mValueState == VALUE_PENDING && needsValue()) {
+                mValue = value;
+            }
+            onChild();
+        }
+
+        void onChild() {
+            if (mValueState == VALUE_READING_TEXT && mText != null) {
+                mValue = mText.toString();
+                mText = null;
+            }
+            mValueState = VALUE_DONE;
+        }
+
+        @Nullable
+        String getValue() {
+            onChild();
+            return mValue != null ? mValue.trim() : null;
+        }
+    }
+
+    /**
+     * Receives the children of an element that is part of the VAST model.
+     */
+    private abstract static class ElementHandler {
+        /**
+         * @return The handler for the child element or {@code null} to ignore it.
+         */
+        @Nullable
+        ElementHandler startChild(@NonNull final String name,
+                @NonNull final XmlPullParser parser) {
+            return null;
+        }
+
+        /**
+         * @param value The value of the element this handles, as XmlUtils.getNodeValue
+         *              would return it.
+         */
+        void end(@Nullable final String value) {
+        }
+    }
+
+    /**
+     * Adds the value of each element it handles to a list.
+     */
+    private static final class ValueListHandler extends ElementHandler {
+        @NonNull private final List<String> mValues;
+
+        ValueListHandler(@NonNull final List<String> values) {
+            mValues = values;
+        }
+
+        @Override
+        void end(@Nullable final String value) {
+            mValues.add(value);
+        }
+    }
+
+    static final class AdElement extends ElementHandler implements VastXmlDocument.Ad {
+        @Nullable private final String mSequence;
+        @Nullable private InLineWrapperElement mInLine;
+        @Nullable private InLineWrapperElement mWrapper;
+
+        AdElement(@NonNull final XmlPullParser parser) {
+            mSequence = parser.getAttributeValue(null, SEQUENCE);
+        }
+
+        @Nullable
+        @Override
+        ElementHandler startChild(@NonNull final String name,
+                @NonNull final XmlPullParser parser) {
+            if (INLINE.equals(name) && mInLine == null) {
+                mInLine = new InLineWrapperElement();
+                return mInLine;
+            }
+            if (WRAPPER.equals(name) && mWrapper == null) {
+                mWrapper = new InLineWrapperElement();
+                return mWrapper;
+            }
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public String getSequence() {
+            return mSequence;
+        }
+
+        @Nullable
+        @Override
+        public InLineWrapperElement getInLineXmlManager() {
+            return mInLine;
+        }
+
+        @Nullable
+        @Override
+        public InLineWrapperElement getWrapperXmlManager() {
+            return mWrapper;
+        }
+    }
+
+    static final class InLineWrapperElement extends ElementHandler
+            implements VastXmlDocument.Wrapper {
+        @NonNull private final List<String> mImpressionTrackers = new ArrayList<String>();
+        @NonNull private final List<String> mErrorTrackers = new ArrayList<String>();
+        @NonNull private final List<LinearElement> mLinears = new ArrayList<LinearElement>();
+        @NonNull private final List<CompanionAdElement> mCompanionAds =
+                new ArrayList<CompanionAdElement>();
+        @NonNull private final List<ExtensionElement> mExtensions =
+                new ArrayList<ExtensionElement>();
+        @NonNull private final Set<ViewabilityVendor> mViewabilityVendors =
+                new HashSet<ViewabilityVendor>();
+        @Nullable private String mVastAdTagUri;
+        private boolean mHasCreatives;
+        private boolean mHasExtensions;
+        private boolean mHasAdVerifications;
+        private boolean mHasVastAdTagUri;
+
+        @Nullable
+        @Override
+        ElementHandler startChild(@NonNull final String name,
+                @NonNull final XmlPullParser parser) {
+            switch (name) {
+                case IMPRESSION_TRACKER:
+                    return new ValueListHandler(mImpressionTrackers);
+                case ERROR:
+                    return new ValueListHandler(mErrorTrackers);
+                case CREATIVES:
+                    if (mHasCreatives) {
+                        return null;
+                    }
+                    mHasCreatives = true;
+                    return new CreativesHandler();
+                case EXTENSIONS:
+                    if (mHasExtensions) {
+                        return null;
+                    }
+                    mHasExtensions = true;
+                    return new ElementHandler() {
+                        @Nullable
+                        @Override
+                        ElementHandler startChild(@NonNull final String name,
+                                @NonNull final XmlPullParser parser) {
+                            if (!EXTENSION.equals(name)) {
+                                return null;
+                            }
+                            final ExtensionElement extension = new ExtensionElement(parser);
+                            mExtensions.add(extension);
+                            return extension;
+                        }
+                    };
+                case AD_VERIFICATIONS:
+                    if (mHasAdVerifications) {
+                        return null;
+                    }
+                    mHasAdVerifications = true;
+                    return new AdVerificationsHandler(mViewabilityVendors);
+                case VAST_AD_TAG:
+                    if (mHasVastAdTagUri) {
+                        return null;
+                    }
+                    mHasVastAdTagUri = true;
+                    return new ElementHandler() {
+                        @Override
+                        void end(@Nullable final String value) {
+                            mVastAdTagUri = value;
+                        }
+                    };
+                default:
+                    return null;
+            }
+        }
+
+        @NonNull
+        @Override
+        public List<VastTracker> getImpressionTrackers() {
+            return toVastTrackers(mImpressionTrackers, true, false);
+        }
+
+        @NonNull
+        @Override
+        public List<VastTracker> getErrorTrackers() {
+            return toVastTrackers(mErrorTrackers, true, true);
+        }
+
+        @NonNull
+        @Override
+        public List<LinearElement> getLinearXmlManagers() {
+            return new ArrayList<LinearElement>(mLinears);
+        }
+
+        @NonNull
+        @Override
+        public List<CompanionAdElement> getCompanionAdXmlManagers() {
+            return new ArrayList<CompanionAdElement>(mCompanionAds);
+        }
+
+        @NonNull
+        @Override
+        public List<ExtensionElement> getVastExtensionXmlManagers() {
+            return new ArrayList<ExtensionElement>(mExtensions);
+        }
+
+        @NonNull
+        @Override
+        public Set<ViewabilityVendor> getViewabilityVendors() {
+            return new HashSet<ViewabilityVendor>(mViewabilityVendors);
+        }
+
+        @Nullable
+        @Override
+        public String getVastAdTagURI() {
+            return mVastAdTagUri;
+        }
+
+        /**
+         * Each Creative holds at most one Linear and one CompanionAds that are read.
+         */
+        private final class CreativesHandler extends ElementHandler {
+            @Nullable
+            @Override
+            ElementHandler startChild(@NonNull final String name,
+                    @NonNull final XmlPullParser parser) {
+                if (!CREATIVE.equals(name)) {
+                    return null;
+                }
+                return new ElementHandler() {
+                    private boolean mHasLinear;
+                    private boolean mHasCompanionAds;
+
+                    @Nullable
+                    @Override
+                    ElementHandler startChild(@NonNull final String name,
+                            @NonNull final XmlPullParser parser) {
+                        if (LINEAR.equals(name) && !mHasLinear) {
+                            mHasLinear = true;
+                            final LinearElement linear = new LinearElement(parser);
+                            mLinears.add(linear);
+                            return linear;
+                        }
+                        if (COMPANION_ADS.equals(name) && !mHasCompanionAds) {
+                            mHasCompanionAds = true;
+                            return new CompanionAdsHandler();
+                        }
+                        return null;
+                    }
+                };
+            }
+        }
+
+        private final class CompanionAdsHandler extends ElementHandler {
+            @Nullable
+            @Override
+            ElementHandler startChild(@NonNull final String name,
+                    @NonNull final XmlPullParser parser) {
+                if (!COMPANION.equals(name)) {
+                    return null;
+                }
+                final CompanionAdElement companionAd = new CompanionAdElement(parser);
+                mCompanionAds.add(companionAd);
+                return companionAd;
+            }
+        }
+    }
+
+    static final class LinearElement extends ElementHandler implements VastXmlDocument.Linear {
+        @Nullable private final String mSkipOffset;
+        @NonNull private final Map<String, List<VastLinearXmlManager.Tracking>> mTrackingsByEvent =
+                new HashMap<String, List<VastLinearXmlManager.Tracking>>();
+        @NonNull private final List<String> mClickTrackers = new ArrayList<String>();
+        @NonNull private final List<MediaFileElement> mMediaFiles =
+                new ArrayList<MediaFileElement>();
+        @NonNull private final List<IconElement> mIcons = new ArrayList<IconElement>();
+        @Nullable private String mClickThroughUrl;
+        private boolean mHasTrackingEvents;
+        private boolean mHasVideoClicks;
+        private boolean mHasClickThrough;
+        private boolean mHasMediaFiles;
+        private boolean mHasIcons;
+
+        LinearElement(@NonNull final XmlPullParser parser) {
+            mSkipOffset = parser.getAttributeValue(null, SKIP_OFFSET);
+        }
+
+        @Nullable
+        @Override
+        ElementHandler startChild(@NonNull final String name,
+                @NonNull final XmlPullParser parser) {
+            if (TRACKING_EVENTS.equals(name) && !mHasTrackingEvents) {
+                mHasTrackingEvents = true;
+                return new ElementHandler() {
+                    @Nullable
+                    @Override
+                    ElementHandler startChild(@NonNull final String name,
+                            @NonNull final XmlPullParser parser) {
+                        return startTracking(name, parser);
+                    }
+                };
+            }
+            if (VIDEO_CLICKS.equals(name) && !mHasVideoClicks) {
+                mHasVideoClicks = true;
+                return new ElementHandler() {
+                    @Nullable
+                    @Override
+                    ElementHandler startChild(@NonNull final String name,
+                            @NonNull final XmlPullParser parser) {
+                        return startVideoClick(name);
+                    }
+                };
+            }
+            if (MEDIA_FILES.equals(name) && !mHasMediaFiles) {
+                mHasMediaFiles = true;
+                return new ElementHandler() {
+                    @Nullable
+                    @Override
+                    ElementHandler startChild(@NonNull final String name,
+                            @NonNull final XmlPullParser parser) {
+                        if (!MEDIA_FILE.equals(name)) {
+                            return null;
+                        }
+                        final MediaFileElement mediaFile = new MediaFileElement(parser);
+                        mMediaFiles.add(mediaFile);
+                        return mediaFile;
+                    }
+                };
+            }
+            if (ICONS.equals(name) && !mHasIcons) {
+                mHasIcons = true;
+                return new ElementHandler() {
+                    @Nullable
+                    @Override
+                    ElementHandler startChild(@NonNull final String name,
+                            @NonNull final XmlPullParser parser) {
+                        if (!ICON.equals(name)) {
+                            return null;
+                        }
+                        final IconElement icon = new IconElement(parser);
+                        mIcons.add(icon);
+                        return icon;
+                    }
+                };
+            }
+            return null;
+        }
+
+        @Nullable
+        private ElementHandler startTracking(@NonNull final String name,
+                @NonNull final XmlPullParser parser) {
+            if (!TRACKING.equals(name)) {
+                return null;
+            }
+            final String event = parser.getAttributeValue(null, EVENT);
+            if (event == null) {
+                return null;
+            }
+            final String offset = parser.getAttributeValue(null, OFFSET);
+            return new ElementHandler() {
+                @Override
+                void end(@Nullable final String value) {
+                    VastLinearXmlManager.addTracking(mTrackingsByEvent, event,
+                            new VastLinearXmlManager.Tracking(offset, value));
+                }
+            };
+        }
+
+        @Nullable
+        private ElementHandler startVideoClick(@NonNull final String name) {
+            if (CLICK_TRACKER.equals(name)) {
+                return new ValueListHandler(mClickTrackers);
+            }
+            if (CLICK_THROUGH.equals(name) && !mHasClickThrough) {
+                mHasClickThrough = true;
+                return new ElementHandler() {
+                    @Override
+                    void end(@Nullable final String value) {
+                        mClickThroughUrl = value;
+                    }
+                };
+            }
+            return null;
+        }
+
+        @NonNull
+        @Override
+        public List<VastFractionalProgressTracker> getFractionalProgressTrackers() {
+            return VastLinearXmlManager.getFractionalProgressTrackers(mTrackingsByEvent);
+        }
+
+        @NonNull
+        @Override
+        public List<VastAbsoluteProgressTracker> getAbsoluteProgressTrackers() {
+            return VastLinearXmlManager.getAbsoluteProgressTrackers(mTrackingsByEvent);
+        }
+
+        @NonNull
+        @Override
+        public List<VastTracker> getVideoCompleteTrackers() {
+            return VastLinearXmlManager.getVideoCompleteTrackers(mTrackingsByEvent);
+        }
+
+        @NonNull
+        @Override
+        public List<VastTracker> getPauseTrackers() {
+            return VastLinearXmlManager.getPauseTrackers(mTrackingsByEvent);
+        }
+
+        @NonNull
+        @Override
+        public List<VastTracker> getResumeTrackers() {
+            return VastLinearXmlManager.getResumeTrackers(mTrackingsByEvent);
+        }
+
+        @NonNull
+        @Override
+        public List<VastTracker> getVideoCloseTrackers() {
+            return VastLinearXmlManager.getVideoCloseTrackers(mTrackingsByEvent);
+        }
+
+        @NonNull
+        @Override
+        public List<VastTracker> getVideoSkipTrackers() {
+            return VastLinearXmlManager.getVideoSkipTrackers(mTrackingsByEvent);
+        }
+
+        @Nullable
+        @Override
+        public String getClickThroughUrl() {
+            return mClickThroughUrl;
+        }
+
+        @NonNull
+        @Override
+        public List<VastTracker> getClickTrackers() {
+            return toVastTrackers(mClickTrackers, false, false);
+        }
+
+        @Nullable
+        @Override
+        public String getSkipOffset() {
+            return VastLinearXmlManager.getSkipOffset(mSkipOffset);
+        }
+
+        @NonNull
+        @Override
+        public List<MediaFileElement> getMediaXmlManagers() {
+            return new ArrayList<MediaFileElement>(mMediaFiles);
+        }
+
+        @NonNull
+        @Override
+        public List<IconElement> getIconXmlManagers() {
+            return new ArrayList<IconElement>(mIcons);
+        }
+    }
+
+    static final class MediaFileElement extends ElementHandler
+            implements VastXmlDocument.MediaFile {
+        @Nullable private final Integer mWidth;
+        @Nullable private final Integer mHeight;
+        @Nullable private final String mType;
+        @Nullable private final Integer mBitrate;
+        @Nullable private String mMediaUrl;
+
+        MediaFileElement(@NonNull final XmlPullParser parser) {
+            mWidth = getAttributeValueAsInt(parser, WIDTH);
+            mHeight = getAttributeValueAsInt(parser, HEIGHT);
+            mType = parser.getAttributeValue(null, VIDEO_TYPE);
+            mBitrate = VastMediaXmlManager.getBitrate(getAttributeValueAsInt(parser, BITRATE),
+                    getAttributeValueAsInt(parser, BITRATE_MIN),
+                    getAttributeValueAsInt(parser, BITRATE_MAX));
+        }
+
+        @Override
+        void end(@Nullable final String value) {
+            mMediaUrl = value;
+        }
+
+        @Nullable
+        @Override
+        public Integer getWidth() {
+            return mWidth;
+        }
+
+        @Nullable
+        @Override
+        public Integer getHeight() {
+            return mHeight;
+        }
+
+        @Nullable
+        @Override
+        public String getType() {
+            return mType;
+        }
+
+        @Nullable
+        @Override
+        public String getMediaUrl() {
+            return mMediaUrl;
+        }
+
+        @Nullable
+        @Override
+        public Integer getBitrate() {
+            return mBitrate;
+        }
+    }
+
+    /**
+     * The first StaticResource, IFrameResource and HTMLResource children of a Companion or Icon.
+     */
+    static final class ResourceElement implements VastXmlDocument.Resource {
+        @Nullable private String mStaticResource;
+        @Nullable private String mStaticResourceType;
+        @Nullable private String mIFrameResource;
+        @Nullable private String mHTMLResource;
+        private boolean mHasStaticResource;
+        private boolean mHasIFrameResource;
+        private boolean mHasHTMLResource;
+
+        @Nullable
+        ElementHandler startChild(@NonNull final String name,
+                @NonNull final XmlPullParser parser) {
+            if (STATIC_RESOURCE.equals(name) && !mHasStaticResource) {
+                mHasStaticResource = true;
+                mStaticResourceType = parser.getAttributeValue(null, CREATIVE_TYPE);
+                return new ElementHandler() {
+                    @Override
+                    void end(@Nullable final String value) {
+                        mStaticResource = value;
+                    }
+                };
+            }
+            if (IFRAME_RESOURCE.equals(name) && !mHasIFrameResource) {
+                mHasIFrameResource = true;
+                return new ElementHandler() {
+                    @Override
+                    void end(@Nullable final String value) {
+                        mIFrameResource = value;
+                    }
+                };
+            }
+            if (HTML_RESOURCE.equals(name) && !mHasHTMLResource) {
+                mHasHTMLResource = true;
+                return new ElementHandler() {
+                    @Override
+                    void end(@Nullable final String value) {
+                        mHTMLResource = value;
+                    }
+                };
+            }
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public String getStaticResource() {
+            return mStaticResource;
+        }
+
+        @Nullable
+        @Override
+        public String getStaticResourceType() {
+            return VastResourceXmlManager.getStaticResourceType(mStaticResourceType);
+        }
+
+        @Nullable
+        @Override
+        public String getIFrameResource() {
+            return mIFrameResource;
+        }
+
+        @Nullable
+        @Override
+        public String getHTMLResource() {
+            return mHTMLResource;
+        }
+    }
+
+    static final class CompanionAdElement extends ElementHandler
+            implements VastXmlDocument.CompanionAd {
+        @Nullable private final Integer mWidth;
+        @Nullable private final Integer mHeight;
+        @NonNull private final ResourceElement mResource = new ResourceElement();
+        @NonNull private final List<String> mClickTrackers = new ArrayList<String>();
+        @NonNull private final List<String> mCreativeViewTrackers = new ArrayList<String>();
+        @Nullable private String mClickThroughUrl;
+        private boolean mHasClickThrough;
+        private boolean mHasTrackingEvents;
+
+        CompanionAdElement(@NonNull final XmlPullParser parser) {
+            mWidth = getAttributeValueAsInt(parser, WIDTH);
+            mHeight = getAttributeValueAsInt(parser, HEIGHT);
+        }
+
+        @Nullable
+        @Override
+        ElementHandler startChild(@NonNull final String name,
+                @NonNull final XmlPullParser parser) {
+            if (COMPANION_CLICK_TRACKING.equals(name)) {
+                return new ValueListHandler(mClickTrackers);
+            }
+            if (COMPANION_CLICK_THROUGH.equals(name) && !mHasClickThrough) {
+                mHasClickThrough = true;
+                return new ElementHandler() {
+                    @Override
+                    void end(@Nullable final String value) {
+                        mClickThroughUrl = value;
+                    }
+                };
+            }
+            if (TRACKING_EVENTS.equals(name) && !mHasTrackingEvents) {
+                mHasTrackingEvents = true;
+                return new ElementHandler() {
+                    @Nullable
+                    @Override
+                    ElementHandler startChild(@NonNull final String name,
+                            @NonNull final XmlPullParser parser) {
+                        if (TRACKING.equals(name)
+                                && CREATIVE_VIEW.equals(parser.getAttributeValue(null, EVENT))) {
+                            return new ValueListHandler(mCreativeViewTrackers);
+                        }
+                        return null;
+                    }
+                };
+            }
+            return mResource.startChild(name, parser);
+        }
+
+        @Nullable
+        @Override
+        public Integer getWidth() {
+            return mWidth;
+        }
+
+        @Nullable
+        @Override
+        public Integer getHeight() {
+            return mHeight;
+        }
+
+        @NonNull
+        @Override
+        public ResourceElement getResourceXmlManager() {
+            return mResource;
+        }
+
+        @Nullable
+        @Override
+        public String getClickThroughUrl() {
+            return mClickThroughUrl;
+        }
+
+        @NonNull
+        @Override
+        public List<VastTracker> getClickTrackers() {
+            return toVastTrackers(mClickTrackers, true, false);
+        }
+
+        @NonNull
+        @Override
+        public List<VastTracker> getCompanionCreativeViewTrackers() {
+            return toVastTrackers(mCreativeViewTrackers, false, false);
+        }
+
+        @Override
+        public boolean hasResources() {
+            return VastCompanionAdXmlManager.hasResources(mResource);
+        }
+    }
+
+    static final class IconElement extends ElementHandler implements VastXmlDocument.Icon {
+        @Nullable private final Integer mWidth;
+        @Nullable private final Integer mHeight;
+        @Nullable private final String mOffset;
+        @Nullable private final String mDuration;
+        @NonNull private final ResourceElement mResource = new ResourceElement();
+        @NonNull private final List<String> mClickTrackingUris = new ArrayList<String>();
+        @NonNull private final List<String> mViewTrackingUris = new ArrayList<String>();
+        @Nullable private String mClickThroughUri;
+        private boolean mHasIconClicks;
+        private boolean mHasClickThrough;
+
+        IconElement(@NonNull final XmlPullParser parser) {
+            mWidth = getAttributeValueAsInt(parser, WIDTH);
+            mHeight = getAttributeValueAsInt(parser, HEIGHT);
+            mOffset = parser.getAttributeValue(null, OFFSET);
+            mDuration = parser.getAttributeValue(null, DURATION);
+        }
+
+        @Nullable
+        @Override
+        ElementHandler startChild(@NonNull final String name,
+                @NonNull final XmlPullParser parser) {
+            if (ICON_VIEW_TRACKING.equals(name)) {
+                return new ValueListHandler(mViewTrackingUris);
+            }
+            if (ICON_CLICKS.equals(name) && !mHasIconClicks) {
+                mHasIconClicks = true;
+                return new ElementHandler() {
+                    @Nullable
+                    @Override
+                    ElementHandler startChild(@NonNull final String name,
+                            @NonNull final XmlPullParser parser) {
+                        return startIconClick(name);
+                    }
+                };
+            }
+            return mResource.startChild(name, parser);
+        }
+
+        @Nullable
+        private ElementHandler startIconClick(@NonNull final String name) {
+            if (ICON_CLICK_TRACKING.equals(name)) {
+                return new ValueListHandler(mClickTrackingUris);
+            }
+            if (ICON_CLICK_THROUGH.equals(name) && !mHasClickThrough) {
+                mHasClickThrough = true;
+                return new ElementHandler() {
+                    @Override
+                    void end(@Nullable final String value) {
+                        mClickThroughUri = value;
+                    }
+                };
+            }
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public Integer getWidth() {
+            return mWidth;
+        }
+
+        @Nullable
+        @Override
+        public Integer getHeight() {
+            return mHeight;
+        }
+
+        @Nullable
+        @Override
+        public Integer getOffsetMS() {
+            return VastIconXmlManager.getOffsetMS(mOffset);
+        }
+
+        @Nullable
+        @Override
+        public Integer getDurationMS() {
+            return VastIconXmlManager.getDurationMS(mDuration);
+        }
+
+        @NonNull
+        @Override
+        public ResourceElement getResourceXmlManager() {
+            return mResource;
+        }
+
+        @NonNull
+        @Override
+        public List<VastTracker> getClickTrackingUris() {
+            return toVastTrackers(mClickTrackingUris, false, false);
+        }
+
+        @Nullable
+        @Override
+        public String getClickThroughUri() {
+            return mClickThroughUri;
+        }
+
+        @NonNull
+        @Override
+        public List<VastTracker> getViewTrackingUris() {
+            return toVastTrackers(mViewTrackingUris, false, false);
+        }
+    }
+
+    static final class ExtensionElement extends ElementHandler
+            implements VastXmlDocument.Extension {
+        @Nullable private final String mType;
+        @NonNull private final Set<ViewabilityVendor> mViewabilityVendors =
+                new HashSet<ViewabilityVendor>();
+        @Nullable private String mViewablePlaytime;
+        @Nullable private String mPercentViewable;
+        @Nullable private String mVideoViewabilityTrackerUrl;
+        private boolean mHasVideoViewabilityTracker;
+        private boolean mHasAdVerifications;
+
+        ExtensionElement(@NonNull final XmlPullParser parser) {
+            mType = parser.getAttributeValue(null, TYPE);
+        }
+
+        @Nullable
+        @Override
+        ElementHandler startChild(@NonNull final String name,
+                @NonNull final XmlPullParser parser) {
+            if (VIDEO_VIEWABILITY_TRACKER.equals(name) && !mHasVideoViewabilityTracker) {
+                mHasVideoViewabilityTracker = true;
+                mViewablePlaytime = parser.getAttributeValue(null, VIEWABLE_PLAYTIME);
+                mPercentViewable = parser.getAttributeValue(null, PERCENT_VIEWABLE);
+                return new ElementHandler() {
+                    @Override
+                    void end(@Nullable final String value) {
+                        mVideoViewabilityTrackerUrl = value;
+                    }
+                };
+            }
+            if (AD_VERIFICATIONS.equals(name) && !mHasAdVerifications) {
+                mHasAdVerifications = true;
+                return new AdVerificationsHandler(mViewabilityVendors);
+            }
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public String getType() {
+            return mType;
+        }
+
+        @Nullable
+        @Override
+        public VideoViewabilityTracker getVideoViewabilityTracker() {
+            if (!mHasVideoViewabilityTracker) {
+                return null;
+            }
+            return VastExtensionXmlManager.getVideoViewabilityTracker(
+                    VideoViewabilityTrackerXmlManager.getViewablePlaytimeMS(mViewablePlaytime),
+                    VideoViewabilityTrackerXmlManager.getPercentViewable(mPercentViewable),
+                    mVideoViewabilityTrackerUrl);
+        }
+
+        @NonNull
+        @Override
+        public Set<ViewabilityVendor> getViewabilityVendors() {
+            return new HashSet<ViewabilityVendor>(mViewabilityVendors);
+        }
+    }
+
+    /**
+     * Adds the OMID vendor of each Verification element to a set. See
+     * {@link VastAdVerificationsParser}.
+     */
+    private static final class AdVerificationsHandler extends ElementHandler {
+        @NonNull private final Set<ViewabilityVendor> mViewabilityVendors;
+
+        AdVerificationsHandler(@NonNull final Set<ViewabilityVendor> viewabilityVendors) {
+            mViewabilityVendors = viewabilityVendors;
+        }
+
+        @Nullable
+        @Override
+        ElementHandler startChild(@NonNull final String name,
+                @NonNull final XmlPullParser parser) {
+            if (!VERIFICATION.equals(name)) {
+                return null;
+            }
+            return new VerificationHandler(parser.getAttributeValue(null, VENDOR));
+        }
+
+        private final class VerificationHandler extends ElementHandler {
+            @Nullable private final String mVendorKey;
+            @Nullable private String mJavaScriptResource;
+            @Nullable private String mVerificationParameters;
+            @Nullable private String mVerificationNotExecuted;
+            private boolean mHasJavaScriptResource;
+            private boolean mHasTrackingEvents;
+            private boolean mHasVerificationParameters;
+            private boolean mHasVerificationNotExecuted;
+
+            VerificationHandler(@Nullable final String vendorKey) {
+                mVendorKey = vendorKey;
+            }
+
+            @Nullable
+            @Override
+            ElementHandler startChild(@NonNull final String name,
+                    @NonNull final XmlPullParser parser) {
+                if (JAVASCRIPT_RESOURCE.equals(name) && !mHasJavaScriptResource
+                        && OMID.equals(parser.getAttributeValue(null, API_FRAMEWORK))) {
+                    mHasJavaScriptResource = true;
+                    return new ElementHandler() {
+                        @Override
+                        void end(@Nullable final String value) {
+                            mJavaScriptResource = value;
+                        }
+                    };
+                }
+                if (TRACKING_EVENTS.equals(name) && !mHasTrackingEvents) {
+                    mHasTrackingEvents = true;
+                    return new ElementHandler() {
+                        @Nullable
+                        @Override
+                        ElementHandler startChild(@NonNull final String name,
+                                @NonNull final XmlPullParser parser) {
+                            return startTracking(name, parser);
+                        }
+                    };
+                }
+                if (VERIFICATION_PARAMETERS.equals(name) && !mHasVerificationParameters) {
+                    mHasVerificationParameters = true;
+                    return new ElementHandler() {
+                        @Override
+                        void end(@Nullable final String value) {
+                            mVerificationParameters = value;
+                        }
+                    };
+                }
+                return null;
+            }
+
+            @Nullable
+            private ElementHandler startTracking(@NonNull final String name,
+                    @NonNull final XmlPullParser parser) {
+                if (!TRACKING.equals(name) || mHasVerificationNotExecuted
+                        || !VERIFICATION_NOT_EXECUTED.equals(
+                                parser.getAttributeValue(null, EVENT))) {
+                    return null;
+                }
+                mHasVerificationNotExecuted = true;
+                return new ElementHandler() {
+                    @Override
+                    void end(@Nullable final String value) {
+                        mVerificationNotExecuted = value;
+                    }
+                };
+            }
+
+            @Override
+            void end(@Nullable final String value) {
+                if (!mHasJavaScriptResource) {
+                    return;
+                }
+                final ViewabilityVendor viewabilityVendor =
+                        VastAdVerificationsParser.createViewabilityVendor(mJavaScriptResource,
+                                mVendorKey, mVerificationParameters, mVerificationNotExecuted);
+                if (viewabilityVendor != null) {
+                    mViewabilityVendors.add(viewabilityVendor);
+                }
+            }
+        }
+    }
+}
@@ -5,6 +5,8 @@
 package com.mopub.mobileads;
 
 import android.os.AsyncTask;
+import android.os.SystemClock;
+import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -15,48 +17,200 @@ import com.mopub.common.Preconditions;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.common.util.AsyncTasks;
+import com.mopub.common.util.ResponseHeader;
 import com.mopub.common.util.Streams;
+import com.mopub.common.util.Strings;
 
 import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.ref.WeakReference;
 import java.net.HttpURLConnection;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.ERROR_WITH_THROWABLE;
 
 public class VideoDownloader {
     private static final int MAX_VIDEO_SIZE = 25 * 1024 * 1024; // 25 MiB
+    private static final int CHUNK_SIZE_BYTES = 16 * 1024;
+    // Minimum number of new bytes between progress updates
+    private static final int PROGRESS_INTERVAL_BYTES = 256 * 1024;
+    static final String PARTIAL_FILE_SUFFIX = ".partial";
+    private static final String VALIDATOR_FILE_SUFFIX = ".validator";
+    // How often a task waiting on another download of the same url reports its progress
+    private static final long IN_FLIGHT_PROGRESS_INTERVAL_MILLIS = 250;
     private static final Deque<WeakReference<VideoDownloaderTask>> sDownloaderTasks =
             new ArrayDeque<WeakReference<VideoDownloaderTask>>();
+    // Guarded by itself
+    private static final Map<String, PartialDownload> sPartialDownloads =
+            new HashMap<String, PartialDownload>();
+    // Guarded by itself. Urls a task is currently downloading; only that task writes the url's
+    // partial file.
+    private static final Set<String> sInFlightUrls = new HashSet<String>();
 
     interface VideoDownloaderListener {
         void onComplete(boolean success);
     }
 
+    /**
+     * Optional extension of {@link VideoDownloaderListener} for callers that want to know how much
+     * of the video has been written to disk.
+     */
+    interface VideoDownloaderProgressListener extends VideoDownloaderListener {
+        /**
+         * Called on the main thread as the download progresses, including bytes kept from an
+         * earlier interrupted attempt.
+         *
+         * @param bytesDownloaded Bytes of the video written to disk so far.
+         * @param totalBytes      Total size of the video, or -1 if the server did not report it.
+         */
+        void onProgress(long bytesDownloaded, long totalBytes);
+    }
+
+    /**
+     * A download that is currently being written to its partial file. Readers can use it to play
+     * the part of the video that is already on disk while the rest is still downloading. The
+     * partial file is deleted once the video has been moved into the disk cache, so readers should
+     * open it while the download is still registered and keep it open.
+     */
+    static final class PartialDownload {
+        @NonNull private final File mFile;
+        private final long mTotalBytes;
+        // Guarded by this
+        private long mBytesWritten;
+        private boolean mFinished;
+        private boolean mSucceeded;
+
+        PartialDownload(@NonNull final File file, final long totalBytes, final long bytesWritten) {
+            Preconditions.checkNotNull(file);
+
+            mFile = file;
+            mTotalBytes = totalBytes;
+            mBytesWritten = bytesWritten;
+        }
+
+        @NonNull
+        File getFile() {
+            return mFile;
+        }
+
+        /**
+         * @return The total size of the video, or -1 if the server did not report it.
+         */
+        long getTotalBytes() {
+            return mTotalBytes;
+        }
+
+        synchronized long getBytesWritten() {
+            return mBytesWritten;
+        }
+
+        synchronized void onBytesWritten(final long bytesWritten) {
+            mBytesWritten = bytesWritten;
+            notifyAll();
+        }
+
+        synchronized void finish(final boolean success) {
+            mFinished = true;
+            mSucceeded = success;
+            notifyAll();
+        }
+
+        /**
+         * Blocks until the byte at the given position has been written or the download ends.
+         *
+         * @param position      Offset into the video.
+         * @param timeoutMillis How long to wait without any new bytes being written.
+         * @return The number of bytes written so far, which is greater than position, or -1 if the
+         * download completed before reaching position.
+         * @throws IOException if the download failed or stalled for longer than the timeout.
+         */
+        synchronized long awaitBytesAfter(final long position, final long timeoutMillis)
+                throws IOException, InterruptedException {
+            long lastBytesWritten = mBytesWritten;
+            long deadline = SystemClock.elapsedRealtime() + timeoutMillis;
+            while (mBytesWritten <= position) {
+                if (mFinished) {
+                    if (mSucceeded) {
+                        return -1;
+                    }
+                    throw new IOException("Video download failed at byte " + mBytesWritten);
+                }
+
+                if (mBytesWritten != lastBytesWritten) {
+                    lastBytesWritten = mBytesWritten;
+                    deadline = SystemClock.elapsedRealtime() + timeoutMillis;
+                }
+                final long remainingMillis = deadline - SystemClock.elapsedRealtime();
+                if (remainingMillis <= 0) {
+                    throw new IOException("Video download stalled at byte " + mBytesWritten);
+                }
+                wait(remainingMillis);
+            }
+            return mBytesWritten;
+        }
+    }
+
     private VideoDownloader() {}
 
     public static void cache(@Nullable final String url,
             @NonNull final VideoDownloaderListener listener) {
+        startCaching(url, listener);
+    }
+
+    /**
+     * Same as {@link #cache(String, VideoDownloaderListener)}, for callers that may need to cancel
+     * this one download.
+     *
+     * @return The task downloading the video, or null if it could not be started.
+     */
+    @Nullable
+    static VideoDownloaderTask startCaching(@Nullable final String url,
+            @NonNull final VideoDownloaderListener listener) {
         Preconditions.checkNotNull(listener);
 
         if (url == null) {
             MoPubLog.log(CUSTOM, "VideoDownloader attempted to cache video with null url.");
             listener.onComplete(false);
-            return;
+            return null;
         }
 
         final VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(listener);
         try {
-            AsyncTasks.safeExecuteOnExecutor(videoDownloaderTask, url);
+            AsyncTasks.safeExecuteOnExecutor(AsyncTasks.Lane.PREFETCH, videoDownloaderTask, url);
         } catch (Exception e) {
             listener.onComplete(false);
+            return null;
         }
+        return videoDownloaderTask;
     }
 
 
+    /**
+     * @param url The network url of the video.
+     * @return The download that is currently writing the video to disk, or null if there is none.
+     */
+    @Nullable
+    static PartialDownload getPartialDownload(@Nullable final String url) {
+        if (url == null) {
+            return null;
+        }
+
+        synchronized (sPartialDownloads) {
+            return sPartialDownloads.get(url);
+        }
+    }
+
     public static void cancelAllDownloaderTasks() {
         for (final WeakReference<VideoDownloaderTask> weakDownloaderTask : sDownloaderTasks) {
             cancelOneTask(weakDownloaderTask);
@@ -94,10 +248,25 @@ public class VideoDownloader {
         return downloaderTask.cancel(true);
     }
 
+    /**
+     * Downloads a video into the disk cache. The video is streamed in chunks into a partial file
+     * outside of the DiskLruCache, which is only moved into the cache once complete. If the
+     * download is interrupted or cancelled, the partial file is kept and the next attempt for the
+     * same url resumes it with an HTTP Range request, as long as the server supplied an ETag or
+     * Last-Modified validator to make sure the video did not change in between. The size cap is
+     * enforced while streaming so that servers that omit or misreport Content-Length cannot fill
+     * the disk. While streaming, the download is registered as a {@link PartialDownload} so that
+     * playback can start before it completes.
+     *
+     * Only one task downloads a given url at a time, since they share the partial file. A task
+     * started for a url that is already downloading waits for the other task, reporting its
+     * progress in the meantime, and then uses the cached video if the other task succeeded.
+     */
     @VisibleForTesting
-    static class VideoDownloaderTask extends AsyncTask<String, Void, Boolean> {
+    static class VideoDownloaderTask extends AsyncTask<String, Long, Boolean> {
         @NonNull private final VideoDownloaderListener mListener;
         @NonNull private final WeakReference<VideoDownloaderTask> mWeakSelf;
+        @Nullable private PartialDownload mPartialDownload;
 
         @VisibleForTesting
         VideoDownloaderTask(@NonNull final VideoDownloaderListener listener) {
@@ -114,42 +283,251 @@ public class VideoDownloader {
             }
 
             final String videoUrl = params[0];
-            HttpURLConnection urlConnection = null;
-            InputStream inputStream = null;
+            final File partialDownloadsDirectory = CacheService.getPartialDownloadsDirectory();
+            if (partialDownloadsDirectory == null) {
+                MoPubLog.log(CUSTOM, "VideoDownloader was unable to access the disk cache.");
+                return false;
+            }
+
             try {
-                urlConnection = MoPubHttpUrlConnection.getHttpUrlConnection(videoUrl);
-                inputStream = new BufferedInputStream(urlConnection.getInputStream());
-
-                // Check status code range
-                int statusCode = urlConnection.getResponseCode();
-                if (statusCode < HttpURLConnection.HTTP_OK
-                        || statusCode >= HttpURLConnection.HTTP_MULT_CHOICE) {
-                    MoPubLog.log(CUSTOM, "VideoDownloader encountered unexpected statusCode: " +
-                            statusCode);
-                    return false;
+                awaitInFlightDownload(videoUrl);
+            } catch (InterruptedException e) {
+                MoPubLog.log(CUSTOM, "VideoDownloader task was interrupted while waiting for " +
+                        "another download of the same video.");
+                return false;
+            }
+
+            try {
+                if (CacheService.containsKeyDiskCache(videoUrl)) {
+                    MoPubLog.log(CUSTOM, "VideoDownloader found the video already cached.");
+                    return true;
+                }
+                return downloadToDiskCache(videoUrl, partialDownloadsDirectory);
+            } finally {
+                synchronized (sInFlightUrls) {
+                    sInFlightUrls.remove(videoUrl);
+                    sInFlightUrls.notifyAll();
                 }
+            }
+        }
 
-                // Check video size below maximum
-                int contentLength = urlConnection.getContentLength();
-                if (contentLength > MAX_VIDEO_SIZE) {
-                    MoPubLog.log(CUSTOM, String.format(
-                            "VideoDownloader encountered video larger than disk cap. " +
-                                    "(%d bytes / %d maximum).",
-                            contentLength,
-                            MAX_VIDEO_SIZE));
+        /**
+         * Blocks until no other task is downloading the url, then claims it for this task. While
+         * waiting, the other task's progress is reported to this task's listener so that playback
+         * from the partial file can start as early as it would have for the other task.
+         */
+        private void awaitInFlightDownload(@NonNull final String videoUrl)
+                throws InterruptedException {
+            long lastBytesWritten = -1;
+            while (true) {
+                synchronized (sInFlightUrls) {
+                    if (sInFlightUrls.add(videoUrl)) {
+                        return;
+                    }
+                    sInFlightUrls.wait(IN_FLIGHT_PROGRESS_INTERVAL_MILLIS);
+                }
+
+                final PartialDownload partialDownload = getPartialDownload(videoUrl);
+                if (partialDownload != null
+                        && partialDownload.getBytesWritten() != lastBytesWritten) {
+                    lastBytesWritten = partialDownload.getBytesWritten();
+                    publishProgress(lastBytesWritten, partialDownload.getTotalBytes());
+                }
+            }
+        }
+
+        private boolean downloadToDiskCache(@NonNull final String videoUrl,
+                @NonNull final File partialDownloadsDirectory) {
+            final String fileName = CacheService.createValidDiskCacheKey(videoUrl);
+            final File partialFile = new File(partialDownloadsDirectory, fileName + PARTIAL_FILE_SUFFIX);
+            final File validatorFile = new File(partialDownloadsDirectory, fileName + VALIDATOR_FILE_SUFFIX);
+
+            boolean downloaded = false;
+            try {
+                downloaded = download(videoUrl, partialFile, validatorFile);
+                if (!downloaded) {
                     return false;
                 }
+                if (mPartialDownload != null) {
+                    mPartialDownload.finish(true);
+                }
 
-                boolean diskPutResult = CacheService.putToDiskCache(videoUrl, inputStream);
+                final boolean diskPutResult = CacheService.putToDiskCache(videoUrl, partialFile);
+                // Readers that look up the video from here on find it in the disk cache
+                unregisterPartialDownload(videoUrl);
+                deletePartialDownload(partialFile, validatorFile);
                 return diskPutResult;
             } catch (Exception e) {
+                // The partial file is kept so that the next attempt can resume from it
                 MoPubLog.log(ERROR_WITH_THROWABLE, "VideoDownloader task threw an internal exception.", e);
                 return false;
             } finally {
-                Streams.closeStream(inputStream);
-                if (urlConnection != null) {
-                    urlConnection.disconnect();
+                if (!downloaded && mPartialDownload != null) {
+                    mPartialDownload.finish(false);
+                }
+                unregisterPartialDownload(videoUrl);
+            }
+        }
+
+        private void registerPartialDownload(@NonNull final String videoUrl,
+                @NonNull final PartialDownload partialDownload) {
+            mPartialDownload = partialDownload;
+            synchronized (sPartialDownloads) {
+                sPartialDownloads.put(videoUrl, partialDownload);
+            }
+        }
+
+        private void unregisterPartialDownload(@NonNull final String videoUrl) {
+            if (mPartialDownload == null) {
+                return;
+            }
+
+            synchronized (sPartialDownloads) {
+                if (sPartialDownloads.get(videoUrl) == mPartialDownload) {
+                    sPartialDownloads.remove(videoUrl);
+                }
+            }
+        }
+
+        /**
+         * Downloads the remainder of the video into the partial file. If the server cannot resume
+         * from the partial file, it is deleted and the video is downloaded once more from the start.
+         *
+         * @return true if the partial file now contains the complete video.
+         */
+        private boolean download(@NonNull final String videoUrl, @NonNull final File partialFile,
+                @NonNull final File validatorFile) throws IOException {
+            final String validator = readValidator(validatorFile);
+            long existingLength = partialFile.exists() && validator != null
+                    ? partialFile.length()
+                    : 0;
+
+            while (true) {
+                HttpURLConnection urlConnection = null;
+                InputStream inputStream = null;
+                OutputStream outputStream = null;
+                try {
+                    urlConnection = MoPubHttpUrlConnection.getHttpUrlConnection(videoUrl);
+                    if (existingLength > 0) {
+                        urlConnection.setRequestProperty(ResponseHeader.RANGE.getKey(),
+                                "bytes=" + existingLength + "-");
+                        urlConnection.setRequestProperty(ResponseHeader.IF_RANGE.getKey(),
+                                validator);
+                    }
+
+                    // Check the status before opening the body, since error responses throw there
+                    final int statusCode = urlConnection.getResponseCode();
+                    if (existingLength > 0) {
+                        if (statusCode == HttpURLConnection.HTTP_OK) {
+                            // The server ignored the range or the video changed
+                            existingLength = 0;
+                        } else if (statusCode != HttpURLConnection.HTTP_PARTIAL
+                                || !isExpectedContentRange(urlConnection, existingLength)) {
+                            MoPubLog.log(CUSTOM, "VideoDownloader could not resume at byte " +
+                                    existingLength + " (statusCode: " + statusCode +
+                                    "). Starting over.");
+                            deletePartialDownload(partialFile, validatorFile);
+                            existingLength = 0;
+                            continue;
+                        }
+                    } else if (statusCode != HttpURLConnection.HTTP_OK) {
+                        MoPubLog.log(CUSTOM, "VideoDownloader encountered unexpected statusCode: " +
+                                statusCode);
+                        deletePartialDownload(partialFile, validatorFile);
+                        return false;
+                    }
+
+                    // Check video size below maximum
+                    final int contentLength = urlConnection.getContentLength();
+                    final long totalLength =
+                            contentLength >= 0 ? existingLength + contentLength : -1;
+                    if (totalLength > MAX_VIDEO_SIZE) {
+                        MoPubLog.log(CUSTOM, String.format(
+                                "VideoDownloader encountered video larger than disk cap. " +
+                                        "(%d bytes / %d maximum).",
+                                totalLength,
+                                MAX_VIDEO_SIZE));
+                        deletePartialDownload(partialFile, validatorFile);
+                        return false;
+                    }
+
+                    inputStream = new BufferedInputStream(urlConnection.getInputStream());
+                    if (existingLength == 0) {
+                        writeValidator(validatorFile, getValidator(urlConnection));
+                    } else {
+                        MoPubLog.log(CUSTOM, "VideoDownloader resuming download at byte " +
+                                existingLength);
+                    }
+
+                    outputStream = new FileOutputStream(partialFile, existingLength > 0);
+                    registerPartialDownload(videoUrl,
+                            new PartialDownload(partialFile, totalLength, existingLength));
+                    return copyInChunks(inputStream, outputStream, existingLength, totalLength,
+                            partialFile, validatorFile);
+                } finally {
+                    Streams.closeStream(outputStream);
+                    Streams.closeStream(inputStream);
+                    if (urlConnection != null) {
+                        urlConnection.disconnect();
+                    }
+                }
+            }
+        }
+
+        private boolean copyInChunks(@NonNull final InputStream inputStream,
+                @NonNull final OutputStream outputStream, final long existingLength,
+                final long totalLength, @NonNull final File partialFile,
+                @NonNull final File validatorFile) throws IOException {
+            final byte[] buffer = new byte[CHUNK_SIZE_BYTES];
+            long downloadedLength = existingLength;
+            long lastProgressLength = existingLength;
+            publishProgress(downloadedLength, totalLength);
+
+            int length;
+            while ((length = inputStream.read(buffer)) != -1) {
+                if (isCancelled()) {
+                    // Keep what we have so the next attempt can resume
+                    return false;
+                }
+
+                downloadedLength += length;
+                if (downloadedLength > MAX_VIDEO_SIZE) {
+                    MoPubLog.log(CUSTOM, String.format(
+                            "VideoDownloader exceeded disk cap while streaming. " +
+                                    "(%d bytes / %d maximum).",
+                            downloadedLength,
+                            MAX_VIDEO_SIZE));
+                    Streams.closeStream(outputStream);
+                    deletePartialDownload(partialFile, validatorFile);
+                    return false;
+                }
+
+                outputStream.write(buffer, 0, length);
+                if (mPartialDownload != null) {
+                    mPartialDownload.onBytesWritten(downloadedLength);
                 }
+                if (downloadedLength - lastProgressLength >= PROGRESS_INTERVAL_BYTES) {
+                    lastProgressLength = downloadedLength;
+                    publishProgress(downloadedLength, totalLength);
+                }
+            }
+            outputStream.flush();
+
+            if (totalLength >= 0 && downloadedLength != totalLength) {
+                MoPubLog.log(CUSTOM, "VideoDownloader stream ended early at byte " +
+                        downloadedLength + " of " + totalLength);
+                return false;
+            }
+
+            publishProgress(downloadedLength, totalLength);
+            return true;
+        }
+
+        @Override
+        protected void onProgressUpdate(final Long... values) {
+            if (mListener instanceof VideoDownloaderProgressListener
+                    && values != null && values.length == 2) {
+                ((VideoDownloaderProgressListener) mListener).onProgress(values[0], values[1]);
             }
         }
 
@@ -178,6 +556,77 @@ public class VideoDownloader {
         }
     }
 
+    /**
+     * Checks that a 206 response starts where the partial file ends.
+     */
+    private static boolean isExpectedContentRange(@NonNull final HttpURLConnection urlConnection,
+            final long existingLength) {
+        // Content-Range: bytes <start>-<end>/<total>
+        final String contentRange =
+                urlConnection.getHeaderField(ResponseHeader.CONTENT_RANGE.getKey());
+        if (contentRange == null) {
+            return false;
+        }
+
+        final String prefix = "bytes " + existingLength + "-";
+        return contentRange.trim().startsWith(prefix);
+    }
+
+    @Nullable
+    private static String getValidator(@NonNull final HttpURLConnection urlConnection) {
+        final String eTag = urlConnection.getHeaderField(ResponseHeader.ETAG.getKey());
+        if (!TextUtils.isEmpty(eTag)) {
+            return eTag;
+        }
+        final String lastModified =
+                urlConnection.getHeaderField(ResponseHeader.LAST_MODIFIED.getKey());
+        return TextUtils.isEmpty(lastModified) ? null : lastModified;
+    }
+
+    @Nullable
+    private static String readValidator(@NonNull final File validatorFile) {
+        if (!validatorFile.exists()) {
+            return null;
+        }
+
+        InputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(validatorFile);
+            final String validator = Strings.fromStream(inputStream);
+            return TextUtils.isEmpty(validator) ? null : validator;
+        } catch (IOException e) {
+            return null;
+        } finally {
+            Streams.closeStream(inputStream);
+        }
+    }
+
+    /**
+     * Stores the validator for a new download. Without one the download cannot be safely resumed,
+     * so any stale validator is removed instead.
+     */
+    private static void writeValidator(@NonNull final File validatorFile,
+            @Nullable final String validator) throws IOException {
+        if (validator == null) {
+            validatorFile.delete();
+            return;
+        }
+
+        OutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(validatorFile);
+            outputStream.write(validator.getBytes());
+        } finally {
+            Streams.closeStream(outputStream);
+        }
+    }
+
+    private static void deletePartialDownload(@NonNull final File partialFile,
+            @NonNull final File validatorFile) {
+        partialFile.delete();
+        validatorFile.delete();
+    }
+
     @Deprecated
     @VisibleForTesting
     public static Deque<WeakReference<VideoDownloaderTask>> getDownloaderTasks() {
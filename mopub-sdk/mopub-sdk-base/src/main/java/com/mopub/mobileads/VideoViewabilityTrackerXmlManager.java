@@ -42,8 +42,12 @@ public class VideoViewabilityTrackerXmlManager {
      */
     @Nullable
     Integer getViewablePlaytimeMS() {
-        String viewablePlaytimeStr =
-                XmlUtils.getAttributeValue(mVideoViewabilityNode, VIEWABLE_PLAYTIME);
+        return getViewablePlaytimeMS(
+                XmlUtils.getAttributeValue(mVideoViewabilityNode, VIEWABLE_PLAYTIME));
+    }
+
+    @Nullable
+    static Integer getViewablePlaytimeMS(@Nullable final String viewablePlaytimeStr) {
         if (viewablePlaytimeStr == null) {
             return null;
         }
@@ -84,8 +88,12 @@ public class VideoViewabilityTrackerXmlManager {
      */
     @Nullable
     Integer getPercentViewable() {
-        String percentViewableStr =
-                XmlUtils.getAttributeValue(mVideoViewabilityNode, PERCENT_VIEWABLE);
+        return getPercentViewable(
+                XmlUtils.getAttributeValue(mVideoViewabilityNode, PERCENT_VIEWABLE));
+    }
+
+    @Nullable
+    static Integer getPercentViewable(@Nullable final String percentViewableStr) {
         if (percentViewableStr == null) {
             return null;
         }
@@ -5,7 +5,13 @@
 package com.mopub.mobileads;
 
 import android.annotation.SuppressLint;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
 import android.os.Handler;
+import android.os.SystemClock;
+import android.util.DisplayMetrics;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -15,16 +21,19 @@ import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
 
 import java.lang.ref.WeakReference;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import static com.mopub.common.Constants.AD_EXPIRATION_DELAY;
 import static com.mopub.common.Constants.FIFTEEN_MINUTES_MILLIS;
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 
 /**
- * Holds WebViews in memory until they are used.
+ * Holds WebViews in memory until they are used. The cache is bounded both by the number of
+ * WebViews and by an estimate of the memory they hold, and evicts the least recently stored
+ * WebViews first. WebViews are also evicted when they are older than an ad's expiration, and when
+ * the system reports memory pressure. An evicted ad still shows, but has to render again first.
  */
 public class WebViewCacheService {
     public static class Config {
@@ -34,6 +43,8 @@ public class WebViewCacheService {
         private final WeakReference<BaseAd> mWeakBaseAd;
         @Nullable
         private final MoPubWebViewController mController;
+        private final long mStoredTimeMillis;
+        private final long mEstimatedBytes;
 
         Config(@NonNull final BaseWebView baseWebView,
                @NonNull final BaseAd baseAd,
@@ -44,6 +55,8 @@ public class WebViewCacheService {
             mWebView = baseWebView;
             mWeakBaseAd = new WeakReference<>(baseAd);
             mController = controller;
+            mStoredTimeMillis = SystemClock.elapsedRealtime();
+            mEstimatedBytes = estimateBytes(baseWebView);
         }
 
         @NonNull
@@ -61,6 +74,14 @@ public class WebViewCacheService {
             return mController;
         }
 
+        long getStoredTimeMillis() {
+            return mStoredTimeMillis;
+        }
+
+        long getEstimatedBytes() {
+            return mEstimatedBytes;
+        }
+
         public void invalidate() {
             mWebView.destroy();
             mWeakBaseAd.clear();
@@ -75,20 +96,43 @@ public class WebViewCacheService {
      * conservative; it is not recommended to cache more than a few BaseWebViews.
      */
     @VisibleForTesting
-    static final int MAX_SIZE = 50;
+    static final int MAX_SIZE = 10;
 
     /**
-     * Trim the cache at least this frequently. Trimming only removes a {@link Config}s when its
-     * associated {@link Interstitial} is no longer in memory. The cache is also
-     * trimmed every time {@link #storeWebViewConfig(Long, BaseWebView, BaseAd, MoPubWebViewController)} is called.
+     * Maximum estimated memory held by the cached {@link BaseWebView}s. This is usually reached
+     * before {@link #MAX_SIZE}, at around four full screen WebViews on a 1080p display.
+     */
+    @VisibleForTesting
+    static final long MAX_ESTIMATED_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * Rough memory held by a WebView regardless of its size, mostly its renderer state.
+     */
+    @VisibleForTesting
+    static final long WEB_VIEW_BASE_BYTES = 3 * 1024 * 1024;
+
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /**
+     * Cached {@link BaseWebView}s older than this belong to expired ads and are evicted.
+     */
+    @VisibleForTesting
+    static final long MAX_AGE_MILLIS = AD_EXPIRATION_DELAY;
+
+    /**
+     * Trim the cache at least this frequently. Trimming removes a {@link Config} when its
+     * associated {@link BaseAd} is no longer in memory or when it is older than
+     * {@link #MAX_AGE_MILLIS}. The cache is also trimmed every time
+     * {@link #storeWebViewConfig(Long, BaseWebView, BaseAd, MoPubWebViewController)} is called.
      */
     @VisibleForTesting
     static final long TRIM_CACHE_FREQUENCY_MILLIS = FIFTEEN_MINUTES_MILLIS;
 
+    // Guarded by WebViewCacheService.class. Access ordered, so iteration starts at the least
+    // recently used Config.
     @SuppressLint("UseSparseArrays")
     @NonNull
-    private static final Map<Long, Config> sWebViewConfigs =
-            Collections.synchronizedMap(new HashMap<>());
+    private static final Map<Long, Config> sWebViewConfigs = new LinkedHashMap<>(16, 0.75f, true);
 
     @VisibleForTesting
     @NonNull
@@ -96,53 +140,98 @@ public class WebViewCacheService {
     @NonNull
     private static Handler sHandler = new Handler();
 
+    @NonNull
+    private static final ComponentCallbacks2 sMemoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(final int level) {
+            WebViewCacheService.onTrimMemory(level);
+        }
+
+        @Override
+        public void onLowMemory() {
+            WebViewCacheService.onTrimMemory(TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull final Configuration newConfig) {
+        }
+    };
+    private static boolean sMemoryCallbacksRegistered;
+
+    private static long sHitCount;
+    private static long sMissCount;
+    private static long sEvictionCount;
+
     private WebViewCacheService() {
     }
 
     /**
      * Stores the {@link BaseWebView} in the cache. This WebView will live until it is retrieved via
-     * {@link #popWebViewConfig(Long)} or when the base interstitial object is removed from memory.
+     * {@link #popWebViewConfig(Long)}, when the base interstitial object is removed from memory, or
+     * when it is evicted to make room or free memory.
      *
      * @param broadcastIdentifier The unique identifier associated with both the interstitial and the WebView
      * @param baseWebView         The BaseWebView to be stored
      */
     @VisibleForTesting
-    public static void storeWebViewConfig(@NonNull final Long broadcastIdentifier,
-                                          @NonNull final BaseWebView baseWebView,
-                                          @NonNull final BaseAd baseAd,
-                                          @Nullable final MoPubWebViewController controller) {
+    public static synchronized void storeWebViewConfig(@NonNull final Long broadcastIdentifier,
+                                                       @NonNull final BaseWebView baseWebView,
+                                                       @NonNull final BaseAd baseAd,
+                                                       @Nullable final MoPubWebViewController controller) {
         Preconditions.checkNotNull(broadcastIdentifier);
         Preconditions.checkNotNull(baseWebView);
         Preconditions.checkNotNull(baseAd);
 
+        registerMemoryCallbacks(baseWebView.getContext());
         trimCache();
-        // Ignore request when max size is reached.
-        if (sWebViewConfigs.size() >= MAX_SIZE) {
-            MoPubLog.log(CUSTOM,
-                    "Unable to cache web view. Please destroy some via MoPubInterstitial#destroy() and try again.");
-            return;
-        }
 
-        sWebViewConfigs.put(broadcastIdentifier,
+        final Config previousConfig = sWebViewConfigs.put(broadcastIdentifier,
                 new Config(baseWebView, baseAd, controller));
+        if (previousConfig != null && previousConfig.getWebView() != baseWebView) {
+            previousConfig.invalidate();
+        }
+        evictToFit(MAX_SIZE, MAX_ESTIMATED_BYTES);
     }
 
     @Nullable
-    public static Config popWebViewConfig(@NonNull final Long broadcastIdentifier) {
+    public static synchronized Config popWebViewConfig(@NonNull final Long broadcastIdentifier) {
         Preconditions.checkNotNull(broadcastIdentifier);
 
-        return sWebViewConfigs.remove(broadcastIdentifier);
+        final Config config = sWebViewConfigs.remove(broadcastIdentifier);
+        if (config != null) {
+            sHitCount++;
+        } else {
+            sMissCount++;
+        }
+        return config;
+    }
+
+    /**
+     * Removes and destroys the {@link BaseWebView} of an ad that will not be shown. Unlike
+     * {@link #popWebViewConfig(Long)}, this does not count as a cache hit or miss.
+     */
+    public static synchronized void discardWebViewConfig(@NonNull final Long broadcastIdentifier) {
+        Preconditions.checkNotNull(broadcastIdentifier);
+
+        final Config config = sWebViewConfigs.remove(broadcastIdentifier);
+        if (config != null) {
+            config.invalidate();
+        }
     }
 
     @VisibleForTesting
     static synchronized void trimCache() {
+        final long now = SystemClock.elapsedRealtime();
         final Iterator<Map.Entry<Long, Config>> iterator = sWebViewConfigs.entrySet().iterator();
         while (iterator.hasNext()) {
-            final Map.Entry<Long, Config> entry = iterator.next();
+            final Config config = iterator.next().getValue();
 
-            // If the BaseAd was removed from memory discard the entire associated Config.
-            if (entry.getValue().getWeakBaseAd().get() == null) {
+            // If the BaseAd was removed from memory or the ad has expired, discard the entire
+            // associated Config.
+            if (config.getWeakBaseAd().get() == null
+                    || now - config.getStoredTimeMillis() >= MAX_AGE_MILLIS) {
                 iterator.remove();
+                evict(config);
             }
         }
 
@@ -152,6 +241,105 @@ public class WebViewCacheService {
         }
     }
 
+    /**
+     * Evicts cached WebViews according to how much memory the system needs back. Moderate and
+     * worse background pressure, or critical pressure while running, evicts everything. Lower
+     * pressure evicts down to half of {@link #MAX_ESTIMATED_BYTES}.
+     */
+    @VisibleForTesting
+    static synchronized void onTrimMemory(final int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            evictToFit(0, 0);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            evictToFit(MAX_SIZE, MAX_ESTIMATED_BYTES / 2);
+        }
+    }
+
+    /**
+     * Evicts the least recently used Configs until the cache is within both limits.
+     */
+    private static void evictToFit(final int maxSize, final long maxEstimatedBytes) {
+        long estimatedBytes = getEstimatedBytes();
+        final Iterator<Map.Entry<Long, Config>> iterator = sWebViewConfigs.entrySet().iterator();
+        while (iterator.hasNext()
+                && (sWebViewConfigs.size() > maxSize || estimatedBytes > maxEstimatedBytes)) {
+            final Config config = iterator.next().getValue();
+            iterator.remove();
+            estimatedBytes -= config.getEstimatedBytes();
+            evict(config);
+        }
+    }
+
+    private static void evict(@NonNull final Config config) {
+        sEvictionCount++;
+        MoPubLog.log(CUSTOM, "Evicting cached web view.");
+        config.invalidate();
+    }
+
+    private static void registerMemoryCallbacks(@Nullable final Context context) {
+        if (sMemoryCallbacksRegistered || context == null) {
+            return;
+        }
+        final Context applicationContext = context.getApplicationContext();
+        if (applicationContext == null) {
+            return;
+        }
+        applicationContext.registerComponentCallbacks(sMemoryCallbacks);
+        sMemoryCallbacksRegistered = true;
+    }
+
+    /**
+     * Estimates the memory a WebView holds once it has drawn: its base cost plus a full screen of
+     * pixels, since cached WebViews are shown full screen.
+     */
+    @VisibleForTesting
+    static long estimateBytes(@NonNull final BaseWebView baseWebView) {
+        long bytes = WEB_VIEW_BASE_BYTES;
+        final Resources resources = baseWebView.getResources();
+        final DisplayMetrics displayMetrics =
+                resources != null ? resources.getDisplayMetrics() : null;
+        if (displayMetrics != null) {
+            bytes += (long) displayMetrics.widthPixels * displayMetrics.heightPixels
+                    * BYTES_PER_PIXEL;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return The estimated memory held by all cached WebViews.
+     */
+    public static synchronized long getEstimatedBytes() {
+        long estimatedBytes = 0;
+        for (final Config config : sWebViewConfigs.values()) {
+            estimatedBytes += config.getEstimatedBytes();
+        }
+        return estimatedBytes;
+    }
+
+    /**
+     * @return The number of times a shown ad found its WebView in the cache.
+     */
+    public static synchronized long getHitCount() {
+        return sHitCount;
+    }
+
+    /**
+     * @return The number of times a shown ad did not find its WebView in the cache and had to
+     * render again.
+     */
+    public static synchronized long getMissCount() {
+        return sMissCount;
+    }
+
+    /**
+     * @return The number of WebViews removed from the cache without being shown.
+     */
+    public static synchronized long getEvictionCount() {
+        return sEvictionCount;
+    }
+
     private static class TrimCacheRunnable implements Runnable {
         @Override
         public void run() {
@@ -161,9 +349,12 @@ public class WebViewCacheService {
 
     @Deprecated
     @VisibleForTesting
-    public static void clearAll() {
+    public static synchronized void clearAll() {
         sWebViewConfigs.clear();
         sHandler.removeCallbacks(sTrimCacheRunnable);
+        sHitCount = 0;
+        sMissCount = 0;
+        sEvictionCount = 0;
     }
 
     @Deprecated
@@ -0,0 +1,312 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.content.res.Configuration;
+import android.os.Looper;
+import android.os.MessageQueue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.common.logging.MoPubLog;
+import com.mopub.mraid.MraidBridge.MraidWebView;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM_WITH_THROWABLE;
+
+/**
+ * Keeps a few {@link HtmlWebView}s and {@link MraidWebView}s constructed ahead of time, since
+ * constructing a WebView is one of the slowest main thread steps of showing a banner. Once
+ * enabled with {@link #warmUp(Context)}, the pool fills itself one WebView per idle main thread
+ * frame, and refills the same way after every lease.
+ *
+ * Controllers lease their WebViews here and release them when they are done. A released WebView
+ * goes back to the pool only if it can be reset to a blank page with none of the last creative's
+ * clients, listeners or settings. WebViews that had a viewability session, or that are
+ * destroyed, are destroyed instead. When the pool is disabled, leasing constructs a new WebView
+ * and releasing destroys it, as before. All methods must be called on the main thread.
+ *
+ * WebViews the pool manages are built on a {@link MutableContextWrapper}. It points at the
+ * context the WebView was leased with, so dialogs and popups of the creative work, and at the
+ * application context while the WebView sits in the pool, so no Activity is kept alive by it.
+ * WebViews built on any other context are never pooled.
+ */
+public class WebViewPool {
+    /**
+     * Number of WebViews kept of each type.
+     */
+    @VisibleForTesting
+    static final int MAX_POOLED_WEB_VIEWS = 2;
+
+    private static boolean sEnabled;
+    @Nullable private static Context sApplicationContext;
+    private static boolean sWarmUpScheduled;
+    private static boolean sMemoryCallbacksRegistered;
+
+    @NonNull private static final ArrayDeque<HtmlWebView> sHtmlWebViews = new ArrayDeque<>();
+    @NonNull private static final ArrayDeque<MraidWebView> sMraidWebViews = new ArrayDeque<>();
+    // WebViews that were leased out of the pool rather than constructed on lease
+    @NonNull private static final Set<BaseWebView> sPooledLeases =
+            Collections.newSetFromMap(new WeakHashMap<BaseWebView, Boolean>());
+
+    // Load times of creatives, split by whether their WebView came from the pool
+    private static long sPooledLoadCount;
+    private static long sPooledLoadMillis;
+    private static long sUnpooledLoadCount;
+    private static long sUnpooledLoadMillis;
+
+    @NonNull
+    private static final MessageQueue.IdleHandler sWarmUpIdleHandler =
+            new MessageQueue.IdleHandler() {
+                @Override
+                public boolean queueIdle() {
+                    // One WebView per idle frame, so no frame waits on more than one of them
+                    sWarmUpScheduled = warmUpOne();
+                    return sWarmUpScheduled;
+                }
+            };
+
+    @NonNull
+    private static final ComponentCallbacks2 sMemoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(final int level) {
+            if (level >= TRIM_MEMORY_RUNNING_LOW && level != TRIM_MEMORY_UI_HIDDEN) {
+                clear();
+            }
+        }
+
+        @Override
+        public void onLowMemory() {
+            clear();
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull final Configuration newConfig) {
+        }
+    };
+
+    private WebViewPool() {
+    }
+
+    /**
+     * Enables the pool and starts filling it during idle frames.
+     */
+    public static void warmUp(@NonNull final Context context) {
+        Preconditions.checkNotNull(context);
+
+        sEnabled = true;
+        sApplicationContext = context.getApplicationContext();
+        if (!sMemoryCallbacksRegistered && sApplicationContext != null) {
+            sApplicationContext.registerComponentCallbacks(sMemoryCallbacks);
+            sMemoryCallbacksRegistered = true;
+        }
+        scheduleWarmUp();
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    @NonNull
+    public static HtmlWebView leaseHtmlWebView(@NonNull final Context context) {
+        Preconditions.checkNotNull(context);
+
+        final HtmlWebView pooledWebView = sHtmlWebViews.poll();
+        scheduleWarmUp();
+        if (pooledWebView != null) {
+            setBaseContext(pooledWebView, context);
+            sPooledLeases.add(pooledWebView);
+            return pooledWebView;
+        }
+        return new HtmlWebView(createLeaseContext(context));
+    }
+
+    @NonNull
+    public static MraidWebView leaseMraidWebView(@NonNull final Context context) {
+        Preconditions.checkNotNull(context);
+
+        final MraidWebView pooledWebView = sMraidWebViews.poll();
+        scheduleWarmUp();
+        if (pooledWebView != null) {
+            setBaseContext(pooledWebView, context);
+            sPooledLeases.add(pooledWebView);
+            return pooledWebView;
+        }
+        return new MraidWebView(createLeaseContext(context));
+    }
+
+    /**
+     * Returns a leased WebView to the pool if it can be reused, and destroys it otherwise.
+     */
+    public static void release(@Nullable final BaseWebView webView) {
+        if (webView == null) {
+            return;
+        }
+        sPooledLeases.remove(webView);
+
+        // Subclasses may hold state the reset does not know about, and WebViews built on any
+        // other context may hold an Activity
+        final Context applicationContext = sApplicationContext;
+        final boolean poolable = sEnabled && applicationContext != null
+                && webView.getContext() instanceof MutableContextWrapper;
+        if (poolable && webView.getClass() == HtmlWebView.class) {
+            if (sHtmlWebViews.size() < MAX_POOLED_WEB_VIEWS && webView.resetForReuse()) {
+                setBaseContext(webView, applicationContext);
+                sHtmlWebViews.add((HtmlWebView) webView);
+                return;
+            }
+        } else if (poolable && webView.getClass() == MraidWebView.class) {
+            if (sMraidWebViews.size() < MAX_POOLED_WEB_VIEWS && webView.resetForReuse()) {
+                setBaseContext(webView, applicationContext);
+                sMraidWebViews.add((MraidWebView) webView);
+                return;
+            }
+        }
+        webView.destroy();
+    }
+
+    /**
+     * @return whether the WebView was taken from the pool when it was leased
+     */
+    static boolean isPooledLease(@NonNull final BaseWebView webView) {
+        return sPooledLeases.contains(webView);
+    }
+
+    /**
+     * Records how long a creative took from filling its controller until its page loaded, which
+     * is the closest signal the SDK has to the creative's first paint.
+     */
+    static void recordLoadTime(final boolean pooled, final long loadMillis) {
+        if (pooled) {
+            sPooledLoadCount++;
+            sPooledLoadMillis += loadMillis;
+        } else {
+            sUnpooledLoadCount++;
+            sUnpooledLoadMillis += loadMillis;
+        }
+        MoPubLog.log(CUSTOM, "Creative loaded in " + loadMillis + "ms with a "
+                + (pooled ? "pooled" : "new") + " WebView.");
+    }
+
+    /**
+     * @param pooled whether to average the creatives that used a pooled WebView, or the ones that
+     *               constructed a new one
+     * @return The average time, in milliseconds, from filling a controller until its creative
+     * loaded, or -1 if no such creative has loaded.
+     */
+    public static long getAverageLoadMillis(final boolean pooled) {
+        if (pooled) {
+            return sPooledLoadCount > 0 ? sPooledLoadMillis / sPooledLoadCount : -1;
+        }
+        return sUnpooledLoadCount > 0 ? sUnpooledLoadMillis / sUnpooledLoadCount : -1;
+    }
+
+    /**
+     * Destroys all pooled WebViews. The pool fills again on the next lease.
+     */
+    public static void clear() {
+        if (sWarmUpScheduled && Looper.myLooper() == Looper.getMainLooper()) {
+            Looper.myQueue().removeIdleHandler(sWarmUpIdleHandler);
+            sWarmUpScheduled = false;
+        }
+        for (final HtmlWebView webView : sHtmlWebViews) {
+            webView.destroy();
+        }
+        sHtmlWebViews.clear();
+        for (final MraidWebView webView : sMraidWebViews) {
+            webView.destroy();
+        }
+        sMraidWebViews.clear();
+    }
+
+    /**
+     * @return the context to build a WebView on when the pool has none to lease. While the pool
+     * is enabled, this is a wrapper the WebView can be pooled with once it is released.
+     */
+    @NonNull
+    private static Context createLeaseContext(@NonNull final Context context) {
+        return sEnabled && sApplicationContext != null
+                ? new MutableContextWrapper(context)
+                : context;
+    }
+
+    private static void setBaseContext(@NonNull final BaseWebView webView,
+            @NonNull final Context context) {
+        final Context webViewContext = webView.getContext();
+        if (webViewContext instanceof MutableContextWrapper) {
+            ((MutableContextWrapper) webViewContext).setBaseContext(context);
+        }
+    }
+
+    private static void scheduleWarmUp() {
+        if (!sEnabled || sWarmUpScheduled || isFull()
+                || Looper.myLooper() != Looper.getMainLooper()) {
+            return;
+        }
+        sWarmUpScheduled = true;
+        Looper.myQueue().addIdleHandler(sWarmUpIdleHandler);
+    }
+
+    /**
+     * Constructs one WebView for the pool.
+     *
+     * @return whether the pool needs more WebViews
+     */
+    @VisibleForTesting
+    static boolean warmUpOne() {
+        final Context context = sApplicationContext;
+        if (!sEnabled || context == null) {
+            return false;
+        }
+
+        try {
+            if (sHtmlWebViews.size() < MAX_POOLED_WEB_VIEWS) {
+                sHtmlWebViews.add(new HtmlWebView(new MutableContextWrapper(context)));
+            } else if (sMraidWebViews.size() < MAX_POOLED_WEB_VIEWS) {
+                sMraidWebViews.add(new MraidWebView(new MutableContextWrapper(context)));
+            }
+        } catch (RuntimeException e) {
+            // WebView construction fails while the WebView package is being updated
+            MoPubLog.log(CUSTOM_WITH_THROWABLE, "Unable to warm up a WebView.", e);
+            return false;
+        }
+        return !isFull();
+    }
+
+    private static boolean isFull() {
+        return sHtmlWebViews.size() >= MAX_POOLED_WEB_VIEWS
+                && sMraidWebViews.size() >= MAX_POOLED_WEB_VIEWS;
+    }
+
+    @VisibleForTesting
+    static int getPooledCount() {
+        return sHtmlWebViews.size() + sMraidWebViews.size();
+    }
+
+    @VisibleForTesting
+    public static void clearForTesting() {
+        clear();
+        sEnabled = false;
+        sApplicationContext = null;
+        sWarmUpScheduled = false;
+        sMemoryCallbacksRegistered = false;
+        sPooledLeases.clear();
+        sPooledLoadCount = 0;
+        sPooledLoadMillis = 0;
+        sUnpooledLoadCount = 0;
+        sUnpooledLoadMillis = 0;
+    }
+}
@@ -44,9 +44,13 @@ public class XmlUtils {
             return null;
         }
 
-        final List<Node> nodes = getMatchingChildNodes(node, nodeName, attributeName, attributeValues);
-        if (nodes != null && !nodes.isEmpty()) {
-            return nodes.get(0);
+        final NodeList nodeList = node.getChildNodes();
+        for (int i = 0; i < nodeList.getLength(); ++i) {
+            final Node childNode = nodeList.item(i);
+            if (childNode.getNodeName().equals(nodeName)
+                    && nodeMatchesAttributeFilter(childNode, attributeName, attributeValues)) {
+                return childNode;
+            }
         }
         return null;
     }
@@ -10,7 +10,8 @@ import android.graphics.Color;
 import android.graphics.Rect;
 import android.net.Uri;
 import android.os.Build;
-import android.text.TextUtils;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.View.OnTouchListener;
@@ -31,9 +32,11 @@ import com.mopub.common.Preconditions;
 import com.mopub.common.VisibilityTracker;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
+import com.mopub.common.util.AsyncTasks;
 import com.mopub.mobileads.BaseWebViewViewability;
 import com.mopub.mobileads.MoPubErrorCode;
 import com.mopub.mobileads.ViewGestureDetector;
+import com.mopub.mobileads.WebViewPool;
 import com.mopub.network.Networking;
 
 import org.json.JSONObject;
@@ -44,11 +47,11 @@ import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 import static com.mopub.mobileads.MoPubErrorCode.RENDER_PROCESS_GONE_UNSPECIFIED;
 import static com.mopub.mobileads.MoPubErrorCode.RENDER_PROCESS_GONE_WITH_CRASH;
-import static com.mopub.network.MoPubRequestUtils.getQueryParamMap;
 
 public class MraidBridge {
     public interface MraidBridgeListener {
@@ -94,7 +97,34 @@ public class MraidBridge {
 
     private boolean mHasLoaded;
 
-    private boolean mAllowCustomClose;
+    private final boolean mAllowCustomClose;
+
+    // Scripts injected since the last flush. They are evaluated together once the current main
+    // thread task is done, so that a burst of notifications crosses into the renderer once.
+    @NonNull private final StringBuilder mPendingJavaScript = new StringBuilder();
+    @NonNull private final Handler mHandler = new Handler(Looper.getMainLooper());
+    @NonNull private final Runnable mFlushJavaScriptRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushJavaScript();
+        }
+    };
+    private boolean mIsFlushScheduled;
+    private int mInjectedScriptCount;
+    // Changes whenever the page is replaced, so commands parsed for the old page are dropped
+    private int mPageGeneration;
+
+    // The values last sent to the creative's page, so that unchanged ones are not sent again.
+    // Cleared when new content starts loading and again once it has loaded, since values sent
+    // while the page loads may never reach it.
+    @Nullable private String mLastScreenSize;
+    @Nullable private String mLastMaxSize;
+    @Nullable private String mLastCurrentPosition;
+    @Nullable private String mLastDefaultPosition;
+    @Nullable private String mLastSizeChange;
+    @Nullable private String mLastSupports;
+    @Nullable private Boolean mLastIsViewable;
+    @Nullable private PlacementType mLastPlacementType;
 
     MraidBridge(@NonNull final PlacementType placementType, final boolean allowCustomClose) {
         this(placementType, new MraidNativeCommandHandler(), allowCustomClose);
@@ -182,8 +212,9 @@ public class MraidBridge {
     }
 
     void detach() {
+        clearPendingJavaScript();
         if (mMraidWebView != null) {
-            mMraidWebView.destroy();
+            WebViewPool.release(mMraidWebView);
             mMraidWebView = null;
         }
     }
@@ -195,6 +226,7 @@ public class MraidBridge {
         }
 
         mHasLoaded = false;
+        clearPendingJavaScript();
         mMraidWebView.loadDataWithBaseURL(Networking.getScheme() + "://" + Constants.HOST + "/",
                 htmlData, "text/html", "UTF-8", null);
     }
@@ -206,6 +238,7 @@ public class MraidBridge {
         }
 
         mHasLoaded = false;
+        clearPendingJavaScript();
         mMraidWebView.loadUrl(url);
     }
 
@@ -216,7 +249,62 @@ public class MraidBridge {
             return;
         }
         MoPubLog.log(CUSTOM, "Injecting Javascript into MRAID WebView:\n\t" + javascript);
-        mMraidWebView.loadUrl("javascript:" + javascript);
+        if (mPendingJavaScript.length() > 0) {
+            mPendingJavaScript.append(';');
+        }
+        mPendingJavaScript.append(javascript);
+
+        if (!mIsFlushScheduled) {
+            mIsFlushScheduled = true;
+            mHandler.post(mFlushJavaScriptRunnable);
+        }
+    }
+
+    /**
+     * Evaluates all the scripts injected since the last flush in a single call.
+     */
+    @VisibleForTesting
+    void flushJavaScript() {
+        mIsFlushScheduled = false;
+        if (mPendingJavaScript.length() == 0 || mMraidWebView == null) {
+            mPendingJavaScript.setLength(0);
+            return;
+        }
+
+        final String javascript = mPendingJavaScript.toString();
+        mPendingJavaScript.setLength(0);
+        mInjectedScriptCount++;
+        mMraidWebView.evaluateJavascript(javascript, null);
+    }
+
+    /**
+     * Drops the scripts meant for the current page, along with what it was last sent.
+     */
+    private void clearPendingJavaScript() {
+        mHandler.removeCallbacks(mFlushJavaScriptRunnable);
+        mIsFlushScheduled = false;
+        mPageGeneration++;
+        mPendingJavaScript.setLength(0);
+        clearLastSentValues();
+    }
+
+    private void clearLastSentValues() {
+        mLastScreenSize = null;
+        mLastMaxSize = null;
+        mLastCurrentPosition = null;
+        mLastDefaultPosition = null;
+        mLastSizeChange = null;
+        mLastSupports = null;
+        mLastIsViewable = null;
+        mLastPlacementType = null;
+    }
+
+    /**
+     * @return The number of times scripts were evaluated in this creative's WebView. Each one
+     * may hold several notifications.
+     */
+    int getInjectedScriptCount() {
+        return mInjectedScriptCount;
     }
 
     private void fireErrorEvent(@NonNull MraidJavascriptCommand command, @NonNull String message) {
@@ -301,6 +389,20 @@ public class MraidBridge {
             return mMraidViewable;
         }
 
+        @Override
+        protected boolean resetForReuse() {
+            if (!super.resetForReuse()) {
+                return false;
+            }
+
+            mOnVisibilityChangedListener = null;
+            if (mVisibilityTracker != null) {
+                mVisibilityTracker.clear();
+            }
+            mMraidViewable = mVisibilityTracker == null && getVisibility() == View.VISIBLE;
+            return true;
+        }
+
         @Override
         public void destroy() {
             super.destroy();
@@ -340,6 +442,11 @@ public class MraidBridge {
 
     @VisibleForTesting
     boolean handleShouldOverrideUrl(@NonNull final String url) {
+        if (MraidCommandParser.isMraidUrl(url)) {
+            handleMraidUrl(url);
+            return true;
+        }
+
         try {
             // This is purely for validating the URI before proceeding
             final URI uri = new URI(url);
@@ -349,11 +456,11 @@ public class MraidBridge {
             return true;
         }
 
-        Uri uri = Uri.parse(url);
+        final Uri uri = Uri.parse(url);
 
         // Note that scheme will be null when we are passed a relative Uri
-        String scheme = uri.getScheme();
-        String host = uri.getHost();
+        final String scheme = uri.getScheme();
+        final String host = uri.getHost();
 
         if ("mopub".equals(scheme)) {
             if ("failLoad".equals(host)) {
@@ -366,30 +473,67 @@ public class MraidBridge {
 
         // This block converts all other URLs, including sms://, tel:// into MRAID URL. It checks for
         // 'clicked' in order to avoid interfering with automatic browser redirects.
-        if (isClicked() && !"mraid".equals(scheme)) {
+        if (isClicked()) {
             try {
-                uri = Uri.parse(MRAID_OPEN + URLEncoder.encode(url, "UTF-8"));
-                host = uri.getHost();
-                scheme = uri.getScheme();
+                handleMraidUrl(MRAID_OPEN + URLEncoder.encode(url, "UTF-8"));
             } catch (UnsupportedEncodingException e) {
                 MoPubLog.log(CUSTOM, "Invalid MRAID URL encoding: " + url);
                 fireErrorEvent(MraidJavascriptCommand.OPEN, "Non-mraid URL is invalid");
                 return false;
             }
+            return true;
         }
 
-        if ("mraid".equals(scheme)) {
-            MraidJavascriptCommand command = MraidJavascriptCommand.fromJavascriptString(host);
-            try {
-                runCommand(command, getQueryParamMap(uri));
-            } catch (MraidCommandException | IllegalArgumentException exception) {
-                fireErrorEvent(command, exception.getMessage());
+        return false;
+    }
+
+    /**
+     * Parses and validates the command on a background thread, then runs it on the main thread.
+     * The page sends its next command only once this one completes, so commands stay in order.
+     * Commands from a page that was replaced in the meantime are dropped.
+     */
+    private void handleMraidUrl(@NonNull final String url) {
+        final int pageGeneration = mPageGeneration;
+        final Runnable parseRunnable = new Runnable() {
+            @Override
+            public void run() {
+                final MraidCommandParser.ParsedCommand parsedCommand =
+                        MraidCommandParser.parseUrl(url);
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (pageGeneration == mPageGeneration) {
+                            handleParsedCommand(url, parsedCommand);
+                        }
+                    }
+                });
             }
-            fireNativeCommandCompleteEvent(command);
-            return true;
+        };
+
+        try {
+            AsyncTasks.getExecutor(AsyncTasks.Lane.CPU).execute(parseRunnable);
+        } catch (RejectedExecutionException e) {
+            MoPubLog.log(CUSTOM, "Parsing MRAID command on the main thread.");
+            parseRunnable.run();
         }
+    }
 
-        return false;
+    @VisibleForTesting
+    void handleParsedCommand(@NonNull final String url,
+            @Nullable final MraidCommandParser.ParsedCommand parsedCommand) {
+        if (parsedCommand == null) {
+            MoPubLog.log(CUSTOM, "Invalid MRAID URL: " + url);
+            fireErrorEvent(MraidJavascriptCommand.UNSPECIFIED, "Mraid command sent an invalid URL");
+            return;
+        }
+
+        final MraidJavascriptCommand command = parsedCommand.getCommand();
+        try {
+            runCommand(parsedCommand);
+        } catch (MraidCommandException | IllegalArgumentException exception) {
+            fireErrorEvent(command, exception.getMessage());
+        }
+        fireNativeCommandCompleteEvent(command);
     }
 
     @VisibleForTesting
@@ -403,6 +547,7 @@ public class MraidBridge {
         }
 
         mHasLoaded = true;
+        clearLastSentValues();
         if (mMraidBridgeListener != null) {
             mMraidBridgeListener.onPageLoaded();
         }
@@ -416,6 +561,10 @@ public class MraidBridge {
                 : RENDER_PROCESS_GONE_UNSPECIFIED;
 
         MoPubLog.log(CUSTOM, errorCode);
+        // A WebView whose renderer is gone cannot be reused
+        if (mMraidWebView != null) {
+            mMraidWebView.destroy();
+        }
         detach();
 
         if (mMraidBridgeListener != null) {
@@ -427,6 +576,12 @@ public class MraidBridge {
     void runCommand(@NonNull final MraidJavascriptCommand command,
             @NonNull Map<String, String> params)
             throws MraidCommandException {
+        runCommand(MraidCommandParser.parseArguments(command, params));
+    }
+
+    private void runCommand(@NonNull final MraidCommandParser.ParsedCommand parsedCommand)
+            throws MraidCommandException {
+        final MraidJavascriptCommand command = parsedCommand.getCommand();
         if (command.requiresClick(mPlacementType) && !isClicked()) {
             throw new MraidCommandException("Cannot execute this command unless the user clicks");
         }
@@ -439,40 +594,36 @@ public class MraidBridge {
             throw new MraidCommandException("The current WebView is being destroyed");
         }
 
+        final MraidCommandException error = parsedCommand.getError();
+        if (error != null) {
+            throw error;
+        }
+
         switch (command) {
             case CLOSE:
                 mMraidBridgeListener.onClose();
                 break;
             case RESIZE:
-                // All these params are required
-                int width = checkRange(parseSize(params.get("width")), 0, 100000);
-                int height = checkRange(parseSize(params.get("height")), 0, 100000);
-                int offsetX = checkRange(parseSize(params.get("offsetX")), -100000, 100000);
-                int offsetY = checkRange(parseSize(params.get("offsetY")), -100000, 100000);
-                ClosePosition closePosition = parseClosePosition(
-                        params.get("customClosePosition"), ClosePosition.TOP_RIGHT);
-                boolean allowOffscreen = parseBoolean(params.get("allowOffscreen"), true);
-                mMraidBridgeListener.onResize(
-                        width, height, offsetX, offsetY, closePosition, allowOffscreen);
+                mMraidBridgeListener.onResize(parsedCommand.getWidth(), parsedCommand.getHeight(),
+                        parsedCommand.getOffsetX(), parsedCommand.getOffsetY(),
+                        parsedCommand.getClosePosition(), parsedCommand.getAllowOffscreen());
                 mMraidBridgeListener.onUseCustomClose(mAllowCustomClose);
                 break;
             case EXPAND:
-                URI uri = parseURI(params.get("url"), null);
-                mMraidBridgeListener.onExpand(uri, parseAllowCustomClose(params, mAllowCustomClose));
+                mMraidBridgeListener.onExpand(parsedCommand.getUri(),
+                        parsedCommand.getShouldUseCustomClose() && mAllowCustomClose);
                 break;
             case USE_CUSTOM_CLOSE:
-                mMraidBridgeListener.onUseCustomClose(parseAllowCustomClose(params, mAllowCustomClose));
+                mMraidBridgeListener.onUseCustomClose(
+                        parsedCommand.getShouldUseCustomClose() && mAllowCustomClose);
                 break;
             case OPEN:
-                uri = parseURI(params.get("url"));
-                mMraidBridgeListener.onOpen(uri);
+                mMraidBridgeListener.onOpen(parsedCommand.getUri());
                 break;
             case SET_ORIENTATION_PROPERTIES:
-                boolean allowOrientationChange = parseBoolean(params.get("allowOrientationChange"));
-                MraidOrientation forceOrientation = parseOrientation(params.get("forceOrientation"));
-
-                mMraidBridgeListener.onSetOrientationProperties(allowOrientationChange,
-                        forceOrientation);
+                mMraidBridgeListener.onSetOrientationProperties(
+                        parsedCommand.getAllowOrientationChange(),
+                        parsedCommand.getForceOrientation());
                 break;
                 // PLAY_VIDEO, STORE_PICTURE, and CREATE_CALENDAR_EVENT are no longer supported
             case PLAY_VIDEO:
@@ -484,113 +635,21 @@ public class MraidBridge {
         }
     }
 
-    private ClosePosition parseClosePosition(@NonNull String text,
-            @NonNull ClosePosition defaultValue)
-            throws MraidCommandException {
-        if (TextUtils.isEmpty(text)) {
-            return defaultValue;
-        }
-
-        if (text.equals("top-left")) {
-            return ClosePosition.TOP_LEFT;
-        } else if (text.equals("top-right")) {
-            return ClosePosition.TOP_RIGHT;
-        } else if (text.equals("center")) {
-            return ClosePosition.CENTER;
-        } else if (text.equals("bottom-left")) {
-            return ClosePosition.BOTTOM_LEFT;
-        } else if (text.equals("bottom-right")) {
-            return ClosePosition.BOTTOM_RIGHT;
-        } else if (text.equals("top-center")) {
-            return ClosePosition.TOP_CENTER;
-        } else if (text.equals("bottom-center")) {
-            return ClosePosition.BOTTOM_CENTER;
-        } else {
-            throw new MraidCommandException("Invalid close position: " + text);
-        }
-    }
-
-    private int parseSize(@NonNull String text) throws MraidCommandException {
-        int result;
-        try {
-            result = Integer.parseInt(text, 10);
-        } catch (NumberFormatException e) {
-            throw new MraidCommandException("Invalid numeric parameter: " + text);
-        }
-        return result;
-    }
-
-    private MraidOrientation parseOrientation(String text) throws MraidCommandException {
-        if ("portrait".equals(text)) {
-            return MraidOrientation.PORTRAIT;
-        } else if ("landscape".equals(text)) {
-            return MraidOrientation.LANDSCAPE;
-        } else if ("none".equals(text)) {
-            return MraidOrientation.NONE;
-        } else {
-            throw new MraidCommandException("Invalid orientation: " + text);
-        }
-    }
-
-    private static boolean parseAllowCustomClose(@NonNull final Map<String, String> params,
-                                                 final boolean allowCustomClose) throws MraidCommandException {
-        boolean useCustomClose = parseBoolean(params.get("shouldUseCustomClose"), false);
-        useCustomClose &= allowCustomClose;
-        return useCustomClose;
-    }
-
-    private int checkRange(int value, int min, int max) throws MraidCommandException {
-        if (value < min || value > max) {
-            throw new MraidCommandException("Integer parameter out of range: " + value);
-        }
-        return value;
-    }
-
-    private static boolean parseBoolean(
-            @Nullable String text, boolean defaultValue) throws MraidCommandException {
-        if (text == null) {
-            return defaultValue;
-        }
-        return parseBoolean(text);
-    }
-
-    private static boolean parseBoolean(final String text) throws MraidCommandException {
-        if ("true".equals(text)) {
-            return true;
-        } else if ("false".equals(text)) {
-            return false;
-        }
-        throw new MraidCommandException("Invalid boolean parameter: " + text);
-    }
-
-    @NonNull
-    private URI parseURI(@Nullable String encodedText, URI defaultValue)
-            throws MraidCommandException {
-        if (encodedText == null) {
-            return defaultValue;
-        }
-        return parseURI(encodedText);
-    }
-
-    @NonNull
-    private URI parseURI(@Nullable String encodedText) throws MraidCommandException {
-        if (encodedText == null) {
-            throw new MraidCommandException("Parameter cannot be null");
-        }
-        try {
-            return new URI(encodedText);
-        } catch (URISyntaxException e) {
-            throw new MraidCommandException("Invalid URL parameter: " + encodedText);
-        }
-    }
-
     void notifyViewability(boolean isViewable) {
+        if (mLastIsViewable != null && mLastIsViewable == isViewable) {
+            return;
+        }
+        mLastIsViewable = isViewable;
         injectJavaScript("mraidbridge.setIsViewable("
                 + isViewable
                 + ")");
     }
 
     void notifyPlacementType(PlacementType placementType) {
+        if (placementType == mLastPlacementType) {
+            return;
+        }
+        mLastPlacementType = placementType;
         injectJavaScript("mraidbridge.setPlacementType("
                 + JSONObject.quote(placementType.toJavascriptString())
                 + ")");
@@ -604,9 +663,13 @@ public class MraidBridge {
 
     void notifySupports(boolean sms, boolean telephone, boolean calendar,
             boolean storePicture, boolean inlineVideo) {
-        injectJavaScript("mraidbridge.setSupports("
-                + sms + "," + telephone + "," + calendar + "," + storePicture + "," + inlineVideo
-                + ")");
+        final String supports = sms + "," + telephone + "," + calendar + "," + storePicture + ","
+                + inlineVideo;
+        if (supports.equals(mLastSupports)) {
+            return;
+        }
+        mLastSupports = supports;
+        injectJavaScript("mraidbridge.setSupports(" + supports + ")");
     }
 
     @NonNull
@@ -619,19 +682,45 @@ public class MraidBridge {
         return rect.width() + "," + rect.height();
     }
 
+    /**
+     * Sends the screen metrics that changed since they were last sent, as one script.
+     */
     public void notifyScreenMetrics(@NonNull final MraidScreenMetrics screenMetrics) {
-        injectJavaScript("mraidbridge.setScreenSize("
-                + stringifySize(screenMetrics.getScreenRectDips())
-                + ");mraidbridge.setMaxSize("
-                + stringifySize(screenMetrics.getRootViewRectDips())
-                + ");mraidbridge.setCurrentPosition("
-                + stringifyRect(screenMetrics.getCurrentAdRectDips())
-                + ");mraidbridge.setDefaultPosition("
-                + stringifyRect(screenMetrics.getDefaultAdRectDips())
-                + ")");
-        injectJavaScript("mraidbridge.notifySizeChangeEvent("
-                + stringifySize(screenMetrics.getCurrentAdRectDips())
-                + ")");
+        final String screenSize = stringifySize(screenMetrics.getScreenRectDips());
+        final String maxSize = stringifySize(screenMetrics.getRootViewRectDips());
+        final String currentPosition = stringifyRect(screenMetrics.getCurrentAdRectDips());
+        final String defaultPosition = stringifyRect(screenMetrics.getDefaultAdRectDips());
+        final String sizeChange = stringifySize(screenMetrics.getCurrentAdRectDips());
+
+        final StringBuilder javascript = new StringBuilder();
+        if (!screenSize.equals(mLastScreenSize)) {
+            javascript.append("mraidbridge.setScreenSize(").append(screenSize).append(");");
+            mLastScreenSize = screenSize;
+        }
+        if (!maxSize.equals(mLastMaxSize)) {
+            javascript.append("mraidbridge.setMaxSize(").append(maxSize).append(");");
+            mLastMaxSize = maxSize;
+        }
+        if (!currentPosition.equals(mLastCurrentPosition)) {
+            javascript.append("mraidbridge.setCurrentPosition(").append(currentPosition)
+                    .append(");");
+            mLastCurrentPosition = currentPosition;
+        }
+        if (!defaultPosition.equals(mLastDefaultPosition)) {
+            javascript.append("mraidbridge.setDefaultPosition(").append(defaultPosition)
+                    .append(");");
+            mLastDefaultPosition = defaultPosition;
+        }
+        // The page ignores size change events without a change, so they are not sent either
+        if (!sizeChange.equals(mLastSizeChange)) {
+            javascript.append("mraidbridge.notifySizeChangeEvent(").append(sizeChange)
+                    .append(");");
+            mLastSizeChange = sizeChange;
+        }
+
+        if (javascript.length() > 0) {
+            injectJavaScript(javascript.toString());
+        }
     }
 
     void notifyReady() {
@@ -0,0 +1,336 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mraid;
+
+import android.net.Uri;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.CloseableLayout.ClosePosition;
+import com.mopub.common.Preconditions;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Turns the {@code mraid://command?key=value} urls a creative navigates to into commands with
+ * validated, typed arguments. Parsing does not touch any view or bridge state, so
+ * {@link MraidBridge} runs it off the main thread and only posts the parsed command back.
+ */
+class MraidCommandParser {
+    private static final String MRAID_SCHEME = "mraid:";
+    private static final String MRAID_URL_PREFIX = "mraid://";
+
+    /**
+     * A command along with its parsed arguments. Arguments the command does not take keep their
+     * defaults. If the arguments were invalid, {@link #getError()} holds the reason, and running
+     * the command must report it instead.
+     */
+    static class ParsedCommand {
+        @NonNull private final MraidJavascriptCommand mCommand;
+        @Nullable private MraidCommandException mError;
+
+        private int mWidth;
+        private int mHeight;
+        private int mOffsetX;
+        private int mOffsetY;
+        @NonNull private ClosePosition mClosePosition = ClosePosition.TOP_RIGHT;
+        private boolean mAllowOffscreen = true;
+        @Nullable private URI mUri;
+        private boolean mShouldUseCustomClose;
+        private boolean mAllowOrientationChange;
+        @NonNull private MraidOrientation mForceOrientation = MraidOrientation.NONE;
+
+        private ParsedCommand(@NonNull final MraidJavascriptCommand command) {
+            mCommand = command;
+        }
+
+        @NonNull
+        MraidJavascriptCommand getCommand() {
+            return mCommand;
+        }
+
+        @Nullable
+        MraidCommandException getError() {
+            return mError;
+        }
+
+        int getWidth() {
+            return mWidth;
+        }
+
+        int getHeight() {
+            return mHeight;
+        }
+
+        int getOffsetX() {
+            return mOffsetX;
+        }
+
+        int getOffsetY() {
+            return mOffsetY;
+        }
+
+        @NonNull
+        ClosePosition getClosePosition() {
+            return mClosePosition;
+        }
+
+        boolean getAllowOffscreen() {
+            return mAllowOffscreen;
+        }
+
+        @Nullable
+        URI getUri() {
+            return mUri;
+        }
+
+        boolean getShouldUseCustomClose() {
+            return mShouldUseCustomClose;
+        }
+
+        boolean getAllowOrientationChange() {
+            return mAllowOrientationChange;
+        }
+
+        @NonNull
+        MraidOrientation getForceOrientation() {
+            return mForceOrientation;
+        }
+    }
+
+    private MraidCommandParser() {
+    }
+
+    static boolean isMraidUrl(@NonNull final String url) {
+        return url.startsWith(MRAID_SCHEME);
+    }
+
+    /**
+     * Parses an {@code mraid:} url in a single pass, without building {@link Uri} objects.
+     *
+     * @return The parsed command, or null if the url is not a valid URI.
+     */
+    @Nullable
+    static ParsedCommand parseUrl(@NonNull final String url) {
+        Preconditions.checkNotNull(url);
+
+        try {
+            // This is purely for validating the URI before proceeding
+            new URI(url);
+        } catch (URISyntaxException e) {
+            return null;
+        }
+
+        if (!url.startsWith(MRAID_URL_PREFIX)) {
+            return parseArguments(MraidJavascriptCommand.UNSPECIFIED,
+                    new HashMap<String, String>());
+        }
+
+        final int hostStart = MRAID_URL_PREFIX.length();
+        int hostEnd = hostStart;
+        while (hostEnd < url.length() && "/?#".indexOf(url.charAt(hostEnd)) < 0) {
+            hostEnd++;
+        }
+        final MraidJavascriptCommand command = MraidJavascriptCommand.fromJavascriptString(
+                url.substring(hostStart, hostEnd));
+
+        final Map<String, String> params = new HashMap<>();
+        final int queryStart = url.indexOf('?', hostEnd);
+        if (queryStart >= 0) {
+            int queryEnd = url.indexOf('#', queryStart);
+            if (queryEnd < 0) {
+                queryEnd = url.length();
+            }
+            putQueryParams(url, queryStart + 1, queryEnd, params);
+        }
+        return parseArguments(command, params);
+    }
+
+    /**
+     * Validates and converts the arguments of a command. Invalid arguments are reported through
+     * {@link ParsedCommand#getError()} rather than thrown, so that the caller can first check
+     * whether the command may run at all.
+     */
+    @NonNull
+    static ParsedCommand parseArguments(@NonNull final MraidJavascriptCommand command,
+            @NonNull final Map<String, String> params) {
+        Preconditions.checkNotNull(command);
+        Preconditions.checkNotNull(params);
+
+        final ParsedCommand parsedCommand = new ParsedCommand(command);
+        try {
+            switch (command) {
+                case RESIZE:
+                    // All these params are required
+                    parsedCommand.mWidth = checkRange(parseSize(params.get("width")), 0, 100000);
+                    parsedCommand.mHeight = checkRange(parseSize(params.get("height")), 0, 100000);
+                    parsedCommand.mOffsetX =
+                            checkRange(parseSize(params.get("offsetX")), -100000, 100000);
+                    parsedCommand.mOffsetY =
+                            checkRange(parseSize(params.get("offsetY")), -100000, 100000);
+                    parsedCommand.mClosePosition = parseClosePosition(
+                            params.get("customClosePosition"), ClosePosition.TOP_RIGHT);
+                    parsedCommand.mAllowOffscreen =
+                            parseBoolean(params.get("allowOffscreen"), true);
+                    break;
+                case EXPAND:
+                    parsedCommand.mUri = parseURI(params.get("url"), null);
+                    parsedCommand.mShouldUseCustomClose =
+                            parseBoolean(params.get("shouldUseCustomClose"), false);
+                    break;
+                case USE_CUSTOM_CLOSE:
+                    parsedCommand.mShouldUseCustomClose =
+                            parseBoolean(params.get("shouldUseCustomClose"), false);
+                    break;
+                case OPEN:
+                    parsedCommand.mUri = parseURI(params.get("url"));
+                    break;
+                case SET_ORIENTATION_PROPERTIES:
+                    parsedCommand.mAllowOrientationChange =
+                            parseBoolean(params.get("allowOrientationChange"));
+                    parsedCommand.mForceOrientation =
+                            parseOrientation(params.get("forceOrientation"));
+                    break;
+                default:
+                    break;
+            }
+        } catch (MraidCommandException e) {
+            parsedCommand.mError = e;
+        }
+        return parsedCommand;
+    }
+
+    /**
+     * Decodes the query in the given range of the url into the params, joining repeated keys
+     * with commas the way {@link com.mopub.network.MoPubRequestUtils#getQueryParamMap(Uri)}
+     * does.
+     */
+    private static void putQueryParams(@NonNull final String url, final int start, final int end,
+            @NonNull final Map<String, String> params) {
+        int paramStart = start;
+        while (paramStart < end) {
+            int paramEnd = url.indexOf('&', paramStart);
+            if (paramEnd < 0 || paramEnd > end) {
+                paramEnd = end;
+            }
+            if (paramEnd > paramStart) {
+                int separator = url.indexOf('=', paramStart);
+                if (separator < 0 || separator > paramEnd) {
+                    separator = paramEnd;
+                }
+                final String key = Uri.decode(url.substring(paramStart, separator));
+                final String value = separator < paramEnd
+                        ? Uri.decode(url.substring(separator + 1, paramEnd))
+                        : "";
+                final String existingValue = params.get(key);
+                params.put(key, existingValue == null ? value : existingValue + "," + value);
+            }
+            paramStart = paramEnd + 1;
+        }
+    }
+
+    @NonNull
+    private static ClosePosition parseClosePosition(@Nullable final String text,
+            @NonNull final ClosePosition defaultValue) throws MraidCommandException {
+        if (TextUtils.isEmpty(text)) {
+            return defaultValue;
+        }
+
+        if (text.equals("top-left")) {
+            return ClosePosition.TOP_LEFT;
+        } else if (text.equals("top-right")) {
+            return ClosePosition.TOP_RIGHT;
+        } else if (text.equals("center")) {
+            return ClosePosition.CENTER;
+        } else if (text.equals("bottom-left")) {
+            return ClosePosition.BOTTOM_LEFT;
+        } else if (text.equals("bottom-right")) {
+            return ClosePosition.BOTTOM_RIGHT;
+        } else if (text.equals("top-center")) {
+            return ClosePosition.TOP_CENTER;
+        } else if (text.equals("bottom-center")) {
+            return ClosePosition.BOTTOM_CENTER;
+        } else {
+            throw new MraidCommandException("Invalid close position: " + text);
+        }
+    }
+
+    private static int parseSize(@Nullable final String text) throws MraidCommandException {
+        int result;
+        try {
+            result = Integer.parseInt(text, 10);
+        } catch (NumberFormatException e) {
+            throw new MraidCommandException("Invalid numeric parameter: " + text);
+        }
+        return result;
+    }
+
+    @NonNull
+    private static MraidOrientation parseOrientation(@Nullable final String text)
+            throws MraidCommandException {
+        if ("portrait".equals(text)) {
+            return MraidOrientation.PORTRAIT;
+        } else if ("landscape".equals(text)) {
+            return MraidOrientation.LANDSCAPE;
+        } else if ("none".equals(text)) {
+            return MraidOrientation.NONE;
+        } else {
+            throw new MraidCommandException("Invalid orientation: " + text);
+        }
+    }
+
+    private static int checkRange(final int value, final int min, final int max)
+            throws MraidCommandException {
+        if (value < min || value > max) {
+            throw new MraidCommandException("Integer parameter out of range: " + value);
+        }
+        return value;
+    }
+
+    private static boolean parseBoolean(@Nullable final String text, final boolean defaultValue)
+            throws MraidCommandException {
+        if (text == null) {
+            return defaultValue;
+        }
+        return parseBoolean(text);
+    }
+
+    private static boolean parseBoolean(@Nullable final String text)
+            throws MraidCommandException {
+        if ("true".equals(text)) {
+            return true;
+        } else if ("false".equals(text)) {
+            return false;
+        }
+        throw new MraidCommandException("Invalid boolean parameter: " + text);
+    }
+
+    @Nullable
+    private static URI parseURI(@Nullable final String encodedText,
+            @Nullable final URI defaultValue) throws MraidCommandException {
+        if (encodedText == null) {
+            return defaultValue;
+        }
+        return parseURI(encodedText);
+    }
+
+    @NonNull
+    private static URI parseURI(@Nullable final String encodedText)
+            throws MraidCommandException {
+        if (encodedText == null) {
+            throw new MraidCommandException("Parameter cannot be null");
+        }
+        try {
+            return new URI(encodedText);
+        } catch (URISyntaxException e) {
+            throw new MraidCommandException("Invalid URL parameter: " + encodedText);
+        }
+    }
+}
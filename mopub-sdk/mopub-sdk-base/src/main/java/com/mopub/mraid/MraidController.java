@@ -46,6 +46,7 @@ import com.mopub.mobileads.BaseWebView;
 import com.mopub.mobileads.BaseWebViewViewability;
 import com.mopub.mobileads.MoPubErrorCode;
 import com.mopub.mobileads.MoPubWebViewController;
+import com.mopub.mobileads.WebViewPool;
 import com.mopub.mobileads.util.WebViews;
 import com.mopub.mraid.MraidBridge.MraidBridgeListener;
 import com.mopub.mraid.MraidBridge.MraidWebView;
@@ -185,6 +186,7 @@ public class MraidController extends MoPubWebViewController {
     private final MraidBridgeListener mMraidBridgeListener = new MraidBridgeListener() {
         @Override
         public void onPageLoaded() {
+            recordCreativeLoaded();
             handlePageLoad();
             if (mBaseWebViewListener != null) {
                 mBaseWebViewListener.onLoaded(mDefaultAdContainer);
@@ -373,6 +375,14 @@ public class MraidController extends MoPubWebViewController {
         return mTwoPartBridge.isAttached() ? mTwoPartWebView : (MraidWebView) mWebView;
     }
 
+    /**
+     * @return The number of scripts evaluated in this creative's WebViews so far, which is the
+     * number of times the SDK crossed into the renderer to notify the creative.
+     */
+    public int getInjectedScriptCount() {
+        return mMraidBridge.getInjectedScriptCount() + mTwoPartBridge.getInjectedScriptCount();
+    }
+
     /**
      * Checks that the hardware acceleration is enabled.
      * <p>
@@ -921,7 +931,7 @@ public class MraidController extends MoPubWebViewController {
 
     @Override
     public BaseWebView createWebView() {
-        return new MraidWebView(mContext);
+        return WebViewPool.leaseMraidWebView(mContext);
     }
 
     @Override
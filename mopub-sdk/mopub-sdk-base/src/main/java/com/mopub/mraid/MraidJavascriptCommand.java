@@ -6,6 +6,9 @@ package com.mopub.mraid;
 
 import androidx.annotation.NonNull;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public enum MraidJavascriptCommand {
     CLOSE("close"),
     EXPAND("expand") {
@@ -54,14 +57,19 @@ public enum MraidJavascriptCommand {
         mJavascriptString = javascriptString;
     }
 
-    static MraidJavascriptCommand fromJavascriptString(@NonNull String string) {
+    // Built once, since creatives may send commands many times a second
+    private static final Map<String, MraidJavascriptCommand> sCommandsByJavascriptString =
+            new HashMap<>();
+
+    static {
         for (MraidJavascriptCommand command : MraidJavascriptCommand.values()) {
-            if (command.mJavascriptString.equals(string)) {
-                return command;
-            }
+            sCommandsByJavascriptString.put(command.mJavascriptString, command);
         }
+    }
 
-        return UNSPECIFIED;
+    static MraidJavascriptCommand fromJavascriptString(@NonNull String string) {
+        final MraidJavascriptCommand command = sCommandsByJavascriptString.get(string);
+        return command != null ? command : UNSPECIFIED;
     }
 
     String toJavascriptString() {
@@ -14,6 +14,7 @@ import androidx.annotation.Nullable;
 
 import com.mopub.common.AdFormat;
 import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.mobileads.MoPubError;
 import com.mopub.volley.Request;
@@ -22,6 +23,8 @@ import com.mopub.volley.Response;
 import com.mopub.volley.VolleyError;
 
 import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
 
 import static com.mopub.common.logging.MoPubLog.AdLogEvent.CUSTOM;
 import static com.mopub.common.logging.MoPubLog.AdLogEvent.REQUESTED;
@@ -38,6 +41,33 @@ public class AdLoader {
         void onSuccess(AdResponse response);
     }
 
+    /**
+     * Prepares the creative of a waterfall line item, such as its VAST document or video, while
+     * the line item before it is still loading. If the earlier line item fails, the next one
+     * starts from the warmed up caches instead of from scratch.
+     */
+    public interface Prefetcher {
+        /**
+         * Starts preparing the creative. Responses this prefetcher cannot prepare are ignored.
+         */
+        void prefetch(@NonNull Context context, @NonNull AdResponse adResponse);
+
+        /**
+         * Stops preparing the creative, because an earlier line item loaded or the waterfall
+         * ended.
+         */
+        void cancel(@NonNull AdResponse adResponse);
+    }
+
+    @VisibleForTesting
+    static final int MAX_PREFETCHES_PER_AD_UNIT = 1;
+
+    @Nullable
+    private static volatile Prefetcher sPrefetcher;
+    // Number of line items currently prefetching, by ad unit id. Guarded by AdLoader.class.
+    @NonNull
+    private static final Map<String, Integer> sPrefetchCounts = new HashMap<>();
+
     private final MultiAdRequest.Listener mAdListener;
     private final WeakReference<Context> mContext;
     private final Listener mOriginalListener;
@@ -52,6 +82,10 @@ public class AdLoader {
     protected AdResponse mLastDeliveredResponse = null;
     @Nullable
     private ContentDownloadAnalytics mDownloadTracker;
+    @Nullable
+    private AdResponse mPrefetchingResponse;
+    @Nullable
+    private Prefetcher mActivePrefetcher;
 
     private volatile boolean mRunning;
     private volatile boolean mFailed;
@@ -72,6 +106,25 @@ public class AdLoader {
                     @Nullable final String adUnitId,
                     @NonNull final Context context,
                     @NonNull final Listener listener) {
+        this(url, null, adFormat, adUnitId, context, listener);
+    }
+
+    /**
+     * @param url             initial URL to download ads from ads.mopub.com
+     * @param generatedParams unencoded query parameters of the url, from
+     *                        {@link com.mopub.common.BaseUrlGenerator#getGeneratedParams}, so
+     *                        the request body is built without parsing the url
+     * @param adFormat        banner, interstitial, etc.
+     * @param adUnitId        ad unit id will be sent to the server
+     * @param context         required by {@link Networking} class
+     * @param listener        callback to return results
+     */
+    public AdLoader(@NonNull final String url,
+                    @Nullable final Map<String, String> generatedParams,
+                    @NonNull final AdFormat adFormat,
+                    @Nullable final String adUnitId,
+                    @NonNull final Context context,
+                    @NonNull final Listener listener) {
         Preconditions.checkArgument(!TextUtils.isEmpty(url));
         Preconditions.checkNotNull(adFormat);
         Preconditions.checkNotNull(context);
@@ -107,6 +160,7 @@ public class AdLoader {
         mRunning = false;
         mFailed = false;
         mMultiAdRequest = new MultiAdRequest(url,
+                generatedParams,
                 adFormat,
                 adUnitId,
                 context,
@@ -114,6 +168,18 @@ public class AdLoader {
         );
     }
 
+    /**
+     * Turns on speculative prefetching of the next waterfall line item. While a line item is
+     * loading, the next one is handed to the prefetcher, as long as its ad unit has fewer than
+     * {@link #MAX_PREFETCHES_PER_AD_UNIT} prefetches running. The prefetch is cancelled once a
+     * line item loads or the waterfall ends. Prefetching is off by default.
+     *
+     * @param prefetcher the prefetcher to use, or null to turn prefetching off
+     */
+    public static void setPrefetcher(@Nullable final Prefetcher prefetcher) {
+        sPrefetcher = prefetcher;
+    }
+
     /**
      * @return true if more ads available locally or on the server, otherwise false
      */
@@ -185,6 +251,10 @@ public class AdLoader {
             if (mMultiAdResponse.hasNext()) {
                 // logic to return next preloaded AdResponse item
                 final AdResponse adResponse = mMultiAdResponse.next();
+                if (adResponse == mPrefetchingResponse) {
+                    // The prefetch has done its job, so it is not cancelled
+                    releasePrefetch();
+                }
                 mHandler.post(new Runnable() {
                     @Override
                     public void run() {
@@ -223,6 +293,7 @@ public class AdLoader {
      */
     public void creativeDownloadSuccess() {
         mContentDownloaded = true;
+        cancelPrefetch();
 
         if (null == mDownloadTracker) {
             MoPubLog.log(CUSTOM, "Response analytics should not be null here");
@@ -273,9 +344,9 @@ public class AdLoader {
             return null;
         }
 
-        String bodyString = "<no body>";
-        if (request.getBody() != null) {
-            bodyString = new String(request.getBody());
+        String bodyString = request.getBodyString();
+        if (bodyString == null) {
+            bodyString = "<no body>";
         }
         MoPubLog.log(REQUESTED, request.getUrl(), bodyString);
 
@@ -295,6 +366,7 @@ public class AdLoader {
         Preconditions.checkNotNull(volleyError);
 
         mLastDeliveredResponse = null;
+        cancelPrefetch();
         if (mOriginalListener != null) {
             if (volleyError instanceof MoPubNetworkError) {
                 mOriginalListener.onErrorResponse(volleyError);
@@ -322,6 +394,96 @@ public class AdLoader {
             mLastDeliveredResponse = adResponse;
             mOriginalListener.onSuccess(adResponse);
         }
+        prefetchNext();
+    }
+
+    /**
+     * Hands the line item after the one being loaded to the prefetcher, if prefetching is on and
+     * the ad unit has a prefetch slot free.
+     */
+    private void prefetchNext() {
+        final Prefetcher prefetcher = sPrefetcher;
+        final Context context = mContext.get();
+        final MultiAdResponse multiAdResponse = mMultiAdResponse;
+        if (prefetcher == null || context == null || multiAdResponse == null
+                || mContentDownloaded) {
+            return;
+        }
+
+        final AdResponse nextResponse = multiAdResponse.peek();
+        if (nextResponse == null || nextResponse == mPrefetchingResponse) {
+            return;
+        }
+
+        cancelPrefetch();
+        final String adUnitId = getPrefetchKey(nextResponse);
+        synchronized (AdLoader.class) {
+            final int prefetchCount = getPrefetchCount(adUnitId);
+            if (prefetchCount >= MAX_PREFETCHES_PER_AD_UNIT) {
+                return;
+            }
+            sPrefetchCounts.put(adUnitId, prefetchCount + 1);
+        }
+
+        MoPubLog.log(CUSTOM, "Prefetching next line item for ad unit " + adUnitId);
+        mPrefetchingResponse = nextResponse;
+        mActivePrefetcher = prefetcher;
+        prefetcher.prefetch(context, nextResponse);
+    }
+
+    /**
+     * Stops the running prefetch, if any, and frees its slot.
+     */
+    public void cancelPrefetch() {
+        final AdResponse adResponse = mPrefetchingResponse;
+        final Prefetcher prefetcher = mActivePrefetcher;
+        if (adResponse == null || prefetcher == null) {
+            return;
+        }
+
+        releasePrefetch();
+        prefetcher.cancel(adResponse);
+    }
+
+    private void releasePrefetch() {
+        final AdResponse adResponse = mPrefetchingResponse;
+        if (adResponse == null) {
+            return;
+        }
+        mPrefetchingResponse = null;
+        mActivePrefetcher = null;
+
+        final String adUnitId = getPrefetchKey(adResponse);
+        synchronized (AdLoader.class) {
+            final int prefetchCount = getPrefetchCount(adUnitId) - 1;
+            if (prefetchCount > 0) {
+                sPrefetchCounts.put(adUnitId, prefetchCount);
+            } else {
+                sPrefetchCounts.remove(adUnitId);
+            }
+        }
+    }
+
+    @NonNull
+    private static String getPrefetchKey(@NonNull final AdResponse adResponse) {
+        final String adUnitId = adResponse.getAdUnitId();
+        return adUnitId == null ? "" : adUnitId;
+    }
+
+    private static int getPrefetchCount(@NonNull final String adUnitId) {
+        final Integer prefetchCount = sPrefetchCounts.get(adUnitId);
+        return prefetchCount == null ? 0 : prefetchCount;
+    }
+
+    @VisibleForTesting
+    static synchronized int getPrefetchCountForTesting(@NonNull final String adUnitId) {
+        return getPrefetchCount(adUnitId);
+    }
+
+    @VisibleForTesting
+    public static synchronized void clearPrefetchesForTesting() {
+        sPrefetcher = null;
+        sPrefetchCounts.clear();
     }
 
     public boolean isRunning() {
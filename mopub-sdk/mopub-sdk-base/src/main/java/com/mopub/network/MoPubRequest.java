@@ -12,16 +12,22 @@ import androidx.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.mopub.common.Preconditions;
+import com.mopub.common.logging.MoPubLog;
 import com.mopub.common.util.ResponseHeader;
 import com.mopub.volley.NetworkResponse;
 import com.mopub.volley.Request;
 import com.mopub.volley.Response;
 import com.mopub.volley.toolbox.HttpHeaderParser;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 
 /**
  * Changes the type of request it is based on whether or not the request is going to MoPub's ad
@@ -31,18 +37,39 @@ import java.util.TreeMap;
 public abstract class MoPubRequest<T> extends Request<T>  {
 
     private static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+    private static final String GZIP_ENCODING = "gzip";
 
     @NonNull private final String mOriginalUrl;
+    @Nullable private final Map<String, String> mGeneratedParams;
     @NonNull private final Context mContext;
+    private final boolean mGzipBody;
+    // Built once and reused by logging, retries and the body itself
+    @Nullable private String mBodyString;
+    @Nullable private byte[] mBodyBytes;
+    private boolean mBodyBuilt;
+
+    public MoPubRequest(@NonNull final Context context,
+                        @NonNull final String url,
+                        @Nullable final Response.ErrorListener listener) {
+        this(context, url, null, listener);
+    }
 
+    /**
+     * @param generatedParams The unencoded query parameters the url was built from, if a
+     *                        {@link com.mopub.common.BaseUrlGenerator} built it. The JSON body is
+     *                        built from them instead of parsing the url.
+     */
     public MoPubRequest(@NonNull final Context context,
                         @NonNull final String url,
+                        @Nullable final Map<String, String> generatedParams,
                         @Nullable final Response.ErrorListener listener) {
         super(MoPubRequestUtils.chooseMethod(url), MoPubRequestUtils.truncateQueryParamsIfPost(url),
                 listener);
 
         mOriginalUrl = url;
+        mGeneratedParams = generatedParams;
         mContext = context.getApplicationContext();
+        mGzipBody = Networking.isRequestBodyGzipEnabled() && MoPubRequestUtils.isMoPubRequest(url);
     }
 
     @Override
@@ -51,7 +78,7 @@ public abstract class MoPubRequest<T> extends Request<T>  {
             return null;
         }
 
-        return MoPubRequestUtils.convertQueryToMap(mContext, mOriginalUrl);
+        return MoPubRequestUtils.convertQueryToMap(mContext, mOriginalUrl, mGeneratedParams);
     }
 
     @Override
@@ -62,13 +89,64 @@ public abstract class MoPubRequest<T> extends Request<T>  {
         return super.getBodyContentType();
     }
 
+    /**
+     * @return The JSON body before compression, or null if this request has no body.
+     */
+    @Nullable
+    public synchronized String getBodyString() {
+        buildBody();
+        return mBodyString;
+    }
+
     @Override
     public byte[] getBody() {
-        final String body = MoPubRequestUtils.generateBodyFromParams(getParams(), getUrl());
-        if (body == null) {
+        final String body;
+        final byte[] bodyBytes;
+        synchronized (this) {
+            buildBody();
+            body = mBodyString;
+            bodyBytes = mBodyBytes;
+        }
+        if (bodyBytes == null) {
             return null;
         }
-        return body.getBytes();
+
+        final int uncompressedLength = mGzipBody ? body.getBytes().length : bodyBytes.length;
+        NetworkTrafficStats.onRequestBody(uncompressedLength, bodyBytes.length);
+        return bodyBytes;
+    }
+
+    /**
+     * Builds the JSON body, and compresses it if gzip is on, the first time either is needed.
+     */
+    private void buildBody() {
+        if (mBodyBuilt) {
+            return;
+        }
+        mBodyBuilt = true;
+
+        mBodyString = MoPubRequestUtils.generateBodyFromParams(getParams(), getUrl());
+        if (mBodyString == null) {
+            return;
+        }
+
+        final byte[] bodyBytes = mBodyString.getBytes();
+        if (!mGzipBody) {
+            mBodyBytes = bodyBytes;
+            return;
+        }
+
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(bodyBytes.length / 2);
+        try {
+            final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed);
+            gzipOutputStream.write(bodyBytes);
+            gzipOutputStream.close();
+        } catch (IOException e) {
+            // Writing to memory does not fail, but the header has already promised gzip.
+            MoPubLog.log(CUSTOM, "Unable to gzip request body.", e);
+            return;
+        }
+        mBodyBytes = compressed.toByteArray();
     }
 
     @NonNull
@@ -124,6 +202,10 @@ public abstract class MoPubRequest<T> extends Request<T>  {
             headers.put(ResponseHeader.ACCEPT_LANGUAGE.getKey(), languageCode);
         }
 
+        if (mGzipBody) {
+            headers.put(ResponseHeader.CONTENT_ENCODING.getKey(), GZIP_ENCODING);
+        }
+
         return headers;
     }
 }
@@ -62,10 +62,25 @@ public class MoPubRequestUtils {
     @NonNull
     public static Map<String, String> convertQueryToMap(@NonNull final Context context,
             @NonNull final String url) {
+        return convertQueryToMap(context, url, null);
+    }
+
+    /**
+     * @param generatedParams The unencoded query parameters the url was built from, as returned
+     *                        by {@link com.mopub.common.BaseUrlGenerator#getGeneratedParams}.
+     *                        When given, the body is built from them instead of parsing the url.
+     */
+    @NonNull
+    public static Map<String, String> convertQueryToMap(@NonNull final Context context,
+            @NonNull final String url, @Nullable final Map<String, String> generatedParams) {
         Preconditions.checkNotNull(context);
         Preconditions.checkNotNull(url);
 
         HurlStack.UrlRewriter rewriter = Networking.getUrlRewriter();
+        if (generatedParams != null && rewriter instanceof PlayServicesUrlRewriter) {
+            return ((PlayServicesUrlRewriter) rewriter).rewriteParams(generatedParams);
+        }
+
         final Uri uri = Uri.parse(rewriter.rewriteUrl(url));
         return getQueryParamMap(uri);
     }
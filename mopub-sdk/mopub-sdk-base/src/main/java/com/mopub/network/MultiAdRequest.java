@@ -19,6 +19,8 @@ import com.mopub.volley.NetworkResponse;
 import com.mopub.volley.Response;
 import com.mopub.volley.toolbox.HttpHeaderParser;
 
+import java.util.Map;
+
 import static com.mopub.common.logging.MoPubLog.AdLogEvent.CUSTOM;
 
 /**
@@ -46,7 +48,16 @@ public class MultiAdRequest extends MoPubRequest<MultiAdResponse> {
                    @Nullable final String adUnitId,
                    @NonNull final Context context,
                    @NonNull final Listener listener) {
-        super(context, clearUrlIfSdkNotInitialized(url), listener);
+        this(url, null, adFormat, adUnitId, context, listener);
+    }
+
+    MultiAdRequest(@NonNull final String url,
+                   @Nullable final Map<String, String> generatedParams,
+                   @NonNull final AdFormat adFormat,
+                   @Nullable final String adUnitId,
+                   @NonNull final Context context,
+                   @NonNull final Listener listener) {
+        super(context, clearUrlIfSdkNotInitialized(url), generatedParams, listener);
         Preconditions.checkNotNull(url);
         Preconditions.checkNotNull(adFormat);
         Preconditions.checkNotNull(context);
@@ -35,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import static com.mopub.common.DataKeys.ADM_KEY;
@@ -64,7 +65,8 @@ public class MultiAdResponse implements Iterator<AdResponse> {
     private static final String EMPTY_JSON_ARRAY = "[]";
 
     @NonNull
-    private final Iterator<AdResponse> mResponseIterator;
+    private final List<AdResponse> mResponses;
+    private int mNextIndex;
 
     @NonNull
     private String mFailUrl;
@@ -174,10 +176,10 @@ public class MultiAdResponse implements Iterator<AdResponse> {
                 MoPubLog.log(CUSTOM, "Unexpected error parsing response item. " + ex.getMessage());
             }
         }
-        mResponseIterator = list.iterator();
+        mResponses = list;
 
         // validate if there is any valid ad response
-        if (!mResponseIterator.hasNext()) {
+        if (mResponses.isEmpty()) {
             Integer refreshTimeMilliseconds = Constants.THIRTY_SECONDS_MILLIS;
             if (adResponseClear != null) {
                 refreshTimeMilliseconds = adResponseClear.getRefreshTimeMillis();
@@ -191,13 +193,25 @@ public class MultiAdResponse implements Iterator<AdResponse> {
 
     @Override
     public boolean hasNext() {
-        return mResponseIterator.hasNext();
+        return mNextIndex < mResponses.size();
     }
 
     @NonNull
     @Override
     public AdResponse next() {
-        return mResponseIterator.next();
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return mResponses.get(mNextIndex++);
+    }
+
+    /**
+     * @return The {@link AdResponse} that the next call to {@link #next()} will return, or null
+     * if there is none.
+     */
+    @Nullable
+    public AdResponse peek() {
+        return hasNext() ? mResponses.get(mNextIndex) : null;
     }
 
     boolean isWaterfallFinished() {
@@ -402,6 +416,15 @@ public class MultiAdResponse implements Iterator<AdResponse> {
         serverExtras.put(DataKeys.VAST_CLICK_EXP_ENABLED_KEY,
                 Boolean.toString(shouldEnableVastClickInt == 1));
 
+        // Seconds of VAST video to cache before playback may start; 0 waits for the whole video
+        final int progressivePlaybackSeconds = extractIntegerHeader(jsonHeaders,
+                ResponseHeader.VAST_PROGRESSIVE_PLAYBACK_SECONDS,
+                0);
+        if (progressivePlaybackSeconds > 0) {
+            serverExtras.put(DataKeys.VAST_PROGRESSIVE_PLAYBACK_SECONDS_KEY,
+                    Integer.toString(progressivePlaybackSeconds));
+        }
+
         serverExtras.put(DataKeys.ADUNIT_FORMAT, adUnitFormat);
 
         if (eventDataIsInResponseBody(adTypeString, fullAdTypeString)) {
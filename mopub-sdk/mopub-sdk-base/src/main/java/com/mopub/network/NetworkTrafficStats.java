@@ -0,0 +1,70 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import com.mopub.common.VisibleForTesting;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the body bytes of the SDK's requests and responses, both before and after gzip, so the
+ * savings from compression can be measured. Bodies that are not compressed count the same on
+ * both sides.
+ */
+public class NetworkTrafficStats {
+    private static final AtomicLong sRequestBodyBytes = new AtomicLong();
+    private static final AtomicLong sRequestBodyBytesSent = new AtomicLong();
+    private static final AtomicLong sResponseBodyBytes = new AtomicLong();
+    private static final AtomicLong sResponseBodyBytesReceived = new AtomicLong();
+
+    private NetworkTrafficStats() {
+    }
+
+    static void onRequestBody(final long bodyBytes, final long bytesSent) {
+        sRequestBodyBytes.addAndGet(bodyBytes);
+        sRequestBodyBytesSent.addAndGet(bytesSent);
+    }
+
+    static void onResponseBody(final long bodyBytes, final long bytesReceived) {
+        sResponseBodyBytes.addAndGet(bodyBytes);
+        sResponseBodyBytesReceived.addAndGet(bytesReceived);
+    }
+
+    /**
+     * @return The size of all request bodies before compression.
+     */
+    public static long getRequestBodyBytes() {
+        return sRequestBodyBytes.get();
+    }
+
+    /**
+     * @return The size of all request bodies as they were sent.
+     */
+    public static long getRequestBodyBytesSent() {
+        return sRequestBodyBytesSent.get();
+    }
+
+    /**
+     * @return The size of all response bodies after decompression.
+     */
+    public static long getResponseBodyBytes() {
+        return sResponseBodyBytes.get();
+    }
+
+    /**
+     * @return The size of all response bodies as they were received.
+     */
+    public static long getResponseBodyBytesReceived() {
+        return sResponseBodyBytesReceived.get();
+    }
+
+    @VisibleForTesting
+    static void clearForTesting() {
+        sRequestBodyBytes.set(0);
+        sRequestBodyBytesSent.set(0);
+        sResponseBodyBytes.set(0);
+        sResponseBodyBytesReceived.set(0);
+    }
+}
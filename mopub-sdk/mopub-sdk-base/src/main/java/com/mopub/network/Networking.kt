@@ -52,6 +52,14 @@ object Networking {
     private var maxWidthImageLoader: MaxWidthImageLoader? = null
     private var urlRewriter : HurlStack.UrlRewriter? = null
 
+    /**
+     * Whether the JSON bodies of requests to MoPub are sent gzip compressed. Off by default.
+     * Requests pick this up when they are created.
+     */
+    @JvmStatic
+    @Volatile
+    var isRequestBodyGzipEnabled = false
+
     /**
      * Gets the previously cached WebView user agent. This returns the default userAgent if the
      * WebView user agent has not been initialized yet.
@@ -5,6 +5,7 @@
 package com.mopub.network;
 
 import android.net.Uri;
+import androidx.annotation.NonNull;
 
 import com.mopub.common.ClientMetadata;
 import com.mopub.common.MoPub;
@@ -12,6 +13,9 @@ import com.mopub.common.privacy.AdvertisingId;
 import com.mopub.common.privacy.MoPubIdentifier;
 import com.mopub.volley.toolbox.HurlStack;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static com.mopub.common.Constants.TAS_AUTHORIZED;
 import static com.mopub.common.Constants.TAS_DENIED;
 
@@ -24,6 +28,8 @@ public class PlayServicesUrlRewriter implements HurlStack.UrlRewriter {
     public static final String DO_NOT_TRACK_TEMPLATE = "mp_tmpl_do_not_track";
     public static final String MOPUB_ID_TEMPLATE = "mp_tmpl_mopub_id";
     public static final String TAS_TEMPLATE = "mp_tmpl_tas";
+    private static final String TEMPLATE_PREFIX = "mp_tmpl_";
+    private static final String IFA_KEY = "ifa";
 
     public PlayServicesUrlRewriter() {
     }
@@ -49,4 +55,43 @@ public class PlayServicesUrlRewriter implements HurlStack.UrlRewriter {
         toReturn = toReturn.replace(MOPUB_ID_TEMPLATE,  Uri.encode(info.getIdentifier(false)));
         return toReturn;
     }
+
+    /**
+     * Replaces the same templates as {@link #rewriteUrl(String)}, but in the values of a request's
+     * parameters, so the values are not url encoded.
+     *
+     * @param params The parameters, which are not modified.
+     * @return A new map with the templates replaced.
+     */
+    @NonNull
+    public Map<String, String> rewriteParams(@NonNull final Map<String, String> params) {
+        final Map<String, String> rewritten = new HashMap<>(params);
+        ClientMetadata clientMetadata = ClientMetadata.getInstance();
+        if (clientMetadata == null) {
+            return rewritten;
+        }
+        MoPubIdentifier identifier = clientMetadata.getMoPubIdentifier();
+        AdvertisingId info = identifier.getAdvertisingInfo();
+        final boolean canSendIfa = MoPub.canCollectPersonalInformation() && !info.isDoNotTrack();
+
+        for (final Map.Entry<String, String> param : params.entrySet()) {
+            String value = param.getValue();
+            if (value == null || !value.contains(TEMPLATE_PREFIX)) {
+                continue;
+            }
+            if (!canSendIfa && IFA_KEY.equals(param.getKey()) && IFA_TEMPLATE.equals(value)) {
+                rewritten.remove(IFA_KEY);
+                continue;
+            }
+
+            value = value.replace(DO_NOT_TRACK_TEMPLATE, info.isDoNotTrack() ? "1" : "0");
+            value = value.replace(TAS_TEMPLATE, info.isDoNotTrack() ? TAS_DENIED : TAS_AUTHORIZED);
+            if (canSendIfa) {
+                value = value.replace(IFA_TEMPLATE, info.getIdentifier(true));
+            }
+            value = value.replace(MOPUB_ID_TEMPLATE, info.getIdentifier(false));
+            rewritten.put(param.getKey(), value);
+        }
+        return rewritten;
+    }
 }
@@ -7,15 +7,22 @@ package com.mopub.network;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.mopub.common.VisibleForTesting;
 import com.mopub.common.util.ResponseHeader;
 import com.mopub.volley.AuthFailureError;
+import com.mopub.volley.Header;
 import com.mopub.volley.Request;
 import com.mopub.volley.toolbox.HttpResponse;
 import com.mopub.volley.toolbox.HurlStack;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
 
 import javax.net.ssl.SSLSocketFactory;
 
@@ -24,8 +31,14 @@ import javax.net.ssl.SSLSocketFactory;
  *
  * Used by Networking's singleton RequestQueue to ensure all network requests use WebView's
  * User-Agent.
+ *
+ * Asks MoPub for gzip responses itself instead of relying on HttpURLConnection's transparent
+ * gzip, so that {@link NetworkTrafficStats} sees both the compressed and the decompressed sizes.
+ * Requests to other hosts, such as trackers and redirects, are left to HttpURLConnection.
  */
 public class RequestQueueHttpStack extends HurlStack {
+    private static final String GZIP_ENCODING = "gzip";
+
     @NonNull private final String mUserAgent;
 
     public RequestQueueHttpStack(@NonNull final String userAgent) {
@@ -45,7 +58,16 @@ public class RequestQueueHttpStack extends HurlStack {
 
     @Override
     public HttpResponse executeRequest(@NonNull final Request<?> request,
-            @Nullable Map<String, String> additionalHeaders) throws IOException, AuthFailureError {
+            @Nullable final Map<String, String> additionalHeaders)
+            throws IOException, AuthFailureError {
+        return decodeResponse(
+                super.executeRequest(request, addHeaders(request, additionalHeaders)));
+    }
+
+    @VisibleForTesting
+    @NonNull
+    Map<String, String> addHeaders(@NonNull final Request<?> request,
+            @Nullable Map<String, String> additionalHeaders) {
         // If the headers map is null or empty, make a new once since Collections.emptyMap()
         // returns an unmodifiable map.
         if (additionalHeaders == null || additionalHeaders.isEmpty()) {
@@ -53,7 +75,104 @@ public class RequestQueueHttpStack extends HurlStack {
         }
 
         additionalHeaders.put(ResponseHeader.USER_AGENT.getKey(), mUserAgent);
+        if (MoPubRequestUtils.isMoPubRequest(request.getUrl())) {
+            additionalHeaders.put(ResponseHeader.ACCEPT_ENCODING.getKey(), GZIP_ENCODING);
+        }
+        return additionalHeaders;
+    }
+
+    /**
+     * Decompresses a gzip response while it is read and counts its bytes. The returned response
+     * has no Content-Encoding or Content-Length header, since they describe the compressed body.
+     */
+    @VisibleForTesting
+    @NonNull
+    static HttpResponse decodeResponse(@NonNull final HttpResponse response) throws IOException {
+        final InputStream content = response.getContent();
+        if (content == null) {
+            return response;
+        }
+
+        boolean isGzip = false;
+        for (final Header header : response.getHeaders()) {
+            if (ResponseHeader.CONTENT_ENCODING.getKey().equalsIgnoreCase(header.getName())
+                    && GZIP_ENCODING.equalsIgnoreCase(header.getValue().trim())) {
+                isGzip = true;
+                break;
+            }
+        }
 
-        return super.executeRequest(request, additionalHeaders);
+        final CountingInputStream received = new CountingInputStream(content, null);
+        if (!isGzip) {
+            return new HttpResponse(response.getStatusCode(), response.getHeaders(),
+                    response.getContentLength(), new CountingInputStream(received, received));
+        }
+
+        final List<Header> decodedHeaders = new ArrayList<>(response.getHeaders().size());
+        for (final Header header : response.getHeaders()) {
+            if (!ResponseHeader.CONTENT_ENCODING.getKey().equalsIgnoreCase(header.getName())
+                    && !ResponseHeader.CONTENT_LENGTH.getKey().equalsIgnoreCase(header.getName())) {
+                decodedHeaders.add(header);
+            }
+        }
+        return new HttpResponse(response.getStatusCode(), decodedHeaders, -1,
+                new CountingInputStream(new GZIPInputStream(received), received));
+    }
+
+    /**
+     * Counts the bytes read through it. When it wraps the outermost stream of a response, it
+     * reports the count, along with the count of the stream that came off the network, once it
+     * is closed.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        @Nullable private final CountingInputStream mReceived;
+        private long mCount;
+        private boolean mClosed;
+
+        CountingInputStream(@NonNull final InputStream in,
+                @Nullable final CountingInputStream received) {
+            super(in);
+            mReceived = received;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int result = super.read();
+            if (result != -1) {
+                mCount++;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(@NonNull final byte[] buffer, final int offset, final int length)
+                throws IOException {
+            final int result = super.read(buffer, offset, length);
+            if (result > 0) {
+                mCount += result;
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(final long byteCount) throws IOException {
+            final long result = super.skip(byteCount);
+            mCount += result;
+            return result;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!mClosed && mReceived != null) {
+                mClosed = true;
+                NetworkTrafficStats.onResponseBody(mCount, mReceived.mCount);
+            }
+            super.close();
+        }
     }
 }
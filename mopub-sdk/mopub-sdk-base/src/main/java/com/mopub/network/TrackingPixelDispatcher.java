@@ -0,0 +1,286 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.SharedPreferencesHelper;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.common.logging.MoPubLog;
+import com.mopub.volley.NoConnectionError;
+import com.mopub.volley.RequestQueue;
+import com.mopub.volley.VolleyError;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+
+/**
+ * Sends tracking pixels for {@link TrackingRequest}.
+ * <ul>
+ * <li>Pixels fired during the same main thread message are sent together in one batch.
+ * <li>A pixel without a listener is dropped if the same URL was fired less than
+ * {@link #DEDUPE_WINDOW_MILLIS} ago.
+ * <li>At most {@link #MAX_IN_FLIGHT_PER_HOST} pixels are in flight to a host. The rest wait
+ * for one of them to finish.
+ * <li>A pixel without a listener that fails because there is no connection is saved to disk.
+ * It is sent again the next time a pixel gets through, or after the app restarts.
+ * </ul>
+ */
+public class TrackingPixelDispatcher {
+    @VisibleForTesting
+    static final long DEDUPE_WINDOW_MILLIS = 1000;
+    @VisibleForTesting
+    static final int MAX_IN_FLIGHT_PER_HOST = 6;
+    @VisibleForTesting
+    static final int MAX_PERSISTED_PIXELS = 100;
+    @VisibleForTesting
+    static final long MAX_PERSISTED_PIXEL_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+    @VisibleForTesting
+    static final long MIN_RETRY_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    @VisibleForTesting
+    static final String TRACKING_PIXEL_PREF_NAME = "mopubTrackingPixels";
+
+    private static class Pixel {
+        @NonNull final String mUrl;
+        @NonNull final String mHost;
+        @Nullable final TrackingRequest.Listener mListener;
+
+        Pixel(@NonNull final String url, @Nullable final TrackingRequest.Listener listener) {
+            mUrl = url;
+            final String host = Uri.parse(url).getHost();
+            mHost = host == null ? "" : host;
+            mListener = listener;
+        }
+    }
+
+    @NonNull private static final Handler sHandler = new Handler(Looper.getMainLooper());
+    @NonNull private static final Map<String, Long> sRecentUrls = new LinkedHashMap<>();
+    @NonNull private static final Map<String, Queue<Pixel>> sPendingPixels = new LinkedHashMap<>();
+    @NonNull private static final Map<String, Integer> sInFlightCounts = new HashMap<>();
+    @NonNull private static final Set<String> sRetryingUrls = new HashSet<>();
+    // This is always the application context.
+    @SuppressLint("StaticFieldLeak")
+    @Nullable private static Context sContext;
+    private static boolean sFlushScheduled;
+    private static long sLastRetryMillis = -1;
+
+    @NonNull private static final Runnable sFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private TrackingPixelDispatcher() {
+    }
+
+    static synchronized void enqueue(@NonNull final Context context, @NonNull final String url,
+            @Nullable final TrackingRequest.Listener listener) {
+        Preconditions.checkNotNull(context);
+        Preconditions.checkNotNull(url);
+
+        sContext = context.getApplicationContext();
+
+        if (listener == null) {
+            final long now = SystemClock.uptimeMillis();
+            final Iterator<Long> firedTimes = sRecentUrls.values().iterator();
+            while (firedTimes.hasNext() && now - firedTimes.next() >= DEDUPE_WINDOW_MILLIS) {
+                firedTimes.remove();
+            }
+            if (sRecentUrls.containsKey(url)) {
+                MoPubLog.log(CUSTOM, "Dropping duplicate tracking pixel: " + url);
+                return;
+            }
+            sRecentUrls.put(url, now);
+        }
+
+        addPending(new Pixel(url, listener));
+        if (sLastRetryMillis < 0) {
+            retryPersistedPixels();
+        }
+    }
+
+    private static void addPending(@NonNull final Pixel pixel) {
+        Queue<Pixel> pixels = sPendingPixels.get(pixel.mHost);
+        if (pixels == null) {
+            pixels = new ArrayDeque<>();
+            sPendingPixels.put(pixel.mHost, pixels);
+        }
+        pixels.add(pixel);
+
+        if (!sFlushScheduled) {
+            sFlushScheduled = true;
+            sHandler.post(sFlushRunnable);
+        }
+    }
+
+    private static void flush() {
+        final Context context;
+        final List<Pixel> pixelsToSend = new ArrayList<>();
+        synchronized (TrackingPixelDispatcher.class) {
+            sFlushScheduled = false;
+            context = sContext;
+            if (context == null) {
+                return;
+            }
+
+            final Iterator<Map.Entry<String, Queue<Pixel>>> iterator =
+                    sPendingPixels.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<String, Queue<Pixel>> entry = iterator.next();
+                final Queue<Pixel> pixels = entry.getValue();
+                int inFlightCount = getInFlightCount(entry.getKey());
+                while (inFlightCount < MAX_IN_FLIGHT_PER_HOST && !pixels.isEmpty()) {
+                    pixelsToSend.add(pixels.remove());
+                    inFlightCount++;
+                }
+                sInFlightCounts.put(entry.getKey(), inFlightCount);
+                if (pixels.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        final RequestQueue requestQueue = Networking.getRequestQueue(context);
+        for (final Pixel pixel : pixelsToSend) {
+            requestQueue.add(createRequest(context, pixel));
+        }
+    }
+
+    @NonNull
+    private static TrackingRequest createRequest(@NonNull final Context context,
+            @NonNull final Pixel pixel) {
+        return new TrackingRequest(context, pixel.mUrl, new TrackingRequest.Listener() {
+            @Override
+            public void onResponse(@NonNull final String url) {
+                MoPubLog.log(CUSTOM, "Successfully hit tracking endpoint: " + url);
+                onPixelFinished(pixel, null);
+                if (pixel.mListener != null) {
+                    pixel.mListener.onResponse(url);
+                }
+            }
+
+            @Override
+            public void onErrorResponse(final VolleyError volleyError) {
+                MoPubLog.log(CUSTOM, "Failed to hit tracking endpoint: " + pixel.mUrl);
+                onPixelFinished(pixel, volleyError);
+                if (pixel.mListener != null) {
+                    pixel.mListener.onErrorResponse(volleyError);
+                }
+            }
+        });
+    }
+
+    private static synchronized void onPixelFinished(@NonNull final Pixel pixel,
+            @Nullable final VolleyError volleyError) {
+        final int inFlightCount = getInFlightCount(pixel.mHost) - 1;
+        if (inFlightCount > 0) {
+            sInFlightCounts.put(pixel.mHost, inFlightCount);
+        } else {
+            sInFlightCounts.remove(pixel.mHost);
+        }
+        if (sPendingPixels.containsKey(pixel.mHost) && !sFlushScheduled) {
+            sFlushScheduled = true;
+            sHandler.post(sFlushRunnable);
+        }
+
+        sRetryingUrls.remove(pixel.mUrl);
+        if (sContext == null || pixel.mListener != null) {
+            return;
+        }
+
+        final SharedPreferences preferences = getPreferences(sContext);
+        if (volleyError instanceof NoConnectionError) {
+            if (!preferences.contains(pixel.mUrl)
+                    && preferences.getAll().size() < MAX_PERSISTED_PIXELS) {
+                preferences.edit().putLong(pixel.mUrl, System.currentTimeMillis()).apply();
+            }
+            return;
+        }
+
+        // The server received this pixel, so there is no need to send it again.
+        if (preferences.contains(pixel.mUrl)) {
+            preferences.edit().remove(pixel.mUrl).apply();
+        }
+        if (volleyError == null
+                && SystemClock.uptimeMillis() - sLastRetryMillis >= MIN_RETRY_INTERVAL_MILLIS) {
+            retryPersistedPixels();
+        }
+    }
+
+    /**
+     * Sends the pixels that were saved after failing for lack of a connection, and forgets the
+     * ones that are too old to matter.
+     */
+    private static void retryPersistedPixels() {
+        if (sContext == null) {
+            return;
+        }
+        sLastRetryMillis = SystemClock.uptimeMillis();
+
+        final SharedPreferences preferences = getPreferences(sContext);
+        final SharedPreferences.Editor editor = preferences.edit();
+        final long now = System.currentTimeMillis();
+        for (final Map.Entry<String, ?> entry : preferences.getAll().entrySet()) {
+            final String url = entry.getKey();
+            final Object failedMillis = entry.getValue();
+            if (!(failedMillis instanceof Long)
+                    || now - (Long) failedMillis > MAX_PERSISTED_PIXEL_AGE_MILLIS) {
+                editor.remove(url);
+            } else if (sRetryingUrls.add(url)) {
+                MoPubLog.log(CUSTOM, "Retrying tracking pixel: " + url);
+                addPending(new Pixel(url, null));
+            }
+        }
+        editor.apply();
+    }
+
+    private static int getInFlightCount(@NonNull final String host) {
+        final Integer inFlightCount = sInFlightCounts.get(host);
+        return inFlightCount == null ? 0 : inFlightCount;
+    }
+
+    @NonNull
+    private static SharedPreferences getPreferences(@NonNull final Context context) {
+        return SharedPreferencesHelper.getSharedPreferences(context, TRACKING_PIXEL_PREF_NAME);
+    }
+
+    @VisibleForTesting
+    static synchronized int getInFlightCountForTesting(@NonNull final String host) {
+        return getInFlightCount(host);
+    }
+
+    @VisibleForTesting
+    public static synchronized void clearForTesting() {
+        sHandler.removeCallbacks(sFlushRunnable);
+        sRecentUrls.clear();
+        sPendingPixels.clear();
+        sInFlightCounts.clear();
+        sRetryingUrls.clear();
+        sContext = null;
+        sFlushScheduled = false;
+        sLastRetryMillis = -1;
+    }
+}
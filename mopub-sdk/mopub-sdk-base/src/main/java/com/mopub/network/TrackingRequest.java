@@ -10,23 +10,18 @@ import androidx.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.mopub.common.Preconditions;
-import com.mopub.common.logging.MoPubLog;
 import com.mopub.mobileads.VastErrorCode;
 import com.mopub.mobileads.VastMacroHelper;
 import com.mopub.mobileads.VastTracker;
 import com.mopub.volley.DefaultRetryPolicy;
 import com.mopub.volley.NetworkResponse;
-import com.mopub.volley.RequestQueue;
 import com.mopub.volley.Response;
-import com.mopub.volley.VolleyError;
 import com.mopub.volley.toolbox.HttpHeaderParser;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
-
 public class TrackingRequest extends MoPubRequest<Void> {
 
     // Retrying may cause duplicate impressions
@@ -38,7 +33,7 @@ public class TrackingRequest extends MoPubRequest<Void> {
 
     @Nullable private final TrackingRequest.Listener mListener;
 
-    private TrackingRequest(@NonNull final Context context,
+    TrackingRequest(@NonNull final Context context,
             @NonNull final String url,
             @Nullable final Listener listener) {
         super(context, url, listener);
@@ -109,32 +104,12 @@ public class TrackingRequest extends MoPubRequest<Void> {
             return;
         }
 
-        final RequestQueue requestQueue = Networking.getRequestQueue(context);
         for (final String url : urls) {
             if (TextUtils.isEmpty(url)) {
                 continue;
             }
 
-            final TrackingRequest.Listener internalListener = new TrackingRequest.Listener() {
-                @Override
-                public void onResponse(@NonNull String url) {
-                    MoPubLog.log(CUSTOM, "Successfully hit tracking endpoint: " + url);
-                    if (listener != null) {
-                        listener.onResponse(url);
-                    }
-                }
-
-                @Override
-                public void onErrorResponse(final VolleyError volleyError) {
-                    MoPubLog.log(CUSTOM, "Failed to hit tracking endpoint: " + url);
-                    if (listener != null) {
-                        listener.onErrorResponse(volleyError);
-                    }
-                }
-            };
-            final TrackingRequest trackingRequest = new TrackingRequest(context, url,
-                    internalListener);
-            requestQueue.add(trackingRequest);
+            TrackingPixelDispatcher.enqueue(context, url, listener);
         }
     }
 
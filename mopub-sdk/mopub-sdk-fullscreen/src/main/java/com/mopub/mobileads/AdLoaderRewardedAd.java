@@ -17,6 +17,7 @@ import com.mopub.network.TrackingRequest;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 class AdLoaderRewardedAd extends AdLoader {
     private boolean mImpressionTrackerFired;
@@ -27,7 +28,16 @@ class AdLoaderRewardedAd extends AdLoader {
                        @NonNull String adUnitId,
                        @NonNull Context context,
                        @NonNull Listener listener) {
-        super(url, adFormat, adUnitId, context, listener);
+        this(url, null, adFormat, adUnitId, context, listener);
+    }
+
+    AdLoaderRewardedAd(@NonNull String url,
+                       @Nullable Map<String, String> generatedParams,
+                       @NonNull AdFormat adFormat,
+                       @NonNull String adUnitId,
+                       @NonNull Context context,
+                       @NonNull Listener listener) {
+        super(url, generatedParams, adFormat, adUnitId, context, listener);
 
         mImpressionTrackerFired = false;
         mClickTrackerFired = false;
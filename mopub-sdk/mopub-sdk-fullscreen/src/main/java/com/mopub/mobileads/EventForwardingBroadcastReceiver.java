@@ -8,6 +8,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.mopub.common.IntentActions;
 
@@ -39,15 +40,26 @@ public class EventForwardingBroadcastReceiver extends BaseBroadcastReceiver {
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        if (mInteractionListener == null) {
+        if (!shouldConsumeBroadcast(intent)) {
             return;
         }
 
-        if (!shouldConsumeBroadcast(intent)) {
+        handleAction(intent.getAction());
+    }
+
+    /**
+     * Events from the bus are already scoped to this ad, so they are handled without an Intent.
+     */
+    @Override
+    public void onAdLifecycleEvent(final long broadcastIdentifier, @NonNull final String action) {
+        handleAction(action);
+    }
+
+    private void handleAction(@Nullable final String action) {
+        if (mInteractionListener == null) {
             return;
         }
 
-        final String action = intent.getAction();
         if (IntentActions.ACTION_FULLSCREEN_FAIL.equals(action)) {
             mInteractionListener.onAdFailed(NETWORK_INVALID_STATE);
         } else if (IntentActions.ACTION_FULLSCREEN_SHOW.equals(action)) {
@@ -82,11 +82,7 @@ public class FullscreenAdAdapter extends AdAdapter {
             }
         }
 
-        final WebViewCacheService.Config config =
-                WebViewCacheService.popWebViewConfig(mBroadcastIdentifier);
-        if (config != null) {
-            config.invalidate();
-        }
+        WebViewCacheService.discardWebViewConfig(mBroadcastIdentifier);
     }
 
     /*
@@ -521,7 +521,8 @@ public class FullscreenAdController implements BaseVideoViewController.BaseVideo
                     new MediaMetadataRetriever(),
                     mImageView,
                     videoDurationMs);
-            AsyncTasks.safeExecuteOnExecutor(mBlurLastVideoFrameTask, vastResource.getResource());
+            AsyncTasks.safeExecuteOnExecutor(AsyncTasks.Lane.CPU, mBlurLastVideoFrameTask,
+                    vastResource.getResource());
             if (!TextUtils.isEmpty(mSelectedVastCompanionAdConfig.getClickThroughUrl())) {
                 mVideoCtaButtonWidget = new VideoCtaButtonWidget(mActivity, false, true);
                 final String customCtaText = mSelectedVastCompanionAdConfig.getCustomCtaText();
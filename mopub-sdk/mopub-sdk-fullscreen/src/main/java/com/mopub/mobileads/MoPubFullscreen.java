@@ -69,7 +69,10 @@ public class MoPubFullscreen extends BaseAd implements VastManager.VastManagerLi
     @Nullable
     private VastManager mVastManager;
     @Nullable
+    private VastVideoConfig mVastVideoConfig;
+    @Nullable
     private JSONObject mVideoTrackers;
+    private int mProgressivePlaybackSeconds;
     @Nullable
     private Handler mHandler;
     @Nullable
@@ -147,6 +150,17 @@ public class MoPubFullscreen extends BaseAd implements VastManager.VastManagerLi
                 mVideoTrackers = null;
             }
         }
+
+        final String progressivePlaybackSeconds =
+                serverExtras.get(DataKeys.VAST_PROGRESSIVE_PLAYBACK_SECONDS_KEY);
+        if (!TextUtils.isEmpty(progressivePlaybackSeconds)) {
+            try {
+                mProgressivePlaybackSeconds = Integer.parseInt(progressivePlaybackSeconds);
+            } catch (NumberFormatException e) {
+                MoPubLog.log(CUSTOM, "Failed to parse progressive playback seconds: " +
+                        progressivePlaybackSeconds);
+            }
+        }
     }
 
     protected void preRender() {
@@ -174,6 +188,7 @@ public class MoPubFullscreen extends BaseAd implements VastManager.VastManagerLi
 
         if (FullAdType.VAST.equals(mAdData.getFullAdType())) {
             mVastManager = VastManagerFactory.create(mContext);
+            mVastManager.setProgressivePlaybackSeconds(mProgressivePlaybackSeconds);
             mVastManager.prepareVastVideoConfiguration(mAdData.getAdPayload(), this,
                     mAdData.getDspCreativeId(), mContext);
         } else if (FullAdType.JSON.equals(mAdData.getFullAdType())) {
@@ -287,7 +302,7 @@ public class MoPubFullscreen extends BaseAd implements VastManager.VastManagerLi
 
         mBroadcastReceiver = new EventForwardingBroadcastReceiver(mInteractionListener, mBroadcastIdentifier);
         mBroadcastReceiver.register(mBroadcastReceiver, mContext);
-        MoPubFullscreenActivity.start(mContext, mAdData);
+        MoPubFullscreenActivity.start(mContext, mAdData, mVastVideoConfig);
     }
 
     @Override
@@ -301,6 +316,7 @@ public class MoPubFullscreen extends BaseAd implements VastManager.VastManagerLi
         mLoadListener = null;
         mInteractionListener = null;
         mContext = null;
+        mVastVideoConfig = null;
 
         if (mBroadcastReceiver != null) {
             mBroadcastReceiver.unregister(mBroadcastReceiver);
@@ -333,7 +349,8 @@ public class MoPubFullscreen extends BaseAd implements VastManager.VastManagerLi
             vastVideoConfig.setRewarded(true);
         }
 
-        mAdData.setVastVideoConfigString(vastVideoConfig.toJsonString());
+        // Handed to the activity as is at show time, so it does not have to be parsed again
+        mVastVideoConfig = vastVideoConfig;
 
         if (mLoadListener != null) {
             mLoadListener.onAdLoaded();
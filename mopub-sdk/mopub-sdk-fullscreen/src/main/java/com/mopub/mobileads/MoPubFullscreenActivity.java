@@ -23,7 +23,7 @@ import com.mopub.common.util.Utils;
 import com.mopub.exceptions.IntentNotResolvableException;
 
 import static android.content.Intent.FLAG_ACTIVITY_NEW_TASK;
-import static com.mopub.common.DataKeys.AD_DATA_KEY;
+import static com.mopub.common.DataKeys.BROADCAST_IDENTIFIER_KEY;
 import static com.mopub.common.IntentActions.ACTION_FULLSCREEN_SHOW;
 import static com.mopub.common.logging.MoPubLog.AdLogEvent.SHOW_FAILED;
 import static com.mopub.common.logging.MoPubLog.AdLogEvent.SHOW_SUCCESS;
@@ -34,12 +34,19 @@ import static com.mopub.mobileads.MoPubErrorCode.FULLSCREEN_SHOW_ERROR;
 public class MoPubFullscreenActivity extends Activity {
 
     @Nullable private FullscreenAdController mFullscreenAdController;
+    @Nullable private AdData mAdData;
 
     public static void start(@NonNull Context context, @NonNull AdData adData) {
-        final Intent intent = createIntent(context, adData);
+        start(context, adData, null);
+    }
+
+    public static void start(@NonNull final Context context, @NonNull final AdData adData,
+            @Nullable final VastVideoConfig vastVideoConfig) {
+        final Intent intent = createIntent(context, adData, vastVideoConfig);
         try {
             Intents.startActivity(context, intent);
         } catch (IntentNotResolvableException exception) {
+            FullscreenAdHandoff.remove(adData.getBroadcastIdentifier());
             Log.d("MoPubFullscreenActivity", "MoPubFullscreenActivity.class not found. " +
                     "Did you declare MoPubFullscreenActivity in your manifest?");
         }
@@ -47,8 +54,20 @@ public class MoPubFullscreenActivity extends Activity {
 
     @VisibleForTesting
     protected static Intent createIntent(@NonNull final Context context, @NonNull final AdData adData) {
+        return createIntent(context, adData, null);
+    }
+
+    /**
+     * The ad data and video config are registered with {@link FullscreenAdHandoff} rather than put
+     * in the intent, so only the broadcast identifier goes through the binder.
+     */
+    @VisibleForTesting
+    protected static Intent createIntent(@NonNull final Context context, @NonNull final AdData adData,
+            @Nullable final VastVideoConfig vastVideoConfig) {
+        FullscreenAdHandoff.register(adData, vastVideoConfig);
+
         Intent intent = new Intent(context, MoPubFullscreenActivity.class);
-        intent.putExtra(AD_DATA_KEY, adData);
+        intent.putExtra(BROADCAST_IDENTIFIER_KEY, adData.getBroadcastIdentifier());
         intent.setFlags(FLAG_ACTIVITY_NEW_TASK);
         return intent;
     }
@@ -57,14 +76,21 @@ public class MoPubFullscreenActivity extends Activity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
-        final AdData adData = getAdDataFromIntent(getIntent());
+        AdData adData = getAdDataFromIntent(getIntent());
+        if (adData == null && savedInstanceState != null) {
+            adData = FullscreenAdHandoff.getAdData(
+                    savedInstanceState.getLong(BROADCAST_IDENTIFIER_KEY, 0));
+        }
         if (adData == null) {
+            // Also happens when the activity is recreated in a new process, since the handoff
+            // and the listeners of the ad died with the old one
             // This is a bug and should never happen.
             MoPubLog.log(CUSTOM, "Ad data to show ad is null. Failed to show fullscreen ad.");
             finish();
             return;
         }
 
+        mAdData = adData;
         final long broadcastIdentifier = adData.getBroadcastIdentifier();
 
         try {
@@ -110,6 +136,19 @@ public class MoPubFullscreenActivity extends Activity {
         }
     }
 
+    /**
+     * Only the broadcast identifier is saved. The ad payload and video config can be large enough
+     * to fail the binder transaction when the activity stops, so they stay in
+     * {@link FullscreenAdHandoff}.
+     */
+    @Override
+    protected void onSaveInstanceState(@NonNull final Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (mAdData != null) {
+            outState.putLong(BROADCAST_IDENTIFIER_KEY, mAdData.getBroadcastIdentifier());
+        }
+    }
+
     @Override
     protected void onActivityResult(final int requestCode, final int resultCode, final Intent data) {
         if (mFullscreenAdController != null) {
@@ -122,6 +161,9 @@ public class MoPubFullscreenActivity extends Activity {
         if (mFullscreenAdController != null) {
             mFullscreenAdController.destroy();
         }
+        if (mAdData != null && isFinishing()) {
+            FullscreenAdHandoff.remove(mAdData.getBroadcastIdentifier());
+        }
         super.onDestroy();
     }
 
@@ -134,6 +176,11 @@ public class MoPubFullscreenActivity extends Activity {
 
     @Nullable
     protected static AdData getAdDataFromIntent(Intent intent) {
+        final AdData adData = FullscreenAdHandoff.getAdData(
+                intent.getLongExtra(BROADCAST_IDENTIFIER_KEY, 0));
+        if (adData != null) {
+            return adData;
+        }
         try {
             return (AdData) intent.getParcelableExtra(DataKeys.AD_DATA_KEY);
         } catch (ClassCastException e) {
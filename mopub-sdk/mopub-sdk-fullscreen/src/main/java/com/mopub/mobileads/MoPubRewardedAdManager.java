@@ -319,19 +319,22 @@ public class MoPubRewardedAdManager {
 
         setSafeAreaValues(urlGenerator);
 
-        loadAd(adUnitId, urlGenerator.generateUrlString(Constants.HOST), null);
+        final String adUrlString = urlGenerator.generateUrlString(Constants.HOST);
+        loadAd(adUnitId, adUrlString, urlGenerator.getGeneratedParams(adUrlString), null);
     }
 
-    private static void loadAd(@NonNull String adUnitId, @NonNull String adUrlString, @Nullable MoPubErrorCode errorCode) {
+    private static void loadAd(@NonNull String adUnitId, @NonNull String adUrlString,
+            @Nullable Map<String, String> generatedParams, @Nullable MoPubErrorCode errorCode) {
         if (sInstance == null) {
             logErrorNotInitialized();
             return;
         }
 
-        sInstance.fetchAd(adUnitId, adUrlString, errorCode);
+        sInstance.fetchAd(adUnitId, adUrlString, generatedParams, errorCode);
     }
 
-    private void fetchAd(@NonNull String adUnitId, @NonNull String adUrlString, @Nullable MoPubErrorCode errorCode) {
+    private void fetchAd(@NonNull String adUnitId, @NonNull String adUrlString,
+            @Nullable Map<String, String> generatedParams, @Nullable MoPubErrorCode errorCode) {
         if (rewardedAdsLoaders.isLoading(adUnitId)) {
             MoPubLog.log(CUSTOM, String.format(Locale.US, "Did not queue rewarded ad request for ad " +
                     "unit %s. A request is already pending.", adUnitId));
@@ -341,7 +344,7 @@ public class MoPubRewardedAdManager {
         // Issue MoPub request
         MoPubLog.log(CUSTOM, String.format(Locale.US,
                 "Loading rewarded ad request for ad unit %s with URL %s", adUnitId, adUrlString));
-        rewardedAdsLoaders.loadNextAd(mContext, adUnitId, adUrlString, errorCode);
+        rewardedAdsLoaders.loadNextAd(mContext, adUnitId, adUrlString, generatedParams, errorCode);
     }
 
     public static boolean hasAd(@NonNull String adUnitId) {
@@ -693,7 +696,7 @@ public class MoPubRewardedAdManager {
         Preconditions.checkNotNull(errorCode);
 
         if (rewardedAdsLoaders.hasMoreAds(adUnitId) && !errorCode.equals(EXPIRED)) {
-            loadAd(adUnitId, "", errorCode);
+            loadAd(adUnitId, "", null, errorCode);
         } else if (sInstance.mRewardedAdListener != null) {
             sInstance.mRewardedAdListener.onRewardedAdLoadFailure(adUnitId, errorCode);
             rewardedAdsLoaders.markFail(adUnitId);
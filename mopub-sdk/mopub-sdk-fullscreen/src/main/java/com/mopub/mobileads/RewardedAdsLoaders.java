@@ -50,6 +50,7 @@ class RewardedAdsLoaders {
     Request<?> loadNextAd(@NonNull Context context,
                           @NonNull String adUnitId,
                           @NonNull String adUrlString,
+                          @Nullable Map<String, String> generatedParams,
                           @Nullable MoPubErrorCode errorCode) {
         Preconditions.checkNotNull(adUnitId);
         Preconditions.checkNotNull(context);
@@ -57,7 +58,11 @@ class RewardedAdsLoaders {
         AdLoaderRewardedAd adLoader = mAdUnitToAdLoader.get(adUnitId);
 
         if (adLoader == null || !adLoader.hasMoreAds()) {
+            if (adLoader != null) {
+                adLoader.cancelPrefetch();
+            }
             adLoader = new AdLoaderRewardedAd(adUrlString,
+                                                 generatedParams,
                                                  AdFormat.REWARDED_AD,
                                                  adUnitId,
                                                  context,
@@ -75,13 +80,24 @@ class RewardedAdsLoaders {
     void markFail(@NonNull final String adUnitId) {
         Preconditions.checkNotNull(adUnitId);
 
-        mAdUnitToAdLoader.remove(adUnitId);
+        removeLoader(adUnitId);
     }
 
     void markPlayed(@NonNull final String adUnitId) {
         Preconditions.checkNotNull(adUnitId);
 
-        mAdUnitToAdLoader.remove(adUnitId);
+        removeLoader(adUnitId);
+    }
+
+    /**
+     * Drops the loader of an ad unit. Its prefetch is cancelled first, since prefetch slots are
+     * counted per ad unit across all loaders and would otherwise never be freed.
+     */
+    private void removeLoader(@NonNull final String adUnitId) {
+        final AdLoaderRewardedAd adLoader = mAdUnitToAdLoader.remove(adUnitId);
+        if (adLoader != null) {
+            adLoader.cancelPrefetch();
+        }
     }
 
     void onRewardedAdStarted(@NonNull String adUnitId, @NonNull Context context) {
@@ -135,6 +151,9 @@ class RewardedAdsLoaders {
     @Deprecated
     @VisibleForTesting
     void clearMapping() {
+        for (final AdLoaderRewardedAd adLoader : mAdUnitToAdLoader.values()) {
+            adLoader.cancelPrefetch();
+        }
         mAdUnitToAdLoader.clear();
     }
 
@@ -73,7 +73,10 @@ public class ImpressionTracker {
         mVisibilityTrackerListener = new VisibilityTrackerListener() {
             @Override
             public void onVisibilityChanged(@NonNull final List<View> visibleViews, @NonNull final List<View> invisibleViews) {
-                for (final View view : visibleViews) {
+                // This runs on every visibility pass, so loop by index to avoid allocating
+                // iterators.
+                for (int i = 0; i < visibleViews.size(); i++) {
+                    final View view = visibleViews.get(i);
                     // It's possible for native ad to be null if the view was GC'd from this class
                     // but not from VisibilityTracker
                     // If it's null then clean up the view from this class
@@ -93,8 +96,8 @@ public class ImpressionTracker {
                     mPollingViews.put(view, new TimestampWrapper<ImpressionInterface>(impressionInterface));
                 }
 
-                for (final View view : invisibleViews) {
-                    mPollingViews.remove(view);
+                for (int i = 0; i < invisibleViews.size(); i++) {
+                    mPollingViews.remove(invisibleViews.get(i));
                 }
                 scheduleNextPoll();
             }
@@ -192,8 +195,8 @@ public class ImpressionTracker {
                 mRemovedViews.add(view);
             }
 
-            for (View view : mRemovedViews) {
-              removeView(view);
+            for (int i = 0; i < mRemovedViews.size(); i++) {
+                removeView(mRemovedViews.get(i));
             }
             mRemovedViews.clear();
 
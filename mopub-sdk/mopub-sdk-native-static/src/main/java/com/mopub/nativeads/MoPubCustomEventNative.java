@@ -11,6 +11,7 @@ import android.view.View;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.mopub.common.ClickThroughResolver;
 import com.mopub.common.DataKeys;
 import com.mopub.common.ExternalViewabilitySessionManager;
 import com.mopub.common.ViewabilityVendor;
@@ -397,6 +398,7 @@ public class MoPubCustomEventNative extends CustomEventNative {
         @Override
         public void recordImpression(@NonNull final View view) {
             notifyAdImpressed();
+            ClickThroughResolver.preResolve(getClickDestinationUrl(), getClickTrackers());
             if (viewabilitySessionManager != null) {
                 viewabilitySessionManager.trackImpression();
             }
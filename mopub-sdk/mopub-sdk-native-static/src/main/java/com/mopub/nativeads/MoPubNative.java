@@ -133,6 +133,9 @@ public class MoPubNative {
             mNativeRequest.cancel();
             mNativeRequest = null;
         }
+        if (mAdLoader != null) {
+            mAdLoader.cancelPrefetch();
+        }
         mAdLoader = null;
 
         if (mNativeAd != null) {
@@ -197,10 +200,16 @@ public class MoPubNative {
             MoPubLog.log(CUSTOM, "MoPubNative Loading ad from: " + endpointUrl);
         }
 
-        requestNativeAd(endpointUrl, null);
+        requestNativeAd(endpointUrl, generator.getGeneratedParams(endpointUrl), null);
     }
 
     void requestNativeAd(@Nullable final String endpointUrl, @Nullable final NativeErrorCode errorCode) {
+        requestNativeAd(endpointUrl, null, errorCode);
+    }
+
+    private void requestNativeAd(@Nullable final String endpointUrl,
+            @Nullable final Map<String, String> generatedParams,
+            @Nullable final NativeErrorCode errorCode) {
         final Context context = getContextOrDestroy();
         if (context == null) {
             return;
@@ -211,7 +220,8 @@ public class MoPubNative {
                 mMoPubNativeNetworkListener.onNativeFail(errorCode == null ? INVALID_REQUEST_URL : errorCode);
                 return;
             } else {
-                mAdLoader = new AdLoader(endpointUrl, AdFormat.NATIVE, mAdUnitId, context, mVolleyListener);
+                mAdLoader = new AdLoader(endpointUrl, generatedParams, AdFormat.NATIVE, mAdUnitId,
+                        context, mVolleyListener);
             }
         }
         mNativeRequest = mAdLoader.loadNextAd(errorCode);
@@ -346,6 +346,16 @@ public class MoPubStreamAdPlacer {
         return mPlacementData.isPlacedAd(position);
     }
 
+    /**
+     * Returns the share of ad positions that found an ad ready when they came into range, rather
+     * than waiting for one to load.
+     *
+     * @return The hit rate between 0 and 1, or -1 if no ad position has come into range yet.
+     */
+    public float getAdCacheHitRate() {
+        return mAdSource.getDequeueHitRate();
+    }
+
     /**
      * Stops loading ads, immediately clearing any ads currently in the stream.
      *
@@ -371,7 +381,7 @@ public class MoPubStreamAdPlacer {
      */
     public void destroy() {
         mPlacementHandler.removeMessages(0);
-        mAdSource.clear();
+        mAdSource.destroy();
         mPlacementData.clearAds();
     }
 
@@ -59,7 +59,7 @@ public class NativeAd {
 
     @NonNull private final Context mContext;
     @NonNull private final BaseNativeAd mBaseNativeAd;
-    @NonNull private final MoPubAdRenderer mMoPubAdRenderer;
+    @NonNull private MoPubAdRenderer mMoPubAdRenderer;
     @NonNull private final Set<String> mImpressionTrackers;
     @NonNull private final Set<String> mClickTrackers;
     @NonNull private final String mAdUnitId;
@@ -173,6 +173,14 @@ public class NativeAd {
         return mMoPubAdRenderer;
     }
 
+    /**
+     * Switches the ad to another renderer that supports it. Only for ads that were never
+     * rendered, such as those handed between ad sources by {@link NativeAdInventory}.
+     */
+    void setMoPubAdRenderer(@NonNull final MoPubAdRenderer moPubAdRenderer) {
+        mMoPubAdRenderer = moPubAdRenderer;
+    }
+
     // Lifecycle Handlers
 
     /**
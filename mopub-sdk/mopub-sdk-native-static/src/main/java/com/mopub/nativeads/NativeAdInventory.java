@@ -0,0 +1,227 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static com.mopub.common.Constants.AD_EXPIRATION_DELAY;
+
+/**
+ * Holds the native ads that a {@link NativeAdSource} loaded but never handed out, so that other
+ * ad sources on the same ad unit can use them instead of requesting new ones. For example, when
+ * a tab's stream clears its ads, the next tab on the same ad unit can place them right away.
+ *
+ * Ads are kept by ad unit and request parameters, oldest first, so an ad only goes to an ad
+ * source that would have requested it with the same targeting. An ad can go to any such ad
+ * source that has a renderer supporting it, and is switched to that renderer. Only ads that were
+ * never placed come here, so no view was ever rendered or tracked with them.
+ *
+ * Only MoPub's own static native ads are kept, since they hold nothing but the application
+ * context. Mediated ads may hold the activity that loaded them and are destroyed instead. Ads
+ * expire 4 hours after they loaded, as in the ad source, and are destroyed once they expire even
+ * if no ad source asks for them again. All methods must be called on the main thread.
+ */
+public class NativeAdInventory {
+    @VisibleForTesting
+    static final int MAX_ADS_PER_AD_UNIT = NativeAdSource.MAX_CACHE_LIMIT;
+
+    @NonNull private static final Map<String, ArrayDeque<TimestampWrapper<NativeAd>>> sAds =
+            new HashMap<>();
+    @NonNull private static final Handler sHandler = new Handler(Looper.getMainLooper());
+    @NonNull private static final Runnable sPurgeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            purgeExpiredAds();
+            schedulePurge();
+        }
+    };
+
+    private NativeAdInventory() {
+    }
+
+    /**
+     * Keeps an unplaced ad for other ad sources with the same request parameters. Expired,
+     * destroyed and mediated ads are destroyed instead. When the ad unit already has
+     * {@link #MAX_ADS_PER_AD_UNIT} ads for these parameters, its oldest one is dropped.
+     */
+    static void put(@NonNull final TimestampWrapper<NativeAd> timestampWrapper,
+            @Nullable final RequestParameters requestParameters) {
+        Preconditions.checkNotNull(timestampWrapper);
+
+        purgeExpiredAds();
+
+        final NativeAd nativeAd = timestampWrapper.mInstance;
+        if (nativeAd.isDestroyed() || !isShareable(nativeAd)
+                || isExpired(timestampWrapper, SystemClock.uptimeMillis())) {
+            nativeAd.destroy();
+            return;
+        }
+
+        final String key = getKey(nativeAd.getAdUnitId(), requestParameters);
+        ArrayDeque<TimestampWrapper<NativeAd>> ads = sAds.get(key);
+        if (ads == null) {
+            ads = new ArrayDeque<>(MAX_ADS_PER_AD_UNIT);
+            sAds.put(key, ads);
+        }
+        ads.addLast(timestampWrapper);
+        while (ads.size() > MAX_ADS_PER_AD_UNIT) {
+            ads.removeFirst().mInstance.destroy();
+        }
+        schedulePurge();
+    }
+
+    /**
+     * Takes the oldest unexpired ad for the ad unit and request parameters that one of the
+     * registered renderers supports.
+     *
+     * @return The ad, now using the first registered renderer that supports it, or null if there
+     * is no such ad.
+     */
+    @Nullable
+    static TimestampWrapper<NativeAd> lease(@NonNull final String adUnitId,
+            @Nullable final RequestParameters requestParameters,
+            @NonNull final AdRendererRegistry adRendererRegistry) {
+        Preconditions.checkNotNull(adUnitId);
+        Preconditions.checkNotNull(adRendererRegistry);
+
+        purgeExpiredAds();
+
+        final String key = getKey(adUnitId, requestParameters);
+        final ArrayDeque<TimestampWrapper<NativeAd>> ads = sAds.get(key);
+        if (ads == null) {
+            return null;
+        }
+
+        TimestampWrapper<NativeAd> leasedAd = null;
+        final Iterator<TimestampWrapper<NativeAd>> iterator = ads.iterator();
+        while (iterator.hasNext() && leasedAd == null) {
+            final TimestampWrapper<NativeAd> timestampWrapper = iterator.next();
+            final NativeAd nativeAd = timestampWrapper.mInstance;
+            if (nativeAd.isDestroyed()) {
+                iterator.remove();
+                continue;
+            }
+
+            final MoPubAdRenderer renderer =
+                    adRendererRegistry.getRendererForAd(nativeAd.getBaseNativeAd());
+            if (renderer != null) {
+                iterator.remove();
+                nativeAd.setMoPubAdRenderer(renderer);
+                leasedAd = timestampWrapper;
+            }
+        }
+
+        if (ads.isEmpty()) {
+            sAds.remove(key);
+        }
+        schedulePurge();
+        return leasedAd;
+    }
+
+    /**
+     * Destroys the expired ads of every ad unit.
+     */
+    private static void purgeExpiredAds() {
+        final long now = SystemClock.uptimeMillis();
+        final Iterator<ArrayDeque<TimestampWrapper<NativeAd>>> adsIterator =
+                sAds.values().iterator();
+        while (adsIterator.hasNext()) {
+            final ArrayDeque<TimestampWrapper<NativeAd>> ads = adsIterator.next();
+            // Ads from different ad sources may not arrive in load order, so check all of them
+            final Iterator<TimestampWrapper<NativeAd>> iterator = ads.iterator();
+            while (iterator.hasNext()) {
+                final TimestampWrapper<NativeAd> timestampWrapper = iterator.next();
+                if (isExpired(timestampWrapper, now)) {
+                    iterator.remove();
+                    timestampWrapper.mInstance.destroy();
+                }
+            }
+            if (ads.isEmpty()) {
+                adsIterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Makes sure the next ad to expire is destroyed when it does, in case no ad source touches
+     * the inventory again before then.
+     */
+    private static void schedulePurge() {
+        sHandler.removeCallbacks(sPurgeRunnable);
+
+        long oldestTimestamp = Long.MAX_VALUE;
+        for (final ArrayDeque<TimestampWrapper<NativeAd>> ads : sAds.values()) {
+            for (final TimestampWrapper<NativeAd> timestampWrapper : ads) {
+                oldestTimestamp = Math.min(oldestTimestamp, timestampWrapper.mCreatedTimestamp);
+            }
+        }
+        if (oldestTimestamp == Long.MAX_VALUE) {
+            return;
+        }
+
+        final long delayMillis =
+                oldestTimestamp + AD_EXPIRATION_DELAY - SystemClock.uptimeMillis();
+        sHandler.postDelayed(sPurgeRunnable, Math.max(0, delayMillis));
+    }
+
+    private static boolean isShareable(@NonNull final NativeAd nativeAd) {
+        return nativeAd.getBaseNativeAd() instanceof MoPubCustomEventNative.MoPubStaticNativeAd;
+    }
+
+    private static boolean isExpired(@NonNull final TimestampWrapper<NativeAd> timestampWrapper,
+            final long now) {
+        return now - timestampWrapper.mCreatedTimestamp >= AD_EXPIRATION_DELAY;
+    }
+
+    @NonNull
+    private static String getKey(@NonNull final String adUnitId,
+            @Nullable final RequestParameters requestParameters) {
+        final StringBuilder key = new StringBuilder(adUnitId);
+        if (requestParameters != null) {
+            key.append('\n').append(requestParameters.getKeywords())
+                    .append('\n').append(requestParameters.getUserDataKeywords())
+                    .append('\n').append(requestParameters.getDesiredAssets());
+            final Location location = requestParameters.getLocation();
+            if (location != null) {
+                key.append('\n').append(location.getLatitude())
+                        .append(',').append(location.getLongitude());
+            }
+        }
+        return key.toString();
+    }
+
+    @VisibleForTesting
+    static int getAdCount(@NonNull final String adUnitId,
+            @Nullable final RequestParameters requestParameters) {
+        final ArrayDeque<TimestampWrapper<NativeAd>> ads =
+                sAds.get(getKey(adUnitId, requestParameters));
+        return ads == null ? 0 : ads.size();
+    }
+
+    @VisibleForTesting
+    public static void clearForTesting() {
+        sHandler.removeCallbacks(sPurgeRunnable);
+        for (final ArrayDeque<TimestampWrapper<NativeAd>> ads : sAds.values()) {
+            for (final TimestampWrapper<NativeAd> timestampWrapper : ads) {
+                timestampWrapper.mInstance.destroy();
+            }
+        }
+        sAds.clear();
+    }
+}
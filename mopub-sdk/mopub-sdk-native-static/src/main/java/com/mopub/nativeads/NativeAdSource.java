@@ -26,8 +26,12 @@ import static com.mopub.nativeads.MoPubNative.MoPubNativeNetworkListener;
  * a queue, so that the first ad loaded from the server will be the first ad available for dequeue.
  * To take an ad out of the cache, call {@link #dequeueAd}.
  *
- * The cache size may be automatically adjusted by the MoPub server based on an app's usage and
- * ad fill rate. Cached ads have a maximum TTL of 4 hours before which they expire.
+ * The cache size adapts to how fast the stream uses ads. The ad source tracks how often ad slots
+ * ask for an ad and how long a request takes to fill, and keeps enough ads cached to cover the
+ * slots expected while the next request is in flight. While fills succeed and the cache is behind,
+ * it runs up to {@link #MAX_CONCURRENT_REQUESTS} requests at once, each on its own
+ * {@link MoPubNative}. The cache never holds more ads than a small share of the heap allows.
+ * Cached ads have a maximum TTL of 4 hours before which they expire.
  *
  * The ad source also takes care of retrying failed ad requests, with a reasonable back-off to
  * avoid spamming the server.
@@ -36,9 +40,21 @@ import static com.mopub.nativeads.MoPubNative.MoPubNativeNetworkListener;
  */
 class NativeAdSource {
     /**
-     * Number of ads to cache
+     * Number of ads to cache when the stream is not using ads
      */
-    private static final int CACHE_LIMIT = 1;
+    @VisibleForTesting static final int MIN_CACHE_LIMIT = 1;
+    @VisibleForTesting static final int MAX_CACHE_LIMIT = 5;
+    @VisibleForTesting static final int MAX_CONCURRENT_REQUESTS = 3;
+
+    // Native ads keep their assets and renderer state in memory, and their images are cached
+    // separately. Cached and in-flight ads may use at most 1/64 of the heap at this estimate.
+    @VisibleForTesting static final long ESTIMATED_AD_BYTES = 1024 * 1024;
+    private static final int HEAP_FRACTION_FOR_ADS = 64;
+
+    // Ad slots that asked for an ad within this window count towards the demand rate
+    @VisibleForTesting static final int DEMAND_WINDOW_MILLISECONDS = 5000;
+    private static final int DEMAND_SAMPLES = 8;
+    @VisibleForTesting static final int DEFAULT_FILL_MILLISECONDS = 1000;
 
     private static final int EXPIRATION_TIME_MILLISECONDS = AD_EXPIRATION_DELAY;
     private static final int MAXIMUM_RETRY_TIME_MILLISECONDS = 5 * 60 * 1000; // 5 minutes.
@@ -51,7 +67,8 @@ class NativeAdSource {
 
     @VisibleForTesting boolean mRequestInFlight;
     @VisibleForTesting boolean mRetryInFlight;
-    @VisibleForTesting int mSequenceNumber;
+    // The sequence number of the next request, so that requests in flight never share one
+    @VisibleForTesting int mNextSequenceNumber;
     @VisibleForTesting int mCurrentRetries;
 
     @Nullable private AdSourceListener mAdSourceListener;
@@ -62,6 +79,23 @@ class NativeAdSource {
 
     @NonNull private final AdRendererRegistry mAdRendererRegistry;
 
+    // Requests that run alongside mMoPubNative's while the cache is behind
+    @NonNull private final List<AdditionalRequest> mAdditionalRequests = new ArrayList<>();
+    @Nullable private Activity mActivity;
+    @Nullable private String mAdUnitId;
+    private final int mMaxCacheSize;
+
+    private long mRequestStartTime;
+    @VisibleForTesting long mAverageFillMillis = DEFAULT_FILL_MILLISECONDS;
+
+    // Times at which ad slots asked for an ad, oldest first
+    @NonNull private final long[] mDemandTimes = new long[DEMAND_SAMPLES];
+    private int mDemandCount;
+    // Whether the last dequeue found no ad. Its slot is counted once, however often it retries.
+    private boolean mHasUnmetDemand;
+    private int mDequeueHitCount;
+    private int mDequeueMissCount;
+
     /**
      * A listener for when ads are available for dequeueing.
      */
@@ -73,7 +107,7 @@ class NativeAdSource {
     }
 
     NativeAdSource() {
-        this(new ArrayList<TimestampWrapper<NativeAd>>(CACHE_LIMIT),
+        this(new ArrayList<TimestampWrapper<NativeAd>>(MAX_CACHE_LIMIT),
                 new Handler(),
                 new AdRendererRegistry());
     }
@@ -82,7 +116,17 @@ class NativeAdSource {
     NativeAdSource(@NonNull final List<TimestampWrapper<NativeAd>> nativeAdCache,
             @NonNull final Handler replenishCacheHandler,
             @NonNull AdRendererRegistry adRendererRegistry) {
+        this(nativeAdCache, replenishCacheHandler, adRendererRegistry,
+                computeMaxCacheSize(Runtime.getRuntime().maxMemory()));
+    }
+
+    @VisibleForTesting
+    NativeAdSource(@NonNull final List<TimestampWrapper<NativeAd>> nativeAdCache,
+            @NonNull final Handler replenishCacheHandler,
+            @NonNull AdRendererRegistry adRendererRegistry,
+            final int maxCacheSize) {
         mNativeAdCache = nativeAdCache;
+        mMaxCacheSize = maxCacheSize;
         mReplenishCacheHandler = replenishCacheHandler;
         mReplenishCacheRunnable = new Runnable() {
             @Override
@@ -105,15 +149,7 @@ class NativeAdSource {
                 }
 
                 mRequestInFlight = false;
-                mSequenceNumber++;
-                resetRetryTime();
-
-                mNativeAdCache.add(new TimestampWrapper<NativeAd>(nativeAd));
-                if (mNativeAdCache.size() == 1 && mAdSourceListener != null) {
-                    mAdSourceListener.onAdsAvailable();
-                }
-
-                replenishCache();
+                onAdLoaded(nativeAd, mRequestStartTime);
             }
 
             @Override
@@ -134,7 +170,7 @@ class NativeAdSource {
             }
         };
 
-        mSequenceNumber = 0;
+        mNextSequenceNumber = 0;
         resetRetryTime();
     }
 
@@ -156,6 +192,9 @@ class NativeAdSource {
         if (mMoPubNative != null) {
             mMoPubNative.registerAdRenderer(moPubNativeAdRenderer);
         }
+        for (final AdditionalRequest additionalRequest : mAdditionalRequests) {
+            additionalRequest.mMoPubNative.registerAdRenderer(moPubNativeAdRenderer);
+        }
     }
 
     @Nullable
@@ -174,12 +213,20 @@ class NativeAdSource {
     void loadAds(@NonNull final Activity activity,
             @NonNull final String adUnitId,
             final RequestParameters requestParameters) {
-        loadAds(requestParameters, new MoPubNative(activity, adUnitId, mMoPubNativeNetworkListener));
+        loadAds(requestParameters, createMoPubNative(activity, adUnitId, mMoPubNativeNetworkListener),
+                activity, adUnitId);
     }
 
     @VisibleForTesting
     void loadAds(final RequestParameters requestParameters,
              final MoPubNative moPubNative) {
+        loadAds(requestParameters, moPubNative, null, null);
+    }
+
+    private void loadAds(final RequestParameters requestParameters,
+            final MoPubNative moPubNative,
+            @Nullable final Activity activity,
+            @Nullable final String adUnitId) {
         clear();
 
         for (MoPubAdRenderer renderer : mAdRendererRegistry.getRendererIterable()) {
@@ -188,31 +235,62 @@ class NativeAdSource {
 
         mRequestParameters = requestParameters;
         mMoPubNative = moPubNative;
+        // Kept for the additional requests and for leasing ads from the inventory
+        mActivity = activity;
+        mAdUnitId = adUnitId;
 
+        leaseFromInventory(mMaxCacheSize);
         replenishCache();
     }
 
     /**
-     * Clears the ad source, removing any currently queued ads.
+     * Clears the ad source. Queued ads were never placed, so they go to the
+     * {@link NativeAdInventory} for other ad sources with the same ad unit and request parameters.
      */
     void clear() {
+        for (final TimestampWrapper<NativeAd> timestampWrapper : mNativeAdCache) {
+            NativeAdInventory.put(timestampWrapper, mRequestParameters);
+        }
+        mNativeAdCache.clear();
+        stop();
+    }
+
+    /**
+     * Clears the ad source and destroys the queued ads, since they may hold on to the activity
+     * that loaded them.
+     */
+    void destroy() {
+        for (final TimestampWrapper<NativeAd> timestampWrapper : mNativeAdCache) {
+            timestampWrapper.mInstance.destroy();
+        }
+        mNativeAdCache.clear();
+        stop();
+    }
+
+    private void stop() {
         // This will cleanup listeners to stop callbacks from handling old ad units
         if (mMoPubNative != null) {
             mMoPubNative.destroy();
             mMoPubNative = null;
         }
 
-        mRequestParameters = null;
-
-        for (final TimestampWrapper<NativeAd> timestampWrapper : mNativeAdCache) {
-            timestampWrapper.mInstance.destroy();
+        for (final AdditionalRequest additionalRequest : mAdditionalRequests) {
+            additionalRequest.mMoPubNative.destroy();
         }
-        mNativeAdCache.clear();
+        mAdditionalRequests.clear();
+        mActivity = null;
+        mAdUnitId = null;
+
+        mRequestParameters = null;
 
         mReplenishCacheHandler.removeMessages(0);
         mRequestInFlight = false;
-        mSequenceNumber = 0;
+        mNextSequenceNumber = 0;
         resetRetryTime();
+
+        mAverageFillMillis = DEFAULT_FILL_MILLISECONDS;
+        mDemandCount = 0;
+        mHasUnmetDemand = false;
     }
 
     /**
@@ -230,21 +308,141 @@ class NativeAdSource {
         final long now = SystemClock.uptimeMillis();
 
         // Starting an ad request takes several millis. Post for performance reasons.
-        if (!mRequestInFlight && !mRetryInFlight) {
+        if (!mRetryInFlight && (!mRequestInFlight || mActivity != null)) {
             mReplenishCacheHandler.post(mReplenishCacheRunnable);
         }
 
         // Dequeue the first ad that hasn't expired.
-        while (!mNativeAdCache.isEmpty()) {
-            TimestampWrapper<NativeAd> responseWrapper = mNativeAdCache.remove(0);
-
-            if (now - responseWrapper.mCreatedTimestamp < EXPIRATION_TIME_MILLISECONDS) {
-                return responseWrapper.mInstance;
+        removeExpiredAds(now);
+        if (mNativeAdCache.isEmpty()) {
+            leaseFromInventory(1);
+        }
+        if (!mNativeAdCache.isEmpty()) {
+            // A slot that waited was already counted as a miss
+            if (!mHasUnmetDemand) {
+                recordDemand(now);
+                mDequeueHitCount++;
             }
+            mHasUnmetDemand = false;
+            return mNativeAdCache.remove(0).mInstance;
+        }
+
+        if (!mHasUnmetDemand) {
+            recordDemand(now);
+            mHasUnmetDemand = true;
+            mDequeueMissCount++;
         }
         return null;
     }
 
+    /**
+     * @return The share of ad slots that found an ad waiting in the cache, or -1 if no slot has
+     * asked for an ad yet. A slot that had to wait counts once, however often it asked.
+     */
+    float getDequeueHitRate() {
+        final int dequeueCount = mDequeueHitCount + mDequeueMissCount;
+        return dequeueCount > 0 ? (float) mDequeueHitCount / dequeueCount : -1;
+    }
+
+    /**
+     * @return The number of ads the cache aims to hold: enough for the ad slots expected to ask
+     * for one while a request fills, within the memory cap.
+     */
+    @VisibleForTesting
+    int getTargetCacheSize() {
+        final long now = SystemClock.uptimeMillis();
+        final int expectedDemand =
+                (int) Math.ceil(getDemandPerSecond(now) * mAverageFillMillis / 1000);
+        return Math.max(MIN_CACHE_LIMIT, Math.min(MIN_CACHE_LIMIT + expectedDemand, mMaxCacheSize));
+    }
+
+    @VisibleForTesting
+    static int computeMaxCacheSize(final long maxMemoryBytes) {
+        final long maxAds = maxMemoryBytes / HEAP_FRACTION_FOR_ADS / ESTIMATED_AD_BYTES;
+        return (int) Math.max(MIN_CACHE_LIMIT, Math.min(MAX_CACHE_LIMIT, maxAds));
+    }
+
+    /**
+     * @return The rate at which ad slots asked for ads in the recent past. Ad slots ask as they
+     * scroll into range, so this follows the scroll velocity in units of ads.
+     */
+    private double getDemandPerSecond(final long now) {
+        int recentCount = 0;
+        long oldestRecentTime = now;
+        for (int i = mDemandCount - 1; i >= 0; i--) {
+            if (now - mDemandTimes[i] >= DEMAND_WINDOW_MILLISECONDS) {
+                break;
+            }
+            recentCount++;
+            oldestRecentTime = mDemandTimes[i];
+        }
+        // A burst within a single frame is measured over a full second
+        return recentCount * 1000.0 / Math.max(now - oldestRecentTime, 1000);
+    }
+
+    private void recordDemand(final long now) {
+        if (mDemandCount == DEMAND_SAMPLES) {
+            System.arraycopy(mDemandTimes, 1, mDemandTimes, 0, DEMAND_SAMPLES - 1);
+            mDemandCount--;
+        }
+        mDemandTimes[mDemandCount++] = now;
+    }
+
+    private void removeExpiredAds(final long now) {
+        while (!mNativeAdCache.isEmpty()
+                && now - mNativeAdCache.get(0).mCreatedTimestamp >= EXPIRATION_TIME_MILLISECONDS) {
+            mNativeAdCache.remove(0).mInstance.destroy();
+        }
+    }
+
+    /**
+     * Moves up to the given number of ads left behind by other ad sources on this ad unit, with
+     * the same request parameters, into the cache.
+     */
+    private void leaseFromInventory(final int maxAds) {
+        if (mAdUnitId == null) {
+            return;
+        }
+
+        final boolean wasEmpty = mNativeAdCache.isEmpty();
+        while (mNativeAdCache.size() < maxAds) {
+            final TimestampWrapper<NativeAd> timestampWrapper =
+                    NativeAdInventory.lease(mAdUnitId, mRequestParameters,
+                            mAdRendererRegistry);
+            if (timestampWrapper == null) {
+                break;
+            }
+            mNativeAdCache.add(timestampWrapper);
+        }
+        if (wasEmpty && !mNativeAdCache.isEmpty() && mAdSourceListener != null) {
+            mAdSourceListener.onAdsAvailable();
+        }
+    }
+
+    private void onAdLoaded(@NonNull final NativeAd nativeAd, final long requestStartTime) {
+        resetRetryTime();
+
+        final long fillMillis = SystemClock.uptimeMillis() - requestStartTime;
+        mAverageFillMillis = (3 * mAverageFillMillis + fillMillis) / 4;
+
+        mNativeAdCache.add(new TimestampWrapper<NativeAd>(nativeAd));
+        if (mNativeAdCache.size() == 1 && mAdSourceListener != null) {
+            mAdSourceListener.onAdsAvailable();
+        }
+
+        replenishCache();
+    }
+
+    private int getAdditionalRequestsInFlight() {
+        int count = 0;
+        for (final AdditionalRequest additionalRequest : mAdditionalRequests) {
+            if (additionalRequest.mInFlight) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     @VisibleForTesting
     void updateRetryTime() {
         if (mCurrentRetries < RETRY_TIME_ARRAY_MILLISECONDS.length - 1) {
@@ -272,12 +470,83 @@ class NativeAdSource {
      */
     @VisibleForTesting
     void replenishCache() {
-        if (!mRequestInFlight && mMoPubNative != null && mNativeAdCache.size() < CACHE_LIMIT) {
+        if (mMoPubNative == null) {
+            return;
+        }
+
+        final int targetCacheSize = getTargetCacheSize();
+        if (!mRequestInFlight && mNativeAdCache.size() < targetCacheSize) {
             mRequestInFlight = true;
-            mMoPubNative.makeRequest(mRequestParameters, mSequenceNumber);
+            mRequestStartTime = SystemClock.uptimeMillis();
+            mMoPubNative.makeRequest(mRequestParameters, mNextSequenceNumber++);
+        }
+
+        // More requests only help while the server is filling them
+        if (!mRequestInFlight || mCurrentRetries > 0 || mActivity == null || mAdUnitId == null) {
+            return;
+        }
+        int requestsInFlight = 1 + getAdditionalRequestsInFlight();
+        while (requestsInFlight < MAX_CONCURRENT_REQUESTS
+                && mNativeAdCache.size() + requestsInFlight < targetCacheSize) {
+            AdditionalRequest idleRequest = null;
+            for (final AdditionalRequest additionalRequest : mAdditionalRequests) {
+                if (!additionalRequest.mInFlight) {
+                    idleRequest = additionalRequest;
+                    break;
+                }
+            }
+            if (idleRequest == null) {
+                idleRequest = new AdditionalRequest(mActivity, mAdUnitId);
+                mAdditionalRequests.add(idleRequest);
+            }
+
+            idleRequest.makeRequest(mNextSequenceNumber++);
+            requestsInFlight++;
+        }
+    }
+
+    /**
+     * A request for an ad on its own {@link MoPubNative}, since a MoPubNative loads one ad at a
+     * time. Failures are not retried here. The main request backs off, and no additional requests
+     * start until it fills again.
+     */
+    private class AdditionalRequest implements MoPubNativeNetworkListener {
+        @NonNull final MoPubNative mMoPubNative;
+        boolean mInFlight;
+        private long mStartTime;
+
+        AdditionalRequest(@NonNull final Activity activity, @NonNull final String adUnitId) {
+            mMoPubNative = createMoPubNative(activity, adUnitId, this);
+            for (final MoPubAdRenderer renderer : mAdRendererRegistry.getRendererIterable()) {
+                mMoPubNative.registerAdRenderer(renderer);
+            }
+        }
+
+        void makeRequest(final int sequenceNumber) {
+            mInFlight = true;
+            mStartTime = SystemClock.uptimeMillis();
+            mMoPubNative.makeRequest(mRequestParameters, sequenceNumber);
+        }
+
+        @Override
+        public void onNativeLoad(@NonNull final NativeAd nativeAd) {
+            mInFlight = false;
+            onAdLoaded(nativeAd, mStartTime);
+        }
+
+        @Override
+        public void onNativeFail(final NativeErrorCode errorCode) {
+            mInFlight = false;
         }
     }
 
+    @NonNull
+    @VisibleForTesting
+    MoPubNative createMoPubNative(@NonNull final Activity activity, @NonNull final String adUnitId,
+            @NonNull final MoPubNativeNetworkListener moPubNativeNetworkListener) {
+        return new MoPubNative(activity, adUnitId, moPubNativeNetworkListener);
+    }
+
     @Deprecated
     @VisibleForTesting
     void setMoPubNative(final MoPubNative moPubNative) {
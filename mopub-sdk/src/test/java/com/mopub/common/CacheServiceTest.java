@@ -17,7 +17,10 @@ import org.robolectric.Robolectric;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.concurrent.Semaphore;
 
 import static com.mopub.common.CacheService.DiskLruCacheGetListener;
@@ -152,6 +155,115 @@ public class CacheServiceTest {
         assertThat(CacheService.getFromDiskCache(key1)).isEqualTo(data1.getBytes());
     }
 
+    @Test
+    public void diskLruCacheAsyncGet_afterAsyncPut_shouldReturnPutValue() throws Exception {
+        CacheService.initialize(context);
+        CacheService.putToDiskCacheAsync(key1, data1.getBytes());
+        CacheService.getFromDiskCacheAsync(key1, diskCacheGetListener);
+        semaphore.acquire();
+        assertThat(getKey).isEqualTo(key1);
+        assertThat(getBytes).isEqualTo(data1.getBytes());
+    }
+
+    @Test
+    public void getFromDiskCache_afterPut_shouldBeServedFromMemory() throws Exception {
+        CacheService.initialize(context);
+        CacheService.putToDiskCache(key1, data1.getBytes());
+
+        CacheService.getFromDiskCache(key1);
+        assertThat(new File(CacheService.getFilePathDiskCache(key1)).delete()).isTrue();
+
+        assertThat(CacheService.getFromDiskCache(key1)).isEqualTo(data1.getBytes());
+    }
+
+    @Test
+    public void getFromDiskCache_shouldReturnCopyThatCallerMayModify() throws Exception {
+        CacheService.initialize(context);
+        final byte[] content = data1.getBytes();
+        CacheService.putToDiskCache(key1, content);
+        content[0] = 'X';
+
+        final byte[] first = CacheService.getFromDiskCache(key1);
+        first[1] = 'X';
+        final byte[] second = CacheService.getFromDiskCache(key1);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second).isEqualTo(data1.getBytes());
+    }
+
+    @Test
+    public void getFromDiskCache_afterDiskLruCacheRemovesEntry_shouldReturnNull() throws Exception {
+        CacheService.initialize(context);
+        CacheService.putToDiskCache(key1, data1.getBytes());
+        CacheService.getFromDiskCache(key1);
+
+        CacheService.getDiskLruCache().remove(CacheService.createValidDiskCacheKey(key1));
+
+        assertThat(CacheService.getFromDiskCache(key1)).isNull();
+    }
+
+    @Test
+    public void putToDiskCache_withInputStream_shouldReplaceMemoryCachedValue() throws Exception {
+        CacheService.initialize(context);
+        CacheService.putToDiskCache(key1, data1.getBytes());
+        CacheService.getFromDiskCache(key1);
+
+        CacheService.putToDiskCache(key1, getInputStreamFromString("image_data_2"));
+
+        assertThat(CacheService.getFromDiskCache(key1)).isEqualTo("image_data_2".getBytes());
+    }
+
+    @Test
+    public void putToDiskCache_withFileInPartialDownloadsDirectory_shouldMoveFileIntoCache() throws Exception {
+        CacheService.initialize(context);
+        final File file = new File(CacheService.getPartialDownloadsDirectory(), "video.partial");
+        final FileOutputStream outputStream = new FileOutputStream(file);
+        outputStream.write(data1.getBytes());
+        outputStream.close();
+
+        assertThat(CacheService.putToDiskCache(key1, file)).isTrue();
+
+        assertThat(file.exists()).isFalse();
+        assertThat(CacheService.getFromDiskCache(key1)).isEqualTo(data1.getBytes());
+        assertThat(CacheService.getDiskLruCache().size()).isEqualTo(data1.length());
+    }
+
+    @Test
+    public void getByteBufferFromDiskCache_withLargeEntry_shouldReturnReadOnlyContents() throws Exception {
+        CacheService.initialize(context);
+        final byte[] largeContent = new byte[CacheService.MAX_MEMORY_CACHE_ENTRY_BYTES + 1];
+        Arrays.fill(largeContent, (byte) 7);
+        CacheService.putToDiskCache(key1, largeContent);
+
+        final ByteBuffer byteBuffer = CacheService.getByteBufferFromDiskCache(key1);
+
+        assertThat(byteBuffer.isReadOnly()).isTrue();
+        assertThat(byteBuffer.remaining()).isEqualTo(largeContent.length);
+        assertThat(byteBuffer.get(largeContent.length - 1)).isEqualTo((byte) 7);
+    }
+
+    @Test
+    public void getByteBufferFromDiskCache_whenEmpty_shouldReturnNull() throws Exception {
+        CacheService.initialize(context);
+
+        assertThat(CacheService.getByteBufferFromDiskCache(key1)).isNull();
+    }
+
+    @Test
+    public void putToDiskCache_shouldFlushJournalOncePerBatch() throws Exception {
+        CacheService.initialize(context);
+
+        for (int i = 0; i < CacheService.JOURNAL_FLUSH_BATCH_SIZE - 1; i++) {
+            CacheService.putToDiskCache(key1 + i, data1.getBytes());
+        }
+        assertThat(CacheService.getUnflushedWriteCount())
+                .isEqualTo(CacheService.JOURNAL_FLUSH_BATCH_SIZE - 1);
+
+        CacheService.putToDiskCache(key1, data1.getBytes());
+
+        assertThat(CacheService.getUnflushedWriteCount()).isEqualTo(0);
+    }
+
     private static InputStream getInputStreamFromString(final String string) {
         return spy(new ByteArrayInputStream(string.getBytes()));
     }
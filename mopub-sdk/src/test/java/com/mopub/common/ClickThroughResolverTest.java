@@ -0,0 +1,196 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.app.Activity;
+import android.content.Context;
+
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.common.util.AsyncTasks;
+import com.mopub.common.util.test.support.ShadowAsyncTasks;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.Robolectric;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SdkTestRunner.class)
+@Config(shadows = {ShadowAsyncTasks.class})
+public class ClickThroughResolverTest {
+    private static final String CLICK_THROUGH_URL = "https://ads.example.com/click?id=1";
+    private static final String RESOLVED_URL = "https://www.example.com/landing";
+    private static final String CLICK_TRACKER_URL = "https://track.example.com/click?id=1";
+
+    @Mock private UrlHandler.ResultActions mockResultActions;
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = Robolectric.buildActivity(Activity.class).create().get().getApplicationContext();
+    }
+
+    @Test
+    public void preResolve_whenDisabled_shouldNotResolve() {
+        ClickThroughResolver.preResolve(CLICK_THROUGH_URL, null);
+
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+        assertThat(ClickThroughResolver.isPendingForTesting(CLICK_THROUGH_URL)).isFalse();
+    }
+
+    @Test
+    public void preResolve_whenEnabled_shouldResolveOnPrefetchLaneAndCacheResult() {
+        ClickThroughResolver.setEnabled(true);
+
+        ClickThroughResolver.preResolve(CLICK_THROUGH_URL, null);
+
+        assertThat(ShadowAsyncTasks.getLatestLane()).isEqualTo(AsyncTasks.Lane.PREFETCH);
+        assertThat(ShadowAsyncTasks.getLatestParams()).containsOnly(CLICK_THROUGH_URL);
+        assertThat(ClickThroughResolver.isPendingForTesting(CLICK_THROUGH_URL)).isTrue();
+
+        ((UrlResolutionTask) ShadowAsyncTasks.getLatestAsyncTask()).onPostExecute(RESOLVED_URL);
+
+        assertThat(ClickThroughResolver.isPendingForTesting(CLICK_THROUGH_URL)).isFalse();
+        assertThat(ClickThroughResolver.getResolvedUrl(CLICK_THROUGH_URL)).isEqualTo(RESOLVED_URL);
+    }
+
+    @Test
+    public void preResolve_withDeepLink_shouldNotResolve() {
+        ClickThroughResolver.setEnabled(true);
+
+        ClickThroughResolver.preResolve("myapp://open", null);
+
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+    }
+
+    @Test
+    public void preResolve_withClickTrackerAsClickThroughUrl_shouldNotResolve() {
+        ClickThroughResolver.setEnabled(true);
+
+        ClickThroughResolver.preResolve(CLICK_THROUGH_URL,
+                Collections.singleton(CLICK_THROUGH_URL));
+
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+    }
+
+    @Test
+    public void preResolve_withClickThroughUrlOnClickTrackerHost_shouldNotResolve() {
+        ClickThroughResolver.setEnabled(true);
+
+        ClickThroughResolver.preResolve("https://track.example.com/redirect?id=1",
+                Collections.singleton(CLICK_TRACKER_URL));
+
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+    }
+
+    @Test
+    public void preResolve_withMoPubClickUrl_shouldNotResolve() {
+        ClickThroughResolver.setEnabled(true);
+
+        ClickThroughResolver.preResolve("https://ads.mopub.com/m/aclk?appid=&cid=1&city=", null);
+
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+    }
+
+    @Test
+    public void preResolve_withRedirectingTrackerUrl_shouldNotResolve() {
+        ClickThroughResolver.setEnabled(true);
+
+        ClickThroughResolver.preResolve(
+                "https://tracker.example.net/c?id=1&r=https%3A%2F%2Fwww.example.com%2Flanding",
+                Collections.singleton(CLICK_TRACKER_URL));
+
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+    }
+
+    @Test
+    public void preResolve_withUrlCarriedInPath_shouldNotResolve() {
+        ClickThroughResolver.setEnabled(true);
+
+        ClickThroughResolver.preResolve(
+                "https://tracker.example.net/c/https://www.example.com/landing", null);
+
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+    }
+
+    @Test
+    public void clickTrackingFilter_shouldOnlyAllowUrlsThatCannotCountAClick() {
+        final ClickThroughResolver.ClickTrackingFilter subject =
+                new ClickThroughResolver.ClickTrackingFilter(
+                        Collections.singleton(CLICK_TRACKER_URL));
+
+        assertThat(subject.isAllowed(CLICK_THROUGH_URL)).isTrue();
+        assertThat(subject.isAllowed(RESOLVED_URL)).isTrue();
+        assertThat(subject.isAllowed(CLICK_TRACKER_URL)).isFalse();
+        assertThat(subject.isAllowed("https://TRACK.example.com/other")).isFalse();
+        assertThat(subject.isAllowed("https://mopub.com/click")).isFalse();
+        assertThat(subject.isAllowed("https://cdn.mopub.com/click")).isFalse();
+        assertThat(subject.isAllowed("https://www.example.com/go?to=https://x.example.com"))
+                .isFalse();
+        assertThat(subject.isAllowed("https://www.example.com/go?deeplink=myapp%3A%2F%2Fopen"))
+                .isFalse();
+    }
+
+    @Test
+    public void doInBackground_withRedirectingTrackerUrl_shouldStopWithoutRequestingIt() {
+        final UrlResolutionTask subject = new UrlResolutionTask(
+                new UrlResolutionTask.UrlResolutionListener() {
+                    @Override
+                    public void onSuccess(final String resolvedUrl) {
+                    }
+
+                    @Override
+                    public void onFailure(final String message, final Throwable throwable) {
+                    }
+                }, new ClickThroughResolver.ClickTrackingFilter(
+                        Collections.singleton(CLICK_TRACKER_URL)));
+
+        assertThat(subject.doInBackground("https://track.example.com/redirect?to=landing"))
+                .isNull();
+        assertThat(subject.doInBackground(CLICK_TRACKER_URL)).isNull();
+    }
+
+    @Test
+    public void getResolvedUrl_afterTtl_shouldReturnNull() {
+        ClickThroughResolver.putResolvedUrlForTesting(CLICK_THROUGH_URL, RESOLVED_URL);
+
+        Robolectric.getForegroundThreadScheduler().advanceBy(
+                ClickThroughResolver.ENTRY_TTL_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertThat(ClickThroughResolver.getResolvedUrl(CLICK_THROUGH_URL)).isNull();
+    }
+
+    @Test
+    public void getResolvedUrl_withMoreThanMaxEntries_shouldEvictLeastRecentlyUsed() {
+        for (int i = 0; i <= ClickThroughResolver.MAX_ENTRIES; i++) {
+            ClickThroughResolver.putResolvedUrlForTesting(CLICK_THROUGH_URL + i, RESOLVED_URL);
+        }
+
+        assertThat(ClickThroughResolver.getResolvedUrl(CLICK_THROUGH_URL + 0)).isNull();
+        assertThat(ClickThroughResolver.getResolvedUrl(
+                CLICK_THROUGH_URL + ClickThroughResolver.MAX_ENTRIES)).isEqualTo(RESOLVED_URL);
+    }
+
+    @Test
+    public void handleUrl_withPreResolvedUrl_shouldHandleResolvedUrlWithoutResolving() {
+        ClickThroughResolver.putResolvedUrlForTesting(CLICK_THROUGH_URL, RESOLVED_URL);
+
+        new UrlHandler.Builder()
+                .withSupportedUrlActions(UrlAction.OPEN_IN_APP_BROWSER)
+                .withResultActions(mockResultActions)
+                .withoutMoPubBrowser()
+                .build().handleUrl(context, CLICK_THROUGH_URL);
+
+        verify(mockResultActions).urlHandlingSucceeded(RESOLVED_URL, UrlAction.OPEN_IN_APP_BROWSER);
+        assertThat(ShadowAsyncTasks.wasCalled()).isFalse();
+    }
+}
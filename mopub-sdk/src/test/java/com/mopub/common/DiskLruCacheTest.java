@@ -0,0 +1,178 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.app.Activity;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.concurrent.Callable;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SdkTestRunner.class)
+public class DiskLruCacheTest {
+    private static final int APP_VERSION = 1;
+    private static final long MAX_SIZE = 10 * 1024 * 1024;
+
+    private File directory;
+    private DiskLruCache subject;
+
+    @Before
+    public void setUp() throws Exception {
+        final Activity context = Robolectric.buildActivity(Activity.class).create().get();
+        directory = new File(context.getCacheDir(), "disk-lru-cache-test");
+        if (directory.exists()) {
+            DiskLruCacheUtil.deleteContents(directory);
+        }
+        subject = DiskLruCache.open(directory, APP_VERSION, 1, MAX_SIZE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        subject.delete();
+    }
+
+    @Test
+    public void open_afterClose_shouldRestoreEntries() throws Exception {
+        put("key1", "value1");
+        put("key2", "value2");
+        subject.remove("key1");
+        subject.close();
+
+        subject = DiskLruCache.open(directory, APP_VERSION, 1, MAX_SIZE);
+
+        assertThat(subject.get("key1")).isNull();
+        assertThat(subject.get("key2").getString(0)).isEqualTo("value2");
+        assertThat(subject.size()).isEqualTo(6);
+    }
+
+    @Test
+    public void open_afterManyOperations_shouldOnlyReplayOperationsSinceLastCompaction()
+            throws Exception {
+        for (int i = 0; i < DiskLruCache.REDUNDANT_OP_COMPACT_THRESHOLD * 3; i++) {
+            put("key" + (i % 10), "value" + i);
+        }
+        awaitBackgroundWork();
+        subject.close();
+
+        subject = DiskLruCache.open(directory, APP_VERSION, 1, MAX_SIZE);
+
+        assertThat(subject.getRedundantOpCount())
+                .isLessThan(DiskLruCache.REDUNDANT_OP_COMPACT_THRESHOLD);
+        assertThat(subject.get("key9").getString(0)).isEqualTo("value5999");
+    }
+
+    @Test
+    public void open_withCorruptSnapshot_shouldStartEmpty() throws Exception {
+        for (int i = 0; i < DiskLruCache.REDUNDANT_OP_COMPACT_THRESHOLD; i++) {
+            put("key" + (i % 10), "value" + i);
+        }
+        awaitBackgroundWork();
+        subject.close();
+        final RandomAccessFile snapshot =
+                new RandomAccessFile(new File(directory, DiskLruCache.SNAPSHOT_FILE), "rw");
+        snapshot.seek(snapshot.length() - 1);
+        final int lastByte = snapshot.read();
+        snapshot.seek(snapshot.length() - 1);
+        snapshot.write(lastByte ^ 0xff);
+        snapshot.close();
+
+        subject = DiskLruCache.open(directory, APP_VERSION, 1, MAX_SIZE);
+
+        assertThat(subject.get("key9")).isNull();
+        assertThat(subject.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void open_withVersion1Journal_shouldReadEntries() throws Exception {
+        subject.delete();
+        directory.mkdirs();
+        final FileWriter writer = new FileWriter(new File(directory, DiskLruCache.JOURNAL_FILE));
+        writer.write(DiskLruCache.MAGIC + "\n" + DiskLruCache.VERSION_1 + "\n" + APP_VERSION
+                + "\n1\n\nCLEAN key1 6\nREAD key1\n");
+        writer.close();
+        final FileWriter value = new FileWriter(new File(directory, "key1.0"));
+        value.write("value1");
+        value.close();
+
+        subject = DiskLruCache.open(directory, APP_VERSION, 1, MAX_SIZE);
+
+        assertThat(subject.get("key1").getString(0)).isEqualTo("value1");
+        assertThat(subject.size()).isEqualTo(6);
+    }
+
+    @Test
+    public void editorMoveFrom_shouldRenameFileIntoEntry() throws Exception {
+        final File source = new File(directory.getParentFile(), "disk-lru-cache-test-source");
+        final FileWriter writer = new FileWriter(source);
+        writer.write("value1");
+        writer.close();
+
+        final DiskLruCache.Editor editor = subject.edit("key1");
+        assertThat(editor.moveFrom(0, source)).isTrue();
+        editor.commit();
+
+        assertThat(source.exists()).isFalse();
+        assertThat(subject.get("key1").getString(0)).isEqualTo("value1");
+        assertThat(subject.size()).isEqualTo(6);
+    }
+
+    @Test
+    public void editorMoveFrom_withMissingSource_shouldReturnFalse() throws Exception {
+        final DiskLruCache.Editor editor = subject.edit("key1");
+
+        assertThat(editor.moveFrom(0, new File(directory, "missing"))).isFalse();
+        editor.abort();
+
+        assertThat(subject.get("key1")).isNull();
+    }
+
+    @Test
+    public void setMaxSize_withRemovalListener_shouldTellListenerAboutEvictedEntries()
+            throws Exception {
+        final DiskLruCache.RemovalListener removalListener =
+                mock(DiskLruCache.RemovalListener.class);
+        subject.setRemovalListener(removalListener);
+        put("key1", "value1");
+        put("key2", "value2");
+
+        subject.setMaxSize(6);
+        awaitBackgroundWork();
+
+        verify(removalListener).onEntryRemoved("key1");
+        verify(removalListener, never()).onEntryRemoved("key2");
+    }
+
+    private void put(final String key, final String value) throws Exception {
+        final DiskLruCache.Editor editor = subject.edit(key);
+        final OutputStream outputStream = editor.newOutputStream(0);
+        outputStream.write(value.getBytes());
+        outputStream.close();
+        editor.commit();
+    }
+
+    private void awaitBackgroundWork() throws Exception {
+        subject.executorService.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                return null;
+            }
+        }).get();
+    }
+}
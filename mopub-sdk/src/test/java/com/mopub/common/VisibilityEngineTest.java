@@ -0,0 +1,106 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.view.ViewTreeObserver;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.robolectric.Robolectric;
+
+import java.util.concurrent.TimeUnit;
+
+import static android.view.ViewTreeObserver.OnPreDrawListener;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SdkTestRunner.class)
+public class VisibilityEngineTest {
+    @Mock private ViewTreeObserver viewTreeObserver;
+    @Mock private VisibilityEngine.Client client1;
+    @Mock private VisibilityEngine.Client client2;
+
+    @Before
+    public void setUp() {
+        when(viewTreeObserver.isAlive()).thenReturn(true);
+    }
+
+    @Test
+    public void attach_withSameViewTreeObserver_shouldShareOnePreDrawListener() {
+        final VisibilityEngine engine1 = VisibilityEngine.attach(viewTreeObserver, client1);
+        final VisibilityEngine engine2 = VisibilityEngine.attach(viewTreeObserver, client2);
+
+        assertThat(engine1).isSameAs(engine2);
+        verify(viewTreeObserver, times(1)).addOnPreDrawListener(any(OnPreDrawListener.class));
+    }
+
+    @Test
+    public void onPreDraw_shouldCheckAllClientsInOneThrottledPass() {
+        VisibilityEngine.attach(viewTreeObserver, client1);
+        VisibilityEngine.attach(viewTreeObserver, client2);
+        final ArgumentCaptor<OnPreDrawListener> listenerCaptor =
+                ArgumentCaptor.forClass(OnPreDrawListener.class);
+        verify(viewTreeObserver).addOnPreDrawListener(listenerCaptor.capture());
+
+        listenerCaptor.getValue().onPreDraw();
+        listenerCaptor.getValue().onPreDraw();
+
+        verify(client1, never()).onVisibilityCheck();
+        Robolectric.getForegroundThreadScheduler().advanceBy(
+                VisibilityEngine.VISIBILITY_THROTTLE_MILLIS, TimeUnit.MILLISECONDS);
+
+        verify(client1).onVisibilityCheck();
+        verify(client2).onVisibilityCheck();
+    }
+
+    @Test
+    public void scheduleCheck_shouldOnlyCheckScheduledClient() {
+        final VisibilityEngine engine = VisibilityEngine.attach(viewTreeObserver, client1);
+        VisibilityEngine.attach(viewTreeObserver, client2);
+
+        engine.scheduleCheck(client1);
+        engine.runPass();
+
+        verify(client1).onVisibilityCheck();
+        verify(client2, never()).onVisibilityCheck();
+        assertThat(engine.isCheckScheduled(client1)).isFalse();
+    }
+
+    @Test
+    public void detach_withLastClient_shouldRemovePreDrawListener() {
+        final VisibilityEngine engine = VisibilityEngine.attach(viewTreeObserver, client1);
+        VisibilityEngine.attach(viewTreeObserver, client2);
+        engine.scheduleCheck(client1);
+
+        engine.detach(client1);
+        verify(viewTreeObserver, never()).removeOnPreDrawListener(any(OnPreDrawListener.class));
+        assertThat(engine.isCheckScheduled(client1)).isFalse();
+
+        engine.detach(client2);
+        verify(viewTreeObserver).removeOnPreDrawListener(any(OnPreDrawListener.class));
+    }
+
+    @Test
+    public void attach_withNonAliveViewTreeObserver_shouldStillRunScheduledChecks() {
+        when(viewTreeObserver.isAlive()).thenReturn(false);
+
+        final VisibilityEngine engine = VisibilityEngine.attach(viewTreeObserver, client1);
+        engine.scheduleCheck(client1);
+        engine.runPass();
+
+        verify(viewTreeObserver, never()).addOnPreDrawListener(any(OnPreDrawListener.class));
+        assertThat(engine.isAlive()).isFalse();
+        verify(client1).onVisibilityCheck();
+    }
+}
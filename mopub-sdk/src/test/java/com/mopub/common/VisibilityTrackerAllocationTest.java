@@ -0,0 +1,127 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import android.app.Activity;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Counts the bytes the visibility pass allocates while a feed of views is tracked. The pass runs
+ * on every frame while the feed scrolls, so in steady state it must not allocate at all.
+ */
+@RunWith(SdkTestRunner.class)
+public class VisibilityTrackerAllocationTest {
+    private static final int TRACKED_VIEWS = 40;
+    private static final int MEASURED_PASSES = 10000;
+
+    private com.sun.management.ThreadMXBean threadMXBean;
+    private VisibilityTracker subject;
+    private final List<View> views = new ArrayList<View>();
+    private int visibleCount;
+    private int invisibleCount;
+
+    @Before
+    public void setUp() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        final Activity activity = Robolectric.buildActivity(Activity.class).create().get();
+        for (int i = 0; i < TRACKED_VIEWS; i++) {
+            views.add(new View(activity));
+        }
+        final View visibleView = views.get(0);
+
+        // Decides visibility without touching the views, so only the tracker's own work counts
+        subject = new VisibilityTracker(activity, new VisibilityTracker.VisibilityChecker() {
+            @Override
+            public boolean isVisible(@Nullable final View rootView, @Nullable final View view,
+                    final int minPercentageViewed, @Nullable final Integer minVisiblePx) {
+                return view == visibleView;
+            }
+        });
+        subject.setVisibilityTrackerListener(new VisibilityTracker.VisibilityTrackerListener() {
+            @Override
+            public void onVisibilityChanged(final List<View> visibleViews,
+                    final List<View> invisibleViews) {
+                visibleCount += visibleViews.size();
+                invisibleCount += invisibleViews.size();
+            }
+        });
+        for (final View view : views) {
+            subject.addView(view, 50, null);
+        }
+    }
+
+    @Test
+    public void visibilityPass_inSteadyState_shouldNotAllocate() {
+        final Runnable passes = new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < MEASURED_PASSES; i++) {
+                    subject.mVisibilityClient.onVisibilityCheck();
+                }
+            }
+        };
+        passes.run();
+
+        final long allocatedBytes = measureAllocatedBytes(passes);
+
+        assertThat(visibleCount).isEqualTo(2 * MEASURED_PASSES);
+        assertThat(invisibleCount).isEqualTo(2 * MEASURED_PASSES * (TRACKED_VIEWS - 1));
+        // Less than a byte per pass, where a single iterator per pass would be dozens
+        assertThat(allocatedBytes).isLessThan(MEASURED_PASSES);
+    }
+
+    @Test
+    public void addView_withAlreadyTrackedViews_shouldNotAllocate() {
+        final Runnable addViews = new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < MEASURED_PASSES; i++) {
+                    subject.addView(views.get(i % TRACKED_VIEWS), 50, null);
+                }
+            }
+        };
+        addViews.run();
+
+        final long allocatedBytes = measureAllocatedBytes(addViews);
+
+        assertThat(subject.getTrackedViewCount()).isEqualTo(TRACKED_VIEWS);
+        assertThat(allocatedBytes).isLessThan(MEASURED_PASSES);
+    }
+
+    /**
+     * @return The bytes the current thread allocated while running the work, less what measuring
+     * itself allocates.
+     */
+    private long measureAllocatedBytes(final Runnable work) {
+        final long threadId = Thread.currentThread().getId();
+
+        final long emptyStartBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        final long overheadBytes = threadMXBean.getThreadAllocatedBytes(threadId) - emptyStartBytes;
+
+        final long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        work.run();
+        return threadMXBean.getThreadAllocatedBytes(threadId) - startBytes - overheadBytes;
+    }
+}
@@ -6,14 +6,12 @@ package com.mopub.common;
 
 import android.app.Activity;
 import android.graphics.Rect;
-import android.os.Handler;
 import android.os.SystemClock;
 import android.view.View;
 import android.view.ViewParent;
 import android.view.ViewTreeObserver;
 import android.view.Window;
 
-import com.mopub.common.VisibilityTracker.TrackingInfo;
 import com.mopub.common.test.support.SdkTestRunner;
 
 import org.fest.util.Lists;
@@ -29,8 +27,6 @@ import org.robolectric.shadows.ShadowSystemClock;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.WeakHashMap;
 
 import static android.view.ViewTreeObserver.OnPreDrawListener;
 import static com.mopub.common.VisibilityTracker.VisibilityChecker;
@@ -52,17 +48,14 @@ public class VisibilityTrackerTest {
 
     private Activity activity;
     private VisibilityTracker subject;
-    private Map<View, TrackingInfo> trackedViews;
     private VisibilityChecker visibilityChecker;
 
     @Mock private VisibilityTrackerListener visibilityTrackerListener;
     @Mock private View view;
     @Mock private View view2;
-    @Mock private Handler visibilityHandler;
 
     @Before
     public void setUp() throws Exception {
-        trackedViews = new WeakHashMap<View, TrackingInfo>();
         visibilityChecker = new VisibilityChecker();
         activity = Robolectric.buildActivity(Activity.class).create().get();
         view = createViewMock(View.VISIBLE, 100, 100, 100, 100, true, true);
@@ -77,7 +70,7 @@ public class VisibilityTrackerTest {
                 visibilityTrackerListener.onVisibilityChanged(safeVisibleViews, safeInVisibleViews);
             }
         };
-        subject = new VisibilityTracker(activity, trackedViews, visibilityChecker, visibilityHandler);
+        subject = new VisibilityTracker(activity, visibilityChecker);
         subject.setVisibilityTrackerListener(proxyListener);
 
         // XXX We need this to ensure that our SystemClock starts
@@ -97,10 +90,10 @@ public class VisibilityTrackerTest {
         when(decorView.getViewTreeObserver()).thenReturn(viewTreeObserver);
         when(viewTreeObserver.isAlive()).thenReturn(true);
 
-        subject = new VisibilityTracker(activity1, trackedViews, visibilityChecker, visibilityHandler);
-        assertThat(subject.mOnPreDrawListener).isNotNull();
-        verify(viewTreeObserver).addOnPreDrawListener(subject.mOnPreDrawListener);
+        subject = new VisibilityTracker(activity1, visibilityChecker);
+        verify(viewTreeObserver).addOnPreDrawListener(any(OnPreDrawListener.class));
         assertThat(subject.mWeakViewTreeObserver.get()).isEqualTo(viewTreeObserver);
+        assertThat(subject.mVisibilityEngine.isAlive()).isTrue();
     }
 
     @Test
@@ -115,15 +108,15 @@ public class VisibilityTrackerTest {
         when(decorView.getViewTreeObserver()).thenReturn(viewTreeObserver);
         when(viewTreeObserver.isAlive()).thenReturn(false);
 
-        subject = new VisibilityTracker(activity1, trackedViews, visibilityChecker, visibilityHandler);
-        verify(viewTreeObserver, never()).addOnPreDrawListener(subject.mOnPreDrawListener);
+        subject = new VisibilityTracker(activity1, visibilityChecker);
+        verify(viewTreeObserver, never()).addOnPreDrawListener(any(OnPreDrawListener.class));
         assertThat(subject.mWeakViewTreeObserver.get()).isNull();
+        assertThat(subject.mVisibilityEngine.isAlive()).isFalse();
     }
 
     @Test
     public void constructor_withApplicationContext_shouldNotSetOnPreDrawListener() {
-        subject = new VisibilityTracker(activity.getApplicationContext(), trackedViews,
-                visibilityChecker, visibilityHandler);
+        subject = new VisibilityTracker(activity.getApplicationContext(), visibilityChecker);
 
         assertThat(subject.mWeakViewTreeObserver.get()).isNull();
     }
@@ -132,7 +125,7 @@ public class VisibilityTrackerTest {
     public void addView_withVisibleView_shouldAddVisibleViewToTrackedViews() throws Exception {
         subject.addView(view, MIN_PERCENTAGE_VIEWED, null);
 
-        assertThat(trackedViews).hasSize(1);
+        assertThat(subject.getTrackedViewCount()).isEqualTo(1);
     }
 
     @Test
@@ -145,8 +138,7 @@ public class VisibilityTrackerTest {
         when(rootView.getViewTreeObserver()).thenReturn(viewTreeObserver);
         when(viewTreeObserver.isAlive()).thenReturn(true);
 
-        subject = new VisibilityTracker(activity.getApplicationContext(), trackedViews,
-                visibilityChecker, visibilityHandler);
+        subject = new VisibilityTracker(activity.getApplicationContext(), visibilityChecker);
         subject.addView(view, MIN_PERCENTAGE_VIEWED, null);
 
         assertThat(subject.mWeakViewTreeObserver.get()).isEqualTo(viewTreeObserver);
@@ -156,31 +148,32 @@ public class VisibilityTrackerTest {
     public void addView_whenViewIsNull_shouldThrowNPE() throws Exception {
         subject.addView(null, MIN_PERCENTAGE_VIEWED, null);
 
-        assertThat(trackedViews).isEmpty();
+        assertThat(subject.getTrackedViewCount()).isEqualTo(0);
     }
 
     @Test
     public void removeView_shouldRemoveFromTrackedViews() throws Exception {
         subject.addView(view, MIN_PERCENTAGE_VIEWED, null);
 
-        assertThat(trackedViews).hasSize(1);
-        assertThat(trackedViews).containsKey(view);
+        assertThat(subject.getTrackedViewCount()).isEqualTo(1);
+        assertThat(subject.isTracked(view)).isTrue();
 
         subject.removeView(view);
 
-        assertThat(trackedViews).isEmpty();
+        assertThat(subject.getTrackedViewCount()).isEqualTo(0);
     }
 
     @Test
-    public void clear_shouldRemoveAllViewsFromTrackedViews_shouldRemoveMessagesFromVisibilityHandler_shouldResetIsVisibilityScheduled() throws Exception {
+    public void clear_shouldRemoveAllViewsFromTrackedViews_shouldCancelScheduledVisibilityCheck() throws Exception {
         subject.addView(view, MIN_PERCENTAGE_VIEWED, null);
         subject.addView(view2, MIN_PERCENTAGE_VIEWED, null);
-        assertThat(trackedViews).hasSize(2);
+        assertThat(subject.getTrackedViewCount()).isEqualTo(2);
+        assertThat(subject.mVisibilityEngine.isCheckScheduled(subject.mVisibilityClient)).isTrue();
 
         subject.clear();
 
-        assertThat(trackedViews).isEmpty();
-        verify(visibilityHandler).removeMessages(0);
+        assertThat(subject.getTrackedViewCount()).isEqualTo(0);
+        assertThat(subject.mVisibilityEngine.isCheckScheduled(subject.mVisibilityClient)).isFalse();
     }
 
     @Test
@@ -196,16 +189,15 @@ public class VisibilityTrackerTest {
         when(decorView.getViewTreeObserver()).thenReturn(viewTreeObserver);
         when(viewTreeObserver.isAlive()).thenReturn(true);
 
-        subject = new VisibilityTracker(activity1, trackedViews, visibilityChecker, visibilityHandler);
+        subject = new VisibilityTracker(activity1, visibilityChecker);
 
         subject.addView(view, MIN_PERCENTAGE_VIEWED, null);
         subject.addView(view2, MIN_PERCENTAGE_VIEWED, null);
-        assertThat(trackedViews).hasSize(2);
+        assertThat(subject.getTrackedViewCount()).isEqualTo(2);
 
         subject.destroy();
 
-        assertThat(trackedViews).isEmpty();
-        verify(visibilityHandler).removeMessages(0);
+        assertThat(subject.getTrackedViewCount()).isEqualTo(0);
         verify(viewTreeObserver).removeOnPreDrawListener(any(OnPreDrawListener.class));
         assertThat(subject.mWeakViewTreeObserver.get()).isNull();
     }
@@ -346,27 +338,27 @@ public class VisibilityTrackerTest {
     public void addView_shouldClearViewAfterNumAccesses() {
         // Access 1 time
         subject.addView(view, MIN_PERCENTAGE_VIEWED, null);
-        assertThat(trackedViews).hasSize(1);
+        assertThat(subject.getTrackedViewCount()).isEqualTo(1);
 
         // Access 2-49 times
         for (int i = 0; i < VisibilityTracker.NUM_ACCESSES_BEFORE_TRIMMING - 2; ++i) {
             subject.addView(view2, MIN_PERCENTAGE_VIEWED, null);
         }
-        assertThat(trackedViews).hasSize(2);
+        assertThat(subject.getTrackedViewCount()).isEqualTo(2);
 
         // 50th time
         subject.addView(view2, MIN_PERCENTAGE_VIEWED, null);
-        assertThat(trackedViews).hasSize(2);
+        assertThat(subject.getTrackedViewCount()).isEqualTo(2);
 
         // 51-99
         for (int i = 0; i < VisibilityTracker.NUM_ACCESSES_BEFORE_TRIMMING - 1; ++i) {
             subject.addView(view2, MIN_PERCENTAGE_VIEWED, null);
         }
-        assertThat(trackedViews).hasSize(2);
+        assertThat(subject.getTrackedViewCount()).isEqualTo(2);
 
         // 100
         subject.addView(view2, MIN_PERCENTAGE_VIEWED, null);
-        assertThat(trackedViews).hasSize(1);
+        assertThat(subject.getTrackedViewCount()).isEqualTo(1);
     }
 
     public static View createViewMock(final int visibility,
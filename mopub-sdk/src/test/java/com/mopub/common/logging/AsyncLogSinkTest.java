@@ -0,0 +1,166 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common.logging;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent;
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class AsyncLogSinkTest {
+
+    private CountDownLatch firstDeliveryStarted;
+    private CountDownLatch releaseDelivery;
+    private CountDownLatch allDelivered;
+    private List<Object> deliveredArgs;
+    private List<Thread> deliveredThreads;
+    private AsyncLogSink subject;
+
+    @Before
+    public void setUp() {
+        firstDeliveryStarted = new CountDownLatch(1);
+        releaseDelivery = new CountDownLatch(1);
+        deliveredArgs = Collections.synchronizedList(new ArrayList<>());
+        deliveredThreads = Collections.synchronizedList(new ArrayList<Thread>());
+    }
+
+    @Test
+    public void enqueue_shouldDeliverOnBackgroundThreadInOrder() throws Exception {
+        allDelivered = new CountDownLatch(3);
+        releaseDelivery.countDown();
+        subject = new AsyncLogSink(4, new RecordingDelivery());
+
+        assertThat(subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"one"})).isTrue();
+        assertThat(subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"two"})).isTrue();
+        assertThat(subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"three"})).isTrue();
+
+        assertThat(allDelivered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(deliveredArgs).containsExactly("one", "two", "three");
+        assertThat(subject.getDroppedCount()).isEqualTo(0);
+        subject.stop();
+    }
+
+    @Test
+    public void enqueue_whenFull_shouldDropAndReportDroppedCount() throws Exception {
+        allDelivered = new CountDownLatch(4);
+        subject = new AsyncLogSink(2, new RecordingDelivery());
+
+        subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"one"});
+        assertThat(firstDeliveryStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"two"})).isTrue();
+        assertThat(subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"three"})).isTrue();
+        assertThat(subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"four"})).isFalse();
+
+        assertThat(subject.getDroppedCount()).isEqualTo(1);
+        releaseDelivery.countDown();
+
+        assertThat(allDelivered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(deliveredArgs).containsExactly("one", "two", "three",
+                "Dropped 1 log events because the async log buffer was full.");
+        assertThat(subject.getQueuedCount()).isEqualTo(0);
+        subject.stop();
+    }
+
+    @Test
+    public void enqueue_whenFullThenQueuedAgain_shouldReportDropsBetweenRecords() throws Exception {
+        allDelivered = new CountDownLatch(5);
+        subject = new AsyncLogSink(2, new RecordingDelivery());
+
+        subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"one"});
+        assertThat(firstDeliveryStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"two"});
+        subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"three"});
+        subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"dropped"});
+        releaseDelivery.countDown();
+        // Wait for room before queuing the next record
+        while (subject.getQueuedCount() > 0) {
+            Thread.sleep(10);
+        }
+        subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"four"});
+
+        assertThat(allDelivered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(deliveredArgs).containsExactly("one", "two", "three",
+                "Dropped 1 log events because the async log buffer was full.", "four");
+        subject.stop();
+    }
+
+    @Test
+    public void enqueue_afterStop_shouldDeliverOnCallingThread() throws Exception {
+        allDelivered = new CountDownLatch(2);
+        releaseDelivery.countDown();
+        subject = new AsyncLogSink(4, new RecordingDelivery());
+        subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"one"});
+        assertThat(firstDeliveryStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        subject.stop();
+        assertThat(subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"two"})).isTrue();
+
+        assertThat(deliveredThreads.get(1)).isSameAs(Thread.currentThread());
+        assertThat(deliveredThreads.get(0)).isNotSameAs(Thread.currentThread());
+        assertThat(deliveredArgs).containsExactly("one", "two");
+    }
+
+    @Test
+    public void enqueue_afterStopWhileDraining_shouldWaitForQueuedRecords() throws Exception {
+        allDelivered = new CountDownLatch(3);
+        subject = new AsyncLogSink(4, new RecordingDelivery());
+        subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"one"});
+        assertThat(firstDeliveryStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"two"});
+        subject.stop();
+
+        final Thread caller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                subject.enqueue(null, null, SdkLogEvent.CUSTOM, new Object[]{"three"});
+            }
+        });
+        caller.start();
+        caller.join(100);
+
+        assertThat(caller.isAlive()).isTrue();
+        assertThat(deliveredArgs).containsExactly("one");
+
+        releaseDelivery.countDown();
+        caller.join(5000);
+
+        assertThat(caller.isAlive()).isFalse();
+        assertThat(allDelivered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(deliveredArgs).containsExactly("one", "two", "three");
+        assertThat(deliveredThreads.get(1)).isSameAs(deliveredThreads.get(0));
+        assertThat(deliveredThreads.get(2)).isSameAs(caller);
+    }
+
+    private class RecordingDelivery implements AsyncLogSink.Delivery {
+        @Override
+        public void deliver(@Nullable final Throwable callSite, @Nullable final String identifier,
+                            @NonNull final MoPubLog.MPLogEventType logEventType,
+                            @Nullable final Object[] args) {
+            deliveredArgs.add(args[0]);
+            deliveredThreads.add(Thread.currentThread());
+            firstDeliveryStarted.countDown();
+            try {
+                releaseDelivery.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            allDelivered.countDown();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common.logging;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+
+import static com.mopub.common.logging.MoPubLog.LogLevel;
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SdkTestRunner.class)
+public class MoPubLogTest {
+
+    @Mock private MoPubLogger mockLogger;
+
+    @Before
+    public void setUp() {
+        MoPubLog.setLogLevel(LogLevel.NONE);
+    }
+
+    @After
+    public void tearDown() {
+        MoPubLog.addLogger(mockLogger, LogLevel.NONE);
+        MoPubLog.setLogLevel(LogLevel.INFO);
+    }
+
+    @Test
+    public void log_withLoggerAtEventLevel_shouldPassCallingClassAndMethod() {
+        MoPubLog.addLogger(mockLogger, LogLevel.DEBUG);
+
+        MoPubLog.log(SdkLogEvent.CUSTOM, "message");
+
+        verify(mockLogger).log(MoPubLogTest.class.getName(),
+                "log_withLoggerAtEventLevel_shouldPassCallingClassAndMethod", null,
+                "SDK Log - message");
+    }
+
+    @Test
+    public void log_withIdentifier_shouldPassIdentifier() {
+        MoPubLog.addLogger(mockLogger, LogLevel.DEBUG);
+
+        MoPubLog.log("identifier", SdkLogEvent.CUSTOM, "message");
+
+        verify(mockLogger).log(MoPubLogTest.class.getName(),
+                "log_withIdentifier_shouldPassIdentifier", "identifier", "SDK Log - message");
+    }
+
+    @Test
+    public void log_withAsyncLoggingWithoutCallSites_shouldPassNullClassAndMethod() {
+        MoPubLog.addLogger(mockLogger, LogLevel.DEBUG);
+        MoPubLog.setAsyncLoggingEnabled(true, false);
+
+        try {
+            MoPubLog.log(SdkLogEvent.CUSTOM, "message");
+
+            verify(mockLogger, timeout(5000)).log(null, null, null, "SDK Log - message");
+        } finally {
+            MoPubLog.setAsyncLoggingEnabled(false);
+        }
+    }
+
+    @Test
+    public void log_withLoggerAboveEventLevel_shouldNotLog() {
+        MoPubLog.addLogger(mockLogger, LogLevel.INFO);
+
+        MoPubLog.log(SdkLogEvent.CUSTOM, "message");
+
+        verify(mockLogger, never()).log(anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void isLoggable_shouldReflectLowestRegisteredLevel() {
+        assertThat(MoPubLog.isLoggable(LogLevel.DEBUG)).isFalse();
+        assertThat(MoPubLog.isLoggable(LogLevel.INFO)).isFalse();
+
+        MoPubLog.addLogger(mockLogger, LogLevel.INFO);
+
+        assertThat(MoPubLog.isLoggable(LogLevel.DEBUG)).isFalse();
+        assertThat(MoPubLog.isLoggable(LogLevel.INFO)).isTrue();
+
+        MoPubLog.addLogger(mockLogger, LogLevel.DEBUG);
+
+        assertThat(MoPubLog.isLoggable(LogLevel.DEBUG)).isTrue();
+    }
+
+    @Test
+    public void isLoggable_withNull_shouldReturnFalse() {
+        MoPubLog.addLogger(mockLogger, LogLevel.DEBUG);
+
+        assertThat(MoPubLog.isLoggable(null)).isFalse();
+    }
+}
@@ -7,9 +7,11 @@ package com.mopub.common.test.support;
 import androidx.annotation.NonNull;
 
 import com.mopub.common.CacheService;
+import com.mopub.common.ClickThroughResolver;
 import com.mopub.common.ClientMetadata;
 import com.mopub.common.MoPub;
 import com.mopub.common.Preconditions;
+import com.mopub.common.VisibilityEngine;
 import com.mopub.common.factories.MethodBuilderFactory;
 import com.mopub.common.util.AsyncTasks;
 import com.mopub.common.util.DateAndTime;
@@ -18,6 +20,9 @@ import com.mopub.common.util.test.support.ShadowMoPubHttpUrlConnection;
 import com.mopub.common.util.test.support.ShadowReflection;
 import com.mopub.common.util.test.support.TestDateAndTime;
 import com.mopub.common.util.test.support.TestMethodBuilderFactory;
+import com.mopub.mobileads.AdLifecycleEventBus;
+import com.mopub.mobileads.FullscreenAdHandoff;
+import com.mopub.mobileads.WebViewPool;
 import com.mopub.mobileads.factories.AdViewControllerFactory;
 import com.mopub.mobileads.factories.BaseAdFactory;
 import com.mopub.mobileads.factories.FullscreenAdAdapterFactory;
@@ -34,8 +39,10 @@ import com.mopub.mobileads.test.support.TestMoPubViewFactory;
 import com.mopub.mobileads.test.support.TestMraidControllerFactory;
 import com.mopub.mobileads.test.support.TestVastManagerFactory;
 import com.mopub.mobileads.test.support.TestVideoViewFactory;
+import com.mopub.nativeads.NativeAdInventory;
 import com.mopub.nativeads.factories.CustomEventNativeFactory;
 import com.mopub.nativeads.test.support.TestCustomEventNativeFactory;
+import com.mopub.network.TrackingPixelDispatcher;
 
 import org.junit.runners.model.InitializationError;
 import org.mockito.MockitoAnnotations;
@@ -90,6 +97,13 @@ public class SdkTestRunner extends RobolectricTestRunner {
 
             AsyncTasks.setExecutor(new RoboExecutorService());
             CacheService.clearAndNullCaches();
+            TrackingPixelDispatcher.clearForTesting();
+            VisibilityEngine.clearForTesting();
+            ClickThroughResolver.clearForTesting();
+            WebViewPool.clearForTesting();
+            FullscreenAdHandoff.clearForTesting();
+            AdLifecycleEventBus.clearForTesting();
+            NativeAdInventory.clearForTesting();
         }
     }
 }
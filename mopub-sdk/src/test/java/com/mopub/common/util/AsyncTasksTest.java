@@ -12,11 +12,20 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.shadows.ShadowLooper;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 
@@ -63,4 +72,106 @@ public class AsyncTasksTest {
         ShadowLooper.runUiThreadTasks();
         verify(asyncTask).executeOnExecutor(any(Executor.class), eq("hello"));
     }
+
+    @Test
+    public void safeExecuteOnExecutor_withLane_shouldUseThatLanesExecutor() throws Exception {
+        AsyncTasks.setExecutor(null);
+
+        AsyncTasks.safeExecuteOnExecutor(AsyncTasks.Lane.PREFETCH, asyncTask, "hello");
+
+        verify(asyncTask).executeOnExecutor(same(AsyncTasks.getExecutor(AsyncTasks.Lane.PREFETCH)),
+                eq("hello"));
+    }
+
+    @Test
+    public void getExecutor_shouldNotShareExecutorsBetweenLanesOrWithAsyncTask() throws Exception {
+        AsyncTasks.setExecutor(null);
+
+        final Executor ioExecutor = AsyncTasks.getExecutor(AsyncTasks.Lane.IO);
+        final Executor cpuExecutor = AsyncTasks.getExecutor(AsyncTasks.Lane.CPU);
+        final Executor prefetchExecutor = AsyncTasks.getExecutor(AsyncTasks.Lane.PREFETCH);
+
+        assertThat(ioExecutor).isNotSameAs(cpuExecutor);
+        assertThat(ioExecutor).isNotSameAs(prefetchExecutor);
+        assertThat(cpuExecutor).isNotSameAs(prefetchExecutor);
+        assertThat(ioExecutor).isNotSameAs(AsyncTask.THREAD_POOL_EXECUTOR);
+        assertThat(AsyncTasks.getExecutor(AsyncTasks.Lane.IO)).isSameAs(ioExecutor);
+    }
+
+    @Test
+    public void getExecutor_withExecutorOverride_shouldReturnOverrideForAllLanes() throws Exception {
+        final Executor executor = mock(Executor.class);
+        AsyncTasks.setExecutor(executor);
+
+        for (final AsyncTasks.Lane lane : AsyncTasks.Lane.values()) {
+            assertThat(AsyncTasks.getExecutor(lane)).isSameAs(executor);
+        }
+
+        AsyncTasks.setExecutor(null);
+    }
+
+    @Test
+    public void getQueuedTaskCount_withIdleLane_shouldReturnZero() throws Exception {
+        assertThat(AsyncTasks.getQueuedTaskCount(AsyncTasks.Lane.CPU)).isEqualTo(0);
+        assertThat(AsyncTasks.getActiveTaskCount(AsyncTasks.Lane.CPU)).isEqualTo(0);
+    }
+
+    @Test
+    public void getExecutor_withBusyLane_shouldQueueRatherThanRejectTasks() throws Exception {
+        AsyncTasks.setExecutor(null);
+        final Executor executor = AsyncTasks.getExecutor(AsyncTasks.Lane.PREFETCH);
+        final CountDownLatch blockingLatch = new CountDownLatch(1);
+        final int taskCount = 300;
+        final CountDownLatch completedLatch = new CountDownLatch(taskCount);
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blockingLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                completedLatch.countDown();
+            }
+        };
+
+        for (int i = 0; i < taskCount; i++) {
+            executor.execute(task);
+        }
+
+        assertThat(AsyncTasks.getQueuedTaskCount(AsyncTasks.Lane.PREFETCH)).isGreaterThan(128);
+        blockingLatch.countDown();
+        assertThat(completedLatch.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void serialExecutor_shouldRunTasksOneAtATimeInSubmissionOrder() throws Exception {
+        AsyncTasks.setExecutor(null);
+        final AsyncTasks.SerialExecutor subject = new AsyncTasks.SerialExecutor(AsyncTasks.Lane.IO);
+        final int taskCount = 50;
+        final List<Integer> runOrder = Collections.synchronizedList(new ArrayList<Integer>());
+        final AtomicInteger runningCount = new AtomicInteger();
+        final AtomicInteger maxRunningCount = new AtomicInteger();
+        final CountDownLatch completedLatch = new CountDownLatch(taskCount);
+
+        for (int i = 0; i < taskCount; i++) {
+            final int index = i;
+            subject.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final int running = runningCount.incrementAndGet();
+                    maxRunningCount.set(Math.max(maxRunningCount.get(), running));
+                    runOrder.add(index);
+                    runningCount.decrementAndGet();
+                    completedLatch.countDown();
+                }
+            });
+        }
+
+        assertThat(completedLatch.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxRunningCount.get()).isEqualTo(1);
+        for (int i = 0; i < taskCount; i++) {
+            assertThat(runOrder.get(i)).isEqualTo(i);
+        }
+    }
 }
@@ -19,11 +19,20 @@ public class ShadowAsyncTasks {
     private static boolean sWasCalled;
     private static AsyncTask<?, ?, ?> sAsyncTask;
     private static List<?> sParams;
+    private static AsyncTasks.Lane sLane;
 
     @Implementation
     public static <P> void safeExecuteOnExecutor(AsyncTask<P, ?, ?> asyncTask, P... params)
             throws IllegalArgumentException, IllegalStateException {
+        safeExecuteOnExecutor(AsyncTasks.Lane.IO, asyncTask, params);
+    }
+
+    @Implementation
+    public static <P> void safeExecuteOnExecutor(AsyncTasks.Lane lane,
+            AsyncTask<P, ?, ?> asyncTask, P... params)
+            throws IllegalArgumentException, IllegalStateException {
         sWasCalled = true;
+        sLane = lane;
         sAsyncTask = asyncTask;
         sParams = Arrays.asList(params);
     }
@@ -40,9 +49,14 @@ public class ShadowAsyncTasks {
         return sParams;
     }
 
+    public static AsyncTasks.Lane getLatestLane() {
+        return sLane;
+    }
+
     public static void reset() {
         sWasCalled = false;
         sAsyncTask = null;
         sParams = null;
+        sLane = null;
     }
 }
@@ -0,0 +1,96 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import androidx.annotation.NonNull;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.Robolectric;
+
+import static com.mopub.common.IntentActions.ACTION_FULLSCREEN_CLICK;
+import static com.mopub.common.IntentActions.ACTION_FULLSCREEN_DISMISS;
+import static com.mopub.common.IntentActions.ACTION_FULLSCREEN_SHOW;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SdkTestRunner.class)
+public class AdLifecycleEventBusTest {
+    private static final long BROADCAST_IDENTIFIER = 123L;
+
+    @Mock private AdLifecycleEventBus.Listener mockListener;
+    @Mock private AdLifecycleEventBus.Listener mockOtherListener;
+
+    @Test
+    public void post_shouldOnlyNotifyListenersOfThatIdentifier() {
+        AdLifecycleEventBus.register(BROADCAST_IDENTIFIER, mockListener);
+        AdLifecycleEventBus.register(BROADCAST_IDENTIFIER + 1, mockOtherListener);
+
+        AdLifecycleEventBus.post(BROADCAST_IDENTIFIER, ACTION_FULLSCREEN_SHOW);
+
+        verify(mockListener).onAdLifecycleEvent(BROADCAST_IDENTIFIER, ACTION_FULLSCREEN_SHOW);
+        verify(mockOtherListener, never()).onAdLifecycleEvent(anyLong(), anyString());
+    }
+
+    @Test
+    public void post_shouldDeliverAfterCurrentMessage() {
+        AdLifecycleEventBus.register(BROADCAST_IDENTIFIER, mockListener);
+        Robolectric.getForegroundThreadScheduler().pause();
+
+        AdLifecycleEventBus.post(BROADCAST_IDENTIFIER, ACTION_FULLSCREEN_CLICK);
+
+        verify(mockListener, never()).onAdLifecycleEvent(anyLong(), anyString());
+        Robolectric.getForegroundThreadScheduler().unPause();
+        verify(mockListener).onAdLifecycleEvent(BROADCAST_IDENTIFIER, ACTION_FULLSCREEN_CLICK);
+    }
+
+    @Test
+    public void register_twice_shouldNotifyListenerOnce() {
+        AdLifecycleEventBus.register(BROADCAST_IDENTIFIER, mockListener);
+        AdLifecycleEventBus.register(BROADCAST_IDENTIFIER, mockListener);
+
+        AdLifecycleEventBus.post(BROADCAST_IDENTIFIER, ACTION_FULLSCREEN_SHOW);
+
+        verify(mockListener, times(1)).onAdLifecycleEvent(BROADCAST_IDENTIFIER,
+                ACTION_FULLSCREEN_SHOW);
+    }
+
+    @Test
+    public void unregister_shouldStopNotifyingListener_shouldRemoveIdentifier() {
+        AdLifecycleEventBus.register(BROADCAST_IDENTIFIER, mockListener);
+
+        AdLifecycleEventBus.unregister(BROADCAST_IDENTIFIER, mockListener);
+        AdLifecycleEventBus.post(BROADCAST_IDENTIFIER, ACTION_FULLSCREEN_SHOW);
+
+        verify(mockListener, never()).onAdLifecycleEvent(anyLong(), anyString());
+        assertThat(AdLifecycleEventBus.getListenerCount(BROADCAST_IDENTIFIER)).isEqualTo(0);
+    }
+
+    @Test
+    public void unregister_whileDispatching_shouldStillNotifyOtherListeners() {
+        final AdLifecycleEventBus.Listener selfUnregisteringListener =
+                new AdLifecycleEventBus.Listener() {
+                    @Override
+                    public void onAdLifecycleEvent(final long broadcastIdentifier,
+                            @NonNull final String action) {
+                        AdLifecycleEventBus.unregister(broadcastIdentifier, this);
+                    }
+                };
+        AdLifecycleEventBus.register(BROADCAST_IDENTIFIER, selfUnregisteringListener);
+        AdLifecycleEventBus.register(BROADCAST_IDENTIFIER, mockListener);
+
+        AdLifecycleEventBus.post(BROADCAST_IDENTIFIER, ACTION_FULLSCREEN_DISMISS);
+
+        verify(mockListener).onAdLifecycleEvent(BROADCAST_IDENTIFIER, ACTION_FULLSCREEN_DISMISS);
+        assertThat(AdLifecycleEventBus.getListenerCount(BROADCAST_IDENTIFIER)).isEqualTo(1);
+    }
+}
@@ -8,8 +8,6 @@ import android.app.Activity;
 import android.content.Intent;
 import android.content.IntentFilter;
 
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
-
 import com.mopub.common.DataKeys;
 import com.mopub.common.test.support.SdkTestRunner;
 
@@ -192,19 +190,48 @@ public class EventForwardingBroadcastReceiverTest {
     @Test
     public void register_shouldEnableReceivingBroadcasts() throws Exception {
         subject.register(subject, context);
-        Intent intent = getIntentForActionAndIdentifier(ACTION_FULLSCREEN_SHOW, broadcastIdentifier);
-        LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
+        BaseBroadcastReceiver.broadcastAction(context, broadcastIdentifier, ACTION_FULLSCREEN_SHOW);
 
         verify(interactionListener).onAdShown();
     }
 
+    @Test
+    public void register_withOtherReceiver_shouldNotThrow_shouldNotRegister() throws Exception {
+        final EventForwardingBroadcastReceiver otherReceiver =
+                new EventForwardingBroadcastReceiver(interactionListener, broadcastIdentifier);
+
+        subject.register(otherReceiver, context);
+        BaseBroadcastReceiver.broadcastAction(context, broadcastIdentifier, ACTION_FULLSCREEN_SHOW);
+
+        assertThat(AdLifecycleEventBus.getListenerCount(broadcastIdentifier)).isEqualTo(0);
+        verify(interactionListener, never()).onAdShown();
+    }
+
+    @Test
+    public void register_shouldOnlyReceiveBroadcastsForItsIdentifier() throws Exception {
+        subject.register(subject, context);
+        BaseBroadcastReceiver.broadcastAction(context, broadcastIdentifier + 1,
+                ACTION_FULLSCREEN_SHOW);
+
+        verify(interactionListener, never()).onAdShown();
+    }
+
+    @Test
+    public void onAdLifecycleEvent_whenActionFullscreenDismiss_shouldNotifyListener_shouldUnregister() throws Exception {
+        subject.register(subject, context);
+
+        subject.onAdLifecycleEvent(broadcastIdentifier, ACTION_FULLSCREEN_DISMISS);
+
+        verify(interactionListener).onAdDismissed();
+        assertThat(AdLifecycleEventBus.getListenerCount(broadcastIdentifier)).isEqualTo(0);
+    }
+
     @Test
     public void unregister_shouldDisableReceivingBroadcasts() throws Exception {
         subject.register(subject, context);
 
         subject.unregister(subject);
-        Intent intent = getIntentForActionAndIdentifier(ACTION_FULLSCREEN_SHOW, broadcastIdentifier);
-        LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
+        BaseBroadcastReceiver.broadcastAction(context, broadcastIdentifier, ACTION_FULLSCREEN_SHOW);
 
         verify(interactionListener, never()).onAdShown();
     }
@@ -221,12 +248,11 @@ public class EventForwardingBroadcastReceiverTest {
         subject.register(subject, context);
         subject.unregister(subject);
 
-        LocalBroadcastManager.getInstance(context).registerReceiver(subject, subject.getIntentFilter());
+        AdLifecycleEventBus.register(broadcastIdentifier, subject);
         subject.unregister(subject);
 
         // Unregister shouldn't know the context any more and so should not have worked
-        Intent intent = getIntentForActionAndIdentifier(ACTION_FULLSCREEN_SHOW, broadcastIdentifier);
-        LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
+        BaseBroadcastReceiver.broadcastAction(context, broadcastIdentifier, ACTION_FULLSCREEN_SHOW);
         verify(interactionListener).onAdShown();
     }
 
@@ -5,15 +5,15 @@
 package com.mopub.mobileads;
 
 import android.app.Activity;
-import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.os.AsyncTask;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.ImageView;
 
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+import androidx.annotation.NonNull;
 
 import com.mopub.common.CloseableLayout;
 import com.mopub.common.DataKeys;
@@ -74,7 +74,7 @@ public class FullscreenAdControllerTest {
     private Set<VastCompanionAdConfig> vastCompanionAdConfigs;
     private List<VastTracker> companionClickTrackers;
     private List<VastTracker> companionCreativeViewTrackers;
-    private BroadcastReceiver broadcastReceiver;
+    private BaseBroadcastReceiver broadcastReceiver;
 
     @Mock
     Intent mockIntent;
@@ -133,7 +133,9 @@ public class FullscreenAdControllerTest {
 
     @After
     public void tearDown() {
-        LocalBroadcastManager.getInstance(activity).unregisterReceiver(broadcastReceiver);
+        if (broadcastReceiver != null) {
+            broadcastReceiver.unregister(broadcastReceiver);
+        }
         Networking.clearForTesting();
     }
 
@@ -425,7 +427,7 @@ public class FullscreenAdControllerTest {
     @Test
     public void onAdClicked_withNoCompanionAd_withMraid_shouldBroadcastClick() throws InterruptedException {
         final Semaphore semaphore = new Semaphore(0);
-        broadcastReceiver = new BroadcastReceiver() {
+        broadcastReceiver = new ActionBroadcastReceiver(broadcastIdentifier) {
             @Override
             public void onReceive(Context context, Intent intent) {
                 assertThat(intent.getAction()).isEqualTo("com.mopub.action.fullscreen.click");
@@ -434,8 +436,7 @@ public class FullscreenAdControllerTest {
                 semaphore.release();
             }
         };
-        LocalBroadcastManager.getInstance(activity).registerReceiver(broadcastReceiver,
-                new EventForwardingBroadcastReceiver(null, broadcastIdentifier).getIntentFilter());
+        broadcastReceiver.register(broadcastReceiver, activity);
 
         subject.onAdClicked(activity, adData);
 
@@ -445,7 +446,7 @@ public class FullscreenAdControllerTest {
     @Test
     public void onAdClicked_withNoCompanionAd_withImage_shouldBroadcastClick() throws InterruptedException {
         final Semaphore semaphore = new Semaphore(0);
-        broadcastReceiver = new BroadcastReceiver() {
+        broadcastReceiver = new ActionBroadcastReceiver(broadcastIdentifier) {
             @Override
             public void onReceive(Context context, Intent intent) {
                 assertThat(intent.getAction()).isEqualTo("com.mopub.action.fullscreen.click");
@@ -454,8 +455,7 @@ public class FullscreenAdControllerTest {
                 semaphore.release();
             }
         };
-        LocalBroadcastManager.getInstance(activity).registerReceiver(broadcastReceiver,
-                new EventForwardingBroadcastReceiver(null, broadcastIdentifier).getIntentFilter());
+        broadcastReceiver.register(broadcastReceiver, activity);
         adData.setFullAdType(FullAdType.JSON);
         adData.setAdPayload(IMAGE_JSON);
         subject = new FullscreenAdController(activity, mockBundle, mockIntent, adData);
@@ -468,7 +468,7 @@ public class FullscreenAdControllerTest {
     @Test
     public void onAdClicked_withBlurredLastFrameCompanion_shouldBroadcastClick() throws InterruptedException {
         final Semaphore semaphore = new Semaphore(0);
-        broadcastReceiver = new BroadcastReceiver() {
+        broadcastReceiver = new ActionBroadcastReceiver(broadcastIdentifier) {
             @Override
             public void onReceive(Context context, Intent intent) {
                 assertThat(intent.getAction()).isEqualTo("com.mopub.action.fullscreen.click");
@@ -477,8 +477,7 @@ public class FullscreenAdControllerTest {
                 semaphore.release();
             }
         };
-        LocalBroadcastManager.getInstance(activity).registerReceiver(broadcastReceiver,
-                new EventForwardingBroadcastReceiver(null, broadcastIdentifier).getIntentFilter());
+        broadcastReceiver.register(broadcastReceiver, activity);
         subject.onCompanionAdsReady(vastCompanionAdConfigs, VIDEO_DURATION_MS);
 
         subject.onAdClicked(activity, adData);
@@ -505,7 +504,7 @@ public class FullscreenAdControllerTest {
         vastCompanionAdConfigs.clear();
         vastCompanionAdConfigs.add(vastCompanionAdConfig);
         final Semaphore semaphore = new Semaphore(0);
-        broadcastReceiver = new BroadcastReceiver() {
+        broadcastReceiver = new ActionBroadcastReceiver(broadcastIdentifier) {
             @Override
             public void onReceive(Context context, Intent intent) {
                 assertThat(intent.getAction()).isEqualTo("com.mopub.action.fullscreen.click");
@@ -514,8 +513,7 @@ public class FullscreenAdControllerTest {
                 semaphore.release();
             }
         };
-        LocalBroadcastManager.getInstance(activity).registerReceiver(broadcastReceiver,
-                new EventForwardingBroadcastReceiver(null, broadcastIdentifier).getIntentFilter());
+        broadcastReceiver.register(broadcastReceiver, activity);
         subject.onCompanionAdsReady(vastCompanionAdConfigs, VIDEO_DURATION_MS);
 
         subject.onAdClicked(activity, adData);
@@ -542,7 +540,7 @@ public class FullscreenAdControllerTest {
         vastCompanionAdConfigs.clear();
         vastCompanionAdConfigs.add(vastCompanionAdConfig);
         final Semaphore semaphore = new Semaphore(0);
-        broadcastReceiver = new BroadcastReceiver() {
+        broadcastReceiver = new ActionBroadcastReceiver(broadcastIdentifier) {
             @Override
             public void onReceive(Context context, Intent intent) {
                 assertThat(intent.getAction()).isEqualTo("com.mopub.action.fullscreen.click");
@@ -551,8 +549,7 @@ public class FullscreenAdControllerTest {
                 semaphore.release();
             }
         };
-        LocalBroadcastManager.getInstance(activity).registerReceiver(broadcastReceiver,
-                new EventForwardingBroadcastReceiver(null, broadcastIdentifier).getIntentFilter());
+        broadcastReceiver.register(broadcastReceiver, activity);
         subject.onCompanionAdsReady(vastCompanionAdConfigs, VIDEO_DURATION_MS);
 
         subject.onAdClicked(activity, adData);
@@ -579,7 +576,7 @@ public class FullscreenAdControllerTest {
         vastCompanionAdConfigs.clear();
         vastCompanionAdConfigs.add(vastCompanionAdConfig);
         final Semaphore semaphore = new Semaphore(0);
-        broadcastReceiver = new BroadcastReceiver() {
+        broadcastReceiver = new ActionBroadcastReceiver(broadcastIdentifier) {
             @Override
             public void onReceive(Context context, Intent intent) {
                 assertThat(intent.getAction()).isEqualTo("com.mopub.action.fullscreen.click");
@@ -588,8 +585,7 @@ public class FullscreenAdControllerTest {
                 semaphore.release();
             }
         };
-        LocalBroadcastManager.getInstance(activity).registerReceiver(broadcastReceiver,
-                new EventForwardingBroadcastReceiver(null, broadcastIdentifier).getIntentFilter());
+        broadcastReceiver.register(broadcastReceiver, activity);
         subject.onCompanionAdsReady(vastCompanionAdConfigs, VIDEO_DURATION_MS);
 
         subject.onAdClicked(activity, adData);
@@ -616,7 +612,7 @@ public class FullscreenAdControllerTest {
         vastCompanionAdConfigs.clear();
         vastCompanionAdConfigs.add(vastCompanionAdConfig);
         final Semaphore semaphore = new Semaphore(0);
-        broadcastReceiver = new BroadcastReceiver() {
+        broadcastReceiver = new ActionBroadcastReceiver(broadcastIdentifier) {
             @Override
             public void onReceive(Context context, Intent intent) {
                 assertThat(intent.getAction()).isEqualTo("com.mopub.action.fullscreen.click");
@@ -625,8 +621,7 @@ public class FullscreenAdControllerTest {
                 semaphore.release();
             }
         };
-        LocalBroadcastManager.getInstance(activity).registerReceiver(broadcastReceiver,
-                new EventForwardingBroadcastReceiver(null, broadcastIdentifier).getIntentFilter());
+        broadcastReceiver.register(broadcastReceiver, activity);
         subject.onCompanionAdsReady(vastCompanionAdConfigs, VIDEO_DURATION_MS);
 
         subject.onAdClicked(activity, adData);
@@ -657,4 +652,20 @@ public class FullscreenAdControllerTest {
 
         verify(mockBlurLastVideoFrameTask).cancel(anyBoolean());
     }
+
+    /**
+     * Receives the fullscreen lifecycle events of one ad as Intents, like receivers written for
+     * broadcasts do.
+     */
+    private abstract static class ActionBroadcastReceiver extends BaseBroadcastReceiver {
+        ActionBroadcastReceiver(final long broadcastIdentifier) {
+            super(broadcastIdentifier);
+        }
+
+        @NonNull
+        @Override
+        public IntentFilter getIntentFilter() {
+            return new EventForwardingBroadcastReceiver(null, 0).getIntentFilter();
+        }
+    }
 }
@@ -0,0 +1,70 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.mopub.common.Constants.AD_EXPIRATION_DELAY;
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class FullscreenAdHandoffTest {
+    private AdData adData;
+    private VastVideoConfig vastVideoConfig;
+
+    @Before
+    public void setUp() {
+        adData = new AdData.Builder().broadcastIdentifier(123L).build();
+        vastVideoConfig = new VastVideoConfig();
+    }
+
+    @Test
+    public void register_shouldHandOffSameObjects() {
+        FullscreenAdHandoff.register(adData, vastVideoConfig);
+
+        assertThat(FullscreenAdHandoff.getAdData(123L)).isSameAs(adData);
+        assertThat(FullscreenAdHandoff.getVastVideoConfig(123L)).isSameAs(vastVideoConfig);
+        assertThat(FullscreenAdHandoff.getAdData(456L)).isNull();
+    }
+
+    @Test
+    public void register_withSameBroadcastIdentifier_shouldReplaceEntry() {
+        FullscreenAdHandoff.register(adData, vastVideoConfig);
+
+        FullscreenAdHandoff.register(adData, null);
+
+        assertThat(FullscreenAdHandoff.getVastVideoConfig(123L)).isNull();
+        assertThat(FullscreenAdHandoff.getEntryCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void register_shouldDropExpiredEntries() {
+        FullscreenAdHandoff.register(adData, vastVideoConfig);
+        Robolectric.getForegroundThreadScheduler().advanceBy(AD_EXPIRATION_DELAY,
+                TimeUnit.MILLISECONDS);
+
+        FullscreenAdHandoff.register(new AdData.Builder().broadcastIdentifier(456L).build(), null);
+
+        assertThat(FullscreenAdHandoff.getAdData(123L)).isNull();
+        assertThat(FullscreenAdHandoff.getAdData(456L)).isNotNull();
+    }
+
+    @Test
+    public void remove_shouldDropEntry() {
+        FullscreenAdHandoff.register(adData, vastVideoConfig);
+
+        FullscreenAdHandoff.remove(123L);
+
+        assertThat(FullscreenAdHandoff.getAdData(123L)).isNull();
+        assertThat(FullscreenAdHandoff.getVastVideoConfig(123L)).isNull();
+    }
+}
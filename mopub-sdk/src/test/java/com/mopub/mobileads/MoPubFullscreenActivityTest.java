@@ -7,7 +7,9 @@ package com.mopub.mobileads;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
+import android.os.Bundle;
 
+import com.mopub.common.DataKeys;
 import com.mopub.common.test.support.SdkTestRunner;
 
 import org.junit.Before;
@@ -16,6 +18,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.robolectric.Robolectric;
 
+import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Mockito.verify;
 
 @RunWith(SdkTestRunner.class)
@@ -34,7 +37,7 @@ public class MoPubFullscreenActivityTest {
     public void setup() {
         broadcastIdentifier = 3333;
 
-        AdData adData = new AdData.Builder()
+        adData = new AdData.Builder()
                 .broadcastIdentifier(broadcastIdentifier)
                 .adPayload(HTML_DATA)
                 .rewardedDurationSeconds(REWARDED_DURATION_IN_SECONDS)
@@ -66,4 +69,51 @@ public class MoPubFullscreenActivityTest {
         verify(mockFullscreenAdController).resume();
         verify(mockFullscreenAdController).destroy();
     }
+
+    @Test
+    public void createIntent_shouldHandOffAdData_shouldNotParcelAdData() {
+        Context context = Robolectric.buildActivity(Activity.class).create().get();
+
+        Intent intent = MoPubFullscreenActivity.createIntent(context, adData);
+
+        assertThat(intent.hasExtra(DataKeys.AD_DATA_KEY)).isFalse();
+        assertThat(intent.getLongExtra(DataKeys.BROADCAST_IDENTIFIER_KEY, 0))
+                .isEqualTo(broadcastIdentifier);
+        assertThat(FullscreenAdHandoff.getAdData(broadcastIdentifier)).isSameAs(adData);
+    }
+
+    @Test
+    public void getAdDataFromIntent_withoutHandoff_shouldFallBackToParceledAdData() {
+        Intent intent = new Intent();
+        intent.putExtra(DataKeys.BROADCAST_IDENTIFIER_KEY, broadcastIdentifier);
+        intent.putExtra(DataKeys.AD_DATA_KEY, adData);
+        FullscreenAdHandoff.clearForTesting();
+
+        AdData adDataFromIntent = MoPubFullscreenActivity.getAdDataFromIntent(intent);
+
+        assertThat(adDataFromIntent).isEqualsToByComparingFields(adData);
+    }
+
+    @Test
+    public void onSaveInstanceState_shouldSaveOnlyBroadcastIdentifier() {
+        VastVideoConfig vastVideoConfig = new VastVideoConfig();
+        vastVideoConfig.setNetworkMediaFileUrl("video_url");
+        FullscreenAdHandoff.register(adData, vastVideoConfig);
+        Bundle outState = new Bundle();
+
+        subject.onSaveInstanceState(outState);
+
+        assertThat(outState.containsKey(DataKeys.AD_DATA_KEY)).isFalse();
+        assertThat(outState.getLong(DataKeys.BROADCAST_IDENTIFIER_KEY)).isEqualTo(broadcastIdentifier);
+        assertThat(adData.getVastVideoConfigString()).isNull();
+    }
+
+    @Test
+    public void onDestroy_whenFinishing_shouldRemoveHandoff() {
+        subject.finish();
+
+        subject.onDestroy();
+
+        assertThat(FullscreenAdHandoff.getAdData(broadcastIdentifier)).isNull();
+    }
 }
@@ -0,0 +1,99 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.app.Activity;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+@RunWith(SdkTestRunner.class)
+public class PartialDownloadDataSourceTest {
+    private static final byte[] VIDEO_BYTES = "0123456789".getBytes();
+
+    private File partialFile;
+    private VideoDownloader.PartialDownload partialDownload;
+    private PartialDownloadDataSource subject;
+
+    @Before
+    public void setUp() throws Exception {
+        final Activity context = Robolectric.buildActivity(Activity.class).create().get();
+        partialFile = new File(context.getCacheDir(), "video" + VideoDownloader.PARTIAL_FILE_SUFFIX);
+        final FileOutputStream outputStream = new FileOutputStream(partialFile);
+        outputStream.write(VIDEO_BYTES, 0, 4);
+        outputStream.close();
+
+        partialDownload = new VideoDownloader.PartialDownload(partialFile, VIDEO_BYTES.length, 4);
+        subject = PartialDownloadDataSource.open(partialDownload);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (subject != null) {
+            subject.close();
+        }
+        partialFile.delete();
+    }
+
+    @Test
+    public void readAt_withBytesAlreadyWritten_shouldReadOnlyWrittenBytes() throws Exception {
+        final byte[] buffer = new byte[10];
+
+        assertThat(subject.readAt(1, buffer, 0, 10)).isEqualTo(3);
+        assertThat(new String(buffer, 0, 3)).isEqualTo("123");
+    }
+
+    @Test
+    public void readAt_afterPartialFileIsDeleted_shouldStillRead() throws Exception {
+        final byte[] buffer = new byte[4];
+        partialFile.delete();
+
+        assertThat(subject.readAt(0, buffer, 0, 4)).isEqualTo(4);
+        assertThat(new String(buffer)).isEqualTo("0123");
+    }
+
+    @Test
+    public void readAt_pastEndOfCompletedDownload_shouldReturnEndOfStream() throws Exception {
+        partialDownload.finish(true);
+
+        assertThat(subject.readAt(4, new byte[4], 0, 4)).isEqualTo(-1);
+    }
+
+    @Test
+    public void readAt_pastEndOfFailedDownload_shouldThrowIOException() throws Exception {
+        partialDownload.finish(false);
+
+        try {
+            subject.readAt(4, new byte[4], 0, 4);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void getSize_shouldReturnTotalBytes() {
+        assertThat(subject.getSize()).isEqualTo(VIDEO_BYTES.length);
+    }
+
+    @Test
+    public void open_withMissingPartialFile_shouldReturnNull() {
+        partialFile.delete();
+
+        assertThat(PartialDownloadDataSource.open(partialDownload)).isNull();
+    }
+}
@@ -63,6 +63,7 @@ public class RewardedAdsLoadersTest {
         // when ad unit is present
         subject.markFail(AD_UNIT_ID);
         assertThat(subject.getLoadersMap().size()).isEqualTo(0);
+        verify(mockLoaderRewardedAd).cancelPrefetch();
     }
 
     @Test
@@ -74,6 +75,15 @@ public class RewardedAdsLoadersTest {
         // when ad unit is present
         subject.markPlayed(AD_UNIT_ID);
         assertThat(subject.getLoadersMap().size()).isEqualTo(0);
+        verify(mockLoaderRewardedAd).cancelPrefetch();
+    }
+
+    @Test
+    public void clearMapping_shouldCancelPrefetches() {
+        subject.clearMapping();
+
+        assertThat(subject.getLoadersMap().size()).isEqualTo(0);
+        verify(mockLoaderRewardedAd).cancelPrefetch();
     }
 
     @Test
@@ -0,0 +1,95 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.app.Activity;
+import android.content.Context;
+
+import com.mopub.common.FullAdType;
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.mobileads.test.support.TestVastManagerFactory;
+import com.mopub.network.AdResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.Robolectric;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SdkTestRunner.class)
+public class VastAdPrefetcherTest {
+    private static final String VAST_XML = "<VAST version=\"3.0\"></VAST>";
+
+    private Activity activity;
+    private VastManager mockVastManager;
+    private VastAdPrefetcher subject;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).create().get();
+        mockVastManager = TestVastManagerFactory.getSingletonMock();
+        subject = new VastAdPrefetcher();
+    }
+
+    @Test
+    public void prefetch_withVastResponse_shouldPrepareVastVideoConfiguration() {
+        final AdResponse adResponse = createAdResponse(FullAdType.VAST);
+
+        subject.prefetch(activity, adResponse);
+
+        final ArgumentCaptor<VastManager.VastManagerListener> listenerCaptor =
+                ArgumentCaptor.forClass(VastManager.VastManagerListener.class);
+        verify(mockVastManager).prepareVastVideoConfiguration(eq(VAST_XML),
+                listenerCaptor.capture(), eq("dspCreativeId"), eq(activity));
+        assertThat(subject.getPrefetchCount()).isEqualTo(1);
+
+        listenerCaptor.getValue().onVastVideoConfigurationPrepared(null);
+
+        assertThat(subject.getPrefetchCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void prefetch_withVastResponse_shouldMarkVastManagerSpeculative() {
+        subject.prefetch(activity, createAdResponse(FullAdType.VAST));
+
+        verify(mockVastManager).setSpeculative(true);
+    }
+
+    @Test
+    public void prefetch_withNonVastResponse_shouldDoNothing() {
+        subject.prefetch(activity, createAdResponse(FullAdType.MRAID));
+
+        verify(mockVastManager, never()).prepareVastVideoConfiguration(anyString(),
+                any(VastManager.VastManagerListener.class), anyString(), any(Context.class));
+        assertThat(subject.getPrefetchCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void cancel_withRunningPrefetch_shouldCancelVastManager() {
+        final AdResponse adResponse = createAdResponse(FullAdType.VAST);
+        subject.prefetch(activity, adResponse);
+
+        subject.cancel(adResponse);
+
+        verify(mockVastManager).cancel();
+        assertThat(subject.getPrefetchCount()).isEqualTo(0);
+    }
+
+    private static AdResponse createAdResponse(final String fullAdType) {
+        return new AdResponse.Builder()
+                .setAdUnitId("adUnitId")
+                .setFullAdType(fullAdType)
+                .setResponseBody(VAST_XML)
+                .setDspCreativeId("dspCreativeId")
+                .build();
+    }
+}
@@ -5,9 +5,11 @@
 package com.mopub.mobileads;
 
 import android.app.Activity;
+import android.os.AsyncTask;
 
 import com.mopub.common.CacheService;
 import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.common.util.test.support.ShadowAsyncTasks;
 import com.mopub.common.util.test.support.ShadowMoPubHttpUrlConnection;
 import com.mopub.mobileads.test.support.VastUtils;
 
@@ -49,6 +51,7 @@ public class VastManagerTest {
     public void setup() {
         context = Robolectric.buildActivity(Activity.class).create().get();
         CacheService.initializeDiskCache(context);
+        VastWrapperRedirectResolver.clearCache();
         subject = new VastManager(context, true);
         dspCreativeId = "dspCreativeId";
         semaphore = new Semaphore(0);
@@ -69,6 +72,18 @@ public class VastManagerTest {
         CacheService.clearAndNullCaches();
     }
 
+    private AsyncTask<?, ?, ?> startVideoDownload() {
+        subject.prepareVastVideoConfiguration(TEST_VAST_XML_STRING, vastManagerListener,
+                dspCreativeId, context);
+        final VastVideoConfig vastVideoConfig = new VastVideoConfig();
+        vastVideoConfig.setNetworkMediaFileUrl("https://video_url");
+        subject.onAggregationComplete(vastVideoConfig);
+
+        final AsyncTask<?, ?, ?> downloadTask = ShadowAsyncTasks.getLatestAsyncTask();
+        assertThat(downloadTask).isInstanceOf(VideoDownloader.VideoDownloaderTask.class);
+        return downloadTask;
+    }
+
     private void prepareVastVideoConfiguration() {
         subject.prepareVastVideoConfiguration(TEST_VAST_XML_STRING, vastManagerListener, dspCreativeId, context);
 
@@ -555,4 +570,52 @@ public class VastManagerTest {
         verify(vastManagerListener).onVastVideoConfigurationPrepared(null);
         assertThat(mVastVideoConfig).isEqualTo(null);
     }
+
+    @Test
+    @Config(shadows = {ShadowAsyncTasks.class, ShadowMoPubHttpUrlConnection.class})
+    public void cancel_whenSpeculative_shouldCancelVideoDownload() {
+        ShadowAsyncTasks.reset();
+        subject.setSpeculative(true);
+        final AsyncTask<?, ?, ?> downloadTask = startVideoDownload();
+
+        subject.cancel();
+
+        assertThat(downloadTask.isCancelled()).isTrue();
+    }
+
+    @Test
+    @Config(shadows = {ShadowAsyncTasks.class, ShadowMoPubHttpUrlConnection.class})
+    public void cancel_whenNotSpeculative_shouldLetVideoDownloadFinish() {
+        ShadowAsyncTasks.reset();
+        final AsyncTask<?, ?, ?> downloadTask = startVideoDownload();
+
+        subject.cancel();
+
+        assertThat(downloadTask.isCancelled()).isFalse();
+    }
+
+    @Test
+    public void getProgressivePlaybackBytes_withBitrate_shouldReturnBytesForConfiguredSeconds() {
+        final VastVideoConfig vastVideoConfig = new VastVideoConfig();
+        vastVideoConfig.setNetworkMediaFileBitrate(800);
+        subject.setProgressivePlaybackSeconds(5);
+
+        // 5 seconds at 800 kbps
+        assertThat(subject.getProgressivePlaybackBytes(vastVideoConfig)).isEqualTo(500000);
+    }
+
+    @Test
+    public void getProgressivePlaybackBytes_withoutBitrate_shouldReturnZero() {
+        subject.setProgressivePlaybackSeconds(5);
+
+        assertThat(subject.getProgressivePlaybackBytes(new VastVideoConfig())).isEqualTo(0);
+    }
+
+    @Test
+    public void getProgressivePlaybackBytes_whenNotEnabled_shouldReturnZero() {
+        final VastVideoConfig vastVideoConfig = new VastVideoConfig();
+        vastVideoConfig.setNetworkMediaFileBitrate(800);
+
+        assertThat(subject.getProgressivePlaybackBytes(vastVideoConfig)).isEqualTo(0);
+    }
 }
@@ -0,0 +1,94 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class VastProgressTrackerSchedulerTest {
+    private VastVideoConfig vastVideoConfig;
+    private VastAbsoluteProgressTracker startTracker;
+    private VastAbsoluteProgressTracker fiveSecondTracker;
+    private VastFractionalProgressTracker midpointTracker;
+    private VastProgressTrackerScheduler subject;
+
+    @Before
+    public void setUp() {
+        vastVideoConfig = new VastVideoConfig();
+        startTracker = new VastAbsoluteProgressTracker.Builder("start", 0).build();
+        fiveSecondTracker = new VastAbsoluteProgressTracker.Builder("five", 5000).build();
+        midpointTracker = new VastFractionalProgressTracker.Builder("mid", 0.5f).build();
+        vastVideoConfig.addAbsoluteTrackers(Arrays.asList(fiveSecondTracker, startTracker));
+        vastVideoConfig.addFractionalTrackers(Collections.singletonList(midpointTracker));
+        subject = new VastProgressTrackerScheduler(vastVideoConfig);
+    }
+
+    @Test
+    public void getDueTrackers_shouldReturnTrackersUpToPosition_inAbsoluteThenFractionalOrder() {
+        assertThat(subject.getDueTrackers(0, 10000)).containsExactly(startTracker);
+
+        final List<VastTracker> dueTrackers = subject.getDueTrackers(5000, 10000);
+
+        assertThat(dueTrackers).containsExactly(fiveSecondTracker, midpointTracker);
+    }
+
+    @Test
+    public void getDueTrackers_shouldMatchGetUntriggeredTrackersBefore() {
+        for (int position = 0; position <= 10000; position += 50) {
+            final List<VastTracker> expected =
+                    vastVideoConfig.getUntriggeredTrackersBefore(position, 10000);
+
+            final List<VastTracker> dueTrackers = subject.getDueTrackers(position, 10000);
+
+            assertThat(dueTrackers).isEqualTo(expected);
+            for (final VastTracker tracker : dueTrackers) {
+                tracker.setTracked();
+            }
+        }
+        assertThat(vastVideoConfig.getRemainingProgressTrackerCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void getDueTrackers_shouldSkipTrackersAlreadyTracked() {
+        fiveSecondTracker.setTracked();
+
+        assertThat(subject.getDueTrackers(6000, 20000)).containsExactly(startTracker);
+    }
+
+    @Test
+    public void getDueTrackers_shouldReturnEachTrackerOnce() {
+        subject.getDueTrackers(0, 10000);
+
+        assertThat(subject.getDueTrackers(100, 10000)).isEmpty();
+    }
+
+    @Test
+    public void getDueTrackers_withTrackersAddedDuringPlayback_shouldPickThemUp() {
+        subject.getDueTrackers(3000, 10000);
+        startTracker.setTracked();
+        final VastAbsoluteProgressTracker twoSecondTracker =
+                new VastAbsoluteProgressTracker.Builder("two", 2000).build();
+
+        vastVideoConfig.addAbsoluteTrackers(Collections.singletonList(twoSecondTracker));
+
+        assertThat(subject.getDueTrackers(3000, 10000)).containsExactly(twoSecondTracker);
+    }
+
+    @Test
+    public void getDueTrackers_withInvalidPositionOrLength_shouldReturnEmptyList() {
+        assertThat(subject.getDueTrackers(-1, 10000)).isEmpty();
+        assertThat(subject.getDueTrackers(5000, 0)).isEmpty();
+    }
+}
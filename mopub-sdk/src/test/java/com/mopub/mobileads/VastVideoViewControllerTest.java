@@ -16,7 +16,6 @@ import android.os.Bundle;
 import android.view.View;
 import android.webkit.WebView;
 
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.media2.common.SessionPlayer;
 import androidx.media2.player.MediaPlayer;
 import androidx.media2.widget.VideoView;
@@ -63,7 +62,6 @@ import static com.mopub.common.IntentActions.ACTION_FULLSCREEN_SHOW;
 import static com.mopub.common.VolleyRequestMatcher.isUrl;
 import static com.mopub.common.VolleyRequestMatcher.isUrlStartingWith;
 import static com.mopub.mobileads.BaseVideoViewController.BaseVideoViewControllerListener;
-import static com.mopub.mobileads.EventForwardingBroadcastReceiverTest.getIntentForActionAndIdentifier;
 import static com.mopub.mobileads.VastVideoViewController.CURRENT_POSITION;
 import static com.mopub.mobileads.VastVideoViewController.DEFAULT_VIDEO_DURATION_FOR_CLOSE_BUTTON;
 import static com.mopub.mobileads.VastVideoViewController.MAX_VIDEO_DURATION_FOR_CLOSE_BUTTON;
@@ -207,9 +205,7 @@ public class VastVideoViewControllerTest {
         Robolectric.getBackgroundThreadScheduler().pause();
         FakeHttp.clearPendingHttpResponses();
 
-        LocalBroadcastManager.getInstance(context).registerReceiver(broadcastReceiver,
-                new EventForwardingBroadcastReceiver(null,
-                        testBroadcastIdentifier).getIntentFilter());
+        AdLifecycleEventBus.register(testBroadcastIdentifier, broadcastReceiver);
 
         expectedUserAgent = new WebView(context).getSettings().getUserAgentString();
     }
@@ -219,7 +215,7 @@ public class VastVideoViewControllerTest {
         Robolectric.getForegroundThreadScheduler().reset();
         Robolectric.getBackgroundThreadScheduler().reset();
 
-        LocalBroadcastManager.getInstance(context).unregisterReceiver(broadcastReceiver);
+        AdLifecycleEventBus.unregister(testBroadcastIdentifier, broadcastReceiver);
 
         validateMockitoUsage(); // makes sure that issues from one test don't carry over to the next
         ExternalViewabilitySessionManager.setCreator(null);
@@ -527,21 +523,16 @@ public class VastVideoViewControllerTest {
     @Test
     public void onCreate_shouldNotBroadcastInterstitialShow() throws Exception {
         // This broadcast is handled by FullscreenAdController and should not happen here.
-        Intent expectedIntent = getIntentForActionAndIdentifier(ACTION_FULLSCREEN_SHOW, testBroadcastIdentifier);
-
         initializeSubject();
 
         Robolectric.getForegroundThreadScheduler().unPause();
         subject.onCreate();
-        verify(broadcastReceiver, never()).onReceive(any(Context.class),
-                argThat(new IntentIsEqual(expectedIntent)));
+        verify(broadcastReceiver, never()).onAdLifecycleEvent(testBroadcastIdentifier,
+                ACTION_FULLSCREEN_SHOW);
     }
 
     @Test
     public void onDestroy_shouldNotBroadcastInterstitialDismiss() throws Exception {
-        Intent expectedIntent = getIntentForActionAndIdentifier(ACTION_FULLSCREEN_DISMISS,
-                testBroadcastIdentifier);
-
         initializeSubject();
 
         subject.onDestroy();
@@ -1407,16 +1398,14 @@ public class VastVideoViewControllerTest {
     public void onError_shouldFireVideoErrorAndSetVideoErrorTrue() throws Exception {
         initializeSubject();
 
-        Intent expectedIntent = getIntentForActionAndIdentifier(ACTION_FULLSCREEN_FAIL, testBroadcastIdentifier);
-
         final MediaPlayer mockMediaPlayer = TestMediaPlayerFactory.Companion.getMockMediaPlayer();
         mockMediaPlayer.prepare().isDone();
         subject.getPlayerCallback().onPlayerStateChanged(mockMediaPlayer, SessionPlayer.PLAYER_STATE_ERROR);
         Robolectric.getForegroundThreadScheduler().unPause();
 
         assertThat(subject.getVideoError()).isTrue();
-        verify(broadcastReceiver).onReceive(any(Context.class),
-                argThat(new IntentIsEqual(expectedIntent)));
+        verify(broadcastReceiver).onAdLifecycleEvent(testBroadcastIdentifier,
+                ACTION_FULLSCREEN_FAIL);
         assertThat(subject.getVideoError()).isTrue();
     }
 
@@ -0,0 +1,119 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.common.util.test.support.ShadowMoPubHttpUrlConnection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+@Config(shadows = {ShadowMoPubHttpUrlConnection.class})
+public class VastWrapperRedirectResolverTest {
+    private static final String REDIRECT_URL = "https://redirect";
+
+    private VastWrapperRedirectResolver subject;
+
+    @Before
+    public void setUp() {
+        VastWrapperRedirectResolver.clearCache();
+        subject = new VastWrapperRedirectResolver();
+    }
+
+    @Test
+    public void resolve_shouldFetchRedirect() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "first");
+
+        assertThat(subject.resolve(REDIRECT_URL)).isEqualTo("first");
+        assertThat(ShadowMoPubHttpUrlConnection.getLatestRequestUrl()).isEqualTo(REDIRECT_URL);
+    }
+
+    @Test
+    public void resolve_withSameUrlTwiceInOneRun_shouldFetchAgain() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "first");
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "second");
+
+        assertThat(subject.resolve(REDIRECT_URL)).isEqualTo("first");
+        assertThat(subject.resolve(REDIRECT_URL)).isEqualTo("second");
+    }
+
+    @Test
+    public void resolve_withUrlResolvedByPreviousRun_shouldUseCache() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "first");
+        subject.resolve(REDIRECT_URL);
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "second");
+
+        assertThat(new VastWrapperRedirectResolver().resolve(REDIRECT_URL)).isEqualTo("first");
+        assertThat(ShadowMoPubHttpUrlConnection.getPendingUrlConnections()).hasSize(1);
+    }
+
+    @Test
+    public void resolve_withExpiredCacheEntry_shouldFetchAgain() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "first");
+        subject.resolve(REDIRECT_URL);
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "second");
+
+        ShadowSystemClock.advanceBy(
+                Duration.ofMillis(VastWrapperRedirectResolver.REDIRECT_CACHE_TTL_MILLIS));
+
+        assertThat(new VastWrapperRedirectResolver().resolve(REDIRECT_URL)).isEqualTo("second");
+    }
+
+    @Test
+    public void resolve_afterPrefetch_shouldReturnPrefetchedResponse() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "first");
+
+        subject.prefetch(Collections.singletonList(REDIRECT_URL), 1);
+
+        assertThat(subject.resolve(REDIRECT_URL)).isEqualTo("first");
+    }
+
+    @Test
+    public void prefetch_shouldNotPrefetchPastRemainingRedirects() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "first");
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "second");
+
+        subject.prefetch(Arrays.asList(REDIRECT_URL + 1, REDIRECT_URL + 2, REDIRECT_URL + 3), 2);
+
+        assertThat(subject.getPendingRedirectCount()).isEqualTo(2);
+        subject.resolve(REDIRECT_URL + 1);
+        subject.resolve(REDIRECT_URL + 2);
+        assertThat(subject.getPendingRedirectCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void prefetch_withManyRedirects_shouldNotExceedMaxConcurrentRedirects() throws Exception {
+        final List<String> redirectUrls = new ArrayList<String>();
+        for (int i = 0; i < VastWrapperRedirectResolver.MAX_CONCURRENT_REDIRECTS * 2; i++) {
+            redirectUrls.add(REDIRECT_URL + i);
+        }
+        for (int i = 0; i < VastWrapperRedirectResolver.MAX_CONCURRENT_REDIRECTS; i++) {
+            ShadowMoPubHttpUrlConnection.addPendingResponse(200, "response");
+        }
+
+        subject.prefetch(redirectUrls, VastXmlManagerAggregator.MAX_TIMES_TO_FOLLOW_VAST_REDIRECT);
+        subject.prefetch(redirectUrls.subList(VastWrapperRedirectResolver.MAX_CONCURRENT_REDIRECTS,
+                redirectUrls.size()), VastXmlManagerAggregator.MAX_TIMES_TO_FOLLOW_VAST_REDIRECT);
+
+        assertThat(subject.getPendingRedirectCount())
+                .isEqualTo(VastWrapperRedirectResolver.MAX_CONCURRENT_REDIRECTS);
+        for (int i = 0; i < VastWrapperRedirectResolver.MAX_CONCURRENT_REDIRECTS; i++) {
+            subject.resolve(redirectUrls.get(i));
+        }
+        assertThat(subject.getPendingRedirectCount()).isEqualTo(0);
+    }
+}
@@ -44,6 +44,7 @@ import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(SdkTestRunner.class)
@@ -285,7 +286,7 @@ public class VastXmlManagerAggregatorTest {
             "    </Ad>" +
             "</VAST>";
 
-    private static final String NODE_OM_AD_VERIFICATION =
+    static final String NODE_OM_AD_VERIFICATION =
             "              <AdVerifications>" +
             "                <Verification vendor=\"iabtechlab.com-omid\">" +
             "                    <JavaScriptResource apiFramework=\"omid\" browserOptional=\"true\">" +
@@ -302,7 +303,7 @@ public class VastXmlManagerAggregatorTest {
             "                </Verification>" +
             "            </AdVerifications>";
 
-    private static final String NODE_OM_AD_VERIFICATION_EXT =
+    static final String NODE_OM_AD_VERIFICATION_EXT =
             "               <Extension type=\"AdVerifications\">" +
             "                    <AdVerifications>" +
             "                        <Verification vendor=\"iabtechlab.com-omid\">" +
@@ -382,6 +383,7 @@ public class VastXmlManagerAggregatorTest {
         context = Robolectric.buildActivity(Activity.class).create().get();
 
         Networking.setRequestQueueForTesting(mockRequestQueue);
+        VastWrapperRedirectResolver.clearCache();
 
         semaphore = new Semaphore(0);
         vastXmlManagerAggregatorListener = mock(VastXmlManagerAggregatorListener.class);
@@ -1365,6 +1367,41 @@ public class VastXmlManagerAggregatorTest {
         verifyNoMoreInteractions(mockRequestQueue);
     }
 
+    @Test
+    public void evaluateVastXmlManager_whenSpeculative_withWrapperToNoHttpResponse_shouldNotFireErrorTrackers() {
+        subject.setSpeculative(true);
+
+        VastVideoConfig vastVideoConfig = subject.evaluateVastXmlManager(
+                TEST_VAST_XML_STRING, new ArrayList<VastTracker>());
+
+        assertThat(vastVideoConfig).isNull();
+        verifyZeroInteractions(mockRequestQueue);
+    }
+
+    @Test
+    public void evaluateVastXmlManager_whenSpeculative_withWrapperToInvalidXml_shouldNotFireErrorTrackers() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, TEST_INVALID_XML_STRING);
+        subject.setSpeculative(true);
+
+        VastVideoConfig vastVideoConfig = subject.evaluateVastXmlManager(
+                TEST_VAST_XML_STRING, new ArrayList<VastTracker>());
+
+        assertThat(vastVideoConfig).isNull();
+        verifyZeroInteractions(mockRequestQueue);
+    }
+
+    @Test
+    public void evaluateVastXmlManager_whenSpeculative_withWrapperToJustError_shouldNotFireErrorTracker() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, TEST_JUST_ERROR_XML_STRING);
+        subject.setSpeculative(true);
+
+        VastVideoConfig vastVideoConfig = subject.evaluateVastXmlManager(
+                TEST_VAST_XML_STRING, new ArrayList<VastTracker>());
+
+        assertThat(vastVideoConfig).isNull();
+        verifyZeroInteractions(mockRequestQueue);
+    }
+
     private VastMediaXmlManager initializeMediaXmlManagerMock(
             final Integer width,
             final Integer height,
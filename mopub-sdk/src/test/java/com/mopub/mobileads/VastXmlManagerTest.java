@@ -22,7 +22,7 @@ import static org.fest.assertions.api.Assertions.assertThat;
 @RunWith(SdkTestRunner.class)
 public class VastXmlManagerTest {
     private static final String XML_HEADER_TAG = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
-    private static final String TEST_VAST_XML_STRING = "<VAST xmlns:xsi=\"https://www.w3.org/2001/XMLSchema-instance\" version=\"2.0\" xsi:noNamespaceSchemaLocation=\"vast.xsd\">" +
+    static final String TEST_VAST_XML_STRING = "<VAST xmlns:xsi=\"https://www.w3.org/2001/XMLSchema-instance\" version=\"2.0\" xsi:noNamespaceSchemaLocation=\"vast.xsd\">" +
             "            <Ad id=\"223626102\">" +
             "                <InLine>" +
             "                    <AdSystem version=\"2.0\">DART_DFA</AdSystem>" +
@@ -0,0 +1,603 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.app.Activity;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.ViewabilityVendor;
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.common.util.test.support.ShadowMoPubHttpUrlConnection;
+import com.mopub.mobileads.test.support.VastUtils;
+import com.mopub.network.MoPubRequestQueue;
+import com.mopub.network.Networking;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.Robolectric;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+
+@RunWith(SdkTestRunner.class)
+@Config(qualifiers = "w480dp-h800dp", shadows = {ShadowMoPubHttpUrlConnection.class})
+public class VastXmlPullParserTest {
+
+    private static final String MOPUB_EXTENSIONS_SNIPPET = "<Extensions>" +
+            "<Extension type=\"MoPub\">" +
+            "<MoPubViewabilityTracker viewablePlaytime=\"2.5\" percentViewable=\"50%\">" +
+            "<![CDATA[https://ad.server.com/impression/dot.gif?viewable]]>" +
+            "</MoPubViewabilityTracker>" +
+            "<MoPubCtaText>custom CTA text</MoPubCtaText>" +
+            "<MoPubSkipText>skip</MoPubSkipText>" +
+            "<MoPubCloseIcon>https://ton.twitter.com/exchange-media/images/v4/star_icon_3x.png</MoPubCloseIcon>" +
+            "</Extension>" +
+            "</Extensions>";
+
+    /**
+     * Covers the DOM quirks the pull parser has to reproduce: the value of an element is only its
+     * first child, most elements only use their first matching child, and some values are looked
+     * up anywhere in the document.
+     */
+    private static final String EDGE_CASES_VAST_XML_STRING = "<?xml version=\"1.0\"?>\n" +
+            "<VAST version=\"3.0\">" +
+            "  <Ad id=\"inline\" sequence=\"1\">" +
+            "    <InLine>" +
+            "      <Impression><!-- the comment is the value -->https://afterComment</Impression>" +
+            "      <Impression>  https://split&amp;joined<![CDATA[?cdata=1]]>&#38;entity  </Impression>" +
+            "      <Impression><Nested>https://nested</Nested></Impression>" +
+            "      <Impression/>" +
+            "      <Impression>   </Impression>" +
+            "      <Error>https://inLineError</Error>" +
+            "      <Error></Error>" +
+            "      <Creatives>" +
+            "        <Creative>" +
+            "          <Linear skipoffset=\"00:00:05\">" +
+            "            <TrackingEvents>" +
+            "              <Tracking event=\"progress\" offset=\"25%\">https://progress25</Tracking>" +
+            "              <Tracking event=\"progress\" offset=\"00:00:02.500\">https://progress2500</Tracking>" +
+            "              <Tracking event=\"progress\">https://progressWithoutOffset</Tracking>" +
+            "              <Tracking event=\"start\">https://start</Tracking>" +
+            "              <Tracking event=\"firstQuartile\">https://firstQuartile</Tracking>" +
+            "              <Tracking event=\"midpoint\">https://midpoint</Tracking>" +
+            "              <Tracking event=\"thirdQuartile\">https://thirdQuartile</Tracking>" +
+            "              <Tracking event=\"complete\">https://complete</Tracking>" +
+            "              <Tracking event=\"pause\">https://pause</Tracking>" +
+            "              <Tracking event=\"resume\">https://resume</Tracking>" +
+            "              <Tracking event=\"close\">https://close</Tracking>" +
+            "              <Tracking event=\"closeLinear\">https://closeLinear</Tracking>" +
+            "              <Tracking event=\"skip\">https://skip</Tracking>" +
+            "              <Tracking>https://withoutEvent</Tracking>" +
+            "            </TrackingEvents>" +
+            "            <TrackingEvents>" +
+            "              <Tracking event=\"start\">https://secondTrackingEvents</Tracking>" +
+            "            </TrackingEvents>" +
+            "            <VideoClicks>" +
+            "              <ClickThrough>https://clickThrough</ClickThrough>" +
+            "              <ClickThrough>https://secondClickThrough</ClickThrough>" +
+            "              <ClickTracking>https://clickTracking</ClickTracking>" +
+            "              <ClickTracking/>" +
+            "            </VideoClicks>" +
+            "            <MediaFiles>" +
+            "              <MediaFile type=\"video/mp4\" width=\"640\" height=\"360\" minBitrate=\"300\" maxBitrate=\"500\">" +
+            "                <![CDATA[ https://video.mp4 ]]>" +
+            "              </MediaFile>" +
+            "              <MediaFile type=\"video/3gpp\" width=\"wide\" height=\"\" bitrate=\"fast\">https://video.3gp</MediaFile>" +
+            "            </MediaFiles>" +
+            "            <Icons>" +
+            "              <Icon width=\"40\" height=\"40\" offset=\"00:00:01\" duration=\"00:00:10\">" +
+            "                <StaticResource creativeType=\"IMAGE/PNG\">https://icon.png</StaticResource>" +
+            "                <StaticResource creativeType=\"image/jpeg\">https://secondIcon.jpg</StaticResource>" +
+            "                <IconClicks>" +
+            "                  <IconClickThrough>https://iconClickThrough</IconClickThrough>" +
+            "                  <IconClickTracking>https://iconClickTracking</IconClickTracking>" +
+            "                </IconClicks>" +
+            "                <IconViewTracking>https://iconViewTracking</IconViewTracking>" +
+            "              </Icon>" +
+            "              <Icon width=\"wide\" offset=\"soon\" duration=\"long\">" +
+            "                <HTMLResource><![CDATA[<div>icon</div>]]></HTMLResource>" +
+            "              </Icon>" +
+            "            </Icons>" +
+            "          </Linear>" +
+            "          <Linear>" +
+            "            <MediaFiles>" +
+            "              <MediaFile type=\"video/mp4\" width=\"1\" height=\"1\">https://secondLinear.mp4</MediaFile>" +
+            "            </MediaFiles>" +
+            "          </Linear>" +
+            "        </Creative>" +
+            "        <Creative>" +
+            "          <CompanionAds>" +
+            "            <Companion width=\"300\" height=\"250\">" +
+            "              <IFrameResource>https://companionIFrame</IFrameResource>" +
+            "              <CompanionClickThrough>https://companionClickThrough</CompanionClickThrough>" +
+            "              <CompanionClickTracking>https://companionClickTracking</CompanionClickTracking>" +
+            "              <CompanionClickTracking>   </CompanionClickTracking>" +
+            "              <TrackingEvents>" +
+            "                <Tracking event=\"creativeView\">https://companionCreativeView</Tracking>" +
+            "                <Tracking event=\"start\">https://companionStart</Tracking>" +
+            "              </TrackingEvents>" +
+            "            </Companion>" +
+            "            <Companion width=\"728\" height=\"90\"/>" +
+            "          </CompanionAds>" +
+            "        </Creative>" +
+            "      </Creatives>" +
+            "      <Extensions>" +
+            "        <Extension type=\"MoPub\">" +
+            "          <MoPubViewabilityTracker viewablePlaytime=\"2.5\" percentViewable=\"50%\">https://viewability</MoPubViewabilityTracker>" +
+            "          <MoPubCtaText>Learn more</MoPubCtaText>" +
+            "          <MoPubSkipText>Skip this ad now</MoPubSkipText>" +
+            "          <MoPubCloseIcon>https://closeIcon</MoPubCloseIcon>" +
+            "        </Extension>" +
+            "        <Extension type=\"AdVerifications\">" +
+            "          <AdVerifications>" +
+            "            <Verification vendor=\"extensionVendor\">" +
+            "              <JavaScriptResource apiFramework=\"other\">https://notOmid.js</JavaScriptResource>" +
+            "              <JavaScriptResource apiFramework=\"omid\">https://omid.js</JavaScriptResource>" +
+            "              <TrackingEvents>" +
+            "                <Tracking event=\"start\">https://notVerificationNotExecuted</Tracking>" +
+            "                <Tracking event=\"verificationNotExecuted\">https://notExecuted</Tracking>" +
+            "              </TrackingEvents>" +
+            "              <VerificationParameters><![CDATA[parameters]]></VerificationParameters>" +
+            "            </Verification>" +
+            "            <Verification vendor=\"withoutJavaScript\">" +
+            "              <VerificationParameters>parameters</VerificationParameters>" +
+            "            </Verification>" +
+            "          </AdVerifications>" +
+            "        </Extension>" +
+            "      </Extensions>" +
+            "      <Extensions>" +
+            "        <Extension type=\"MoPub\">" +
+            "          <MoPubViewabilityTracker viewablePlaytime=\"1\" percentViewable=\"1\">https://secondExtensions</MoPubViewabilityTracker>" +
+            "        </Extension>" +
+            "      </Extensions>" +
+            "      <AdVerifications>" +
+            "        <Verification vendor=\"inLineVendor\">" +
+            "          <JavaScriptResource apiFramework=\"omid\"><![CDATA[https://inLineOmid.js]]></JavaScriptResource>" +
+            "        </Verification>" +
+            "      </AdVerifications>" +
+            "    </InLine>" +
+            "    <InLine><Impression>https://secondInLine</Impression></InLine>" +
+            "  </Ad>" +
+            "  <Ad id=\"wrapper\" sequence=\"2\">" +
+            "    <Wrapper>" +
+            "      <VASTAdTagURI><![CDATA[https://redirect]]></VASTAdTagURI>" +
+            "      <VASTAdTagURI>https://secondRedirect</VASTAdTagURI>" +
+            "      <Impression>https://wrapperImpression</Impression>" +
+            "      <Error>https://wrapperError</Error>" +
+            "    </Wrapper>" +
+            "  </Ad>" +
+            "</VAST>\n" +
+            "<MP_TRACKING_URLS>" +
+            "  <MP_TRACKING_URL><?tracker https://processingInstruction?></MP_TRACKING_URL>" +
+            "  <MP_TRACKING_URL>https://mpTrackingUrl</MP_TRACKING_URL>" +
+            "  <MP_TRACKING_URL><Nested/></MP_TRACKING_URL>" +
+            "</MP_TRACKING_URLS>" +
+            "<Unknown><Ad id=\"anywhere\"><InLine><Impression>https://adAnywhere</Impression></InLine></Ad></Unknown>";
+
+    private static final int BENCHMARK_ITERATIONS = 20;
+
+    private VastXmlManagerAggregator domSubject;
+    private VastXmlManagerAggregator subject;
+
+    @Mock
+    MoPubRequestQueue mockRequestQueue;
+
+    @Before
+    public void setup() {
+        final Activity context = Robolectric.buildActivity(Activity.class).create().get();
+        Networking.setRequestQueueForTesting(mockRequestQueue);
+
+        final int screenWidth = 800;
+        final int screenHeight = 480;
+        final double screenAspectRatio = (double) screenWidth / screenHeight;
+        final VastXmlManagerAggregator.VastXmlManagerAggregatorListener listener =
+                mock(VastXmlManagerAggregator.VastXmlManagerAggregatorListener.class);
+        subject = new VastXmlManagerAggregator(listener, screenAspectRatio, screenWidth, context);
+        domSubject = new VastXmlManagerAggregator(listener, screenAspectRatio, screenWidth,
+                context) {
+            @NonNull
+            @Override
+            VastXmlDocument parseVastXml(@NonNull final String vastXml) throws Exception {
+                return parseWithDom(vastXml);
+            }
+        };
+    }
+
+    @Test
+    public void parseVastXml_withVastFixtures_shouldMatchDomDocument() throws Exception {
+        for (final String vastXml : getVastXmlFixtures()) {
+            final VastXmlDocument expected;
+            try {
+                expected = parseWithDom(vastXml);
+            } catch (Exception e) {
+                assertPullParserFails(vastXml);
+                continue;
+            }
+
+            assertThat(describe(parseWithPullParser(vastXml))).isEqualTo(describe(expected));
+        }
+    }
+
+    @Test
+    public void parseVastXml_withEdgeCases_shouldUseFirstChildAsValue() throws Exception {
+        final VastXmlPullParser pullParser = parseWithPullParser(EDGE_CASES_VAST_XML_STRING);
+
+        final VastXmlDocument.InLineWrapper inLine =
+                pullParser.getAdXmlManagers().get(0).getInLineXmlManager();
+        assertThat(VastUtils.vastTrackersToStrings(inLine.getImpressionTrackers()))
+                .containsExactly("the comment is the value",
+                        "https://split&joined?cdata=1&entity");
+        assertThat(VastUtils.vastTrackersToStrings(pullParser.getMoPubImpressionTrackers()))
+                .containsExactly("https://processingInstruction", "https://mpTrackingUrl");
+        assertThat(pullParser.getAdXmlManagers()).hasSize(3);
+        assertThat(pullParser.getErrorTracker().getContent()).isEqualTo("https://inLineError");
+        assertThat(pullParser.getCustomCtaText()).isEqualTo("Learn more");
+        assertThat(pullParser.getCustomSkipText()).isNull();
+    }
+
+    @Test
+    public void parseVastXml_withNamespacePrefixes_shouldKeepPrefixedNamesLikeDom() throws Exception {
+        final String vastXml = "<VAST xmlns:v=\"https://vast\" version=\"3.0\">" +
+                "<v:Ad><InLine><Impression>https://prefixedAd</Impression></InLine></v:Ad>" +
+                "<Ad><InLine><v:Impression>https://prefixedImpression</v:Impression>" +
+                "<Impression>https://impression</Impression></InLine></Ad>" +
+                "</VAST>";
+
+        final VastXmlPullParser pullParser = parseWithPullParser(vastXml);
+
+        assertThat(pullParser.getAdXmlManagers()).hasSize(1);
+        assertThat(VastUtils.vastTrackersToStrings(
+                pullParser.getAdXmlManagers().get(0).getInLineXmlManager().getImpressionTrackers()))
+                .containsOnly("https://impression");
+        assertThat(describe(pullParser)).isEqualTo(describe(parseWithDom(vastXml)));
+    }
+
+    @Test
+    public void parseVastXml_withInvalidXml_shouldThrowLikeDom() throws Exception {
+        for (final String vastXml : Arrays.asList(
+                VastXmlManagerAggregatorTest.TEST_INVALID_XML_STRING,
+                "<VAST><Ad></VAST>",
+                "<VAST><Ad><InLine><Impression>https://a&b</Impression></InLine></Ad></VAST>")) {
+            try {
+                parseWithDom(vastXml);
+                fail("DOM should fail to parse " + vastXml);
+            } catch (Exception e) {
+                // expected
+            }
+            assertPullParserFails(vastXml);
+        }
+    }
+
+    @Test
+    public void parseVastXml_calledTwice_shouldOnlyKeepSecondDocument() throws Exception {
+        final VastXmlPullParser pullParser = new VastXmlPullParser();
+
+        pullParser.parseVastXml(EDGE_CASES_VAST_XML_STRING);
+        pullParser.parseVastXml(VastXmlManagerAggregatorTest.TEST_JUST_ERROR_XML_STRING);
+
+        assertThat(describe(pullParser)).isEqualTo(
+                describe(parseWithDom(VastXmlManagerAggregatorTest.TEST_JUST_ERROR_XML_STRING)));
+    }
+
+    @Test
+    public void evaluateVastXmlManager_withVastFixtures_shouldMatchDomVastVideoConfig() {
+        for (final String vastXml : getVastXmlFixtures()) {
+            final VastVideoConfig expected = evaluate(domSubject, vastXml);
+            final VastVideoConfig actual = evaluate(subject, vastXml);
+
+            if (expected == null) {
+                assertThat(actual).isNull();
+            } else {
+                assertThat(actual).isNotNull();
+                assertThat(actual.toJsonString()).isEqualTo(expected.toJsonString());
+            }
+        }
+    }
+
+    /**
+     * Not a pass/fail benchmark: it reports how long each parser takes to parse and read every
+     * value the aggregator can ask for, and checks that both read the same values.
+     */
+    @Test
+    public void benchmark_parseAndReadVastXml_shouldReportTimingsAndMatchDom() throws Exception {
+        final List<String> fixtures = new ArrayList<String>();
+        for (final String vastXml : getVastXmlFixtures()) {
+            try {
+                parseWithDom(vastXml);
+                fixtures.add(vastXml);
+            } catch (Exception e) {
+                // Only time documents that parse
+            }
+        }
+        final String largeVastXml = createLargeVastXml(10, 60);
+
+        // Warm up both parsers before timing them
+        for (int i = 0; i < 3; i++) {
+            parseAndDescribeAll(fixtures, true);
+            parseAndDescribeAll(fixtures, false);
+        }
+
+        final long domFixturesNanos = timeParseAndDescribe(fixtures, true);
+        final long pullFixturesNanos = timeParseAndDescribe(fixtures, false);
+        final List<String> large = Collections.singletonList(largeVastXml);
+        final long domLargeNanos = timeParseAndDescribe(large, true);
+        final long pullLargeNanos = timeParseAndDescribe(large, false);
+
+        System.out.println(String.format(Locale.US,
+                "VAST parse and read, %d iterations: fixtures (%d documents) DOM %.1f ms, "
+                        + "pull %.1f ms; large document (%d chars) DOM %.1f ms, pull %.1f ms",
+                BENCHMARK_ITERATIONS, fixtures.size(), domFixturesNanos / 1e6,
+                pullFixturesNanos / 1e6, largeVastXml.length(), domLargeNanos / 1e6,
+                pullLargeNanos / 1e6));
+
+        assertThat(parseAndDescribeAll(large, false)).isEqualTo(parseAndDescribeAll(large, true));
+    }
+
+    @NonNull
+    private static List<String> getVastXmlFixtures() {
+        return Arrays.asList(
+                VastXmlManagerAggregatorTest.TEST_VAST_XML_STRING,
+                VastXmlManagerAggregatorTest.TEST_VAST_XML_STRING.replace("<PLACEHOLDER2 />",
+                        VastXmlManagerAggregatorTest.NODE_OM_AD_VERIFICATION),
+                VastXmlManagerAggregatorTest.TEST_VAST_XML_STRING.replace("<PLACEHOLDER1 />",
+                        VastXmlManagerAggregatorTest.NODE_OM_AD_VERIFICATION_EXT),
+                VastXmlManagerAggregatorTest.TEST_NESTED_VAST_XML_STRING,
+                VastXmlManagerAggregatorTest.TEST_NESTED_NO_COMPANION_VAST_XML_STRING,
+                VastXmlManagerAggregatorTest.TEST_NESTED_NO_COMPANION_VAST_XML_STRING.replace(
+                        "<PLACEHOLDER2 />", VastXmlManagerAggregatorTest.NODE_OM_AD_VERIFICATION),
+                VastXmlManagerAggregatorTest.TEST_NESTED_NO_COMPANION_VAST_XML_STRING.replace(
+                        "<PLACEHOLDER1 />",
+                        VastXmlManagerAggregatorTest.NODE_OM_AD_VERIFICATION_EXT),
+                VastXmlManagerAggregatorTest.TEST_VAST_BAD_NEST_URL_XML_STRING,
+                VastXmlManagerAggregatorTest.TEST_JUST_ERROR_XML_STRING,
+                VastXmlManagerAggregatorTest.TEST_INVALID_VAST_XML_STRING,
+                VastXmlManagerAggregatorTest.TEST_INVALID_XML_STRING,
+                VastXmlManagerAggregatorTest.TEST_VAST_WITH_NEGATIVE_SEQUENCE_NUMBER_XML_STRING,
+                VastManagerTest.TEST_VAST_XML_STRING,
+                VastManagerTest.TEST_VAST_XML_STRING.replace(
+                        VastManagerTest.EXTENSIONS_SNIPPET_PLACEHOLDER, MOPUB_EXTENSIONS_SNIPPET),
+                VastManagerTest.TEST_NESTED_VAST_XML_STRING,
+                VastManagerTest.TEST_NESTED_VAST_XML_STRING.replace(
+                        VastManagerTest.EXTENSIONS_SNIPPET_PLACEHOLDER, MOPUB_EXTENSIONS_SNIPPET),
+                VastManagerTest.TEST_VAST_BAD_NEST_URL_XML_STRING,
+                VastXmlManagerTest.TEST_VAST_XML_STRING,
+                EDGE_CASES_VAST_XML_STRING,
+                createLargeVastXml(3, 20));
+    }
+
+    /**
+     * Builds a VAST document with many Ad elements, each with a large number of tracking events,
+     * media files and companions, like the documents some exchanges send.
+     */
+    @NonNull
+    private static String createLargeVastXml(final int adCount, final int trackingEventCount) {
+        final String[] events = {"start", "firstQuartile", "midpoint", "thirdQuartile",
+                "complete", "pause", "resume", "close", "skip", "creativeView"};
+        final StringBuilder builder = new StringBuilder("<VAST version=\"3.0\">");
+        for (int ad = 0; ad < adCount; ad++) {
+            builder.append("<Ad id=\"").append(ad).append("\"><InLine>")
+                    .append("<Impression><![CDATA[https://impression/").append(ad)
+                    .append("]]></Impression>")
+                    .append("<Error><![CDATA[https://error/").append(ad)
+                    .append("?code=[ERRORCODE]]]></Error>")
+                    .append("<Creatives><Creative><Linear skipoffset=\"00:00:05\">")
+                    .append("<TrackingEvents>");
+            for (int i = 0; i < trackingEventCount; i++) {
+                builder.append("<Tracking event=\"").append(events[i % events.length])
+                        .append("\"><![CDATA[https://tracking/").append(ad).append('/')
+                        .append(i).append("]]></Tracking>")
+                        .append("<Tracking event=\"progress\" offset=\"").append(i % 100)
+                        .append("%\"><![CDATA[https://progress/").append(ad).append('/')
+                        .append(i).append("]]></Tracking>");
+            }
+            builder.append("</TrackingEvents><VideoClicks>")
+                    .append("<ClickThrough><![CDATA[https://clickThrough/").append(ad)
+                    .append("]]></ClickThrough>")
+                    .append("<ClickTracking><![CDATA[https://clickTracking/").append(ad)
+                    .append("]]></ClickTracking>")
+                    .append("</VideoClicks><MediaFiles>");
+            for (int i = 1; i <= 4; i++) {
+                builder.append("<MediaFile delivery=\"progressive\" type=\"video/mp4\" width=\"")
+                        .append(320 * i).append("\" height=\"").append(180 * i)
+                        .append("\" bitrate=\"").append(500 * i)
+                        .append("\"><![CDATA[https://video/").append(ad).append('/').append(i)
+                        .append(".mp4]]></MediaFile>");
+            }
+            builder.append("</MediaFiles></Linear></Creative><Creative><CompanionAds>");
+            for (int i = 1; i <= 3; i++) {
+                builder.append("<Companion width=\"").append(300 * i).append("\" height=\"")
+                        .append(250 * i).append("\">")
+                        .append("<StaticResource creativeType=\"image/png\">")
+                        .append("<![CDATA[https://companion/").append(ad).append('/').append(i)
+                        .append(".png]]></StaticResource>")
+                        .append("<TrackingEvents><Tracking event=\"creativeView\">")
+                        .append("<![CDATA[https://companionView/").append(ad).append('/')
+                        .append(i).append("]]></Tracking></TrackingEvents>")
+                        .append("</Companion>");
+            }
+            builder.append("</CompanionAds></Creative></Creatives>")
+                    .append("</InLine></Ad>");
+        }
+        builder.append("</VAST>");
+        return builder.toString();
+    }
+
+    @NonNull
+    private static VastXmlManager parseWithDom(@NonNull final String vastXml) throws Exception {
+        final VastXmlManager xmlManager = new VastXmlManager();
+        xmlManager.parseVastXml(vastXml);
+        return xmlManager;
+    }
+
+    @NonNull
+    private static VastXmlPullParser parseWithPullParser(@NonNull final String vastXml)
+            throws Exception {
+        final VastXmlPullParser pullParser = new VastXmlPullParser();
+        pullParser.parseVastXml(vastXml);
+        return pullParser;
+    }
+
+    private static void assertPullParserFails(@NonNull final String vastXml) {
+        try {
+            parseWithPullParser(vastXml);
+            fail("The pull parser should fail to parse " + vastXml + " like the DOM parser");
+        } catch (Exception e) {
+            // expected
+        }
+    }
+
+    @Nullable
+    private static VastVideoConfig evaluate(@NonNull final VastXmlManagerAggregator aggregator,
+            @NonNull final String vastXml) {
+        VastWrapperRedirectResolver.clearCache();
+        ShadowMoPubHttpUrlConnection.reset();
+        for (int i = 0; i < VastXmlManagerAggregator.MAX_TIMES_TO_FOLLOW_VAST_REDIRECT; i++) {
+            ShadowMoPubHttpUrlConnection.addPendingResponse(200,
+                    VastXmlManagerAggregatorTest.TEST_NESTED_VAST_XML_STRING);
+        }
+        return aggregator.evaluateVastXmlManager(vastXml, new ArrayList<VastTracker>());
+    }
+
+    private static long timeParseAndDescribe(@NonNull final List<String> vastXmls,
+            final boolean useDom) throws Exception {
+        final long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            parseAndDescribeAll(vastXmls, useDom);
+        }
+        return System.nanoTime() - start;
+    }
+
+    @NonNull
+    private static String parseAndDescribeAll(@NonNull final List<String> vastXmls,
+            final boolean useDom) throws Exception {
+        final StringBuilder builder = new StringBuilder();
+        for (final String vastXml : vastXmls) {
+            builder.append(describe(useDom ? parseWithDom(vastXml) : parseWithPullParser(vastXml)));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Reads every value of the document into a string, so two documents can be compared.
+     */
+    @NonNull
+    private static String describe(@NonNull final VastXmlDocument document) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("error: ").append(document.getErrorTracker())
+                .append("\nmopub impressions: ").append(document.getMoPubImpressionTrackers())
+                .append("\ncta: ").append(document.getCustomCtaText())
+                .append("\nskip: ").append(document.getCustomSkipText())
+                .append("\nclose icon: ").append(document.getCustomCloseIconUrl());
+        for (final VastXmlDocument.Ad ad : document.getAdXmlManagers()) {
+            builder.append("\nad sequence: ").append(ad.getSequence());
+            builder.append("\n inline:");
+            describe(builder, ad.getInLineXmlManager());
+            final VastXmlDocument.Wrapper wrapper = ad.getWrapperXmlManager();
+            builder.append("\n wrapper:");
+            describe(builder, wrapper);
+            if (wrapper != null) {
+                builder.append("\n  ad tag uri: ").append(wrapper.getVastAdTagURI());
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void describe(@NonNull final StringBuilder builder,
+            @Nullable final VastXmlDocument.InLineWrapper inLineWrapper) {
+        if (inLineWrapper == null) {
+            builder.append(" none");
+            return;
+        }
+        builder.append("\n  impressions: ").append(inLineWrapper.getImpressionTrackers())
+                .append("\n  errors: ").append(inLineWrapper.getErrorTrackers())
+                .append("\n  vendors: ");
+        describe(builder, inLineWrapper.getViewabilityVendors());
+        for (final VastXmlDocument.Linear linear : inLineWrapper.getLinearXmlManagers()) {
+            builder.append("\n  linear")
+                    .append("\n   fractional: ").append(linear.getFractionalProgressTrackers())
+                    .append("\n   absolute: ").append(linear.getAbsoluteProgressTrackers())
+                    .append("\n   complete: ").append(linear.getVideoCompleteTrackers())
+                    .append("\n   pause: ").append(linear.getPauseTrackers())
+                    .append("\n   resume: ").append(linear.getResumeTrackers())
+                    .append("\n   close: ").append(linear.getVideoCloseTrackers())
+                    .append("\n   skip: ").append(linear.getVideoSkipTrackers())
+                    .append("\n   click through: ").append(linear.getClickThroughUrl())
+                    .append("\n   clicks: ").append(linear.getClickTrackers())
+                    .append("\n   skip offset: ").append(linear.getSkipOffset());
+            for (final VastXmlDocument.MediaFile mediaFile : linear.getMediaXmlManagers()) {
+                builder.append("\n   media file: ").append(mediaFile.getMediaUrl())
+                        .append(' ').append(mediaFile.getType())
+                        .append(' ').append(mediaFile.getWidth())
+                        .append('x').append(mediaFile.getHeight())
+                        .append(' ').append(mediaFile.getBitrate());
+            }
+            for (final VastXmlDocument.Icon icon : linear.getIconXmlManagers()) {
+                builder.append("\n   icon: ").append(icon.getWidth())
+                        .append('x').append(icon.getHeight())
+                        .append(" offset ").append(icon.getOffsetMS())
+                        .append(" duration ").append(icon.getDurationMS())
+                        .append(" click through ").append(icon.getClickThroughUri())
+                        .append(" clicks ").append(icon.getClickTrackingUris())
+                        .append(" views ").append(icon.getViewTrackingUris());
+                describe(builder, icon.getResourceXmlManager());
+            }
+        }
+        for (final VastXmlDocument.CompanionAd companionAd :
+                inLineWrapper.getCompanionAdXmlManagers()) {
+            builder.append("\n  companion: ").append(companionAd.getWidth())
+                    .append('x').append(companionAd.getHeight())
+                    .append(" has resources ").append(companionAd.hasResources())
+                    .append(" click through ").append(companionAd.getClickThroughUrl())
+                    .append(" clicks ").append(companionAd.getClickTrackers())
+                    .append(" views ").append(companionAd.getCompanionCreativeViewTrackers());
+            describe(builder, companionAd.getResourceXmlManager());
+        }
+        for (final VastXmlDocument.Extension extension :
+                inLineWrapper.getVastExtensionXmlManagers()) {
+            builder.append("\n  extension: ").append(extension.getType());
+            final VideoViewabilityTracker tracker = extension.getVideoViewabilityTracker();
+            if (tracker != null) {
+                builder.append(" viewability ").append(tracker.getContent())
+                        .append(' ').append(tracker.getViewablePlaytimeMS())
+                        .append(' ').append(tracker.getPercentViewable());
+            }
+            builder.append(" vendors ");
+            describe(builder, extension.getViewabilityVendors());
+        }
+    }
+
+    private static void describe(@NonNull final StringBuilder builder,
+            @NonNull final VastXmlDocument.Resource resource) {
+        builder.append("\n    static: ").append(resource.getStaticResource())
+                .append(' ').append(resource.getStaticResourceType())
+                .append("\n    iframe: ").append(resource.getIFrameResource())
+                .append("\n    html: ").append(resource.getHTMLResource());
+    }
+
+    private static void describe(@NonNull final StringBuilder builder,
+            @NonNull final Set<ViewabilityVendor> vendors) {
+        final List<String> descriptions = new ArrayList<String>();
+        for (final ViewabilityVendor vendor : vendors) {
+            descriptions.add(vendor.getVendorKey() + ' ' + vendor.getJavascriptResourceUrl()
+                    + ' ' + vendor.getVerificationParameters()
+                    + ' ' + vendor.getVerificationNotExecuted());
+        }
+        Collections.sort(descriptions);
+        builder.append(descriptions);
+    }
+}
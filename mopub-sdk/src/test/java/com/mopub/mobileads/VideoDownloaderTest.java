@@ -9,6 +9,7 @@ import android.content.Context;
 
 import com.mopub.common.CacheService;
 import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.common.util.AsyncTasks;
 import com.mopub.common.util.test.support.ShadowAsyncTasks;
 import com.mopub.common.util.test.support.ShadowMoPubHttpUrlConnection;
 import com.mopub.mobileads.VideoDownloader.VideoDownloaderListener;
@@ -23,13 +24,29 @@ import org.mockito.Mock;
 import org.robolectric.Robolectric;
 import org.robolectric.annotation.Config;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.ref.WeakReference;
+import java.net.HttpURLConnection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(SdkTestRunner.class)
 @Config(shadows = {ShadowAsyncTasks.class, ShadowMoPubHttpUrlConnection.class})
@@ -58,6 +75,7 @@ public class VideoDownloaderTest {
         assertThat(ShadowAsyncTasks.getLatestAsyncTask()).isInstanceOf(VideoDownloaderTask.class);
         assertThat(ShadowAsyncTasks.getLatestParams()).hasSize(1);
         assertThat(ShadowAsyncTasks.getLatestParams().contains(expectedUrl1)).isTrue();
+        assertThat(ShadowAsyncTasks.getLatestLane()).isEqualTo(AsyncTasks.Lane.PREFETCH);
 
         // In the success case, the listener will not be modified until after the AsyncTask is
         // actually executed
@@ -147,6 +165,16 @@ public class VideoDownloaderTest {
         assertThat(CacheService.getFromDiskCache(expectedUrl1)).isEqualTo(expectedResponse.getBytes());
     }
 
+    @Test
+    public void doInBackground_afterDownload_shouldNotLeavePartialDownloadRegistered() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "response");
+        final VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(mockListener);
+
+        videoDownloaderTask.doInBackground(expectedUrl1);
+
+        assertThat(VideoDownloader.getPartialDownload(expectedUrl1)).isNull();
+    }
+
     @Test
     public void doInBackground_withNullArguments_shouldReturnFalse_shouldNotUpdateCache() throws Exception {
         ShadowMoPubHttpUrlConnection.addPendingResponse(200, "response");
@@ -215,6 +243,178 @@ public class VideoDownloaderTest {
         assertThat(CacheService.getDiskLruCache().size()).isEqualTo(0);
     }
 
+    @Test
+    public void doInBackground_shouldRemovePartialDownload() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "response");
+        final VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(mockListener);
+
+        videoDownloaderTask.doInBackground(expectedUrl1);
+
+        assertThat(CacheService.getPartialDownloadsDirectory().listFiles()).isEmpty();
+    }
+
+    @Test
+    public void doInBackground_withPartialDownloadAndValidator_shouldResumeWithRange() throws Exception {
+        writePartialDownload(expectedUrl1, "first", "\"etag\"");
+        final Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put("content-range", Collections.singletonList("bytes 5-8/9"));
+        ShadowMoPubHttpUrlConnection.addPendingResponse(206, "rest", headers);
+        final HttpURLConnection connection =
+                (HttpURLConnection) ShadowMoPubHttpUrlConnection.getPendingUrlConnections().peek();
+        final VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(mockListener);
+
+        final Boolean result = videoDownloaderTask.doInBackground(expectedUrl1);
+
+        assertThat(result).isTrue();
+        verify(connection).setRequestProperty("range", "bytes=5-");
+        verify(connection).setRequestProperty("if-range", "\"etag\"");
+        assertThat(CacheService.getFromDiskCache(expectedUrl1)).isEqualTo("firstrest".getBytes());
+    }
+
+    @Test
+    public void doInBackground_withPartialDownload_whenServerReturnsFullResponse_shouldStartOver() throws Exception {
+        writePartialDownload(expectedUrl1, "stale", "\"etag\"");
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "fresh");
+        final VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(mockListener);
+
+        final Boolean result = videoDownloaderTask.doInBackground(expectedUrl1);
+
+        assertThat(result).isTrue();
+        assertThat(CacheService.getFromDiskCache(expectedUrl1)).isEqualTo("fresh".getBytes());
+    }
+
+    @Test
+    public void doInBackground_withPartialDownload_whenContentRangeDoesNotMatch_shouldStartOverWithoutRange() throws Exception {
+        writePartialDownload(expectedUrl1, "first", "\"etag\"");
+        final Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put("content-range", Collections.singletonList("bytes 2-8/9"));
+        ShadowMoPubHttpUrlConnection.addPendingResponse(206, "rstrest", headers);
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "fresh");
+        final Iterator<?> connections = ShadowMoPubHttpUrlConnection.getPendingUrlConnections().iterator();
+        connections.next();
+        final HttpURLConnection retryConnection = (HttpURLConnection) connections.next();
+        final VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(mockListener);
+
+        final Boolean result = videoDownloaderTask.doInBackground(expectedUrl1);
+
+        assertThat(result).isTrue();
+        verify(retryConnection, never()).setRequestProperty(eq("range"), anyString());
+        assertThat(CacheService.getFromDiskCache(expectedUrl1)).isEqualTo("fresh".getBytes());
+    }
+
+    @Test
+    public void doInBackground_withPartialDownload_whenContentRangeDoesNotMatch_withRetryFailing_shouldNotCacheVideo() throws Exception {
+        writePartialDownload(expectedUrl1, "first", "\"etag\"");
+        final Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put("content-range", Collections.singletonList("bytes 2-8/9"));
+        ShadowMoPubHttpUrlConnection.addPendingResponse(206, "rstrest", headers);
+        ShadowMoPubHttpUrlConnection.addPendingResponse(500, "error");
+        final VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(mockListener);
+
+        final Boolean result = videoDownloaderTask.doInBackground(expectedUrl1);
+
+        assertThat(result).isFalse();
+        assertThat(CacheService.containsKeyDiskCache(expectedUrl1)).isFalse();
+        assertThat(CacheService.getPartialDownloadsDirectory().listFiles()).isEmpty();
+    }
+
+    @Test
+    public void doInBackground_withPartialDownload_whenRangeNotSatisfiable_shouldDeletePartialAndStartOver() throws Exception {
+        writePartialDownload(expectedUrl1, "complete", "\"etag\"");
+        ShadowMoPubHttpUrlConnection.addPendingResponse(416, "");
+        final HttpURLConnection rangeConnection =
+                (HttpURLConnection) ShadowMoPubHttpUrlConnection.getPendingUrlConnections().peek();
+        // HttpURLConnection throws when the body of an error response is opened
+        when(rangeConnection.getInputStream()).thenThrow(new IOException("416"));
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "complete");
+        final VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(mockListener);
+
+        final Boolean result = videoDownloaderTask.doInBackground(expectedUrl1);
+
+        assertThat(result).isTrue();
+        assertThat(CacheService.getFromDiskCache(expectedUrl1)).isEqualTo("complete".getBytes());
+        assertThat(CacheService.getPartialDownloadsDirectory().listFiles()).isEmpty();
+    }
+
+    @Test
+    public void doInBackground_withPartialDownloadWithoutValidator_shouldNotSendRange() throws Exception {
+        writePartialDownload(expectedUrl1, "first", null);
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "response");
+        final HttpURLConnection connection =
+                (HttpURLConnection) ShadowMoPubHttpUrlConnection.getPendingUrlConnections().peek();
+        final VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(mockListener);
+
+        final Boolean result = videoDownloaderTask.doInBackground(expectedUrl1);
+
+        assertThat(result).isTrue();
+        verify(connection, never()).setRequestProperty(eq("range"), anyString());
+        assertThat(CacheService.getFromDiskCache(expectedUrl1)).isEqualTo("response".getBytes());
+    }
+
+    @Test
+    public void doInBackground_withConcurrentDownloadOfSameUrl_shouldDownloadOnce_shouldBothReturnTrue() throws Exception {
+        final byte[] expectedResponse = "response".getBytes();
+        final CountDownLatch readStartedLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final InputStream blockingInputStream = new ByteArrayInputStream(expectedResponse) {
+            @Override
+            public synchronized int read(final byte[] buffer, final int offset, final int length) {
+                readStartedLatch.countDown();
+                try {
+                    releaseLatch.await();
+                } catch (InterruptedException e) {
+                    return -1;
+                }
+                return super.read(buffer, offset, length);
+            }
+        };
+        final HttpURLConnection connection = mock(HttpURLConnection.class);
+        when(connection.getInputStream()).thenReturn(blockingInputStream);
+        when(connection.getContentLength()).thenReturn(expectedResponse.length);
+        when(connection.getResponseCode()).thenReturn(200);
+        // Only one response is available, so a second download would fail
+        ShadowMoPubHttpUrlConnection.getPendingUrlConnections().add(connection);
+        final VideoDownloaderTask firstTask = new VideoDownloaderTask(mockListener);
+        final VideoDownloaderTask secondTask = new VideoDownloaderTask(mockListener);
+        final Boolean[] results = new Boolean[2];
+
+        final Thread firstThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                results[0] = firstTask.doInBackground(expectedUrl1);
+            }
+        });
+        firstThread.start();
+        assertThat(readStartedLatch.await(5, TimeUnit.SECONDS)).isTrue();
+        final Thread secondThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                results[1] = secondTask.doInBackground(expectedUrl1);
+            }
+        });
+        secondThread.start();
+        releaseLatch.countDown();
+        firstThread.join(5000);
+        secondThread.join(5000);
+
+        assertThat(results[0]).isTrue();
+        assertThat(results[1]).isTrue();
+        assertThat(CacheService.getFromDiskCache(expectedUrl1)).isEqualTo(expectedResponse);
+    }
+
+    @Test
+    public void doInBackground_withVideoAlreadyCached_shouldReturnTrue_shouldNotDownload() throws Exception {
+        CacheService.putToDiskCache(expectedUrl1, "cached".getBytes());
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "response");
+        final VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(mockListener);
+
+        final Boolean result = videoDownloaderTask.doInBackground(expectedUrl1);
+
+        assertThat(result).isTrue();
+        assertThat(ShadowMoPubHttpUrlConnection.getPendingUrlConnections()).hasSize(1);
+        assertThat(CacheService.getFromDiskCache(expectedUrl1)).isEqualTo("cached".getBytes());
+    }
+
     @Test
     public void onPostExecute_withSuccessTrue_shouldCallOnCompleteTrue_shouldRemoveDownloadTaskFromQueue() {
         VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(mockListener);
@@ -259,6 +459,20 @@ public class VideoDownloaderTest {
         assertThat(VideoDownloader.getDownloaderTasks()).hasSize(0);
     }
 
+    private static void writePartialDownload(final String url, final String content,
+            final String validator) throws Exception {
+        final File directory = CacheService.getPartialDownloadsDirectory();
+        final String fileName = CacheService.createValidDiskCacheKey(url);
+        FileOutputStream outputStream = new FileOutputStream(new File(directory, fileName + ".partial"));
+        outputStream.write(content.getBytes());
+        outputStream.close();
+        if (validator != null) {
+            outputStream = new FileOutputStream(new File(directory, fileName + ".validator"));
+            outputStream.write(validator.getBytes());
+            outputStream.close();
+        }
+    }
+
     private static String createLongString(int size) {
         return new String(new char[size]).replace("\0", "*");
     }
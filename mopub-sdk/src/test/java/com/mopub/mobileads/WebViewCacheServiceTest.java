@@ -4,7 +4,10 @@
 
 package com.mopub.mobileads;
 
+import android.content.ComponentCallbacks2;
+import android.content.res.Resources;
 import android.os.Handler;
+import android.util.DisplayMetrics;
 
 import com.mopub.common.test.support.SdkTestRunner;
 import com.mopub.mraid.MraidController;
@@ -13,14 +16,18 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.robolectric.Robolectric;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 
 @RunWith(SdkTestRunner.class)
 public class WebViewCacheServiceTest {
@@ -29,6 +36,7 @@ public class WebViewCacheServiceTest {
     @Mock private BaseAd baseAd;
     @Mock private Handler handler;
     @Mock private MraidController mraidController;
+    @Mock private Resources resources;
     private long broadcastIdentifier;
 
     @Before
@@ -75,7 +83,7 @@ public class WebViewCacheServiceTest {
     }
 
     @Test
-    public void storeWebView_withMaxSizeReached_shouldTrimCache_shouldIgnoreStoreRequest() {
+    public void storeWebView_withMaxSizeReached_shouldTrimCache_shouldEvictLeastRecentlyStored() {
         for(int i = 0; i < WebViewCacheService.MAX_SIZE; i++) {
             WebViewCacheService.storeWebViewConfig(broadcastIdentifier + i,
                     baseWebView, baseAd, mraidController);
@@ -96,7 +104,35 @@ public class WebViewCacheServiceTest {
                 WebViewCacheService.TRIM_CACHE_FREQUENCY_MILLIS);
 
         assertThat(configs.size()).isEqualTo(WebViewCacheService.MAX_SIZE);
-        assertThat(configs.get(broadcastIdentifier - 1)).isNull();
+        assertThat(configs.get(broadcastIdentifier)).isNull();
+        assertThat(configs.get(broadcastIdentifier - 1).getWebView()).isEqualTo(baseWebView);
+        verify(baseWebView).destroy();
+        verify(mraidController).destroy();
+        assertThat(WebViewCacheService.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void storeWebView_withMaxEstimatedBytesReached_shouldEvictLeastRecentlyStored() {
+        final DisplayMetrics displayMetrics = new DisplayMetrics();
+        displayMetrics.widthPixels = 1080;
+        displayMetrics.heightPixels = 1920;
+        when(resources.getDisplayMetrics()).thenReturn(displayMetrics);
+        when(baseWebView.getResources()).thenReturn(resources);
+        final long estimatedBytes = WebViewCacheService.estimateBytes(baseWebView);
+        final int maxEntries = (int) (WebViewCacheService.MAX_ESTIMATED_BYTES / estimatedBytes);
+
+        for (int i = 0; i <= maxEntries; i++) {
+            WebViewCacheService.storeWebViewConfig(broadcastIdentifier + i,
+                    baseWebView, baseAd, mraidController);
+        }
+
+        final Map<Long, WebViewCacheService.Config> configs = WebViewCacheService.getWebViewConfigs();
+        assertThat(estimatedBytes).isEqualTo(WebViewCacheService.WEB_VIEW_BASE_BYTES
+                + 1080 * 1920 * 4);
+        assertThat(configs.size()).isEqualTo(maxEntries);
+        assertThat(configs.get(broadcastIdentifier)).isNull();
+        assertThat(WebViewCacheService.getEstimatedBytes())
+                .isLessThanOrEqualTo(WebViewCacheService.MAX_ESTIMATED_BYTES);
     }
 
     @Test
@@ -134,4 +170,68 @@ public class WebViewCacheServiceTest {
         assertThat(configs.get(broadcastIdentifier).getController()).isEqualTo(mraidController);
         assertThat(configsResult.get(broadcastIdentifier + 1)).isNull();
     }
+
+    @Test
+    public void trimCache_withExpiredWebView_shouldEvictIt() {
+        WebViewCacheService.storeWebViewConfig(broadcastIdentifier, baseWebView,
+                baseAd, mraidController);
+
+        Robolectric.getForegroundThreadScheduler().advanceBy(
+                WebViewCacheService.MAX_AGE_MILLIS, TimeUnit.MILLISECONDS);
+        WebViewCacheService.trimCache();
+
+        assertThat(WebViewCacheService.getWebViewConfigs()).isEmpty();
+        verify(baseWebView).destroy();
+        assertThat(WebViewCacheService.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void onTrimMemory_withRunningCritical_shouldEvictEverything() {
+        WebViewCacheService.storeWebViewConfig(broadcastIdentifier, baseWebView,
+                baseAd, mraidController);
+        WebViewCacheService.storeWebViewConfig(broadcastIdentifier + 1, baseWebView,
+                baseAd, mraidController);
+
+        WebViewCacheService.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+
+        assertThat(WebViewCacheService.getWebViewConfigs()).isEmpty();
+        assertThat(WebViewCacheService.getEvictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void onTrimMemory_withUiHidden_shouldNotEvict() {
+        WebViewCacheService.storeWebViewConfig(broadcastIdentifier, baseWebView,
+                baseAd, mraidController);
+
+        WebViewCacheService.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+        assertThat(WebViewCacheService.getWebViewConfigs().size()).isEqualTo(1);
+        verify(baseWebView, never()).destroy();
+    }
+
+    @Test
+    public void popWebView_shouldCountHitsAndMisses() {
+        WebViewCacheService.storeWebViewConfig(broadcastIdentifier, baseWebView,
+                baseAd, mraidController);
+
+        WebViewCacheService.popWebViewConfig(broadcastIdentifier);
+        WebViewCacheService.popWebViewConfig(broadcastIdentifier);
+
+        assertThat(WebViewCacheService.getHitCount()).isEqualTo(1);
+        assertThat(WebViewCacheService.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void discardWebView_shouldInvalidateWithoutCountingHitOrMiss() {
+        WebViewCacheService.storeWebViewConfig(broadcastIdentifier, baseWebView,
+                baseAd, mraidController);
+
+        WebViewCacheService.discardWebViewConfig(broadcastIdentifier);
+
+        assertThat(WebViewCacheService.getWebViewConfigs()).isEmpty();
+        verify(baseWebView).destroy();
+        assertThat(WebViewCacheService.getHitCount()).isEqualTo(0);
+        assertThat(WebViewCacheService.getMissCount()).isEqualTo(0);
+        assertThat(WebViewCacheService.getEvictionCount()).isEqualTo(0);
+    }
 }
@@ -0,0 +1,168 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.mraid.MraidBridge.MraidWebView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SdkTestRunner.class)
+public class WebViewPoolTest {
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = Robolectric.buildActivity(Activity.class).create().get();
+    }
+
+    @Test
+    public void leaseHtmlWebView_whenDisabled_shouldConstructNewWebView() {
+        final HtmlWebView webView = WebViewPool.leaseHtmlWebView(context);
+
+        assertThat(webView).isNotNull();
+        assertThat(WebViewPool.isPooledLease(webView)).isFalse();
+        assertThat(WebViewPool.getPooledCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void release_whenDisabled_shouldDestroyWebView() {
+        final HtmlWebView webView = WebViewPool.leaseHtmlWebView(context);
+
+        WebViewPool.release(webView);
+
+        assertThat(webView.mIsDestroyed).isTrue();
+        assertThat(WebViewPool.getPooledCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void warmUpOne_shouldFillPoolOneWebViewAtATime() {
+        WebViewPool.warmUp(context);
+
+        assertThat(WebViewPool.warmUpOne()).isTrue();
+        assertThat(WebViewPool.getPooledCount()).isEqualTo(1);
+
+        while (WebViewPool.warmUpOne()) {
+            // Keep filling until the pool is full
+        }
+        assertThat(WebViewPool.getPooledCount()).isEqualTo(2 * WebViewPool.MAX_POOLED_WEB_VIEWS);
+    }
+
+    @Test
+    public void leaseMraidWebView_withWarmPool_shouldReturnPooledWebView() {
+        warmUpFully();
+
+        final MraidWebView webView = WebViewPool.leaseMraidWebView(context);
+
+        assertThat(WebViewPool.isPooledLease(webView)).isTrue();
+        assertThat(WebViewPool.getPooledCount())
+                .isEqualTo(2 * WebViewPool.MAX_POOLED_WEB_VIEWS - 1);
+    }
+
+    @Test
+    public void release_withResettableWebView_shouldReturnItToPool() {
+        warmUpFully();
+        final HtmlWebView webView = WebViewPool.leaseHtmlWebView(context);
+        webView.init(mock(BaseHtmlWebView.BaseWebViewListener.class), "dspCreativeId");
+
+        WebViewPool.release(webView);
+
+        assertThat(webView.mIsDestroyed).isFalse();
+        assertThat(WebViewPool.isPooledLease(webView)).isFalse();
+        assertThat(WebViewPool.getPooledCount()).isEqualTo(2 * WebViewPool.MAX_POOLED_WEB_VIEWS);
+        assertThat(WebViewPool.leaseHtmlWebView(context)).isNotSameAs(webView);
+    }
+
+    @Test
+    public void leaseAndRelease_withWarmPool_shouldPointWebViewAtLeaseContextOnlyWhileLeased() {
+        warmUpFully();
+
+        final HtmlWebView webView = WebViewPool.leaseHtmlWebView(context);
+        final MutableContextWrapper webViewContext = (MutableContextWrapper) webView.getContext();
+        assertThat(webViewContext.getBaseContext()).isSameAs(context);
+
+        WebViewPool.release(webView);
+
+        assertThat(webView.mIsDestroyed).isFalse();
+        assertThat(webViewContext.getBaseContext()).isSameAs(context.getApplicationContext());
+    }
+
+    @Test
+    public void release_withWebViewNotBuiltByPool_shouldDestroyWebView() {
+        WebViewPool.warmUp(context);
+        final HtmlWebView webView = new HtmlWebView(context);
+
+        WebViewPool.release(webView);
+
+        assertThat(webView.mIsDestroyed).isTrue();
+        assertThat(WebViewPool.getPooledCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void release_withStartedViewabilitySession_shouldDestroyWebView() {
+        warmUpFully();
+        final MraidWebView webView = WebViewPool.leaseMraidWebView(context);
+        webView.state = BaseWebViewViewability.State.STARTED;
+
+        WebViewPool.release(webView);
+
+        assertThat(webView.mIsDestroyed).isTrue();
+        assertThat(WebViewPool.getPooledCount())
+                .isEqualTo(2 * WebViewPool.MAX_POOLED_WEB_VIEWS - 1);
+    }
+
+    @Test
+    public void release_withWebViewSubclass_shouldDestroyWebView() {
+        WebViewPool.warmUp(context);
+        final HtmlWebView webView = mock(HtmlWebView.class);
+
+        WebViewPool.release(webView);
+
+        verify(webView).destroy();
+        assertThat(WebViewPool.getPooledCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void clear_shouldDestroyPooledWebViews() {
+        warmUpFully();
+        final HtmlWebView webView = WebViewPool.leaseHtmlWebView(context);
+        WebViewPool.release(webView);
+
+        WebViewPool.clear();
+
+        assertThat(webView.mIsDestroyed).isTrue();
+        assertThat(WebViewPool.getPooledCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void getAverageLoadMillis_shouldSeparatePooledAndNewWebViews() {
+        assertThat(WebViewPool.getAverageLoadMillis(true)).isEqualTo(-1);
+
+        WebViewPool.recordLoadTime(true, 100);
+        WebViewPool.recordLoadTime(true, 200);
+        WebViewPool.recordLoadTime(false, 400);
+
+        assertThat(WebViewPool.getAverageLoadMillis(true)).isEqualTo(150);
+        assertThat(WebViewPool.getAverageLoadMillis(false)).isEqualTo(400);
+    }
+
+    private void warmUpFully() {
+        WebViewPool.warmUp(context);
+        while (WebViewPool.warmUpOne()) {
+            // Keep filling until the pool is full
+        }
+    }
+}
@@ -6,6 +6,7 @@ package com.mopub.mraid;
 
 import android.app.Activity;
 import android.webkit.RenderProcessGoneDetail;
+import android.webkit.ValueCallback;
 import android.webkit.WebSettings;
 import android.webkit.WebViewClient;
 
@@ -35,6 +36,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.startsWith;
 import static org.mockito.Mockito.never;
@@ -139,8 +141,8 @@ public class MraidBridgeTest {
         attachWebViews();
         boolean result = subjectBanner.handleShouldOverrideUrl("bad bad bad");
 
-        verify(mockBannerWebView).loadUrl(startsWith(
-                "javascript:window.mraidbridge.notifyErrorEvent"));
+        verify(mockBannerWebView).evaluateJavascript(startsWith(
+                "window.mraidbridge.notifyErrorEvent"), any(ValueCallback.class));
         assertThat(result).isTrue();
     }
 
@@ -178,8 +180,8 @@ public class MraidBridgeTest {
         attachWebViews();
         boolean result = subjectBanner.handleShouldOverrideUrl("mraid://bad-command");
 
-        verify(mockBannerWebView).loadUrl(startsWith(
-                "javascript:window.mraidbridge.notifyErrorEvent"));
+        verify(mockBannerWebView).evaluateJavascript(startsWith(
+                "window.mraidbridge.notifyErrorEvent"), any(ValueCallback.class));
         assertThat(result).isTrue();
     }
 
@@ -251,6 +253,50 @@ public class MraidBridgeTest {
         assertThat(result).isFalse();
     }
 
+    @Test
+    public void handleShouldOverrideUrl_mraidUrl_shouldParseInBackground_thenRunCommand() {
+        attachWebViews();
+        Robolectric.getBackgroundThreadScheduler().pause();
+
+        boolean result = subjectBanner.handleShouldOverrideUrl(
+                "mraid://usecustomclose?shouldUseCustomClose=true");
+
+        assertThat(result).isTrue();
+        verify(mockBridgeListener, never()).onUseCustomClose(anyBoolean());
+
+        Robolectric.getBackgroundThreadScheduler().unPause();
+
+        verify(mockBridgeListener).onUseCustomClose(false);
+        verify(mockBannerWebView).evaluateJavascript(
+                eq("window.mraidbridge.nativeCallComplete(\"usecustomclose\")"),
+                any(ValueCallback.class));
+    }
+
+    @Test
+    public void handleShouldOverrideUrl_mraidUrl_whenContentChangesWhileParsing_shouldDropCommand() {
+        attachWebViews();
+        Robolectric.getBackgroundThreadScheduler().pause();
+
+        subjectBanner.handleShouldOverrideUrl("mraid://close");
+        subjectBanner.setContentHtml("test-html");
+        Robolectric.getBackgroundThreadScheduler().unPause();
+
+        verify(mockBridgeListener, never()).onClose();
+        verify(mockBannerWebView, never()).evaluateJavascript(anyString(), any(ValueCallback.class));
+    }
+
+    @Test
+    public void handleParsedCommand_withInvalidUrl_shouldFireErrorEvent_shouldNotCompleteCommand() {
+        attachWebViews();
+
+        subjectBanner.handleParsedCommand("mraid://bad url", null);
+
+        verify(mockBannerWebView).evaluateJavascript(
+                startsWith("window.mraidbridge.notifyErrorEvent"), any(ValueCallback.class));
+        verify(mockBannerWebView, never()).evaluateJavascript(
+                contains("nativeCallComplete"), any(ValueCallback.class));
+    }
+
     @Test
     public void handleRenderProcessGone_shouldDetach_shouldNotifyMraidBridgeListener() {
         subjectBanner.handleRenderProcessGone(mockRenderProcessGoneDetail);
@@ -454,6 +500,85 @@ public class MraidBridgeTest {
         subjectBanner.runCommand(MraidJavascriptCommand.PLAY_VIDEO, params);
     }
 
+    @Test
+    public void injectJavaScript_withSeveralNotificationsInOneTask_shouldEvaluateOnce() {
+        attachWebViews();
+        Robolectric.getForegroundThreadScheduler().pause();
+
+        subjectBanner.notifyViewability(true);
+        subjectBanner.notifyPlacementType(PlacementType.INLINE);
+        subjectBanner.notifyViewState(ViewState.DEFAULT);
+        verify(mockBannerWebView, never()).evaluateJavascript(anyString(), any(ValueCallback.class));
+
+        Robolectric.getForegroundThreadScheduler().unPause();
+
+        verify(mockBannerWebView).evaluateJavascript(eq("mraidbridge.setIsViewable(true)"
+                + ";mraidbridge.setPlacementType(\"inline\")"
+                + ";mraidbridge.setState(\"default\")"), any(ValueCallback.class));
+        assertThat(subjectBanner.getInjectedScriptCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void notifyViewability_withUnchangedValue_shouldNotInjectAgain() {
+        attachWebViews();
+
+        subjectBanner.notifyViewability(true);
+        subjectBanner.notifyViewability(true);
+        subjectBanner.notifyViewability(false);
+
+        verify(mockBannerWebView).evaluateJavascript(eq("mraidbridge.setIsViewable(true)"),
+                any(ValueCallback.class));
+        verify(mockBannerWebView).evaluateJavascript(eq("mraidbridge.setIsViewable(false)"),
+                any(ValueCallback.class));
+        assertThat(subjectBanner.getInjectedScriptCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void notifyScreenMetrics_shouldOnlySendChangedMetrics() {
+        attachWebViews();
+        final MraidScreenMetrics screenMetrics = new MraidScreenMetrics(activity, 1.0f);
+        screenMetrics.setScreenSize(320, 480);
+        screenMetrics.setRootViewPosition(0, 0, 320, 480);
+        screenMetrics.setDefaultAdPosition(0, 0, 320, 50);
+        screenMetrics.setCurrentAdPosition(0, 0, 320, 50);
+        subjectBanner.notifyScreenMetrics(screenMetrics);
+        reset(mockBannerWebView);
+
+        subjectBanner.notifyScreenMetrics(screenMetrics);
+        verify(mockBannerWebView, never()).evaluateJavascript(anyString(), any(ValueCallback.class));
+
+        screenMetrics.setCurrentAdPosition(0, 100, 320, 50);
+        subjectBanner.notifyScreenMetrics(screenMetrics);
+        verify(mockBannerWebView).evaluateJavascript(
+                eq("mraidbridge.setCurrentPosition(0,100,320,50);"), any(ValueCallback.class));
+    }
+
+    @Test
+    public void onPageFinished_shouldResendValuesSentWhileLoading() {
+        attachWebViews();
+        subjectBanner.notifyViewability(true);
+        reset(mockBannerWebView);
+
+        bannerWebViewClientCaptor.getValue().onPageFinished(mockBannerWebView, "fake://url");
+        subjectBanner.notifyViewability(true);
+
+        verify(mockBannerWebView).evaluateJavascript(contains("mraidbridge.setIsViewable(true)"),
+                any(ValueCallback.class));
+    }
+
+    @Test
+    public void setContentHtml_shouldDropPendingScripts() {
+        attachWebViews();
+        Robolectric.getForegroundThreadScheduler().pause();
+        subjectBanner.notifyViewability(true);
+
+        subjectBanner.setContentHtml("test-html");
+        Robolectric.getForegroundThreadScheduler().unPause();
+
+        verify(mockBannerWebView, never()).evaluateJavascript(anyString(), any(ValueCallback.class));
+        assertThat(subjectBanner.getInjectedScriptCount()).isEqualTo(0);
+    }
+
     private void attachWebViews() {
         subjectBanner.attachView(mockBannerWebView);
         subjectInterstitial.attachView(mockInterstitialWebView);
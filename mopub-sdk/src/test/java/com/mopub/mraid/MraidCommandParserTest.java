@@ -0,0 +1,104 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mraid;
+
+import com.mopub.common.CloseableLayout.ClosePosition;
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.mraid.MraidCommandParser.ParsedCommand;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class MraidCommandParserTest {
+
+    @Test
+    public void isMraidUrl_shouldOnlyMatchMraidScheme() {
+        assertThat(MraidCommandParser.isMraidUrl("mraid://close")).isTrue();
+        assertThat(MraidCommandParser.isMraidUrl("mopub://failLoad")).isFalse();
+        assertThat(MraidCommandParser.isMraidUrl("https://www.mopub.com/?mraid://close")).isFalse();
+    }
+
+    @Test
+    public void parseUrl_withResize_shouldDecodeAndConvertArguments() {
+        final ParsedCommand parsedCommand = MraidCommandParser.parseUrl("mraid://resize?width=320"
+                + "&height=50&offsetX=-10&offsetY=20&customClosePosition=bottom-left"
+                + "&allowOffscreen=false");
+
+        assertThat(parsedCommand.getCommand()).isEqualTo(MraidJavascriptCommand.RESIZE);
+        assertThat(parsedCommand.getError()).isNull();
+        assertThat(parsedCommand.getWidth()).isEqualTo(320);
+        assertThat(parsedCommand.getHeight()).isEqualTo(50);
+        assertThat(parsedCommand.getOffsetX()).isEqualTo(-10);
+        assertThat(parsedCommand.getOffsetY()).isEqualTo(20);
+        assertThat(parsedCommand.getClosePosition()).isEqualTo(ClosePosition.BOTTOM_LEFT);
+        assertThat(parsedCommand.getAllowOffscreen()).isFalse();
+    }
+
+    @Test
+    public void parseUrl_withEncodedUrlArgument_shouldDecodeIt() throws Exception {
+        final ParsedCommand parsedCommand = MraidCommandParser.parseUrl(
+                "mraid://open?url=https%3A%2F%2Fwww.mopub.com%2F%3Fa%3Db%26c%3Dd");
+
+        assertThat(parsedCommand.getCommand()).isEqualTo(MraidJavascriptCommand.OPEN);
+        assertThat(parsedCommand.getUri()).isEqualTo(new URI("https://www.mopub.com/?a=b&c=d"));
+    }
+
+    @Test
+    public void parseUrl_withCamelCaseCommand_shouldMatchCommand() {
+        final ParsedCommand parsedCommand = MraidCommandParser.parseUrl(
+                "mraid://setOrientationProperties?allowOrientationChange=true"
+                        + "&forceOrientation=landscape");
+
+        assertThat(parsedCommand.getCommand())
+                .isEqualTo(MraidJavascriptCommand.SET_ORIENTATION_PROPERTIES);
+        assertThat(parsedCommand.getAllowOrientationChange()).isTrue();
+        assertThat(parsedCommand.getForceOrientation()).isEqualTo(MraidOrientation.LANDSCAPE);
+    }
+
+    @Test
+    public void parseUrl_withUnknownCommand_shouldReturnUnspecified() {
+        assertThat(MraidCommandParser.parseUrl("mraid://bad-command").getCommand())
+                .isEqualTo(MraidJavascriptCommand.UNSPECIFIED);
+        assertThat(MraidCommandParser.parseUrl("mraid:close").getCommand())
+                .isEqualTo(MraidJavascriptCommand.UNSPECIFIED);
+    }
+
+    @Test
+    public void parseUrl_withInvalidUri_shouldReturnNull() {
+        assertThat(MraidCommandParser.parseUrl("mraid://open?url=bad url")).isNull();
+    }
+
+    @Test
+    public void parseUrl_withInvalidArgument_shouldKeepError() {
+        final ParsedCommand parsedCommand = MraidCommandParser.parseUrl(
+                "mraid://usecustomclose?shouldUseCustomClose=maybe");
+
+        assertThat(parsedCommand.getCommand()).isEqualTo(MraidJavascriptCommand.USE_CUSTOM_CLOSE);
+        assertThat(parsedCommand.getError().getMessage())
+                .isEqualTo("Invalid boolean parameter: maybe");
+    }
+
+    @Test
+    public void parseArguments_withResizeOutOfRange_shouldKeepError() {
+        final Map<String, String> params = new HashMap<>();
+        params.put("width", "100001");
+        params.put("height", "50");
+        params.put("offsetX", "0");
+        params.put("offsetY", "0");
+
+        final ParsedCommand parsedCommand = MraidCommandParser.parseArguments(
+                MraidJavascriptCommand.RESIZE, params);
+
+        assertThat(parsedCommand.getError().getMessage())
+                .isEqualTo("Integer parameter out of range: 100001");
+    }
+}
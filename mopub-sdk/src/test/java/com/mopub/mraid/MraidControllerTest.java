@@ -1151,6 +1151,14 @@ public class MraidControllerTest {
         assertThat(rootView.getChildCount()).isEqualTo(0);
     }
 
+    @Test
+    public void getInjectedScriptCount_shouldSumBothBridges() {
+        when(mockBridge.getInjectedScriptCount()).thenReturn(3);
+        when(mockTwoPartBridge.getInjectedScriptCount()).thenReturn(2);
+
+        assertThat(subject.getInjectedScriptCount()).isEqualTo(5);
+    }
+
     @Test
     public void callMraidListenerCallbacks_withVariousStates_shouldCallCorrectMraidListenerCallback() {
         // Previous state LOADING
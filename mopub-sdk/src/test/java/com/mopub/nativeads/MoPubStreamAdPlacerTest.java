@@ -67,6 +67,13 @@ public class MoPubStreamAdPlacerTest {
         subject.setAdLoadedListener(mockAdLoadedListener);
     }
 
+    @Test
+    public void getAdCacheHitRate_shouldReturnAdSourceDequeueHitRate() {
+        when(mockAdSource.getDequeueHitRate()).thenReturn(0.75f);
+
+        assertThat(subject.getAdCacheHitRate()).isEqualTo(0.75f);
+    }
+
     @Test
     public void isAd_initialState_hasNoAds() {
         checkAdPositions();
@@ -348,7 +355,7 @@ public class MoPubStreamAdPlacerTest {
     }
 
     @Test
-    public void destroy_shouldClearAdSource_shouldDestroyImpressionTracker_shouldDestroyNativeAd() {
+    public void destroy_shouldDestroyAdSource_shouldDestroyImpressionTracker_shouldDestroyNativeAd() {
         when(mockAdSource.dequeueAd()).thenReturn(mStubNativeAd);
 
         subject = new MoPubStreamAdPlacer(activity, mockAdSource, mockPositioningSource);
@@ -360,7 +367,7 @@ public class MoPubStreamAdPlacerTest {
 
         subject.destroy();
 
-        verify(mockAdSource).clear();
+        verify(mockAdSource).destroy();
         verify(mStubNativeAd).destroy();
     }
 
@@ -434,7 +441,7 @@ public class MoPubStreamAdPlacerTest {
     }
 
     @Test
-    public void destroy_shouldClearAdSource_shouldResetPlacementData() {
+    public void destroy_shouldDestroyAdSource_shouldResetPlacementData() {
         when(mockAdSource.dequeueAd()).thenReturn(mStubNativeAd);
 
         subject = new MoPubStreamAdPlacer(activity, mockAdSource, mockPositioningSource);
@@ -446,7 +453,7 @@ public class MoPubStreamAdPlacerTest {
 
         subject.destroy();
 
-        verify(mockAdSource).clear();
+        verify(mockAdSource).destroy();
         verify(mStubNativeAd).destroy();
     }
 
@@ -0,0 +1,172 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.nativeads;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.Robolectric;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.mopub.common.Constants.AD_EXPIRATION_DELAY;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SdkTestRunner.class)
+public class NativeAdInventoryTest {
+    private static final String AD_UNIT_ID = "adUnitId";
+
+    @Mock private MoPubAdRenderer mockRenderer;
+    @Mock private MoPubCustomEventNative.MoPubStaticNativeAd mockBaseNativeAd;
+    private AdRendererRegistry adRendererRegistry;
+
+    @Before
+    public void setUp() {
+        adRendererRegistry = new AdRendererRegistry();
+        adRendererRegistry.registerAdRenderer(mockRenderer);
+        when(mockRenderer.supports(mockBaseNativeAd)).thenReturn(true);
+    }
+
+    @Test
+    public void lease_withSupportingRenderer_shouldReturnOldestAd_shouldSwitchRenderer() {
+        final TimestampWrapper<NativeAd> firstAd = createTimestampWrapper();
+        final TimestampWrapper<NativeAd> secondAd = createTimestampWrapper();
+        NativeAdInventory.put(firstAd, null);
+        NativeAdInventory.put(secondAd, null);
+
+        final TimestampWrapper<NativeAd> leasedAd =
+                NativeAdInventory.lease(AD_UNIT_ID, null, adRendererRegistry);
+
+        assertThat(leasedAd).isSameAs(firstAd);
+        verify(firstAd.mInstance).setMoPubAdRenderer(mockRenderer);
+        verify(firstAd.mInstance, never()).destroy();
+        assertThat(NativeAdInventory.getAdCount(AD_UNIT_ID, null)).isEqualTo(1);
+    }
+
+    @Test
+    public void lease_withoutSupportingRenderer_shouldReturnNull_shouldKeepAd() {
+        final TimestampWrapper<NativeAd> timestampWrapper = createTimestampWrapper();
+        NativeAdInventory.put(timestampWrapper, null);
+        when(mockRenderer.supports(mockBaseNativeAd)).thenReturn(false);
+
+        assertThat(NativeAdInventory.lease(AD_UNIT_ID, null, adRendererRegistry)).isNull();
+
+        verify(timestampWrapper.mInstance, never()).setMoPubAdRenderer(any(MoPubAdRenderer.class));
+        assertThat(NativeAdInventory.getAdCount(AD_UNIT_ID, null)).isEqualTo(1);
+    }
+
+    @Test
+    public void lease_withOtherAdUnit_shouldReturnNull() {
+        NativeAdInventory.put(createTimestampWrapper(), null);
+
+        assertThat(NativeAdInventory.lease("otherAdUnitId", null, adRendererRegistry)).isNull();
+        assertThat(NativeAdInventory.getAdCount(AD_UNIT_ID, null)).isEqualTo(1);
+    }
+
+    @Test
+    public void lease_withExpiredAd_shouldDestroyIt_shouldReturnNull() {
+        final TimestampWrapper<NativeAd> timestampWrapper = createTimestampWrapper();
+        NativeAdInventory.put(timestampWrapper, null);
+        timestampWrapper.mCreatedTimestamp -= AD_EXPIRATION_DELAY;
+
+        assertThat(NativeAdInventory.lease(AD_UNIT_ID, null, adRendererRegistry)).isNull();
+
+        verify(timestampWrapper.mInstance).destroy();
+        assertThat(NativeAdInventory.getAdCount(AD_UNIT_ID, null)).isEqualTo(0);
+    }
+
+    @Test
+    public void put_withExpiredAd_shouldDestroyIt() {
+        final TimestampWrapper<NativeAd> timestampWrapper = createTimestampWrapper();
+        timestampWrapper.mCreatedTimestamp -= AD_EXPIRATION_DELAY;
+
+        NativeAdInventory.put(timestampWrapper, null);
+
+        verify(timestampWrapper.mInstance).destroy();
+        assertThat(NativeAdInventory.getAdCount(AD_UNIT_ID, null)).isEqualTo(0);
+    }
+
+    @Test
+    public void put_withFullAdUnit_shouldDestroyOldestAd() {
+        final TimestampWrapper<NativeAd> oldestAd = createTimestampWrapper();
+        NativeAdInventory.put(oldestAd, null);
+        for (int i = 0; i < NativeAdInventory.MAX_ADS_PER_AD_UNIT; i++) {
+            NativeAdInventory.put(createTimestampWrapper(), null);
+        }
+
+        verify(oldestAd.mInstance).destroy();
+        assertThat(NativeAdInventory.getAdCount(AD_UNIT_ID, null))
+                .isEqualTo(NativeAdInventory.MAX_ADS_PER_AD_UNIT);
+    }
+
+    @Test
+    public void lease_withOtherRequestParameters_shouldReturnNull() {
+        final RequestParameters requestParameters =
+                new RequestParameters.Builder().keywords("keywords").build();
+        NativeAdInventory.put(createTimestampWrapper(), requestParameters);
+
+        assertThat(NativeAdInventory.lease(AD_UNIT_ID, null, adRendererRegistry)).isNull();
+        assertThat(NativeAdInventory.lease(AD_UNIT_ID,
+                new RequestParameters.Builder().keywords("other").build(),
+                adRendererRegistry)).isNull();
+        assertThat(NativeAdInventory.lease(AD_UNIT_ID,
+                new RequestParameters.Builder().keywords("keywords").build(),
+                adRendererRegistry)).isNotNull();
+    }
+
+    @Test
+    public void put_withMediatedAd_shouldDestroyIt() {
+        final NativeAd nativeAd = mock(NativeAd.class);
+        when(nativeAd.getAdUnitId()).thenReturn(AD_UNIT_ID);
+        when(nativeAd.getBaseNativeAd()).thenReturn(mock(BaseNativeAd.class));
+
+        NativeAdInventory.put(new TimestampWrapper<NativeAd>(nativeAd), null);
+
+        verify(nativeAd).destroy();
+        assertThat(NativeAdInventory.getAdCount(AD_UNIT_ID, null)).isEqualTo(0);
+    }
+
+    @Test
+    public void put_withOtherAdUnit_shouldDestroyExpiredAdsOfAllAdUnits() {
+        final TimestampWrapper<NativeAd> timestampWrapper = createTimestampWrapper();
+        NativeAdInventory.put(timestampWrapper, null);
+        timestampWrapper.mCreatedTimestamp -= AD_EXPIRATION_DELAY;
+        final TimestampWrapper<NativeAd> otherAd = createTimestampWrapper();
+        when(otherAd.mInstance.getAdUnitId()).thenReturn("otherAdUnitId");
+
+        NativeAdInventory.put(otherAd, null);
+
+        verify(timestampWrapper.mInstance).destroy();
+        assertThat(NativeAdInventory.getAdCount(AD_UNIT_ID, null)).isEqualTo(0);
+        assertThat(NativeAdInventory.getAdCount("otherAdUnitId", null)).isEqualTo(1);
+    }
+
+    @Test
+    public void put_whenAdExpiresWithoutFurtherAccess_shouldDestroyIt() {
+        final TimestampWrapper<NativeAd> timestampWrapper = createTimestampWrapper();
+        NativeAdInventory.put(timestampWrapper, null);
+
+        Robolectric.getForegroundThreadScheduler().advanceBy(AD_EXPIRATION_DELAY,
+                TimeUnit.MILLISECONDS);
+
+        verify(timestampWrapper.mInstance).destroy();
+        assertThat(NativeAdInventory.getAdCount(AD_UNIT_ID, null)).isEqualTo(0);
+    }
+
+    private TimestampWrapper<NativeAd> createTimestampWrapper() {
+        final NativeAd nativeAd = mock(NativeAd.class);
+        when(nativeAd.getAdUnitId()).thenReturn(AD_UNIT_ID);
+        when(nativeAd.getBaseNativeAd()).thenReturn(mockBaseNativeAd);
+        return new TimestampWrapper<NativeAd>(nativeAd);
+    }
+}
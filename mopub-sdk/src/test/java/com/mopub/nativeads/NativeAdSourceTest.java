@@ -4,24 +4,36 @@
 
 package com.mopub.nativeads;
 
+import android.app.Activity;
 import android.os.Handler;
 import android.os.SystemClock;
 
+import androidx.annotation.NonNull;
+
 import com.mopub.common.test.support.SdkTestRunner;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.robolectric.Robolectric;
 import org.robolectric.shadows.ShadowSystemClock;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import static com.mopub.nativeads.MoPubNative.MoPubNativeNetworkListener;
 import static com.mopub.nativeads.NativeAdSource.AdSourceListener;
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -66,7 +78,7 @@ public class NativeAdSourceTest {
     @Test
     public void constructor_shouldInitializeCorrectly() {
         assertThat(subject.mRequestInFlight).isFalse();
-        assertThat(subject.mSequenceNumber).isEqualTo(0);
+        assertThat(subject.mNextSequenceNumber).isEqualTo(0);
         assertThat(subject.getRetryTime()).isEqualTo(defaultRetryTime);
     }
 
@@ -126,18 +138,22 @@ public class NativeAdSourceTest {
         subject.setMoPubNative(mockMoPubNative);
         TimestampWrapper<NativeAd> timestampWrapper =
                 new TimestampWrapper<NativeAd>(mock(NativeAd.class));
+        when(timestampWrapper.mInstance.getAdUnitId()).thenReturn("adUnitId");
+        when(timestampWrapper.mInstance.getBaseNativeAd())
+                .thenReturn(mock(MoPubCustomEventNative.MoPubStaticNativeAd.class));
         nativeAdCache.add(timestampWrapper);
         subject.mRequestInFlight = true;
-        subject.mSequenceNumber = 5;
+        subject.mNextSequenceNumber = 5;
         subject.mCurrentRetries = maxRetries;
 
         subject.loadAds(requestParameters, mockMoPubNative);
 
-        verify(timestampWrapper.mInstance).destroy();
+        verify(timestampWrapper.mInstance, never()).destroy();
+        assertThat(NativeAdInventory.getAdCount("adUnitId", null)).isEqualTo(1);
         assertThat(nativeAdCache).isEmpty();
         verify(mockMoPubNative).destroy();
         verify(mockReplenishCacheHandler).removeMessages(0);
-        assertThat(subject.mSequenceNumber).isEqualTo(0);
+        assertThat(subject.mNextSequenceNumber).isEqualTo(0);
         assertThat(subject.mCurrentRetries).isEqualTo(0);
         assertThat(subject.getRetryTime()).isEqualTo(defaultRetryTime);
 
@@ -155,25 +171,57 @@ public class NativeAdSourceTest {
     }
 
     @Test
-    public void clear_shouldDestroyMoPubNative_shouldClearNativeAdCache_shouldRemovePollHandlerMessages_shouldResetSequenceNumber_shouldResetRequestInFlight_shouldResetRetryTime() {
+    public void clear_shouldDestroyMoPubNative_shouldMoveNativeAdCacheToInventory_shouldRemovePollHandlerMessages_shouldResetSequenceNumber_shouldResetRequestInFlight_shouldResetRetryTime() {
         subject.setMoPubNative(mockMoPubNative);
         TimestampWrapper<NativeAd> timestampWrapper = new TimestampWrapper<NativeAd>(mock(NativeAd.class));
+        when(timestampWrapper.mInstance.getAdUnitId()).thenReturn("adUnitId");
+        when(timestampWrapper.mInstance.getBaseNativeAd())
+                .thenReturn(mock(MoPubCustomEventNative.MoPubStaticNativeAd.class));
         nativeAdCache.add(timestampWrapper);
         subject.mRequestInFlight = true;
-        subject.mSequenceNumber = 5;
+        subject.mNextSequenceNumber = 5;
         subject.mCurrentRetries = maxRetries;
 
         subject.clear();
 
-        verify(timestampWrapper.mInstance).destroy();
+        verify(timestampWrapper.mInstance, never()).destroy();
+        assertThat(NativeAdInventory.getAdCount("adUnitId", null)).isEqualTo(1);
         assertThat(nativeAdCache).isEmpty();
         verify(mockMoPubNative).destroy();
         verify(mockReplenishCacheHandler).removeMessages(0);
         assertThat(subject.mRequestInFlight).isFalse();
-        assertThat(subject.mSequenceNumber).isEqualTo(0);
+        assertThat(subject.mNextSequenceNumber).isEqualTo(0);
         assertThat(subject.getRetryTime()).isEqualTo(defaultRetryTime);
     }
 
+    @Test
+    public void clear_withMediatedAd_shouldDestroyIt() {
+        subject.setMoPubNative(mockMoPubNative);
+        nativeAdCache.add(new TimestampWrapper<NativeAd>(mMockNativeAd));
+        when(mMockNativeAd.getAdUnitId()).thenReturn("adUnitId");
+        when(mMockNativeAd.getBaseNativeAd()).thenReturn(mock(BaseNativeAd.class));
+
+        subject.clear();
+
+        verify(mMockNativeAd).destroy();
+        assertThat(NativeAdInventory.getAdCount("adUnitId", null)).isEqualTo(0);
+        assertThat(nativeAdCache).isEmpty();
+    }
+
+    @Test
+    public void destroy_shouldDestroyMoPubNative_shouldDestroyCachedAds() {
+        subject.setMoPubNative(mockMoPubNative);
+        nativeAdCache.add(new TimestampWrapper<NativeAd>(mMockNativeAd));
+        when(mMockNativeAd.getAdUnitId()).thenReturn("adUnitId");
+
+        subject.destroy();
+
+        verify(mMockNativeAd).destroy();
+        assertThat(NativeAdInventory.getAdCount("adUnitId", null)).isEqualTo(0);
+        assertThat(nativeAdCache).isEmpty();
+        verify(mockMoPubNative).destroy();
+    }
+
     @Test
     public void dequeueAd_withNonStaleAd_shouldReturnNativeAd() {
         subject.setMoPubNative(mockMoPubNative);
@@ -221,6 +269,91 @@ public class NativeAdSourceTest {
         verify(mockReplenishCacheHandler, never()).post(any(Runnable.class));
     }
 
+    @Test
+    public void dequeueAd_withEmptyCache_shouldCountWaitingSlotOnce() {
+        subject.setMoPubNative(mockMoPubNative);
+        assertThat(subject.getDequeueHitRate()).isEqualTo(-1f);
+
+        assertThat(subject.dequeueAd()).isNull();
+        assertThat(subject.dequeueAd()).isNull();
+        assertThat(subject.getDequeueHitRate()).isEqualTo(0f);
+
+        nativeAdCache.add(new TimestampWrapper<NativeAd>(mMockNativeAd));
+        assertThat(subject.dequeueAd()).isEqualTo(mMockNativeAd);
+        nativeAdCache.add(new TimestampWrapper<NativeAd>(mMockNativeAd));
+        assertThat(subject.dequeueAd()).isEqualTo(mMockNativeAd);
+
+        // The waiting slot was served by the first hit, so it is not counted again
+        assertThat(subject.getDequeueHitRate()).isEqualTo(0.5f);
+    }
+
+    @Test
+    public void getTargetCacheSize_shouldFollowDemandWithinMemoryCap() {
+        subject = new NativeAdSource(nativeAdCache, mockReplenishCacheHandler,
+                mockAdRendererRegistry, NativeAdSource.MAX_CACHE_LIMIT);
+        subject.setMoPubNative(mockMoPubNative);
+        assertThat(subject.getTargetCacheSize()).isEqualTo(NativeAdSource.MIN_CACHE_LIMIT);
+
+        dequeueAds(2);
+        // 2 ads a second, filled in a second
+        assertThat(subject.getTargetCacheSize()).isEqualTo(3);
+
+        dequeueAds(6);
+        assertThat(subject.getTargetCacheSize()).isEqualTo(NativeAdSource.MAX_CACHE_LIMIT);
+
+        Robolectric.getForegroundThreadScheduler().advanceBy(
+                NativeAdSource.DEMAND_WINDOW_MILLISECONDS, TimeUnit.MILLISECONDS);
+        assertThat(subject.getTargetCacheSize()).isEqualTo(NativeAdSource.MIN_CACHE_LIMIT);
+    }
+
+    @Test
+    public void getTargetCacheSize_withSmallHeap_shouldNotExceedMaxCacheSize() {
+        subject = new NativeAdSource(nativeAdCache, mockReplenishCacheHandler,
+                mockAdRendererRegistry, 2);
+        subject.setMoPubNative(mockMoPubNative);
+
+        dequeueAds(6);
+
+        assertThat(subject.getTargetCacheSize()).isEqualTo(2);
+    }
+
+    @Test
+    public void replenishCache_withHighDemand_shouldRequestUntilTargetIsMet() {
+        subject = new NativeAdSource(nativeAdCache, mockReplenishCacheHandler,
+                mockAdRendererRegistry, NativeAdSource.MAX_CACHE_LIMIT);
+        subject.setMoPubNative(mockMoPubNative);
+        dequeueAds(2);
+
+        subject.getMoPubNativeNetworkListener().onNativeLoad(mMockNativeAd);
+        subject.getMoPubNativeNetworkListener().onNativeLoad(mMockNativeAd);
+
+        // With the default cache size, a single cached ad would stop the requests
+        assertThat(nativeAdCache).hasSize(2);
+        assertThat(subject.mRequestInFlight).isTrue();
+    }
+
+    @Test
+    public void computeMaxCacheSize_shouldScaleWithHeap() {
+        assertThat(NativeAdSource.computeMaxCacheSize(32 * 1024 * 1024))
+                .isEqualTo(NativeAdSource.MIN_CACHE_LIMIT);
+        assertThat(NativeAdSource.computeMaxCacheSize(
+                3 * 64 * NativeAdSource.ESTIMATED_AD_BYTES)).isEqualTo(3);
+        assertThat(NativeAdSource.computeMaxCacheSize(Long.MAX_VALUE))
+                .isEqualTo(NativeAdSource.MAX_CACHE_LIMIT);
+    }
+
+    @Test
+    public void moPubNativeNetworkListener_onNativeLoad_shouldUpdateAverageFillTime() {
+        subject.setMoPubNative(mockMoPubNative);
+        subject.replenishCache();
+        Robolectric.getForegroundThreadScheduler().advanceBy(3000, TimeUnit.MILLISECONDS);
+
+        subject.getMoPubNativeNetworkListener().onNativeLoad(mMockNativeAd);
+
+        assertThat(subject.mAverageFillMillis).isEqualTo(
+                (3 * NativeAdSource.DEFAULT_FILL_MILLISECONDS + 3000) / 4);
+    }
+
     @Test
     public void updateRetryTime_shouldUpdateRetryTimeUntilAt10Minutes() {
         int retryTime = 0;
@@ -316,16 +449,71 @@ public class NativeAdSourceTest {
     }
 
     @Test
-    public void moPubNativeNetworkListener_onNativeLoad_shouldIncrementSequenceNumber_shouldResetRetryTime() {
+    public void moPubNativeNetworkListener_onNativeLoad_shouldResetRetryTime() {
         subject.setMoPubNative(mockMoPubNative);
 
         subject.mCurrentRetries = maxRetries;
-        subject.mSequenceNumber = 5;
 
         subject.getMoPubNativeNetworkListener().onNativeLoad(mMockNativeAd);
 
         assertThat(subject.getRetryTime()).isEqualTo(defaultRetryTime);
-        assertThat(subject.mSequenceNumber).isEqualTo(6);
+    }
+
+    @Test
+    public void replenishCache_shouldGiveEachRequestTheNextSequenceNumber() {
+        subject.setMoPubNative(mockMoPubNative);
+
+        subject.replenishCache();
+        subject.getMoPubNativeNetworkListener().onNativeFail(NativeErrorCode.NETWORK_NO_FILL);
+        subject.replenishCache();
+
+        verify(mockMoPubNative).makeRequest(any(RequestParameters.class), eq(0));
+        verify(mockMoPubNative).makeRequest(any(RequestParameters.class), eq(1));
+        assertThat(subject.mNextSequenceNumber).isEqualTo(2);
+    }
+
+    @Test
+    public void replenishCache_withConcurrentRequestsCompletingOutOfOrder_shouldNeverReuseSequenceNumber() {
+        final MoPubNative firstAdditionalMoPubNative = mock(MoPubNative.class);
+        final MoPubNative secondAdditionalMoPubNative = mock(MoPubNative.class);
+        final Iterator<MoPubNative> moPubNatives = Arrays.asList(mockMoPubNative,
+                firstAdditionalMoPubNative, secondAdditionalMoPubNative).iterator();
+        final List<MoPubNativeNetworkListener> listeners =
+                new ArrayList<MoPubNativeNetworkListener>();
+        subject = new NativeAdSource(nativeAdCache, mockReplenishCacheHandler,
+                mockAdRendererRegistry, NativeAdSource.MAX_CACHE_LIMIT) {
+            @NonNull
+            @Override
+            MoPubNative createMoPubNative(@NonNull final Activity activity,
+                    @NonNull final String adUnitId,
+                    @NonNull final MoPubNativeNetworkListener moPubNativeNetworkListener) {
+                listeners.add(moPubNativeNetworkListener);
+                return moPubNatives.next();
+            }
+        };
+        final Activity activity = Robolectric.buildActivity(Activity.class).create().get();
+        subject.loadAds(activity, "adUnitId", requestParameters);
+        // Enough demand for the maximum number of concurrent requests
+        dequeueAds(6);
+        subject.replenishCache();
+        assertThat(listeners).hasSize(3);
+
+        // The main request completes first, then the additional ones in reverse order
+        listeners.get(0).onNativeLoad(mock(NativeAd.class));
+        listeners.get(2).onNativeLoad(mock(NativeAd.class));
+        listeners.get(1).onNativeLoad(mock(NativeAd.class));
+
+        final List<Integer> sequenceNumbers = new ArrayList<Integer>();
+        for (final MoPubNative moPubNative : Arrays.asList(mockMoPubNative,
+                firstAdditionalMoPubNative, secondAdditionalMoPubNative)) {
+            final ArgumentCaptor<Integer> sequenceNumberCaptor =
+                    ArgumentCaptor.forClass(Integer.class);
+            verify(moPubNative, atLeastOnce()).makeRequest(any(RequestParameters.class),
+                    sequenceNumberCaptor.capture());
+            sequenceNumbers.addAll(sequenceNumberCaptor.getAllValues());
+        }
+        assertThat(sequenceNumbers.size()).isGreaterThan(3);
+        assertThat(new HashSet<Integer>(sequenceNumbers)).hasSize(sequenceNumbers.size());
     }
 
     @SuppressWarnings("unchecked")
@@ -382,4 +570,11 @@ public class NativeAdSourceTest {
         assertThat(subject.getRetryTime()).isEqualTo(defaultRetryTime);
         verify(mockReplenishCacheHandler, never()).postDelayed(any(Runnable.class), anyLong());
     }
+
+    private void dequeueAds(final int count) {
+        for (int i = 0; i < count; i++) {
+            nativeAdCache.add(new TimestampWrapper<NativeAd>(mock(NativeAd.class)));
+            subject.dequeueAd();
+        }
+    }
 }
@@ -80,6 +80,7 @@ public class AdLoaderTest {
     @After
     public void teardown() {
         RequestRateTrackerTest.clearRequestRateTracker();
+        AdLoader.clearPrefetchesForTesting();
     }
 
     @Test
@@ -285,7 +286,81 @@ public class AdLoaderTest {
         assertThat(subject.hasMoreAds()).isTrue();
     }
 
+    @Test
+    public void loadNextAd_withPrefetcher_shouldPrefetchNextLineItem_shouldReleaseSlotWhenHandedOut()
+            throws Exception {
+        final AdLoader.Prefetcher mockPrefetcher = mock(AdLoader.Prefetcher.class);
+        AdLoader.setPrefetcher(mockPrefetcher);
+        final MultiAdResponse multiAdResponse = createMultiAdResponse(3);
+        getPrivateField("mMultiAdResponse").set(subject, multiAdResponse);
+
+        subject.loadNextAd(null);
+
+        final AdResponse secondResponse = multiAdResponse.peek();
+        verify(mockPrefetcher).prefetch(any(Context.class), eq(secondResponse));
+        assertThat(AdLoader.getPrefetchCountForTesting(adUnitId)).isEqualTo(1);
+
+        subject.loadNextAd(UNSPECIFIED);
+
+        verify(mockPrefetcher, never()).cancel(any(AdResponse.class));
+        verify(mockPrefetcher).prefetch(any(Context.class), eq(multiAdResponse.peek()));
+        assertThat(AdLoader.getPrefetchCountForTesting(adUnitId)).isEqualTo(1);
+    }
+
+    @Test
+    public void creativeDownloadSuccess_withPrefetch_shouldCancelPrefetchAndReleaseSlot()
+            throws Exception {
+        final AdLoader.Prefetcher mockPrefetcher = mock(AdLoader.Prefetcher.class);
+        AdLoader.setPrefetcher(mockPrefetcher);
+        final MultiAdResponse multiAdResponse = createMultiAdResponse(2);
+        getPrivateField("mMultiAdResponse").set(subject, multiAdResponse);
+        subject.loadNextAd(null);
+
+        subject.creativeDownloadSuccess();
+
+        verify(mockPrefetcher).cancel(eq(multiAdResponse.peek()));
+        assertThat(AdLoader.getPrefetchCountForTesting(adUnitId)).isEqualTo(0);
+    }
+
+    @Test
+    public void loadNextAd_withPrefetchSlotTakenByAnotherLoader_shouldNotPrefetch()
+            throws Exception {
+        final AdLoader.Prefetcher mockPrefetcher = mock(AdLoader.Prefetcher.class);
+        AdLoader.setPrefetcher(mockPrefetcher);
+        final AdLoader otherLoader = new AdLoader("test-url", AdFormat.BANNER, adUnitId,
+                activity, mockListener);
+        getPrivateField("mMultiAdResponse").set(otherLoader, createMultiAdResponse(2));
+        getPrivateField("mMultiAdResponse").set(subject, createMultiAdResponse(2));
+
+        otherLoader.loadNextAd(null);
+        subject.loadNextAd(null);
+
+        verify(mockPrefetcher, times(1)).prefetch(any(Context.class), any(AdResponse.class));
+        assertThat(AdLoader.getPrefetchCountForTesting(adUnitId))
+                .isEqualTo(AdLoader.MAX_PREFETCHES_PER_AD_UNIT);
+    }
+
+    @Test
+    public void loadNextAd_withoutPrefetcher_shouldNotTakeSlot() throws Exception {
+        getPrivateField("mMultiAdResponse").set(subject, createMultiAdResponse(2));
+
+        subject.loadNextAd(null);
+
+        assertThat(AdLoader.getPrefetchCountForTesting(adUnitId)).isEqualTo(0);
+    }
+
     // -----------  utils  -----------
+    private MultiAdResponse createMultiAdResponse(final int count)
+            throws JSONException, MoPubNetworkError {
+        final JSONObject[] adResponses = new JSONObject[count];
+        for (int i = 0; i < count; i++) {
+            adResponses[i] = createAdResponseJson("trackingUrl" + i, "content_" + i);
+        }
+        final byte[] body = createResponseBody(null, adResponses);
+        final NetworkResponse testResponse = new NetworkResponse(200, body, headers, false);
+        return new MultiAdResponse(activity, testResponse, AdFormat.BANNER, adUnitId);
+    }
+
     private static Field getPrivateField(final String name) throws NoSuchFieldException {
         Field declaredField = AdLoader.class.getDeclaredField(name);
         declaredField.setAccessible(true);
@@ -0,0 +1,137 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.app.Activity;
+
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.common.util.ResponseHeader;
+import com.mopub.volley.NetworkResponse;
+import com.mopub.volley.Response;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class MoPubRequestTest {
+    private static final String MOPUB_URL = "https://ads.mopub.com/m/ad?id=adunit&q=keywords";
+
+    private Activity activity;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).create().get();
+        NetworkTrafficStats.clearForTesting();
+    }
+
+    @After
+    public void tearDown() {
+        Networking.setRequestBodyGzipEnabled(false);
+    }
+
+    @Test
+    public void getBody_withGzipEnabled_shouldCompressBodyAndAddContentEncoding() throws Exception {
+        Networking.setRequestBodyGzipEnabled(true);
+        final TestRequest subject = new TestRequest(activity, MOPUB_URL);
+
+        final byte[] body = subject.getBody();
+
+        assertThat(gunzip(body)).isEqualTo(subject.getBodyString());
+        assertThat(subject.getHeaders().get(ResponseHeader.CONTENT_ENCODING.getKey()))
+                .isEqualTo("gzip");
+        assertThat(NetworkTrafficStats.getRequestBodyBytes())
+                .isEqualTo(subject.getBodyString().length());
+        assertThat(NetworkTrafficStats.getRequestBodyBytesSent()).isEqualTo(body.length);
+    }
+
+    @Test
+    public void getBody_withGzipDisabled_shouldNotCompressBody() {
+        final TestRequest subject = new TestRequest(activity, MOPUB_URL);
+
+        final byte[] body = subject.getBody();
+
+        assertThat(new String(body)).isEqualTo(subject.getBodyString());
+        assertThat(subject.getHeaders().containsKey(ResponseHeader.CONTENT_ENCODING.getKey()))
+                .isFalse();
+        assertThat(NetworkTrafficStats.getRequestBodyBytesSent()).isEqualTo(body.length);
+    }
+
+    @Test
+    public void getBody_withGzipEnabled_withNonMoPubUrl_shouldHaveNoBody() {
+        Networking.setRequestBodyGzipEnabled(true);
+        final TestRequest subject = new TestRequest(activity, "https://www.notmopub.com/?a=b");
+
+        assertThat(subject.getBody()).isNull();
+        assertThat(subject.getHeaders().containsKey(ResponseHeader.CONTENT_ENCODING.getKey()))
+                .isFalse();
+    }
+
+    @Test
+    public void getBody_withGzipEnabled_shouldBuildBodyOnce() {
+        Networking.setRequestBodyGzipEnabled(true);
+        final TestRequest subject = new TestRequest(activity, MOPUB_URL);
+
+        final String bodyString = subject.getBodyString();
+        final byte[] body = subject.getBody();
+
+        assertThat(subject.getBodyString()).isSameAs(bodyString);
+        assertThat(subject.getBody()).isSameAs(body);
+        assertThat(NetworkTrafficStats.getRequestBodyBytesSent()).isEqualTo(2 * body.length);
+    }
+
+    @Test
+    public void getParams_withGeneratedParams_shouldUseThemInsteadOfParsingUrl() {
+        final Map<String, String> generatedParams = new HashMap<String, String>();
+        generatedParams.put("id", "generated");
+        final TestRequest subject = new TestRequest(activity, MOPUB_URL, generatedParams);
+
+        final Map<String, String> params = subject.getParams();
+
+        assertThat(params).hasSize(1);
+        assertThat(params.get("id")).isEqualTo("generated");
+    }
+
+    private static String gunzip(final byte[] bytes) throws Exception {
+        final GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(bytes));
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[64];
+        int count;
+        while ((count = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, count);
+        }
+        return outputStream.toString();
+    }
+
+    private static class TestRequest extends MoPubRequest<Void> {
+        TestRequest(final Activity activity, final String url) {
+            super(activity, url, null);
+        }
+
+        TestRequest(final Activity activity, final String url,
+                final Map<String, String> generatedParams) {
+            super(activity, url, generatedParams, null);
+        }
+
+        @Override
+        protected Response<Void> parseNetworkResponse(final NetworkResponse response) {
+            return null;
+        }
+
+        @Override
+        protected void deliverResponse(final Void response) {
+        }
+    }
+}
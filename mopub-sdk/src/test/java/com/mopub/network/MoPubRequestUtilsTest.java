@@ -7,6 +7,7 @@ package com.mopub.network;
 import android.app.Activity;
 import android.content.Context;
 
+import com.mopub.common.BaseUrlGenerator;
 import com.mopub.common.Constants;
 import com.mopub.common.test.support.SdkTestRunner;
 import com.mopub.volley.Request;
@@ -131,6 +132,48 @@ public class MoPubRequestUtilsTest {
         assertThat(result).isEmpty();
     }
 
+    @Test
+    public void convertQueryToMap_withGeneratedParams_shouldMatchParsedQueryMap() {
+        final BaseUrlGenerator generator = new BaseUrlGenerator() {
+            @Override
+            public String generateUrlString(String serverHostname) {
+                initUrlString(serverHostname, Constants.AD_HANDLER);
+                addParam("id", "ad unit");
+                addParam("q", "key:value&other=1,2");
+                addParam("q", "more");
+                addParam("mr", true);
+                addParam("empty", "");
+                return getFinalUrlString();
+            }
+        };
+        final String url = generator.generateUrlString(Constants.HOST);
+
+        final Map<String, String> generatedResult = MoPubRequestUtils.convertQueryToMap(context,
+                url, generator.getGeneratedParams(url));
+        final Map<String, String> parsedResult = MoPubRequestUtils.convertQueryToMap(context, url);
+
+        assertThat(generatedResult.get("q")).isEqualTo("key:value&other=1,2,more");
+        assertThat(generatedResult).isEqualTo(parsedResult);
+    }
+
+    @Test
+    public void getGeneratedParams_withUrlNotBuiltLast_shouldReturnNull() {
+        final BaseUrlGenerator generator = new BaseUrlGenerator() {
+            @Override
+            public String generateUrlString(String serverHostname) {
+                initUrlString(serverHostname, Constants.AD_HANDLER);
+                addParam("id", serverHostname);
+                return getFinalUrlString();
+            }
+        };
+        final String firstUrl = generator.generateUrlString(Constants.HOST);
+        final String secondUrl = generator.generateUrlString("other." + Constants.HOST);
+
+        assertThat(generator.getGeneratedParams(firstUrl)).isNull();
+        assertThat(generator.getGeneratedParams(secondUrl).get("id"))
+                .isEqualTo("other." + Constants.HOST);
+    }
+
     @Test
     public void generateBodyFromParams_withParamsMap_withMoPubUrl_shouldGenerateJsonString() {
         final String result = MoPubRequestUtils.generateBodyFromParams(params,
@@ -24,6 +24,9 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.robolectric.Robolectric;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -79,4 +82,40 @@ public class PlayServicesUrlRewriterTest {
     public void rewriteUrl_noTemplates_shouldReturnIdentical() throws Exception {
         assertThat(subject.rewriteUrl("https://ads.mopub.com/m/ad")).isEqualTo("https://ads.mopub.com/m/ad");
     }
+
+    @Test
+    public void rewriteParams_shouldUseAdvertisingIdValue() {
+        when(mockPersonalInfoManager.canCollectPersonalInformation()).thenReturn(true);
+        final AdvertisingId adId = ClientMetadata.getInstance().getMoPubIdentifier()
+                .getAdvertisingInfo();
+        final Map<String, String> params = new HashMap<>();
+        params.put("ad_id", "abcece");
+        params.put("ifa", PlayServicesUrlRewriter.IFA_TEMPLATE);
+        params.put("dnt", PlayServicesUrlRewriter.DO_NOT_TRACK_TEMPLATE);
+        params.put("tas", PlayServicesUrlRewriter.TAS_TEMPLATE);
+        params.put("mid", PlayServicesUrlRewriter.MOPUB_ID_TEMPLATE);
+
+        final Map<String, String> result = subject.rewriteParams(params);
+
+        assertThat(result).hasSize(5);
+        assertThat(result.get("ad_id")).isEqualTo("abcece");
+        assertThat(result.get("ifa")).isEqualTo(adId.getIdentifier(true));
+        assertThat(result.get("dnt")).isEqualTo("0");
+        assertThat(result.get("tas")).isEqualTo("authorized");
+        assertThat(result.get("mid")).isEqualTo(adId.getIdentifier(false));
+        assertThat(params.get("ifa")).isEqualTo(PlayServicesUrlRewriter.IFA_TEMPLATE);
+    }
+
+    @Test
+    public void rewriteParams_withoutConsent_shouldRemoveIfa() {
+        when(mockPersonalInfoManager.canCollectPersonalInformation()).thenReturn(false);
+        final Map<String, String> params = new HashMap<>();
+        params.put("ifa", PlayServicesUrlRewriter.IFA_TEMPLATE);
+        params.put("dnt", PlayServicesUrlRewriter.DO_NOT_TRACK_TEMPLATE);
+
+        final Map<String, String> result = subject.rewriteParams(params);
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get("dnt")).isEqualTo("0");
+    }
 }
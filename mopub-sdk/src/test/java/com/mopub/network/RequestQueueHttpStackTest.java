@@ -0,0 +1,122 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.common.util.ResponseHeader;
+import com.mopub.volley.Header;
+import com.mopub.volley.Request;
+import com.mopub.volley.toolbox.HttpResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(SdkTestRunner.class)
+public class RequestQueueHttpStackTest {
+    private static final String BODY = "{\"ad-responses\":[{\"content\":\"<html></html>\"}]}";
+
+    @Before
+    public void setUp() {
+        NetworkTrafficStats.clearForTesting();
+    }
+
+    @Test
+    public void addHeaders_withMoPubUrl_shouldAcceptGzip() {
+        final Request<?> request = mock(Request.class);
+        when(request.getUrl()).thenReturn("https://ads.mopub.com/m/ad");
+
+        final Map<String, String> headers =
+                new RequestQueueHttpStack("user agent").addHeaders(request, null);
+
+        assertThat(headers.get(ResponseHeader.USER_AGENT.getKey())).isEqualTo("user agent");
+        assertThat(headers.get(ResponseHeader.ACCEPT_ENCODING.getKey())).isEqualTo("gzip");
+    }
+
+    @Test
+    public void addHeaders_withNonMoPubUrl_shouldNotAddAcceptEncoding() {
+        final Request<?> request = mock(Request.class);
+        when(request.getUrl()).thenReturn("https://tracker.example.com/impression");
+
+        final Map<String, String> headers =
+                new RequestQueueHttpStack("user agent").addHeaders(request, null);
+
+        assertThat(headers.get(ResponseHeader.USER_AGENT.getKey())).isEqualTo("user agent");
+        assertThat(headers.containsKey(ResponseHeader.ACCEPT_ENCODING.getKey())).isFalse();
+    }
+
+    @Test
+    public void decodeResponse_withGzipContent_shouldDecompressAndCountBytes() throws Exception {
+        final byte[] compressed = gzip(BODY.getBytes());
+        final HttpResponse response = new HttpResponse(200, Arrays.asList(
+                new Header("Content-Encoding", "gzip"),
+                new Header("Content-Length", String.valueOf(compressed.length)),
+                new Header("Content-Type", "application/json")),
+                compressed.length, new ByteArrayInputStream(compressed));
+
+        final HttpResponse result = RequestQueueHttpStack.decodeResponse(response);
+
+        assertThat(readFully(result.getContent())).isEqualTo(BODY);
+        assertThat(result.getHeaders()).containsOnly(
+                new Header("Content-Type", "application/json"));
+        assertThat(result.getContentLength()).isEqualTo(-1);
+        assertThat(NetworkTrafficStats.getResponseBodyBytes()).isEqualTo(BODY.length());
+        assertThat(NetworkTrafficStats.getResponseBodyBytesReceived())
+                .isEqualTo(compressed.length);
+    }
+
+    @Test
+    public void decodeResponse_withIdentityContent_shouldReturnSameBodyAndCountBytes()
+            throws Exception {
+        final HttpResponse response = new HttpResponse(200, Arrays.asList(
+                new Header("Content-Type", "application/json")),
+                BODY.length(), new ByteArrayInputStream(BODY.getBytes()));
+
+        final HttpResponse result = RequestQueueHttpStack.decodeResponse(response);
+
+        assertThat(readFully(result.getContent())).isEqualTo(BODY);
+        assertThat(result.getHeaders()).isEqualTo(response.getHeaders());
+        assertThat(result.getContentLength()).isEqualTo(BODY.length());
+        assertThat(NetworkTrafficStats.getResponseBodyBytes()).isEqualTo(BODY.length());
+        assertThat(NetworkTrafficStats.getResponseBodyBytesReceived()).isEqualTo(BODY.length());
+    }
+
+    @Test
+    public void decodeResponse_withNoContent_shouldReturnResponse() throws Exception {
+        final HttpResponse response = new HttpResponse(204, Arrays.<Header>asList());
+
+        assertThat(RequestQueueHttpStack.decodeResponse(response)).isSameAs(response);
+    }
+
+    private static byte[] gzip(final byte[] bytes) throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+        gzipOutputStream.write(bytes);
+        gzipOutputStream.close();
+        return outputStream.toByteArray();
+    }
+
+    private static String readFully(final InputStream inputStream) throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[16];
+        int count;
+        while ((count = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, count);
+        }
+        inputStream.close();
+        return outputStream.toString();
+    }
+}
@@ -0,0 +1,135 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.app.Activity;
+import android.content.Context;
+
+import com.mopub.common.SharedPreferencesHelper;
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.volley.NoConnectionError;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.robolectric.Robolectric;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+
+import static com.mopub.common.VolleyRequestMatcher.isUrl;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SdkTestRunner.class)
+public class TrackingPixelDispatcherTest {
+    private static final String HOST_URL = "https://tracking.host/";
+
+    @Mock
+    private MoPubRequestQueue mockRequestQueue;
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = Robolectric.buildActivity(Activity.class).create().get();
+        Networking.setRequestQueueForTesting(mockRequestQueue);
+    }
+
+    @Test
+    public void enqueue_withSameUrlInsideDedupeWindow_shouldSendOnce() {
+        TrackingPixelDispatcher.enqueue(context, HOST_URL + "imp", null);
+        TrackingPixelDispatcher.enqueue(context, HOST_URL + "imp", null);
+
+        verify(mockRequestQueue).add(argThat(isUrl(HOST_URL + "imp")));
+    }
+
+    @Test
+    public void enqueue_withSameUrlAfterDedupeWindow_shouldSendTwice() {
+        TrackingPixelDispatcher.enqueue(context, HOST_URL + "imp", null);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(TrackingPixelDispatcher.DEDUPE_WINDOW_MILLIS));
+        TrackingPixelDispatcher.enqueue(context, HOST_URL + "imp", null);
+
+        verify(mockRequestQueue, times(2)).add(argThat(isUrl(HOST_URL + "imp")));
+    }
+
+    @Test
+    public void enqueue_withSameUrlAndListener_shouldSendTwice() {
+        final TrackingRequest.Listener listener = mock(TrackingRequest.Listener.class);
+
+        TrackingPixelDispatcher.enqueue(context, HOST_URL + "conversion", listener);
+        TrackingPixelDispatcher.enqueue(context, HOST_URL + "conversion", listener);
+
+        verify(mockRequestQueue, times(2)).add(argThat(isUrl(HOST_URL + "conversion")));
+    }
+
+    @Test
+    public void enqueue_withMoreThanMaxInFlightForHost_shouldWaitForRequestToFinish() {
+        final int maxInFlight = TrackingPixelDispatcher.MAX_IN_FLIGHT_PER_HOST;
+        for (int i = 0; i <= maxInFlight; i++) {
+            TrackingPixelDispatcher.enqueue(context, HOST_URL + i, null);
+        }
+        TrackingPixelDispatcher.enqueue(context, "https://other.host/", null);
+
+        final ArgumentCaptor<TrackingRequest> requestCaptor =
+                ArgumentCaptor.forClass(TrackingRequest.class);
+        verify(mockRequestQueue, times(maxInFlight + 1)).add(requestCaptor.capture());
+        assertThat(TrackingPixelDispatcher.getInFlightCountForTesting("tracking.host"))
+                .isEqualTo(maxInFlight);
+
+        requestCaptor.getAllValues().get(0).deliverResponse(null);
+
+        verify(mockRequestQueue).add(argThat(isUrl(HOST_URL + maxInFlight)));
+        assertThat(TrackingPixelDispatcher.getInFlightCountForTesting("tracking.host"))
+                .isEqualTo(maxInFlight);
+    }
+
+    @Test
+    public void onErrorResponse_withNoConnection_shouldSendPixelAgainAfterNextSuccess() {
+        TrackingPixelDispatcher.enqueue(context, HOST_URL + "lost", null);
+        final ArgumentCaptor<TrackingRequest> requestCaptor =
+                ArgumentCaptor.forClass(TrackingRequest.class);
+        verify(mockRequestQueue).add(requestCaptor.capture());
+
+        requestCaptor.getValue().deliverError(new NoConnectionError());
+
+        assertThat(SharedPreferencesHelper.getSharedPreferences(context,
+                TrackingPixelDispatcher.TRACKING_PIXEL_PREF_NAME).contains(HOST_URL + "lost"))
+                .isTrue();
+
+        ShadowSystemClock.advanceBy(
+                Duration.ofMillis(TrackingPixelDispatcher.MIN_RETRY_INTERVAL_MILLIS));
+        TrackingPixelDispatcher.enqueue(context, HOST_URL + "found", null);
+        verify(mockRequestQueue, times(2)).add(requestCaptor.capture());
+        requestCaptor.getValue().deliverResponse(null);
+
+        verify(mockRequestQueue, times(2)).add(argThat(isUrl(HOST_URL + "lost")));
+    }
+
+    @Test
+    public void onResponse_forRetriedPixel_shouldForgetPixel() {
+        SharedPreferencesHelper.getSharedPreferences(context,
+                TrackingPixelDispatcher.TRACKING_PIXEL_PREF_NAME)
+                .edit()
+                .putLong(HOST_URL + "lost", System.currentTimeMillis())
+                .commit();
+
+        TrackingPixelDispatcher.enqueue(context, HOST_URL + "imp", null);
+
+        final ArgumentCaptor<TrackingRequest> requestCaptor =
+                ArgumentCaptor.forClass(TrackingRequest.class);
+        verify(mockRequestQueue, times(2)).add(requestCaptor.capture());
+        for (final TrackingRequest request : requestCaptor.getAllValues()) {
+            request.deliverResponse(null);
+        }
+
+        assertThat(SharedPreferencesHelper.getSharedPreferences(context,
+                TrackingPixelDispatcher.TRACKING_PIXEL_PREF_NAME).getAll()).isEmpty();
+    }
+}